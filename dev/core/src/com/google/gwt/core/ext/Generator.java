@@ -71,6 +71,21 @@ public abstract class Generator {
     String[] requiresProperties() default {};
   }
 
+  /**
+   * An optional annotation indicating that several invocations of a Generator may run at the same
+   * time.
+   * <p>
+   * When the compiler resolves the deferred binding requests of several permutations concurrently
+   * (see the {@code gwt.rebind.threads} system property), only requests that are realized by a
+   * Generator with this annotation are run on other threads; all others are run one at a time on
+   * the compiler's main thread. A Generator should only be annotated once it keeps no state in
+   * fields, static or not, that is not safe to share between threads.
+   */
+  @Inherited
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface RunsConcurrently {
+  }
+
   private static final int MAX_SIXTEEN_BIT_NUMBER_STRING_LENGTH = 5;
 
   /**
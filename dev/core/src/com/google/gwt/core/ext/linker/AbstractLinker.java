@@ -56,6 +56,20 @@ public abstract class AbstractLinker extends Linker {
     return new SyntheticArtifact(getClass(), partialPath, what, lastModified);
   }
 
+  /**
+   * A helper method to create an artifact from the concatenation of several
+   * byte arrays without first copying them into one array.
+   *
+   * @param logger a TreeLogger
+   * @param chunks the data to emit, in order
+   * @param partialPath the partial path of the resource
+   * @return an artifact that contains the concatenated data
+   */
+  protected final SyntheticArtifact emitChunks(TreeLogger logger, byte[][] chunks,
+      String partialPath) throws UnableToCompleteException {
+    return new SyntheticArtifact(getClass(), partialPath, chunks, System.currentTimeMillis());
+  }
+
   /**
    * A helper method to create an artifact to emit the contents of an
    * InputStream.
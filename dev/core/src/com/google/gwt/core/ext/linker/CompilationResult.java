@@ -16,6 +16,7 @@
 package com.google.gwt.core.ext.linker;
 
 import com.google.gwt.core.ext.Linker;
+import com.google.gwt.dev.util.Util;
 
 import java.util.Map;
 import java.util.SortedMap;
@@ -43,6 +44,22 @@ public abstract class CompilationResult extends Artifact<CompilationResult> {
    */
   public abstract String[] getJavaScript();
 
+  /**
+   * Returns the JavaScript compilation as UTF-8 bytes, one array per fragment,
+   * in the same order as {@link #getJavaScript()}. Linkers that only prepend
+   * or append text to a fragment should prefer this method, since it allows
+   * the fragment body to be emitted without round-tripping through a String.
+   * Callers must not modify the returned arrays.
+   */
+  public byte[][] getJavaScriptBytes() {
+    String[] js = getJavaScript();
+    byte[][] bytes = new byte[js.length][];
+    for (int i = 0; i < js.length; i++) {
+      bytes[i] = Util.getBytes(js[i]);
+    }
+    return bytes;
+  }
+
   /**
    * Returns the permutation ID.
    */
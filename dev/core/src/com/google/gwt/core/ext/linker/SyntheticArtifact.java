@@ -49,6 +49,19 @@ public class SyntheticArtifact extends EmittedArtifact {
     this.token = diskCache.writeByteArray(data);
   }
 
+  /**
+   * Creates an artifact whose contents are the concatenation of
+   * <code>chunks</code>. The chunks are written straight through to the disk
+   * cache, so a large body can be wrapped without being copied.
+   */
+  public SyntheticArtifact(Class<? extends Linker> linkerType,
+      String partialPath, byte[][] chunks, long lastModified) {
+    super(linkerType, partialPath);
+    assert chunks != null;
+    this.lastModified = lastModified;
+    this.token = diskCache.writeByteArrays(chunks);
+  }
+
   @Override
   public InputStream getContents(TreeLogger logger)
       throws UnableToCompleteException {
@@ -35,12 +35,15 @@ import com.google.gwt.util.tools.Utility;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -111,17 +114,7 @@ public abstract class SelectionScriptLinker extends AbstractLinker {
    */
   public static String splitPrimaryJavaScript(StatementRanges ranges, String js,
       int charsPerChunk, String scriptChunkSeparator, LinkerContext context) {
-    boolean useSourceMaps = false;
-    for (SelectionProperty prop : context.getProperties()) {
-      if (USE_SOURCE_MAPS_PROPERTY.equals(prop.getName())) {
-        String str = prop.tryGetValue();
-        useSourceMaps = str == null ? false : Boolean.parseBoolean(str);
-        break;
-      }
-    }
-
-    // TODO(cromwellian) enable chunking with sourcemaps
-    if (charsPerChunk < 0 || ranges == null || useSourceMaps) {
+    if (!isPrimaryJavaScriptSplit(ranges, charsPerChunk, context)) {
       return js;
     }
 
@@ -163,6 +156,25 @@ public abstract class SelectionScriptLinker extends AbstractLinker {
     }
   }
 
+  /**
+   * Returns whether {@link #splitPrimaryJavaScript} would insert chunk separators, as opposed to
+   * returning the JavaScript unchanged.
+   */
+  private static boolean isPrimaryJavaScriptSplit(StatementRanges ranges, int charsPerChunk,
+      LinkerContext context) {
+    boolean useSourceMaps = false;
+    for (SelectionProperty prop : context.getProperties()) {
+      if (USE_SOURCE_MAPS_PROPERTY.equals(prop.getName())) {
+        String str = prop.tryGetValue();
+        useSourceMaps = str == null ? false : Boolean.parseBoolean(str);
+        break;
+      }
+    }
+
+    // TODO(cromwellian) enable chunking with sourcemaps
+    return charsPerChunk >= 0 && ranges != null && !useSourceMaps;
+  }
+
   private static char lastChar(StringBuilder sb) {
     return sb.charAt(sb.length() - 1);
   }
@@ -247,6 +259,20 @@ public abstract class SelectionScriptLinker extends AbstractLinker {
   protected Collection<Artifact<?>> doEmitCompilation(TreeLogger logger,
       LinkerContext context, CompilationResult result, ArtifactSet artifacts)
       throws UnableToCompleteException {
+    StatementRanges[] ranges = result.getStatementRanges();
+    boolean primaryVerbatim = isPrimaryFragmentBodyVerbatim(context)
+        && !isDeclaredBelow("isPrimaryFragmentBodyVerbatim", "generatePrimaryFragment",
+            "generatePrimaryFragmentString", "wrapPrimaryFragment")
+        && !isPrimaryJavaScriptSplit(ranges == null ? null : ranges[0],
+            charsPerChunk(context, logger), context);
+    boolean deferredVerbatim = isDeferredFragmentBodyVerbatim(context)
+        && !isDeclaredBelow("isDeferredFragmentBodyVerbatim", "generateDeferredFragment",
+            "wrapDeferredFragment");
+    if (primaryVerbatim || deferredVerbatim) {
+      return doEmitCompilationVerbatim(logger, context, result, artifacts, primaryVerbatim,
+          deferredVerbatim);
+    }
+
     String[] js = result.getJavaScript();
 
     Collection<Artifact<?>> toReturn = new ArrayList<Artifact<?>>();
@@ -267,6 +293,93 @@ public abstract class SelectionScriptLinker extends AbstractLinker {
     return toReturn;
   }
 
+  /**
+   * Emits the compilation straight from {@link CompilationResult#getJavaScriptBytes()}, writing
+   * the body of each verbatim fragment between its prefix and suffix without decoding it into a
+   * String. The other fragments are decoded one at a time and take the String path.
+   */
+  private Collection<Artifact<?>> doEmitCompilationVerbatim(TreeLogger logger,
+      LinkerContext context, CompilationResult result, ArtifactSet artifacts,
+      boolean primaryVerbatim, boolean deferredVerbatim) throws UnableToCompleteException {
+    byte[][] js = result.getJavaScriptBytes();
+    String strongName = result.getStrongName();
+
+    Collection<Artifact<?>> toReturn = new ArrayList<Artifact<?>>();
+
+    String primaryPath = strongName + getCompilationExtension(logger, context);
+    if (!primaryVerbatim) {
+      String[] primaryJs = new String[js.length];
+      primaryJs[0] = Util.toString(js[0]);
+      toReturn.add(emitBytes(logger,
+          generatePrimaryFragment(logger, context, result, primaryJs, artifacts), primaryPath));
+    } else {
+      String prefix = getModulePrefix(logger, context, strongName, js.length);
+      String suffix = getModuleSuffix2(logger, context, strongName);
+      if (suffix == null) {
+        logger.log(Type.ERROR, "getModuleSuffix2 was not overridden in "
+            + "linker: " + getClass().getName());
+        throw new UnableToCompleteException();
+      }
+      SymbolMapsLinker.ScriptFragmentEditsArtifact editsArtifact
+          = new SymbolMapsLinker.ScriptFragmentEditsArtifact(strongName, 0);
+      editsArtifact.prefixLines(prefix);
+      artifacts.add(editsArtifact);
+      suffix += wrapPrimaryFragment(logger, context, "", artifacts, result);
+      toReturn.add(emitChunks(logger,
+          new byte[][] {Util.getBytes(prefix), js[0], Util.getBytes(suffix)}, primaryPath));
+    }
+
+    for (int i = 1; i < js.length; i++) {
+      String fragmentPath = FRAGMENT_SUBDIR + File.separator + strongName + File.separator + i
+          + FRAGMENT_EXTENSION;
+      if (!deferredVerbatim) {
+        toReturn.add(emitBytes(logger, Util.getBytes(generateDeferredFragment(logger, context, i,
+            Util.toString(js[i]), artifacts, result)), fragmentPath));
+        continue;
+      }
+      String prefix = getDeferredFragmentPrefix(logger, context, i);
+      String suffix = getDeferredFragmentSuffix2(logger, context, i, strongName);
+      if (suffix == null) {
+        logger.log(Type.ERROR, "getDeferredFragmentSuffix2 "
+            + "was not overridden in linker: " + getClass().getName());
+        throw new UnableToCompleteException();
+      }
+      SymbolMapsLinker.ScriptFragmentEditsArtifact editsArtifact
+          = new SymbolMapsLinker.ScriptFragmentEditsArtifact(strongName, i);
+      editsArtifact.prefixLines(prefix);
+      artifacts.add(editsArtifact);
+      suffix += wrapDeferredFragment(logger, context, i, "", artifacts);
+      toReturn.add(emitChunks(logger,
+          new byte[][] {Util.getBytes(prefix), js[i], Util.getBytes(suffix)}, fragmentPath));
+    }
+
+    toReturn.addAll(emitSelectionInformation(strongName, result));
+    return toReturn;
+  }
+
+  /**
+   * Returns whether one of the given methods is declared by a class between this linker's class
+   * and the class that declares the given opt-in method, that is, whether the opt-in was made
+   * without knowing about an override.
+   */
+  private boolean isDeclaredBelow(String optIn, String... methodNames) {
+    for (Class<?> c = getClass(); c != SelectionScriptLinker.class; c = c.getSuperclass()) {
+      Set<String> declared = new HashSet<String>();
+      for (Method method : c.getDeclaredMethods()) {
+        declared.add(method.getName());
+      }
+      if (declared.contains(optIn)) {
+        return false;
+      }
+      for (String methodName : methodNames) {
+        if (declared.contains(methodName)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   protected List<Artifact<?>> emitSelectionInformation(String strongName,
       CompilationResult result) {
     List<Artifact<?>> emitted = new ArrayList<Artifact<?>>();
@@ -512,6 +625,37 @@ public abstract class SelectionScriptLinker extends AbstractLinker {
   protected abstract String getSelectionScriptTemplate(TreeLogger logger,
       LinkerContext context) throws UnableToCompleteException;
 
+  /**
+   * Returns whether this linker emits the fragments other than the initial fragment as their
+   * prefix, the unmodified fragment body and their suffix, as computed by
+   * {@link #getDeferredFragmentPrefix} and {@link #getDeferredFragmentSuffix2}, followed by what
+   * {@link #wrapDeferredFragment} appends to an empty script. When true, the compiled bytes are
+   * written through to the emitted artifacts without first being decoded into Strings.
+   * <p>
+   * Only linkers whose {@link #wrapDeferredFragment} appends the same text to any script may
+   * return true. Subclasses that override {@link #generateDeferredFragment} or
+   * {@link #wrapDeferredFragment} below the class returning true take the String path.
+   */
+  protected boolean isDeferredFragmentBodyVerbatim(LinkerContext context) {
+    return false;
+  }
+
+  /**
+   * Returns whether this linker emits the initial fragment as its prefix, the unmodified fragment
+   * body and its suffix, as computed by {@link #getModulePrefix(TreeLogger, LinkerContext, String,
+   * int)} and {@link #getModuleSuffix2}, followed by what {@link #wrapPrimaryFragment} appends to
+   * an empty script. When true, the compiled bytes are written through to the emitted artifact
+   * without first being decoded into a String, unless the fragment has to be split into chunks.
+   * <p>
+   * Only linkers whose {@link #wrapPrimaryFragment} appends the same text to any script may return
+   * true. Subclasses that override {@link #generatePrimaryFragment},
+   * {@link #generatePrimaryFragmentString} or {@link #wrapPrimaryFragment} below the class
+   * returning true take the String path.
+   */
+  protected boolean isPrimaryFragmentBodyVerbatim(LinkerContext context) {
+    return false;
+  }
+
   /**
    * Add the Development Mode file to the artifact set.
    */
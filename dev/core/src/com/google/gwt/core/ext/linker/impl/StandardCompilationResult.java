@@ -129,6 +129,11 @@ public class StandardCompilationResult extends CompilationResult {
     return jsStrings;
   }
 
+  @Override
+  public byte[][] getJavaScriptBytes() {
+    return applicationPermutationResult.getJs();
+  }
+
   @Override
   public int getPermutationId() {
     return permutationId;
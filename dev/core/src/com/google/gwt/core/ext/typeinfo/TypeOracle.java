@@ -15,8 +15,11 @@
  */
 package com.google.gwt.core.ext.typeinfo;
 
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -150,6 +153,24 @@ public abstract class TypeOracle {
    */
   public abstract JClassType getJavaLangObject();
 
+  /**
+   * Gets all methods of all types which have the given annotation.
+   *
+   * @return an array of methods, possibly of zero length
+   */
+  public JMethod[] getMethodsAnnotatedWith(
+      Class<? extends Annotation> annotationClass) {
+    List<JMethod> result = new ArrayList<JMethod>();
+    for (JClassType type : getTypes()) {
+      for (JMethod method : type.getMethods()) {
+        if (method.isAnnotationPresent(annotationClass)) {
+          result.add(method);
+        }
+      }
+    }
+    return result.toArray(new JMethod[result.size()]);
+  }
+
   /**
    * Ensure that a package with the specified name exists as well as its parent
    * packages.
@@ -249,6 +270,23 @@ public abstract class TypeOracle {
    */
   public abstract JClassType[] getTypes();
 
+  /**
+   * Gets all types, both top-level and nested, which have the given
+   * annotation, including annotations inherited from their superclasses.
+   *
+   * @return an array of types, possibly of zero length
+   */
+  public JClassType[] getTypesAnnotatedWith(
+      Class<? extends Annotation> annotationClass) {
+    List<JClassType> result = new ArrayList<JClassType>();
+    for (JClassType type : getTypes()) {
+      if (type.isAnnotationPresent(annotationClass)) {
+        result.add(type);
+      }
+    }
+    return result.toArray(new JClassType[result.size()]);
+  }
+
   public abstract JWildcardType getWildcardType(
       JWildcardType.BoundType boundType, JClassType typeBound);
 
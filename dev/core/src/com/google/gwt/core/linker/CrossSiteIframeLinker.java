@@ -559,6 +559,17 @@ public class CrossSiteIframeLinker extends SelectionScriptLinker {
     replaceAll(selectionScript, templateVar, js);
   }
 
+  /**
+   * Unless the code is installed from strings or follows the bootstrap script,
+   * the initial fragment is only surrounded by a prefix and a suffix, so the
+   * compiled code can be written through without copying. Deferred fragments
+   * are always escaped into a string.
+   */
+  @Override
+  protected boolean isPrimaryFragmentBodyVerbatim(LinkerContext context) {
+    return !shouldInstallCode(context) && !shouldIncludeBootstrapInPrimaryFragment(context);
+  }
+
   @Override
   protected void maybeAddHostedModeFile(TreeLogger logger, LinkerContext context,
       ArtifactSet artifacts, CompilationResult result) throws UnableToCompleteException {
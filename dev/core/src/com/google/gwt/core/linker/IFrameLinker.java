@@ -125,6 +125,20 @@ public class IFrameLinker extends SelectionScriptLinker {
     return "com/google/gwt/core/linker/IFrameTemplate.js";
   }
 
+  /**
+   * This linker only surrounds each fragment with a prefix and a suffix, so
+   * the compiled code can be written through without copying.
+   */
+  @Override
+  protected boolean isDeferredFragmentBodyVerbatim(LinkerContext context) {
+    return true;
+  }
+
+  @Override
+  protected boolean isPrimaryFragmentBodyVerbatim(LinkerContext context) {
+    return true;
+  }
+
   protected String modifyPrimaryJavaScript(String js) {
     return js;
   }
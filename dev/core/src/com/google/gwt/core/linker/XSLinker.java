@@ -93,6 +93,15 @@ public class XSLinker extends SelectionScriptLinker {
     return "com/google/gwt/core/linker/XSTemplate.js";
   }
 
+  /**
+   * The initial fragment is only surrounded by a prefix and a suffix, so the
+   * compiled code can be written through without copying.
+   */
+  @Override
+  protected boolean isPrimaryFragmentBodyVerbatim(LinkerContext context) {
+    return true;
+  }
+
    @Override
   protected String wrapDeferredFragment(TreeLogger logger,
       LinkerContext context, int fragment, String js, ArtifactSet artifacts) {
@@ -27,7 +27,6 @@ import com.google.gwt.dev.cfg.PropertyCombinations;
 import com.google.gwt.dev.cfg.Rule;
 import com.google.gwt.dev.javac.CompilationState;
 import com.google.gwt.dev.javac.StandardGeneratorContext;
-import com.google.gwt.dev.jdt.RebindOracle;
 import com.google.gwt.dev.jdt.RebindPermutationOracle;
 import com.google.gwt.dev.jjs.PrecompilationContext;
 import com.google.gwt.dev.shell.StandardRebindOracle;
@@ -35,15 +34,35 @@ import com.google.gwt.dev.util.Util;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Queues;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
+import com.google.gwt.thirdparty.guava.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.Deque;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Creates the context encapsulating necessary data for precompile.
  */
 class PrecompilationContextCreator {
+
+  /**
+   * The number of threads on which the permutations of a rebind request run
+   * their generators, set with {@code -Dgwt.rebind.threads}. With the default
+   * of 1, all generators run on the calling thread.
+   */
+  private static final int REBIND_THREADS = Integer.getInteger("gwt.rebind.threads", 1);
+
+  private static final ExecutorService rebindExecutor = createRebindExecutor();
+
   static PrecompilationContext create(CompilerContext compilerContext,
       final CompilationState compilationState, PropertyCombinations propertyCombinations,
       String[] entryPoints, String[] additionalRootTypes,
@@ -52,7 +71,8 @@ class PrecompilationContextCreator {
     ModuleDef module = compilerContext.getModule();
     final ArtifactSet generatorArtifacts = new ArtifactSet();
     final Permutation[] permutations = new Permutation[propertyCombinations.size()];
-    final RebindOracle[] rebindOracles = new RebindOracle[propertyCombinations.size()];
+    final StandardRebindOracle[] rebindOracles =
+        new StandardRebindOracle[propertyCombinations.size()];
     final StandardGeneratorContext generatorContext =
         new StandardGeneratorContext(compilerContext, compilationState, generatorArtifacts, true);
     BindingProperty[] orderedProperties = propertyCombinations.getOrderedProperties();
@@ -82,15 +102,86 @@ class PrecompilationContextCreator {
 
             Set<String> answers = Sets.newHashSet();
             Event getAllRebindsEvent = SpeedTracerLogger.start(CompilerEventType.GET_ALL_REBINDS);
+            try {
+              String[] resultTypeNames = rebindExecutor != null && permutations.length > 1
+                  ? rebindConcurrently(logger, requestTypeName)
+                  : null;
+              for (int i = 0; i < permutations.length; ++i) {
+                String resultTypeName = resultTypeNames != null && resultTypeNames[i] != null
+                    ? resultTypeNames[i] : rebindOracles[i].rebind(logger, requestTypeName);
+                answers.add(resultTypeName);
+                // Record the correct answer into each permutation.
+                permutations[i].putRebindAnswer(requestTypeName, resultTypeName);
+              }
+            } finally {
+              getAllRebindsEvent.end();
+            }
+            return Util.toArray(String.class, answers);
+          }
+
+          /**
+           * Runs the generators of a request concurrently, once for each set of
+           * permutations in which they read the same property values. The
+           * first such rebind runs on this thread, so that the types it creates
+           * whatever the permutation are seen by the others, which run in forks
+           * of the generator context merged back in permutation order. Returns
+           * the answers by permutation, with null for the permutations that
+           * must be rebound on this thread, or null if there is nothing to run
+           * concurrently.
+           */
+          private String[] rebindConcurrently(final TreeLogger logger,
+              final String requestTypeName) throws UnableToCompleteException {
+            List<Integer> leaders = Lists.newArrayList();
+            Set<Object> keys = Sets.newHashSet();
             for (int i = 0; i < permutations.length; ++i) {
-              String resultTypeName = rebindOracles[i].rebind(logger, requestTypeName);
-              answers.add(resultTypeName);
-              // Record the correct answer into each permutation.
-              permutations[i].putRebindAnswer(requestTypeName, resultTypeName);
+              Object key = rebindOracles[i].getConcurrentRebindKey(logger, requestTypeName);
+              if (key != null && keys.add(key)) {
+                leaders.add(i);
+              }
             }
-            String[] result = Util.toArray(String.class, answers);
-            getAllRebindsEvent.end();
-            return result;
+            if (leaders.size() < 3) {
+              // At most one fork would run next to the first rebind.
+              return null;
+            }
+
+            String[] resultTypeNames = new String[permutations.length];
+            int first = leaders.get(0);
+            resultTypeNames[first] = rebindOracles[first].rebind(logger, requestTypeName);
+
+            StandardGeneratorContext[] forks = new StandardGeneratorContext[permutations.length];
+            @SuppressWarnings("unchecked")
+            Future<String>[] futures = new Future[permutations.length];
+            for (int i : leaders.subList(1, leaders.size())) {
+              final StandardRebindOracle rebindOracle = rebindOracles[i];
+              final StandardGeneratorContext fork = generatorContext.fork();
+              forks[i] = fork;
+              futures[i] = rebindExecutor.submit(new Callable<String>() {
+                @Override
+                public String call() throws UnableToCompleteException {
+                  return rebindOracle.rebindInContext(logger, requestTypeName, fork);
+                }
+              });
+            }
+
+            UnableToCompleteException firstFailure = null;
+            for (int i = 0; i < permutations.length; ++i) {
+              if (futures[i] == null) {
+                continue;
+              }
+              try {
+                resultTypeNames[i] = getUninterruptibly(futures[i]);
+              } catch (UnableToCompleteException e) {
+                if (firstFailure == null) {
+                  firstFailure = e;
+                }
+                continue;
+              }
+              generatorContext.mergeFork(logger, forks[i]);
+            }
+            if (firstFailure != null) {
+              throw firstFailure;
+            }
+            return resultTypeNames;
           }
 
           @Override
@@ -107,4 +198,47 @@ class PrecompilationContextCreator {
     return new PrecompilationContext(rebindPermutationOracle, entryPoints, additionalRootTypes,
         permutations, generatorArtifacts, precompilationMetricsArtifact);
   }
+
+  private static ExecutorService createRebindExecutor() {
+    if (REBIND_THREADS <= 1) {
+      return null;
+    }
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(REBIND_THREADS, REBIND_THREADS, 60L,
+        TimeUnit.SECONDS, Queues.<Runnable>newLinkedBlockingQueue(),
+        // Make sure this executor lets the whole process terminate correctly even if there
+        // are still live threads.
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Rebind %d").build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static String getUninterruptibly(Future<String> future)
+      throws UnableToCompleteException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof UnableToCompleteException) {
+            throw (UnableToCompleteException) cause;
+          }
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new RuntimeException(cause);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
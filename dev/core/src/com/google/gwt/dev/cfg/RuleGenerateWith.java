@@ -17,6 +17,7 @@ package com.google.gwt.dev.cfg;
 
 import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.Generator.RunsLocal;
+import com.google.gwt.core.ext.Generator.RunsConcurrently;
 import com.google.gwt.core.ext.RebindResult;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
@@ -81,6 +82,13 @@ public class RuleGenerateWith extends Rule {
     return true;
   }
 
+  /**
+   * Returns the names of the properties that will be accessed by the Generator being managed here.
+   */
+  public Set<String> getAccessedPropertyNames() {
+    return getAccessedPropertyNames(generatorClass);
+  }
+
   /**
    * Returns the name of the class of Generator being managed here.
    */
@@ -96,6 +104,14 @@ public class RuleGenerateWith extends Rule {
     return result;
   }
 
+  /**
+   * Returns whether the Generator being managed by this rule may run concurrently with other
+   * Generators, as declared by {@link RunsConcurrently}.
+   */
+  public boolean isThreadSafe() {
+    return generatorClass.getAnnotation(RunsConcurrently.class) != null;
+  }
+
   @Override
   public RebindResult realize(TreeLogger logger,
       StandardGeneratorContext context, String typeName)
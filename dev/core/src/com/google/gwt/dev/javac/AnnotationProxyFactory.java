@@ -16,19 +16,90 @@
 package com.google.gwt.dev.javac;
 
 import com.google.gwt.dev.util.collect.Maps;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Creates proxies for annotation objects that...
  */
 class AnnotationProxyFactory {
+  /**
+   * Identifies an annotation by its class and the values of all of its members.
+   */
+  private static class AnnotationKey {
+    private final Class<? extends Annotation> annotationClass;
+    private final int hashCode;
+    private final Map<String, Object> values;
+
+    public AnnotationKey(Class<? extends Annotation> annotationClass,
+        Map<String, Object> values) {
+      this.annotationClass = annotationClass;
+      this.values = values;
+      int hash = annotationClass.hashCode();
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+        hash += entry.getKey().hashCode()
+            ^ Arrays.deepHashCode(new Object[] {entry.getValue()});
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof AnnotationKey)) {
+        return false;
+      }
+      AnnotationKey other = (AnnotationKey) obj;
+      if (annotationClass != other.annotationClass || hashCode != other.hashCode
+          || !values.keySet().equals(other.values.keySet())) {
+        return false;
+      }
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+        if (!Arrays.deepEquals(new Object[] {entry.getValue()},
+            new Object[] {other.values.get(entry.getKey())})) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The members of an annotation class and their default values, which
+   * reflection copies or parses again on every call.
+   */
+  private static class AnnotationMembers {
+    private final Map<String, Object> defaultValues =
+        new HashMap<String, Object>();
+    private final Method[] methods;
+
+    public AnnotationMembers(Class<? extends Annotation> annotationClass) {
+      methods = annotationClass.getDeclaredMethods();
+      for (Method method : methods) {
+        Object defaultValue = method.getDefaultValue();
+        if (defaultValue != null) {
+          defaultValues.put(method.getName(), defaultValue);
+        }
+      }
+    }
+  }
+
   /**
    * {@link InvocationHandler} implementation used by all
    * {@link java.lang.annotation.Annotation Annotation} proxies created by the
@@ -77,11 +148,19 @@ class AnnotationProxyFactory {
     private Class<? extends Annotation> annotationClass;
 
     /**
-     * Maps method names onto values. Note that methods on annotation types
+     * Lazily computed, the values of an annotation never change.
+     */
+    private int hashCode;
+
+    /**
+     * Maps method names onto values, including the default values of members
+     * that were not explicitly provided. Note that methods on annotation types
      * cannot be overloaded because they have zero arguments.
      */
     private final Map<String, Object> identifierToValue;
 
+    private final AnnotationMembers members;
+
     /**
      * A reference to the enclosing proxy object.
      */
@@ -89,9 +168,10 @@ class AnnotationProxyFactory {
 
     public AnnotationProxyInvocationHandler(
         Map<String, Object> identifierToValue,
-        Class<? extends Annotation> annotationClass) {
-      this.identifierToValue = Maps.normalizeUnmodifiable(identifierToValue);
+        Class<? extends Annotation> annotationClass, AnnotationMembers members) {
+      this.identifierToValue = identifierToValue;
       this.annotationClass = annotationClass;
+      this.members = members;
     }
 
     @Override
@@ -112,10 +192,18 @@ class AnnotationProxyFactory {
         return false;
       }
 
+      Map<String, Object> otherValues = null;
+      if (Proxy.isProxyClass(other.getClass())) {
+        InvocationHandler otherHandler = Proxy.getInvocationHandler(other);
+        if (otherHandler instanceof AnnotationProxyInvocationHandler) {
+          otherValues = ((AnnotationProxyInvocationHandler) otherHandler).identifierToValue;
+        }
+      }
+
       try {
-        for (Method method : annotationClass.getDeclaredMethods()) {
-          Object myVal = method.invoke(proxy);
-          Object otherVal = method.invoke(other);
+        for (Method method : members.methods) {
+          Object myVal = getValue(method, proxy, identifierToValue);
+          Object otherVal = getValue(method, other, otherValues);
 
           if (myVal instanceof Object[]) {
             if (!Arrays.equals((Object[]) myVal, (Object[]) otherVal)) {
@@ -171,10 +259,13 @@ class AnnotationProxyFactory {
 
     @Override
     public int hashCode() {
+      if (hashCode != 0) {
+        return hashCode;
+      }
       int sum = 0;
       try {
-        for (Method method : annotationClass.getDeclaredMethods()) {
-          Object myVal = method.invoke(proxy);
+        for (Method method : members.methods) {
+          Object myVal = getValue(method, proxy, identifierToValue);
           int memberHash;
           if (myVal instanceof Object[]) {
             memberHash = Arrays.hashCode((Object[]) myVal);
@@ -208,6 +299,7 @@ class AnnotationProxyFactory {
       } catch (InvocationTargetException e) {
         throw new RuntimeException(e.getTargetException());
       }
+      hashCode = sum;
       return sum;
     }
 
@@ -225,20 +317,15 @@ class AnnotationProxyFactory {
       if (args == null || args.length == 0) {
         // A no-arg method, try to process as an annotation method.
         String name = method.getName();
-        if (identifierToValue.containsKey(name)) {
-          // The value was explicitly provided
-          value = identifierToValue.get(name);
-          assert (value != null);
-        } else {
-          if ("annotationType".equals(method.getName())) {
-            value = annotationClass;
-          } else {
-            value = method.getDefaultValue();
-          }
+        // The value was explicitly provided or is the default.
+        value = identifierToValue.get(name);
+        if (value == null && "annotationType".equals(name)) {
+          value = annotationClass;
         }
         if (value != null) {
           assert (isValidReturnType(method.getReturnType(), value.getClass()));
-          return value;
+          // Proxies are shared, so like the JDK hand out copies of arrays.
+          return value.getClass().isArray() ? copyArray(value) : value;
         }
       }
 
@@ -248,6 +335,30 @@ class AnnotationProxyFactory {
       return method.invoke(this, args);
     }
 
+    /**
+     * Returns a copy of an array of objects or primitives.
+     */
+    private static Object copyArray(Object array) {
+      int length = Array.getLength(array);
+      if (length == 0) {
+        return array;
+      }
+      Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+      System.arraycopy(array, 0, copy, 0, length);
+      return copy;
+    }
+
+    /**
+     * Returns the value of a member from an annotation's known values, falling
+     * back to calling the member.
+     */
+    private static Object getValue(Method method, Object annotation,
+        Map<String, Object> values) throws IllegalAccessException,
+        InvocationTargetException {
+      Object value = values == null ? null : values.get(method.getName());
+      return value != null ? value : method.invoke(annotation);
+    }
+
     public void setProxy(Annotation proxy) {
       this.proxy = proxy;
     }
@@ -259,14 +370,14 @@ class AnnotationProxyFactory {
       msg.append('@').append(qualifiedSourceName).append('(');
       boolean first = true;
       try {
-        for (Method method : annotationClass.getDeclaredMethods()) {
+        for (Method method : members.methods) {
           if (first) {
             first = false;
           } else {
             msg.append(", ");
           }
           msg.append(method.getName()).append('=');
-          Object myVal = method.invoke(proxy);
+          Object myVal = getValue(method, proxy, identifierToValue);
           if (myVal.getClass().isArray()) {
             msg.append(java.util.Arrays.deepToString((Object[]) myVal));
           } else {
@@ -285,15 +396,56 @@ class AnnotationProxyFactory {
     }
   }
 
-  public static Annotation create(Class<? extends Annotation> annotationClass,
+  /**
+   * The members of the annotation classes seen so far.
+   */
+  private static final Cache<Class<? extends Annotation>, AnnotationMembers> annotationMembers =
+      CacheBuilder.newBuilder().weakKeys().softValues().build();
+
+  /**
+   * Annotations already created, so that the same annotation on many members,
+   * or on the same member after a TypeOracle update, is one shared instance.
+   */
+  private static final Cache<AnnotationKey, Annotation> annotations =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  /**
+   * Returns an annotation with the given values. Members which are not
+   * explicitly given take their default values.
+   */
+  public static Annotation create(
+      final Class<? extends Annotation> annotationClass,
       Map<String, Object> identifierToValue) {
-    AnnotationProxyInvocationHandler annotationInvocationHandler = new AnnotationProxyInvocationHandler(
-        identifierToValue, annotationClass);
-    Annotation proxy = (Annotation) Proxy.newProxyInstance(
-        Thread.currentThread().getContextClassLoader(), new Class<?>[] {
-            java.lang.annotation.Annotation.class, annotationClass},
-        annotationInvocationHandler);
-    annotationInvocationHandler.setProxy(proxy);
-    return proxy;
+    final AnnotationMembers members = getMembers(annotationClass);
+    Map<String, Object> values = new HashMap<String, Object>(members.defaultValues);
+    values.putAll(identifierToValue);
+    final Map<String, Object> normalizedValues = Maps.normalizeUnmodifiable(values);
+    try {
+      return annotations.get(new AnnotationKey(annotationClass, normalizedValues),
+          new Callable<Annotation>() {
+            @Override
+            public Annotation call() {
+              AnnotationProxyInvocationHandler annotationInvocationHandler =
+                  new AnnotationProxyInvocationHandler(normalizedValues, annotationClass, members);
+              Annotation proxy = (Annotation) Proxy.newProxyInstance(
+                  Thread.currentThread().getContextClassLoader(), new Class<?>[] {
+                      java.lang.annotation.Annotation.class, annotationClass},
+                  annotationInvocationHandler);
+              annotationInvocationHandler.setProxy(proxy);
+              return proxy;
+            }
+          });
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private static AnnotationMembers getMembers(Class<? extends Annotation> annotationClass) {
+    AnnotationMembers members = annotationMembers.getIfPresent(annotationClass);
+    if (members == null) {
+      members = new AnnotationMembers(annotationClass);
+      annotationMembers.put(annotationClass, members);
+    }
+    return members;
   }
 }
\ No newline at end of file
@@ -46,6 +46,8 @@ import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
 import com.google.gwt.thirdparty.guava.common.annotations.VisibleForTesting;
 import com.google.gwt.thirdparty.guava.common.base.Function;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 import com.google.gwt.thirdparty.guava.common.collect.Collections2;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
 import com.google.gwt.thirdparty.guava.common.collect.Lists;
@@ -88,6 +90,7 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
 
     private final byte[] byteCode;
     private CollectClassData classData;
+    private final CompiledClass compiledClass;
     private final String internalName;
 
     /**
@@ -99,10 +102,26 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
 
     protected TypeData(String packageName, String sourceName, String internalName, byte[] byteCode,
         long lastModifiedTime) {
+      this(packageName, sourceName, internalName, byteCode, null, lastModifiedTime);
+    }
+
+    /**
+     * Creates the data of a compiled class, whose bytecode is only read if it was not already
+     * visited for a previous TypeOracle.
+     */
+    TypeData(CompiledClass compiledClass) {
+      this(compiledClass.getPackageName(), compiledClass.getSourceName(),
+          compiledClass.getInternalName(), null, compiledClass,
+          compiledClass.getUnit().getLastModified());
+    }
+
+    private TypeData(String packageName, String sourceName, String internalName, byte[] byteCode,
+        CompiledClass compiledClass, long lastModifiedTime) {
       this.packageName = packageName;
       this.sourceName = sourceName;
       this.internalName = internalName;
       this.byteCode = byteCode;
+      this.compiledClass = compiledClass;
       this.lastModifiedTime = lastModifiedTime;
     }
 
@@ -112,14 +131,21 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
      * JRealClassType/JGenericType objects.
      */
     synchronized CollectClassData getCollectClassData() {
+      if (classData == null && compiledClass != null) {
+        classData = classDataByCompiledClass.getIfPresent(compiledClass);
+      }
       if (classData == null) {
-        ClassReader reader = new ClassReader(byteCode);
+        ClassReader reader =
+            new ClassReader(compiledClass != null ? compiledClass.getBytes() : byteCode);
         classData = new CollectClassData();
         ClassVisitor classVisitor = classData;
         if (TRACE_CLASSES) {
           classVisitor = new TraceClassVisitor(classVisitor, new PrintWriter(System.out));
         }
         reader.accept(classVisitor, 0);
+        if (compiledClass != null) {
+          classDataByCompiledClass.put(compiledClass, classData);
+        }
       }
       return classData;
     }
@@ -233,6 +259,14 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
 
   private static final JTypeParameter[] NO_TYPE_PARAMETERS = new JTypeParameter[0];
 
+  /**
+   * The visited bytecode of compiled classes. CollectClassData is not modified once built, so it
+   * is reused when the TypeOracle is updated again, for instance after a refresh, for the
+   * compiled classes of units that did not change.
+   */
+  private static final Cache<CompiledClass, CollectClassData> classDataByCompiledClass =
+      CacheBuilder.newBuilder().weakKeys().softValues().build();
+
   /**
    * Turn on to trace class processing.
    */
@@ -323,12 +357,20 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
   /**
    * An executor service to parallelize some of the update process.
    */
-  private static ExecutorService executor =
-      new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS,
-          Queues.<Runnable>newLinkedBlockingQueue(),
-          // Make sure this executor lets the whole process terminate correctly even if there
-          // are still live threads.
-          new ThreadFactoryBuilder().setDaemon(true).build());
+  private static ExecutorService executor = createExecutor();
+
+  private static ExecutorService createExecutor() {
+    // With an unbounded queue a pool never grows past its core size, so the core threads are
+    // the parallelism and are allowed to time out instead.
+    int threads = Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+        Queues.<Runnable>newLinkedBlockingQueue(),
+        // Make sure this executor lets the whole process terminate correctly even if there
+        // are still live threads.
+        new ThreadFactoryBuilder().setDaemon(true).build());
+    threadPool.allowCoreThreadTimeOut(true);
+    return threadPool;
+  }
 
   public CompilationUnitTypeOracleUpdater(TypeOracle typeOracle) {
     super(typeOracle);
@@ -424,8 +466,10 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
     typeOracleUpdaterEvent.end();
   }
 
-  private static void prefechTypeData(Collection<TypeData> typeDataList) {
-    // Parse bytecode in parallel by calling {@code TypeData.getCollectClassData()} in parallel.
+  @VisibleForTesting
+  static void prefechTypeData(Collection<TypeData> typeDataList) {
+    // Read and parse bytecode in parallel by calling {@code TypeData.getCollectClassData()} in
+    // parallel.
     try {
       executor.<Void>invokeAll(Collections2.transform(typeDataList,
           new Function<TypeData, Callable<Void>>() {
@@ -475,15 +519,10 @@ public class CompilationUnitTypeOracleUpdater extends TypeOracleUpdater {
       argsLookup.mergeFrom(compilationUnit.getMethodArgs());
     }
 
-    // Create list including byte code for each type to add
-    // TODO(rluble): this process can be done in parallel. Probably best to merge this for
-    // loop with the one in prefetchTypeData.
+    // Create list of types to add, their byte code is read by prefechTypeData
     for (CompilationUnit compilationUnit : compilationUnits) {
       for (CompiledClass compiledClass : compilationUnit.getCompiledClasses()) {
-        TypeData typeData = new TypeData(compiledClass.getPackageName(),
-            compiledClass.getSourceName(), compiledClass.getInternalName(),
-            compiledClass.getBytes(), compiledClass.getUnit().getLastModified());
-        typeDataList.add(typeData);
+        typeDataList.add(new TypeData(compiledClass));
       }
     }
 
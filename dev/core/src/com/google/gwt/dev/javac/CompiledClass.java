@@ -114,7 +114,10 @@ public class CompiledClass implements Serializable {
     this.enclosingClass = enclosingClass;
     this.internalName = StringInterner.get().intern(internalName);
     this.sourceName = StringInterner.get().intern(sourceName);
-    this.classBytesToken = new DiskCacheToken(diskCache.writeByteArray(classBytes));
+    long token = diskCache.writeByteArray(classBytes);
+    this.classBytesToken = new DiskCacheToken(token);
+    // The wrapper holds the only reference to the class bytes.
+    diskCache.release(token);
     this.isLocal = isLocal;
   }
 
@@ -19,12 +19,14 @@ import com.google.gwt.core.ext.typeinfo.JAbstractMethod;
 import com.google.gwt.dev.javac.asm.CollectMethodData;
 import com.google.gwt.dev.util.StringInterner;
 import com.google.gwt.dev.util.collect.Maps;
+import com.google.gwt.thirdparty.guava.common.base.Joiner;
 
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
 
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Keeps track of method argument names that cannot be read from just the
@@ -48,6 +50,19 @@ public class MethodArgNamesLookup implements Serializable {
     methodArgs = Maps.normalizeUnmodifiable(methodArgs);
   }
 
+  /**
+   * Returns a description of all stored argument names that does not depend on
+   * the order in which they were stored.
+   */
+  String describe() {
+    StringBuilder buf = new StringBuilder();
+    for (String key : new TreeSet<String>(methodArgs.keySet())) {
+      buf.append(key).append('=');
+      Joiner.on(',').appendTo(buf, methodArgs.get(key)).append('\n');
+    }
+    return buf.toString();
+  }
+
   /**
    * Lookup the argument names for a given method.
    *
@@ -0,0 +1,555 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.core.ext.ConfigurationProperty;
+import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.Generator.RunsLocal;
+import com.google.gwt.core.ext.IncrementalGenerator;
+import com.google.gwt.core.ext.SelectionProperty;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
+import com.google.gwt.dev.javac.Dependencies.Ref;
+import com.google.gwt.dev.jjs.ast.JNode;
+import com.google.gwt.dev.resource.Resource;
+import com.google.gwt.dev.util.CompilerVersion;
+import com.google.gwt.dev.util.Util;
+import com.google.gwt.thirdparty.guava.common.base.Joiner;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
+import com.google.gwt.thirdparty.guava.common.collect.Iterables;
+import com.google.gwt.util.tools.Utility;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the output of generators on disk so that a later compilation can
+ * reuse it instead of running the generator again.
+ * <p>
+ * An entry is found by the generator class and version, the requested type,
+ * the compiler version and a hash of the class files of the generator and of
+ * the classes it refers to. While a generator runs, the properties, resources
+ * and rebind rules it asks about are recorded as {@link Inputs}, together with
+ * the types it can read; the output is reused only if all of them still read
+ * the same. Each entry keeps several variants, typically one per permutation.
+ * <p>
+ * A type is compared by what the type oracle reads from it, so editing the
+ * body of a method does not invalidate anything. A generator annotated with
+ * {@link RunsLocal} can only read the requested type and the types it refers
+ * to, directly or not, so only these are recorded. Any other generator may
+ * read all types and is rerun if any of them changes. Resources that a
+ * generator loads through a class loader instead of its context's resource
+ * oracle are not recorded, so changes to them are not noticed; nor are changes
+ * to classes a generator only loads by name.
+ * <p>
+ * Enabled with {@code -Dgwt.persistentgeneratorcachedir=<dir>}.
+ */
+class PersistentGeneratorCache {
+
+  /**
+   * Answers the questions a generator asked, for the current rebind.
+   */
+  interface InputReader {
+    /**
+     * Returns {@link Inputs#describe} of the named configuration property, or
+     * null if it does not exist.
+     */
+    String readConfigurationProperty(String name);
+
+    /**
+     * Returns {@link Inputs#describe} of the named selection property, or null
+     * if it does not exist.
+     */
+    String readSelectionProperty(String name);
+
+    /**
+     * Returns {@link Inputs#hash} of the resource at the given path.
+     */
+    String readResource(String path);
+
+    boolean readRebindRuleAvailable(String typeName);
+
+    /**
+     * Returns {@link PersistentGeneratorCache#fingerprint(Collection)} of all
+     * compilation units.
+     */
+    String readAllTypes();
+
+    /**
+     * Returns {@link PersistentGeneratorCache#fingerprint(CompilationUnit)} of
+     * the compilation unit of the named top level type, or null if it does not
+     * exist.
+     */
+    String readType(String typeName);
+  }
+
+  /**
+   * The inputs a generator read through its context while it ran.
+   */
+  static class Inputs implements Serializable {
+
+    private static final String CONFIGURATION_PREFIX = "configuration:";
+    private static final String SELECTION_PREFIX = "selection:";
+
+    static String describe(ConfigurationProperty property) {
+      return property == null ? null : Joiner.on(',').useForNull("").join(property.getValues());
+    }
+
+    static String describe(SelectionProperty property) {
+      return property == null ? null : property.getCurrentValue() + ":"
+          + property.getFallbackValue() + ":" + Joiner.on(',').join(property.getPossibleValues());
+    }
+
+    static String hash(Resource resource) {
+      if (resource == null) {
+        return "";
+      }
+      InputStream in = null;
+      try {
+        in = resource.openContents();
+        return Util.computeStrongName(Util.readStreamAsBytes(in));
+      } catch (IOException e) {
+        return "!" + e.getMessage();
+      } finally {
+        Utility.close(in);
+      }
+    }
+
+    private final Map<String, String> properties = new TreeMap<String, String>();
+    private final Map<String, Boolean> rebindRules = new TreeMap<String, Boolean>();
+    private final Map<String, String> resources = new TreeMap<String, String>();
+    private final Map<String, String> types = new TreeMap<String, String>();
+    private String allTypes;
+    private boolean cacheable = true;
+
+    /**
+     * Marks the output as depending on something that is not recorded, such as
+     * a listing of all resources.
+     */
+    synchronized void markUncacheable() {
+      cacheable = false;
+    }
+
+    synchronized void recordConfigurationProperty(String name, ConfigurationProperty property) {
+      properties.put(CONFIGURATION_PREFIX + name, describe(property));
+    }
+
+    synchronized void recordSelectionProperty(String name, SelectionProperty property) {
+      properties.put(SELECTION_PREFIX + name, describe(property));
+    }
+
+    synchronized void recordRebindRule(String typeName, boolean available) {
+      rebindRules.put(typeName, available);
+    }
+
+    synchronized void recordResource(String path, Resource resource) {
+      if (!resources.containsKey(path)) {
+        resources.put(path, hash(resource));
+      }
+    }
+
+    synchronized void recordAllTypes(String fingerprint) {
+      allTypes = fingerprint;
+    }
+
+    synchronized void recordType(String typeName, String fingerprint) {
+      types.put(typeName, fingerprint);
+    }
+
+    synchronized boolean isCacheable() {
+      return cacheable;
+    }
+
+    boolean matches(InputReader reader) {
+      for (Map.Entry<String, String> entry : properties.entrySet()) {
+        String key = entry.getKey();
+        String current = key.startsWith(SELECTION_PREFIX)
+            ? reader.readSelectionProperty(key.substring(SELECTION_PREFIX.length()))
+            : reader.readConfigurationProperty(key.substring(CONFIGURATION_PREFIX.length()));
+        if (!Util.equalsNullCheck(entry.getValue(), current)) {
+          return false;
+        }
+      }
+      for (Map.Entry<String, String> entry : resources.entrySet()) {
+        if (!entry.getValue().equals(reader.readResource(entry.getKey()))) {
+          return false;
+        }
+      }
+      for (Map.Entry<String, Boolean> entry : rebindRules.entrySet()) {
+        if (entry.getValue() != reader.readRebindRuleAvailable(entry.getKey())) {
+          return false;
+        }
+      }
+      if (allTypes != null && !allTypes.equals(reader.readAllTypes())) {
+        return false;
+      }
+      for (Map.Entry<String, String> entry : types.entrySet()) {
+        if (!Util.equalsNullCheck(entry.getValue(), reader.readType(entry.getKey()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * What a generator produced: its answer, the source of the types it
+   * committed and the resources it committed.
+   */
+  static class Output implements Serializable {
+    private final String resultTypeName;
+    private final Map<String, String> sourcesByTypeName = new LinkedHashMap<String, String>();
+    private final Map<String, byte[]> resourcesByPath = new LinkedHashMap<String, byte[]>();
+    private final Map<String, Visibility> visibilitiesByPath =
+        new LinkedHashMap<String, Visibility>();
+
+    Output(String resultTypeName) {
+      this.resultTypeName = resultTypeName;
+    }
+
+    void addResource(String partialPath, byte[] contents, Visibility visibility) {
+      resourcesByPath.put(partialPath, contents);
+      visibilitiesByPath.put(partialPath, visibility);
+    }
+
+    void addSource(String typeName, String source) {
+      sourcesByTypeName.put(typeName, source);
+    }
+
+    Map<String, byte[]> getResources() {
+      return Collections.unmodifiableMap(resourcesByPath);
+    }
+
+    String getResultTypeName() {
+      return resultTypeName;
+    }
+
+    Map<String, String> getSources() {
+      return Collections.unmodifiableMap(sourcesByTypeName);
+    }
+
+    Visibility getVisibility(String partialPath) {
+      return visibilitiesByPath.get(partialPath);
+    }
+  }
+
+  private static class Variant implements Serializable {
+    private final Inputs inputs;
+    private final Output output;
+
+    Variant(Inputs inputs, Output output) {
+      this.inputs = inputs;
+      this.output = output;
+    }
+  }
+
+  static final String GWT_PERSISTENTGENERATORCACHEDIR = "gwt.persistentgeneratorcachedir";
+
+  private static final String DIRECTORY_NAME = "gwt-generatorCache";
+
+  /**
+   * The most variants kept for one key; the least recently stored are dropped.
+   */
+  private static final int MAX_VARIANTS = 32;
+
+  private static PersistentGeneratorCache instance;
+
+  private static boolean instanceCreated;
+
+  /**
+   * Returns the cache in the directory given by
+   * {@code -Dgwt.persistentgeneratorcachedir}, or null if it is not set or
+   * can't be used.
+   */
+  static synchronized PersistentGeneratorCache get(TreeLogger logger) {
+    if (!instanceCreated) {
+      instanceCreated = true;
+      String path = System.getProperty(GWT_PERSISTENTGENERATORCACHEDIR);
+      if (path != null) {
+        File dir = new File(path, DIRECTORY_NAME);
+        if (dir.isDirectory() || dir.mkdirs()) {
+          logger.log(TreeLogger.TRACE, "Persistent generator cache dir set to: "
+              + dir.getAbsolutePath());
+          instance = new PersistentGeneratorCache(dir);
+        } else {
+          logger.log(TreeLogger.WARN, "Can't create directory: " + dir.getAbsolutePath());
+        }
+      }
+    }
+    return instance;
+  }
+
+  private final File dir;
+
+  /**
+   * Hashes of the code of generator classes, see {@link #getCodeHash}.
+   */
+  private final Map<Class<?>, String> codeHashes = new WeakHashMap<Class<?>, String>();
+
+  /**
+   * Fingerprints of compilation units, which never change once built.
+   */
+  private final Cache<CompilationUnit, String> unitFingerprints =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  PersistentGeneratorCache(File dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * Returns the key of a run of the given generator for the requested type.
+   */
+  String computeKey(Generator generator, String typeName, boolean isProdMode) {
+    Class<?> generatorClass = generator.getClass();
+    String versionId = generator instanceof IncrementalGenerator
+        ? String.valueOf(((IncrementalGenerator) generator).getVersionId()) : "";
+    return Util.computeStrongName(Util.getBytes(Joiner.on('\n').join(
+        CompilerVersion.getHash(), generatorClass.getName(), versionId,
+        getCodeHash(generatorClass), typeName, isProdMode)));
+  }
+
+  /**
+   * Returns a fingerprint of what the type oracle reads from the given units.
+   */
+  String fingerprint(Collection<CompilationUnit> units) {
+    List<String> fingerprints = new ArrayList<String>(units.size());
+    for (CompilationUnit unit : units) {
+      fingerprints.add(unit.getTypeName() + ":" + fingerprint(unit));
+    }
+    Collections.sort(fingerprints);
+    return Util.computeStrongName(Util.getBytes(Joiner.on('\n').join(fingerprints)));
+  }
+
+  /**
+   * Returns a fingerprint of what the type oracle reads from the given unit:
+   * its class files without code or debugging information, and the names of
+   * method arguments.
+   */
+  String fingerprint(CompilationUnit unit) {
+    String fingerprint = unitFingerprints.getIfPresent(unit);
+    if (fingerprint == null) {
+      List<String> parts = new ArrayList<String>();
+      for (CompiledClass compiledClass : unit.getCompiledClasses()) {
+        ClassWriter writer = new ClassWriter(0);
+        new ClassReader(compiledClass.getBytes()).accept(writer,
+            ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+        parts.add(compiledClass.getInternalName() + ":"
+            + Util.computeStrongName(writer.toByteArray()));
+      }
+      Collections.sort(parts);
+      parts.add(unit.getMethodArgs().describe());
+      fingerprint = Util.computeStrongName(Util.getBytes(Joiner.on('\n').join(parts)));
+      unitFingerprints.put(unit, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Records the types that the given generator can read while it rebinds
+   * {@code typeName}.
+   */
+  void recordTypes(Inputs inputs, Generator generator, CompilationState compilationState,
+      String typeName) {
+    CompiledClass requestedClass = compilationState.getClassFileMapBySource().get(typeName);
+    if (generator.getClass().getAnnotation(RunsLocal.class) == null || requestedClass == null) {
+      inputs.recordAllTypes(fingerprint(compilationState.getCompilationUnits()));
+      return;
+    }
+    Map<String, CompiledClass> classesByInternalName = compilationState.getClassFileMap();
+    Set<CompilationUnit> seen = new HashSet<CompilationUnit>();
+    Deque<CompilationUnit> queue = new ArrayDeque<CompilationUnit>();
+    queue.add(requestedClass.getUnit());
+    while (!queue.isEmpty()) {
+      CompilationUnit unit = queue.remove();
+      if (!seen.add(unit)) {
+        continue;
+      }
+      inputs.recordType(unit.getTypeName(), fingerprint(unit));
+      Dependencies dependencies = unit.getDependencies();
+      for (Ref ref : Iterables.concat(dependencies.qualified.values(),
+          dependencies.simple.values())) {
+        CompiledClass referenced =
+            ref == null ? null : classesByInternalName.get(ref.getInternalName());
+        if (referenced != null) {
+          queue.add(referenced.getUnit());
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the output stored under {@code key} for which all recorded inputs
+   * still read the same, or null.
+   */
+  Output find(TreeLogger logger, String key, InputReader reader) {
+    for (Variant variant : read(logger, key)) {
+      if (variant.inputs.matches(reader)) {
+        return variant.output;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores the output of a generator run under {@code key}, unless the inputs
+   * were marked as uncacheable.
+   */
+  synchronized void put(TreeLogger logger, String key, Inputs inputs, Output output) {
+    if (!inputs.isCacheable()) {
+      return;
+    }
+    List<Variant> variants = new ArrayList<Variant>(read(logger, key));
+    variants.add(0, new Variant(inputs, output));
+    while (variants.size() > MAX_VARIANTS) {
+      variants.remove(variants.size() - 1);
+    }
+
+    File file = new File(dir, key);
+    File tempFile = new File(dir, key + "." + Thread.currentThread().getId() + ".tmp");
+    ObjectOutputStream out = null;
+    try {
+      out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      out.writeObject(variants);
+      out.close();
+      out = null;
+      if (!tempFile.renameTo(file)) {
+        file.delete();
+        if (!tempFile.renameTo(file)) {
+          throw new IOException("Can't rename " + tempFile + " to " + file);
+        }
+      }
+    } catch (IOException e) {
+      logger.log(TreeLogger.TRACE, "Can't write generator cache entry " + file, e);
+      tempFile.delete();
+    } finally {
+      Utility.close(out);
+    }
+  }
+
+  /**
+   * Returns the prefix of the URLs of the class files in the compiler's jar,
+   * whose hash is already part of every key, or null if the compiler does not
+   * run from a jar.
+   */
+  private static String getCompilerJarPrefix() {
+    String url = JNode.class.getResource("JNode.class").toString();
+    int separator = url.indexOf("!/");
+    return url.startsWith("jar:") && separator != -1 ? url.substring(0, separator + 2) : null;
+  }
+
+  /**
+   * Returns a hash of the class files of the given class and of the classes it
+   * refers to, directly or not, except those of the JRE and of the compiler's
+   * jar. The loaded classes of a generator do not change while the compiler
+   * runs, so the hash is computed once.
+   */
+  private synchronized String getCodeHash(Class<?> clazz) {
+    String codeHash = codeHashes.get(clazz);
+    if (codeHash != null) {
+      return codeHash;
+    }
+    ClassLoader classLoader = clazz.getClassLoader();
+    String compilerJarPrefix = getCompilerJarPrefix();
+    final Set<String> seen = new HashSet<String>();
+    final Deque<String> queue = new ArrayDeque<String>();
+    Remapper collector = new Remapper() {
+      @Override
+      public String map(String internalName) {
+        if (seen.add(internalName)) {
+          queue.add(internalName);
+        }
+        return internalName;
+      }
+    };
+    List<String> hashes = new ArrayList<String>();
+    collector.map(Type.getInternalName(clazz));
+    while (!queue.isEmpty()) {
+      String internalName = queue.remove();
+      URL url = internalName.startsWith("java/") || classLoader == null
+          ? null : classLoader.getResource(internalName + ".class");
+      if (url == null || url.getProtocol().equals("jrt")
+          || (compilerJarPrefix != null && url.toString().startsWith(compilerJarPrefix))) {
+        continue;
+      }
+      InputStream in = null;
+      try {
+        in = url.openStream();
+        byte[] bytes = Util.readStreamAsBytes(in);
+        hashes.add(internalName + ":" + Util.computeStrongName(bytes));
+        new ClassReader(bytes).accept(
+            new ClassRemapper(new ClassVisitor(Opcodes.ASM5) { }, collector), 0);
+      } catch (IOException e) {
+        hashes.add(internalName + ":!" + e.getMessage());
+      } finally {
+        Utility.close(in);
+      }
+    }
+    Collections.sort(hashes);
+    codeHash = Util.computeStrongName(Util.getBytes(Joiner.on('\n').join(hashes)));
+    codeHashes.put(clazz, codeHash);
+    return codeHash;
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized List<Variant> read(TreeLogger logger, String key) {
+    File file = new File(dir, key);
+    if (!file.isFile()) {
+      return Collections.emptyList();
+    }
+    ObjectInputStream in = null;
+    try {
+      in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+      return (List<Variant>) in.readObject();
+    } catch (IOException e) {
+      logger.log(TreeLogger.TRACE, "Ignoring unreadable generator cache entry " + file, e);
+    } catch (ClassNotFoundException e) {
+      logger.log(TreeLogger.TRACE, "Ignoring unreadable generator cache entry " + file, e);
+    } finally {
+      Utility.close(in);
+    }
+    return Collections.emptyList();
+  }
+}
@@ -15,13 +15,17 @@
  */
 package com.google.gwt.dev.javac;
 
+import com.google.gwt.core.ext.BadPropertyValueException;
 import com.google.gwt.core.ext.CachedGeneratorResult;
+import com.google.gwt.core.ext.ConfigurationProperty;
 import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.IncrementalGenerator;
 import com.google.gwt.core.ext.PropertyOracle;
+import com.google.gwt.core.ext.RebindMode;
 import com.google.gwt.core.ext.RebindResult;
 import com.google.gwt.core.ext.RebindRuleResolver;
+import com.google.gwt.core.ext.SelectionProperty;
 import com.google.gwt.core.ext.SubsetFilteringPropertyOracle;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
@@ -35,6 +39,8 @@ import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.dev.CompilerContext;
 import com.google.gwt.dev.cfg.RuleGenerateWith;
+import com.google.gwt.dev.javac.PersistentGeneratorCache.Inputs;
+import com.google.gwt.dev.javac.PersistentGeneratorCache.Output;
 import com.google.gwt.dev.resource.Resource;
 import com.google.gwt.dev.resource.ResourceOracle;
 import com.google.gwt.dev.resource.impl.AbstractResourceOracle;
@@ -52,6 +58,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -63,6 +70,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Manages generators and generated units during a single compilation.
@@ -87,23 +96,123 @@ public class StandardGeneratorContext implements GeneratorContext {
 
     @Override
     public Set<String> getPathNames() {
+      markInputsUncacheable();
       return wrappedResourceOracle.getPathNames();
     }
 
     @Override
     public Resource getResource(String pathName) {
       pathName = Files.simplifyPath(pathName);
-      compilerContext.getMinimalRebuildCache().associateReboundTypeWithInputResource(
-          currentRebindBinaryTypeName, pathName);
-      return wrappedResourceOracle.getResource(pathName);
+      associateInputResource(pathName);
+      Resource resource = wrappedResourceOracle.getResource(pathName);
+      Inputs inputs = recordedInputs;
+      if (inputs != null) {
+        inputs.recordResource(pathName, resource);
+      }
+      return resource;
     }
 
     @Override
     public Set<Resource> getResources() {
+      markInputsUncacheable();
       return wrappedResourceOracle.getResources();
     }
   }
 
+  /**
+   * Wraps a PropertyOracle to record the properties read by a Generator whose
+   * output goes into the {@link PersistentGeneratorCache}.
+   */
+  private class RecordingPropertyOracle implements PropertyOracle {
+
+    private final Inputs inputs;
+    private final PropertyOracle wrappedPropertyOracle;
+
+    public RecordingPropertyOracle(PropertyOracle wrappedPropertyOracle, Inputs inputs) {
+      this.wrappedPropertyOracle = wrappedPropertyOracle;
+      this.inputs = inputs;
+    }
+
+    @Override
+    public ConfigurationProperty getConfigurationProperty(String propertyName)
+        throws BadPropertyValueException {
+      ConfigurationProperty property = null;
+      try {
+        property = wrappedPropertyOracle.getConfigurationProperty(propertyName);
+        return property;
+      } finally {
+        inputs.recordConfigurationProperty(propertyName, property);
+      }
+    }
+
+    @Override
+    public SelectionProperty getSelectionProperty(TreeLogger logger, String propertyName)
+        throws BadPropertyValueException {
+      SelectionProperty property = null;
+      try {
+        property = wrappedPropertyOracle.getSelectionProperty(logger, propertyName);
+        return property;
+      } finally {
+        inputs.recordSelectionProperty(propertyName, property);
+      }
+    }
+  }
+
+  /**
+   * Reads the current values of the inputs recorded in the
+   * {@link PersistentGeneratorCache}.
+   */
+  private class CurrentInputReader implements PersistentGeneratorCache.InputReader {
+
+    private String allTypes;
+    private final Map<String, String> types = new HashMap<String, String>();
+
+    @Override
+    public String readAllTypes() {
+      if (allTypes == null) {
+        allTypes = persistentGeneratorCache.fingerprint(compilationState.getCompilationUnits());
+      }
+      return allTypes;
+    }
+
+    @Override
+    public String readConfigurationProperty(String name) {
+      try {
+        return Inputs.describe(propertyOracle.getConfigurationProperty(name));
+      } catch (BadPropertyValueException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public boolean readRebindRuleAvailable(String typeName) {
+      return checkRebindRuleAvailable(typeName);
+    }
+
+    @Override
+    public String readResource(String path) {
+      return Inputs.hash(buildResourceOracle.getResource(path));
+    }
+
+    @Override
+    public String readSelectionProperty(String name) {
+      try {
+        return Inputs.describe(propertyOracle.getSelectionProperty(TreeLogger.NULL, name));
+      } catch (BadPropertyValueException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public String readType(String typeName) {
+      if (!types.containsKey(typeName)) {
+        CompilationUnit unit = compilationState.getCompilationUnitMap().get(typeName);
+        types.put(typeName, unit == null ? null : persistentGeneratorCache.fingerprint(unit));
+      }
+      return types.get(typeName);
+    }
+  }
+
   /**
    * Extras added to {@link GeneratedUnit}.
    */
@@ -321,8 +430,10 @@ public class StandardGeneratorContext implements GeneratorContext {
 
   private final File genDir;
 
-  private final Map<Class<? extends Generator>, Generator> generators =
-      new IdentityHashMap<Class<? extends Generator>, Generator>();
+  /**
+   * Shared with forks, so generator instances are created once per compilation.
+   */
+  private final ConcurrentMap<Class<? extends Generator>, Generator> generators;
 
   private ArtifactSet newlyGeneratedArtifacts = new ArtifactSet();
 
@@ -352,17 +463,66 @@ public class StandardGeneratorContext implements GeneratorContext {
 
   private final ResourceOracle buildResourceOracle;
 
+  /**
+   * The context this one was forked from, or null.
+   */
+  private final StandardGeneratorContext parent;
+
+  /**
+   * For a fork, the generated type names and input resource paths to associate
+   * with the current rebind once the fork is merged.
+   */
+  private final List<String> forkGeneratedTypeNames;
+  private final List<String> forkInputResourcePaths;
+
+  /**
+   * Where generator output is kept across compilations, or null.
+   */
+  private final PersistentGeneratorCache persistentGeneratorCache;
+
+  /**
+   * The inputs read by the running generator, while its output is being
+   * recorded for the persistent generator cache.
+   */
+  private volatile Inputs recordedInputs;
+
+  /**
+   * The types and resources the running generator did not create because an
+   * earlier generator run of this compilation already had, while its output is
+   * being recorded for the persistent generator cache. They are part of its
+   * output: a later compilation may replay it before anything else creates
+   * them.
+   */
+  private Set<String> recordedReusedTypeNames;
+  private Set<String> recordedReusedResourcePaths;
+
   /**
    * Normally, the compiler host would be aware of the same types that are
    * available in the supplied type oracle although it isn't strictly required.
    */
   public StandardGeneratorContext(CompilerContext compilerContext,
       CompilationState compilationState, ArtifactSet allGeneratedArtifacts, boolean isProdMode) {
+    this(compilerContext, compilationState, allGeneratedArtifacts, isProdMode,
+        isProdMode ? PersistentGeneratorCache.get(TreeLogger.NULL) : null);
+  }
+
+  /**
+   * Creates a context keeping generator output in the given persistent
+   * generator cache, which may be null.
+   */
+  StandardGeneratorContext(CompilerContext compilerContext, CompilationState compilationState,
+      ArtifactSet allGeneratedArtifacts, boolean isProdMode,
+      PersistentGeneratorCache persistentGeneratorCache) {
     this.compilerContext = compilerContext;
     this.compilationState = compilationState;
     this.genDir = compilerContext.getOptions().getGenDir();
     this.allGeneratedArtifacts = allGeneratedArtifacts;
     this.isProdMode = isProdMode;
+    this.generators = new ConcurrentHashMap<Class<? extends Generator>, Generator>();
+    this.parent = null;
+    this.forkGeneratedTypeNames = null;
+    this.forkInputResourcePaths = null;
+    this.persistentGeneratorCache = persistentGeneratorCache;
 
     this.buildResourceOracle =
         new RecordingResourceOracle(compilerContext.getBuildResourceOracle());
@@ -370,6 +530,26 @@ public class StandardGeneratorContext implements GeneratorContext {
     ResourceLocatorImpl.resetClassLoaderLoadWarningCount();
   }
 
+  private StandardGeneratorContext(StandardGeneratorContext parent) {
+    this.compilerContext = parent.compilerContext;
+    this.compilationState = parent.compilationState;
+    this.genDir = parent.genDir;
+    this.allGeneratedArtifacts = new ArtifactSet();
+    this.isProdMode = parent.isProdMode;
+    this.generators = parent.generators;
+    this.generatorResultCachingEnabled = parent.generatorResultCachingEnabled;
+    this.currentRebindBinaryTypeName = parent.currentRebindBinaryTypeName;
+    this.parent = parent;
+    this.forkGeneratedTypeNames = new ArrayList<String>();
+    this.forkInputResourcePaths = new ArrayList<String>();
+    this.persistentGeneratorCache = parent.persistentGeneratorCache;
+    // Types created in the parent, but not added to the type oracle yet, must not be created again
+    this.newlyGeneratedTypeNames.addAll(parent.newlyGeneratedTypeNames);
+
+    this.buildResourceOracle =
+        new RecordingResourceOracle(compilerContext.getBuildResourceOracle());
+  }
+
   /**
    * Adds a generated unit to the context if not already present, but will not
    * overwrite an existing unit.
@@ -420,11 +600,13 @@ public class StandardGeneratorContext implements GeneratorContext {
    */
   @Override
   public boolean checkRebindRuleAvailable(String sourceTypeName) {
-    if (rebindRuleResolver != null) {
-      return rebindRuleResolver.checkRebindRuleResolvable(sourceTypeName);
-    } else {
-      return false;
+    boolean available = rebindRuleResolver != null
+        && rebindRuleResolver.checkRebindRuleResolvable(sourceTypeName);
+    Inputs inputs = recordedInputs;
+    if (inputs != null) {
+      inputs.recordRebindRule(sourceTypeName, available);
     }
+    return available;
   }
 
   /**
@@ -552,26 +734,64 @@ public class StandardGeneratorContext implements GeneratorContext {
       }
       return newlyGeneratedArtifacts;
     } finally {
-
-      // Remind the user if there uncommitted cups.
-      if (!uncommittedGeneratedCupsByPrintWriter.isEmpty()) {
-        String msg =
-            "For the following type(s), generated source was never committed (did you forget to call commit()?)";
-        logger = logger.branch(TreeLogger.WARN, msg, null);
-
-        for (Generated unit : uncommittedGeneratedCupsByPrintWriter.values()) {
-          logger.log(TreeLogger.WARN, unit.getTypeName(), null);
-        }
-      }
-
+      warnAboutUncommittedUnits(logger);
       reset();
     }
   }
 
+  /**
+   * Returns a context in which the generators for one permutation of a rebind
+   * can run on another thread. The fork shares the type oracle, resources and
+   * generator instances of this context, but keeps what the generators create
+   * to itself until it is passed to {@link #mergeFork}. The types and
+   * resources this context created before the fork are seen as already
+   * existing by the fork. While forks are running, this context must not be
+   * used.
+   */
+  public StandardGeneratorContext fork() {
+    return new StandardGeneratorContext(this);
+  }
+
   public boolean isDirty() {
     return !committedGeneratedCups.isEmpty();
   }
 
+  /**
+   * Adds the units and artifacts committed in a fork of this context, as if
+   * its generators had run in this context. Forks must be merged in a
+   * deterministic order: a type or resource that was already generated, by
+   * this context or an earlier fork, is dropped.
+   */
+  public void mergeFork(TreeLogger logger, StandardGeneratorContext fork) {
+    assert fork.parent == this;
+    fork.abortUncommittedResources(logger);
+    fork.warnAboutUncommittedUnits(logger);
+
+    for (String typeName : fork.forkGeneratedTypeNames) {
+      associateGeneratedTypeName(typeName);
+    }
+    for (String pathName : fork.forkInputResourcePaths) {
+      associateInputResource(pathName);
+    }
+
+    Set<String> resourcePaths = new HashSet<String>();
+    for (GeneratedResource resource : newlyGeneratedArtifacts.find(GeneratedResource.class)) {
+      resourcePaths.add(resource.getPartialPath());
+    }
+    for (Artifact<?> artifact : fork.newlyGeneratedArtifacts) {
+      if (artifact instanceof GeneratedResource
+          && !resourcePaths.add(((GeneratedResource) artifact).getPartialPath())) {
+        continue;
+      }
+      commitArtifact(logger, artifact);
+    }
+    for (GeneratedUnit unit : fork.committedGeneratedCups.values()) {
+      if (newlyGeneratedTypeNames.add(unit.getTypeName())) {
+        committedGeneratedCups.put(unit.getTypeName(), unit);
+      }
+    }
+  }
+
   /**
    * Clears all accumulated artifacts and state so that the context can be used
    * as if from scratch. Is useful for clearing out undesired changes after
@@ -686,7 +906,10 @@ public class StandardGeneratorContext implements GeneratorContext {
     if (generator == null) {
       try {
         generator = generatorClass.newInstance();
-        generators.put(generatorClass, generator);
+        Generator existing = generators.putIfAbsent(generatorClass, generator);
+        if (existing != null) {
+          generator = existing;
+        }
       } catch (Throwable e) {
         logger.log(TreeLogger.ERROR, "Unexpected error trying to instantiate Generator '"
             + generatorClass.getName() + "'", e);
@@ -719,6 +942,30 @@ public class StandardGeneratorContext implements GeneratorContext {
       propertyOracle = new SubsetFilteringPropertyOracle(
           RuleGenerateWith.getAccessedPropertyNames(generator.getClass()), originalPropertyOracle,
           generatorClassName + "'s RunsLocal annotation may need to be updated.");
+
+      String persistentCacheKey = null;
+      Set<String> unitsBefore = null;
+      ArtifactSet artifactsBefore = null;
+      if (persistentGeneratorCache != null && cachedRebindResult == null) {
+        persistentCacheKey = persistentGeneratorCache.computeKey(generator, typeName, isProdMode);
+        Output output =
+            persistentGeneratorCache.find(logger, persistentCacheKey, new CurrentInputReader());
+        if (output != null) {
+          if (loggable) {
+            logger.log(TreeLogger.DEBUG, "Reusing output of a previous compilation", null);
+          }
+          replayPersistentOutput(logger, output);
+          return new RebindResult(RebindMode.USE_ALL_NEW_WITH_NO_CACHING,
+              output.getResultTypeName());
+        }
+        recordedInputs = new Inputs();
+        recordedReusedTypeNames = new HashSet<String>();
+        recordedReusedResourcePaths = new HashSet<String>();
+        propertyOracle = new RecordingPropertyOracle(propertyOracle, recordedInputs);
+        unitsBefore = new HashSet<String>(committedGeneratedCups.keySet());
+        artifactsBefore = new ArtifactSet(newlyGeneratedArtifacts);
+      }
+
       if (generator instanceof IncrementalGenerator) {
         IncrementalGenerator incGenerator = (IncrementalGenerator) generator;
 
@@ -745,6 +992,11 @@ public class StandardGeneratorContext implements GeneratorContext {
         result = IncrementalGenerator.generateNonIncrementally(logger, generator, this, typeName);
       }
 
+      if (persistentCacheKey != null) {
+        storePersistentOutput(logger, persistentCacheKey, recordedInputs, generator, typeName,
+            result, unitsBefore, artifactsBefore);
+      }
+
       if (loggable) {
         long after = System.currentTimeMillis();
         msg =
@@ -763,6 +1015,9 @@ public class StandardGeneratorContext implements GeneratorContext {
           + "' threw an exception while rebinding '" + typeName + "'", e);
       throw new UnableToCompleteException();
     } finally {
+      recordedInputs = null;
+      recordedReusedTypeNames = null;
+      recordedReusedResourcePaths = null;
       propertyOracle = originalPropertyOracle;
       generatorEvent.end();
     }
@@ -808,8 +1063,7 @@ public class StandardGeneratorContext implements GeneratorContext {
       typeName = packageName + '.' + simpleTypeName;
     }
 
-    compilerContext.getMinimalRebuildCache().associateReboundTypeWithGeneratedCompilationUnitName(
-        currentRebindBinaryTypeName, typeName);
+    associateGeneratedTypeName(typeName);
 
     // Is type already known to the host?
     JClassType existingType = getTypeOracle().findType(packageName, simpleTypeName);
@@ -823,6 +1077,9 @@ public class StandardGeneratorContext implements GeneratorContext {
 
     // Type recently generated?
     if (newlyGeneratedTypeNames.contains(typeName)) {
+      if (recordedReusedTypeNames != null) {
+        recordedReusedTypeNames.add(typeName);
+      }
       return null;
     }
 
@@ -898,11 +1155,11 @@ public class StandardGeneratorContext implements GeneratorContext {
     }
 
     // See if the file is already committed.
-    SortedSet<GeneratedResource> resources = allGeneratedArtifacts.find(GeneratedResource.class);
-    for (GeneratedResource resource : resources) {
-      if (partialPath.equals(resource.getPartialPath())) {
-        return null;
+    if (findCommittedResource(partialPath) != null) {
+      if (recordedReusedResourcePaths != null) {
+        recordedReusedResourcePaths.add(partialPath);
       }
+      return null;
     }
 
     // See if the file is pending.
@@ -940,6 +1197,24 @@ public class StandardGeneratorContext implements GeneratorContext {
     return true;
   }
 
+  private void associateGeneratedTypeName(String typeName) {
+    if (parent != null) {
+      forkGeneratedTypeNames.add(typeName);
+      return;
+    }
+    compilerContext.getMinimalRebuildCache().associateReboundTypeWithGeneratedCompilationUnitName(
+        currentRebindBinaryTypeName, typeName);
+  }
+
+  private void associateInputResource(String pathName) {
+    if (parent != null) {
+      forkInputResourcePaths.add(pathName);
+      return;
+    }
+    compilerContext.getMinimalRebuildCache().associateReboundTypeWithInputResource(
+        currentRebindBinaryTypeName, pathName);
+  }
+
   private void abortUncommittedResources(TreeLogger logger) {
     if (pendingResources.isEmpty()) {
       // Nothing to do.
@@ -957,4 +1232,136 @@ public class StandardGeneratorContext implements GeneratorContext {
     }
     pendingResources.clear();
   }
+
+  private GeneratedResource findCommittedResource(String partialPath) {
+    SortedSet<GeneratedResource> resources = allGeneratedArtifacts.find(GeneratedResource.class);
+    for (GeneratedResource resource : resources) {
+      if (partialPath.equals(resource.getPartialPath())) {
+        return resource;
+      }
+    }
+    return parent == null ? null : parent.findCommittedResource(partialPath);
+  }
+
+  private GeneratedUnit findCommittedUnit(String typeName) {
+    GeneratedUnit unit = committedGeneratedCups.get(typeName);
+    return unit != null || parent == null ? unit : parent.findCommittedUnit(typeName);
+  }
+
+  private void warnAboutUncommittedUnits(TreeLogger logger) {
+    // Remind the user if there uncommitted cups.
+    if (!uncommittedGeneratedCupsByPrintWriter.isEmpty()) {
+      String msg =
+          "For the following type(s), generated source was never committed (did you forget to call commit()?)";
+      logger = logger.branch(TreeLogger.WARN, msg, null);
+
+      for (Generated unit : uncommittedGeneratedCupsByPrintWriter.values()) {
+        logger.log(TreeLogger.WARN, unit.getTypeName(), null);
+      }
+    }
+  }
+
+  private void markInputsUncacheable() {
+    Inputs inputs = recordedInputs;
+    if (inputs != null) {
+      inputs.markUncacheable();
+    }
+  }
+
+  /**
+   * Creates the types and resources of a generator run found in the
+   * persistent generator cache, as the generator did.
+   */
+  private void replayPersistentOutput(TreeLogger logger, Output output)
+      throws UnableToCompleteException {
+    for (Entry<String, String> entry : output.getSources().entrySet()) {
+      String typeName = entry.getKey();
+      int lastDot = typeName.lastIndexOf('.');
+      PrintWriter pw = tryCreate(logger, lastDot < 0 ? "" : typeName.substring(0, lastDot),
+          typeName.substring(lastDot + 1));
+      if (pw != null) {
+        pw.write(entry.getValue());
+        commit(logger, pw);
+      }
+    }
+    for (Entry<String, byte[]> entry : output.getResources().entrySet()) {
+      OutputStream os = tryCreateResource(logger, entry.getKey());
+      if (os != null) {
+        try {
+          os.write(entry.getValue());
+        } catch (IOException e) {
+          logger.log(TreeLogger.ERROR, "Unable to write cached resource " + entry.getKey(), e);
+          throw new UnableToCompleteException();
+        }
+        commitResource(logger, os).setVisibility(output.getVisibility(entry.getKey()));
+      }
+    }
+  }
+
+  /**
+   * Stores the types and resources the generator just committed, and those it
+   * found already committed by an earlier run, in the persistent generator
+   * cache, unless it committed other kinds of artifacts.
+   */
+  private void storePersistentOutput(TreeLogger logger, String key, Inputs inputs,
+      Generator generator, String requestedTypeName, RebindResult result,
+      Set<String> unitsBefore, ArtifactSet artifactsBefore) {
+    RebindMode mode = result.getRebindMode();
+    if (mode == RebindMode.USE_ALL_CACHED || mode == RebindMode.USE_PARTIAL_CACHED
+        || !uncommittedGeneratedCupsByPrintWriter.isEmpty() || !pendingResources.isEmpty()) {
+      return;
+    }
+    Output output = new Output(result.getResultTypeName());
+    Set<String> sourceMapPaths = new HashSet<String>();
+    for (GeneratedUnit unit : committedGeneratedCups.values()) {
+      if (!unitsBefore.contains(unit.getTypeName())) {
+        output.addSource(unit.getTypeName(), unit.getSource());
+        sourceMapPaths.add(unit.getSourceMapPath());
+      }
+    }
+    for (String typeName : recordedReusedTypeNames) {
+      GeneratedUnit unit = findCommittedUnit(typeName);
+      if (unit == null) {
+        // Still pending in another run, its source is unknown
+        return;
+      }
+      output.addSource(typeName, unit.getSource());
+    }
+    for (Artifact<?> artifact : newlyGeneratedArtifacts) {
+      if (artifactsBefore.contains(artifact)) {
+        continue;
+      }
+      if (!(artifact instanceof GeneratedResource)) {
+        return;
+      }
+      GeneratedResource resource = (GeneratedResource) artifact;
+      if (!sourceMapPaths.contains(resource.getPartialPath())
+          && !addPersistentResource(logger, output, resource)) {
+        return;
+      }
+    }
+    for (String partialPath : recordedReusedResourcePaths) {
+      if (!addPersistentResource(logger, output, findCommittedResource(partialPath))) {
+        return;
+      }
+    }
+    persistentGeneratorCache.recordTypes(inputs, generator, compilationState,
+        requestedTypeName);
+    persistentGeneratorCache.put(logger, key, inputs, output);
+  }
+
+  private boolean addPersistentResource(TreeLogger logger, Output output,
+      GeneratedResource resource) {
+    InputStream in = null;
+    try {
+      in = resource.getContents(logger);
+      output.addResource(resource.getPartialPath(), Util.readStreamAsBytes(in),
+          resource.getVisibility());
+      return true;
+    } catch (UnableToCompleteException e) {
+      return false;
+    } finally {
+      Utility.close(in);
+    }
+  }
 }
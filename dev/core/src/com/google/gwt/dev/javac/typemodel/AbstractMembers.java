@@ -83,21 +83,12 @@ abstract class AbstractMembers {
   public abstract JField[] getFields();
 
   public JMethod[] getInheritableMethods() {
-    if (cachedInheritableMethods == null) {
-      Map<String, JMethod> methodsBySignature = new TreeMap<String, JMethod>();
-      getInheritableMethodsOnSuperinterfacesAndMaybeThisInterface(methodsBySignature);
-      if (classType.isClass() != null) {
-        getInheritableMethodsOnSuperclassesAndThisClass(methodsBySignature);
-      }
-      int size = methodsBySignature.size();
-      if (size == 0) {
-        cachedInheritableMethods = TypeOracle.NO_JMETHODS;
-      } else {
-        Collection<JMethod> leafMethods = methodsBySignature.values();
-        cachedInheritableMethods = leafMethods.toArray(new JMethod[size]);
+    synchronized (classType.getOracle()) {
+      if (cachedInheritableMethods == null) {
+        cachedInheritableMethods = computeInheritableMethods();
       }
+      return cachedInheritableMethods;
     }
-    return cachedInheritableMethods;
   }
 
   public JMethod getMethod(String name, JType[] paramTypes)
@@ -234,6 +225,20 @@ abstract class AbstractMembers {
     return classType;
   }
 
+  private JMethod[] computeInheritableMethods() {
+    Map<String, JMethod> methodsBySignature = new TreeMap<String, JMethod>();
+    getInheritableMethodsOnSuperinterfacesAndMaybeThisInterface(methodsBySignature);
+    if (classType.isClass() != null) {
+      getInheritableMethodsOnSuperclassesAndThisClass(methodsBySignature);
+    }
+    int size = methodsBySignature.size();
+    if (size == 0) {
+      return TypeOracle.NO_JMETHODS;
+    }
+    Collection<JMethod> leafMethods = methodsBySignature.values();
+    return leafMethods.toArray(new JMethod[size]);
+  }
+
   private String computeInternalSignature(JMethod method) {
     StringBuilder sb = new StringBuilder();
     sb.setLength(0);
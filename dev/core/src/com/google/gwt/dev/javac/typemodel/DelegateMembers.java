@@ -101,6 +101,18 @@ class DelegateMembers extends AbstractMembers {
 
   @Override
   protected List<JConstructor> doGetConstructors() {
+    synchronized (getParentType().getOracle()) {
+      return doGetConstructorsImpl();
+    }
+  }
+
+  @Override
+  protected Map<String, JClassType> doGetNestedTypes() {
+    // TODO: is this correct?
+    return Maps.create();
+  }
+
+  private List<JConstructor> doGetConstructorsImpl() {
     if (lazyConstructors != null) {
       /*
        * Return if the constructors are being initialized or have been
@@ -120,16 +132,15 @@ class DelegateMembers extends AbstractMembers {
     return lazyConstructors = Lists.normalize(lazyConstructors);
   }
 
-  @Override
-  protected Map<String, JClassType> doGetNestedTypes() {
-    // TODO: is this correct?
-    return Maps.create();
-  }
-
   private void initFields() {
-    if (fields != null) {
-      return;
+    synchronized (getParentType().getOracle()) {
+      if (fields == null) {
+        initFieldsImpl();
+      }
     }
+  }
+
+  private void initFieldsImpl() {
     // Transitively sorted.
     fields = baseType.getFields();
     fieldMap = new HashMap<String, JField>();
@@ -160,11 +171,16 @@ class DelegateMembers extends AbstractMembers {
     }
   }
 
-  @SuppressWarnings("unchecked")
   private void initMethods() {
-    if (methods != null) {
-      return;
+    synchronized (getParentType().getOracle()) {
+      if (methods == null) {
+        initMethodsImpl();
+      }
     }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void initMethodsImpl() {
     // Transitively sorted.
     methods = baseType.getMethods();
     methodMap = new HashMap<String, Object>();
@@ -42,14 +42,16 @@ public abstract class JClassType implements
    */
   protected static Set<JClassType> getFlattenedSuperTypeHierarchy(
       JClassType type) {
-    Set<JClassType> flattened = type.flattenedSupertypes;
-    if (flattened == null) {
-      flattened = new LinkedHashSet<JClassType>();
-      getFlattenedSuperTypeHierarchyRecursive(type, flattened);
-      // flattened.size() > 1 for all types other than Object
-      type.flattenedSupertypes = Collections.unmodifiableSet(flattened);
+    synchronized (type.getOracle()) {
+      Set<JClassType> flattened = type.flattenedSupertypes;
+      if (flattened == null) {
+        flattened = new LinkedHashSet<JClassType>();
+        getFlattenedSuperTypeHierarchyRecursive(type, flattened);
+        // flattened.size() > 1 for all types other than Object
+        type.flattenedSupertypes = Collections.unmodifiableSet(flattened);
+      }
+      return flattened;
     }
-    return flattened;
   }
 
   private static void getFlattenedSuperTypeHierarchyRecursive(JClassType type,
@@ -85,11 +85,13 @@ public class JGenericType extends JRealClassType implements
 
   @Override
   public JRawType getRawType() {
-    if (lazyRawType == null) {
-      lazyRawType = new JRawType(this);
-    }
+    synchronized (getOracle()) {
+      if (lazyRawType == null) {
+        lazyRawType = new JRawType(this);
+      }
 
-    return lazyRawType;
+      return lazyRawType;
+    }
   }
 
   @Override
@@ -157,16 +157,18 @@ public class JParameterizedType extends JMaybeParameterizedType implements
 
   @Override
   public JClassType[] getImplementedInterfaces() {
-    if (interfaces == null) {
-      interfaces = new ArrayList<JClassType>();
-      JClassType[] intfs = getBaseType().getImplementedInterfaces();
-      for (JClassType intf : intfs) {
-        JClassType newIntf = intf.getSubstitutedType(this);
-        interfaces.add(newIntf);
+    synchronized (getOracle()) {
+      if (interfaces == null) {
+        List<JClassType> substituted = new ArrayList<JClassType>();
+        JClassType[] intfs = getBaseType().getImplementedInterfaces();
+        for (JClassType intf : intfs) {
+          JClassType newIntf = intf.getSubstitutedType(this);
+          substituted.add(newIntf);
+        }
+        interfaces = Lists.normalize(substituted);
       }
-      interfaces = Lists.normalize(interfaces);
+      return interfaces.toArray(TypeOracle.NO_JCLASSES);
     }
-    return interfaces.toArray(TypeOracle.NO_JCLASSES);
   }
 
   @Override
@@ -309,14 +311,16 @@ public class JParameterizedType extends JMaybeParameterizedType implements
       return null;
     }
 
-    if (lazySuperclass == null) {
-      JGenericType baseType = getBaseType();
-      JClassType superclass = baseType.getSuperclass();
-      assert (superclass != null);
-      lazySuperclass = superclass.getSubstitutedType(this);
-    }
+    synchronized (getOracle()) {
+      if (lazySuperclass == null) {
+        JGenericType baseType = getBaseType();
+        JClassType superclass = baseType.getSuperclass();
+        assert (superclass != null);
+        lazySuperclass = superclass.getSubstitutedType(this);
+      }
 
-    return lazySuperclass;
+      return lazySuperclass;
+    }
   }
 
   @Override
@@ -433,10 +437,20 @@ public class JParameterizedType extends JMaybeParameterizedType implements
    * TypeOracleUpdater has fully resolved all of the {@link JClassType}s.
    */
   void maybeInitializeTypeParameterSubstitutionMap() {
-    if (lazySubstitutionMap != null) {
-      return;
+    synchronized (getOracle()) {
+      if (lazySubstitutionMap == null) {
+        initializeTypeParameterSubstitutionMap();
+      }
     }
-    lazySubstitutionMap = new IdentityHashMap<JTypeParameter, JClassType>();
+  }
+
+  void setTypeArguments(JClassType[] typeArgs) {
+    this.typeArgs.addAll(Arrays.asList(typeArgs));
+  }
+
+  private void initializeTypeParameterSubstitutionMap() {
+    Map<JTypeParameter, JClassType> substitutionMap =
+        new IdentityHashMap<JTypeParameter, JClassType>();
 
     JParameterizedType currentParameterizedType = this;
 
@@ -446,7 +460,7 @@ public class JParameterizedType extends JMaybeParameterizedType implements
       JClassType[] typeArguments = currentParameterizedType.getTypeArgs();
 
       for (JTypeParameter typeParameter : typeParameters) {
-        lazySubstitutionMap.put(typeParameter,
+        substitutionMap.put(typeParameter,
             typeArguments[typeParameter.getOrdinal()]);
       }
 
@@ -461,11 +475,7 @@ public class JParameterizedType extends JMaybeParameterizedType implements
       }
       currentParameterizedType = maybeParameterizedType.isParameterized();
     }
-    lazySubstitutionMap = Maps.normalize(lazySubstitutionMap);
-  }
-
-  void setTypeArguments(JClassType[] typeArgs) {
-    this.typeArgs.addAll(Arrays.asList(typeArgs));
+    lazySubstitutionMap = Maps.normalize(substitutionMap);
   }
 
   /**
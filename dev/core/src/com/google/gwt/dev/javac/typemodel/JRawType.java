@@ -96,15 +96,18 @@ public class JRawType extends JMaybeParameterizedType implements
 
   @Override
   public JClassType[] getImplementedInterfaces() {
-    if (interfaces == null) {
-      interfaces = new ArrayList<JClassType>();
-      JClassType[] intfs = getBaseType().getImplementedInterfaces();
-      for (JClassType intf : intfs) {
-        JClassType newIntf = intf.getErasedType();
-        interfaces.add(newIntf);
+    synchronized (getOracle()) {
+      if (interfaces == null) {
+        List<JClassType> erased = new ArrayList<JClassType>();
+        JClassType[] intfs = getBaseType().getImplementedInterfaces();
+        for (JClassType intf : intfs) {
+          JClassType newIntf = intf.getErasedType();
+          erased.add(newIntf);
+        }
+        interfaces = erased;
       }
+      return interfaces.toArray(TypeOracle.NO_JCLASSES);
     }
-    return interfaces.toArray(TypeOracle.NO_JCLASSES);
   }
 
   @Override
@@ -62,7 +62,14 @@ import java.util.Set;
  * </pre>
  *
  * </p>
- *
+ * <p>
+ * Once all types have been added, a type oracle may be read from several
+ * threads: the methods that create array, parameterized and wildcard types on
+ * demand are synchronized so that their identity stays stable, and the lazily
+ * computed state of types (raw types, substituted members and supertypes of
+ * parameterized types, flattened supertype hierarchies, inheritable methods)
+ * is initialized while holding the lock of this type oracle.
+ * </p>
  */
 public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
 
@@ -232,6 +239,20 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
    */
   private final Map<String, JRealClassType> allTypes = new HashMap<String, JRealClassType>();
 
+  /**
+   * Methods by the annotations they have, computed as they are asked for and
+   * cleared whenever types are added.
+   */
+  private final Map<Class<? extends Annotation>, JMethod[]> annotatedMethods =
+      new HashMap<Class<? extends Annotation>, JMethod[]>();
+
+  /**
+   * Types by the annotations they have, computed as they are asked for and
+   * cleared whenever types are added.
+   */
+  private final Map<Class<? extends Annotation>, JClassType[]> annotatedTypes =
+      new HashMap<Class<? extends Annotation>, JClassType[]>();
+
   /**
    * Cached types that represent Arrays of other types. These types are created
    * as needed.
@@ -343,7 +364,7 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
    * @return a type object representing an array of the component type
    */
   @Override
-  public JArrayType getArrayType(JType componentType) {
+  public synchronized JArrayType getArrayType(JType componentType) {
     JArrayType arrayType = arrayTypes.get(componentType);
     if (arrayType == null) {
       arrayType = new JArrayType(componentType, this);
@@ -377,6 +398,31 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
     return javaScriptObject;
   }
 
+  /**
+   * Gets all methods of all types which have the given annotation. The result
+   * is indexed by annotation until types are added.
+   *
+   * @return an array of methods, possibly of zero length
+   */
+  @Override
+  public synchronized JMethod[] getMethodsAnnotatedWith(
+      Class<? extends Annotation> annotationClass) {
+    JMethod[] result = annotatedMethods.get(annotationClass);
+    if (result == null) {
+      List<JMethod> methods = new ArrayList<JMethod>();
+      for (JClassType type : getTypes()) {
+        for (JMethod method : type.getMethods()) {
+          if (method.isAnnotationPresent(annotationClass)) {
+            methods.add(method);
+          }
+        }
+      }
+      result = methods.toArray(new JMethod[methods.size()]);
+      annotatedMethods.put(annotationClass, result);
+    }
+    return result.clone();
+  }
+
   /**
    * Ensure that a package with the specified name exists as well as its parent
    * packages.
@@ -440,7 +486,7 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
    * @throws NullPointerException if genericType is <code>null</code>
    */
   @Override
-  public JParameterizedType getParameterizedType(
+  public synchronized JParameterizedType getParameterizedType(
       com.google.gwt.core.ext.typeinfo.JGenericType extGenericType,
       com.google.gwt.core.ext.typeinfo.JClassType extEnclosingType,
       com.google.gwt.core.ext.typeinfo.JClassType[] extTypeArgs) {
@@ -590,8 +636,31 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
     return result;
   }
 
+  /**
+   * Gets all types, both top-level and nested, which have the given
+   * annotation. The result is indexed by annotation until types are added.
+   *
+   * @return an array of types, possibly of zero length
+   */
   @Override
-  public JWildcardType getWildcardType(
+  public synchronized JClassType[] getTypesAnnotatedWith(
+      Class<? extends Annotation> annotationClass) {
+    JClassType[] result = annotatedTypes.get(annotationClass);
+    if (result == null) {
+      List<JClassType> types = new ArrayList<JClassType>();
+      for (JClassType type : getTypes()) {
+        if (type.isAnnotationPresent(annotationClass)) {
+          types.add(type);
+        }
+      }
+      result = types.toArray(new JClassType[types.size()]);
+      annotatedTypes.put(annotationClass, result);
+    }
+    return result.clone();
+  }
+
+  @Override
+  public synchronized JWildcardType getWildcardType(
       com.google.gwt.core.ext.typeinfo.JWildcardType.BoundType boundType,
       com.google.gwt.core.ext.typeinfo.JClassType extTypeBound) {
     // Special case for <? extends Object>
@@ -653,6 +722,10 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
     assert !allTypes.containsKey(fqcn) : "TypeOracle already contains " + fqcn;
     allTypes.put(fqcn, newType);
     recentTypes.add(newType);
+    synchronized (this) {
+      annotatedMethods.clear();
+      annotatedTypes.clear();
+    }
   }
 
   /**
@@ -663,6 +736,10 @@ public class TypeOracle extends com.google.gwt.core.ext.typeinfo.TypeOracle {
     computeSingleJsoImplData();
     computeDualJsoImplData();
     recentTypes.clear();
+    synchronized (this) {
+      annotatedMethods.clear();
+      annotatedTypes.clear();
+    }
   }
 
   JavaSourceParser getJavaSourceParser() {
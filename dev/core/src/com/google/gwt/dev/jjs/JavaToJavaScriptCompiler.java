@@ -144,6 +144,7 @@ import com.google.gwt.dev.js.JsNamespaceChooser;
 import com.google.gwt.dev.js.JsNamespaceOption;
 import com.google.gwt.dev.js.JsNormalizer;
 import com.google.gwt.dev.js.JsObfuscateNamer;
+import com.google.gwt.dev.js.JsOptimizerContext;
 import com.google.gwt.dev.js.JsPrettyNamer;
 import com.google.gwt.dev.js.JsReportGenerationVisitor;
 import com.google.gwt.dev.js.JsStackEmulator;
@@ -985,6 +986,8 @@ public final class JavaToJavaScriptCompiler {
   private void optimizeJsLoop(Collection<JsNode> toInline) throws InterruptedException {
     int optimizationLevel = options.getOptimizationLevel();
     List<OptimizerStats> allOptimizerStats = Lists.newArrayList();
+    // Shared across passes so that each pass only revisits code that changed.
+    JsOptimizerContext optimizerContext = new JsOptimizerContext();
     int counter = 0;
     while (true) {
       counter++;
@@ -996,11 +999,11 @@ public final class JavaToJavaScriptCompiler {
       OptimizerStats stats = new OptimizerStats("Pass " + counter);
 
       // Remove unused functions if possible.
-      stats.add(JsStaticEval.exec(jsProgram));
+      stats.add(JsStaticEval.exec(jsProgram, optimizerContext));
       // Inline Js function invocations
-      stats.add(JsInliner.exec(jsProgram, toInline));
+      stats.add(JsInliner.exec(jsProgram, toInline, optimizerContext));
       // Remove unused functions if possible.
-      stats.add(JsUnusedFunctionRemover.exec(jsProgram));
+      stats.add(JsUnusedFunctionRemover.exec(jsProgram, optimizerContext));
 
       // Save the stats to print out after optimizers finish.
       allOptimizerStats.add(stats);
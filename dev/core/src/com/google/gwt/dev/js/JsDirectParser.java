@@ -0,0 +1,1126 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.js;
+
+import com.google.gwt.dev.jjs.Correlation.Literal;
+import com.google.gwt.dev.jjs.SourceInfo;
+import com.google.gwt.dev.jjs.SourceOrigin;
+import com.google.gwt.dev.js.ast.JsArrayAccess;
+import com.google.gwt.dev.js.ast.JsArrayLiteral;
+import com.google.gwt.dev.js.ast.JsBinaryOperation;
+import com.google.gwt.dev.js.ast.JsBinaryOperator;
+import com.google.gwt.dev.js.ast.JsBlock;
+import com.google.gwt.dev.js.ast.JsBooleanLiteral;
+import com.google.gwt.dev.js.ast.JsBreak;
+import com.google.gwt.dev.js.ast.JsCase;
+import com.google.gwt.dev.js.ast.JsCatch;
+import com.google.gwt.dev.js.ast.JsConditional;
+import com.google.gwt.dev.js.ast.JsContinue;
+import com.google.gwt.dev.js.ast.JsDebugger;
+import com.google.gwt.dev.js.ast.JsDefault;
+import com.google.gwt.dev.js.ast.JsDoWhile;
+import com.google.gwt.dev.js.ast.JsEmpty;
+import com.google.gwt.dev.js.ast.JsExpression;
+import com.google.gwt.dev.js.ast.JsFor;
+import com.google.gwt.dev.js.ast.JsForIn;
+import com.google.gwt.dev.js.ast.JsFunction;
+import com.google.gwt.dev.js.ast.JsIf;
+import com.google.gwt.dev.js.ast.JsInvocation;
+import com.google.gwt.dev.js.ast.JsLabel;
+import com.google.gwt.dev.js.ast.JsName;
+import com.google.gwt.dev.js.ast.JsNameRef;
+import com.google.gwt.dev.js.ast.JsNew;
+import com.google.gwt.dev.js.ast.JsNullLiteral;
+import com.google.gwt.dev.js.ast.JsNumberLiteral;
+import com.google.gwt.dev.js.ast.JsObjectLiteral;
+import com.google.gwt.dev.js.ast.JsParameter;
+import com.google.gwt.dev.js.ast.JsPostfixOperation;
+import com.google.gwt.dev.js.ast.JsPrefixOperation;
+import com.google.gwt.dev.js.ast.JsRegExp;
+import com.google.gwt.dev.js.ast.JsReturn;
+import com.google.gwt.dev.js.ast.JsRootScope;
+import com.google.gwt.dev.js.ast.JsScope;
+import com.google.gwt.dev.js.ast.JsStatement;
+import com.google.gwt.dev.js.ast.JsStringLiteral;
+import com.google.gwt.dev.js.ast.JsSwitch;
+import com.google.gwt.dev.js.ast.JsSwitchMember;
+import com.google.gwt.dev.js.ast.JsThisRef;
+import com.google.gwt.dev.js.ast.JsThrow;
+import com.google.gwt.dev.js.ast.JsTry;
+import com.google.gwt.dev.js.ast.JsUnaryOperator;
+import com.google.gwt.dev.js.ast.JsVars;
+import com.google.gwt.dev.js.ast.JsVars.JsVar;
+import com.google.gwt.dev.js.ast.JsWhile;
+import com.google.gwt.dev.js.rhino.TokenStream;
+import com.google.gwt.dev.util.collect.Stack;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single pass recursive-descent JavaScript parser that builds the GWT JavaScript AST as it
+ * consumes tokens.
+ * <p>
+ * It accepts the same language as the Rhino-derived parser, reports the same error messages and
+ * attaches the same {@link SourceInfo} to the nodes it creates, but it does not build Rhino's
+ * intermediate <code>Node</code> tree nor the decompilation source that Rhino keeps for every
+ * function. Only the Rhino {@link TokenStream} is reused, as the scanner. Because of that the
+ * parser mirrors the token stream calls of the Rhino parser one for one, which keeps line numbers
+ * and error positions identical.
+ */
+class JsDirectParser {
+
+  /**
+   * Parses <code>r</code> into a list of statements. See {@link JsParser#parse}.
+   */
+  static List<JsStatement> parse(SourceInfo rootSourceInfo, JsScope scope, Reader r)
+      throws IOException, JsParserException {
+    JsParser.enterContext(rootSourceInfo);
+    try {
+      TokenStream ts = new TokenStream(r, rootSourceInfo.getFileName(),
+          rootSourceInfo.getStartLine());
+      return new JsDirectParser(ts).parseScript(rootSourceInfo, scope);
+    } catch (UncheckedJsParserException e) {
+      throw e.getParserException();
+    } finally {
+      JsParser.exitContext();
+    }
+  }
+
+  private static JsBinaryOperator assignmentOperator(int op) {
+    switch (op) {
+      case TokenStream.NOP:
+        return JsBinaryOperator.ASG;
+      case TokenStream.ADD:
+        return JsBinaryOperator.ASG_ADD;
+      case TokenStream.SUB:
+        return JsBinaryOperator.ASG_SUB;
+      case TokenStream.MUL:
+        return JsBinaryOperator.ASG_MUL;
+      case TokenStream.DIV:
+        return JsBinaryOperator.ASG_DIV;
+      case TokenStream.MOD:
+        return JsBinaryOperator.ASG_MOD;
+      case TokenStream.BITAND:
+        return JsBinaryOperator.ASG_BIT_AND;
+      case TokenStream.BITOR:
+        return JsBinaryOperator.ASG_BIT_OR;
+      case TokenStream.BITXOR:
+        return JsBinaryOperator.ASG_BIT_XOR;
+      case TokenStream.LSH:
+        return JsBinaryOperator.ASG_SHL;
+      case TokenStream.RSH:
+        return JsBinaryOperator.ASG_SHR;
+      case TokenStream.URSH:
+        return JsBinaryOperator.ASG_SHRU;
+      default:
+        return null;
+    }
+  }
+
+  private static JsBinaryOperator equalityOperator(int op) {
+    switch (op) {
+      case TokenStream.EQ:
+        return JsBinaryOperator.EQ;
+      case TokenStream.NE:
+        return JsBinaryOperator.NEQ;
+      case TokenStream.SHEQ:
+        return JsBinaryOperator.REF_EQ;
+      case TokenStream.SHNE:
+        return JsBinaryOperator.REF_NEQ;
+      default:
+        return relationalOperator(op);
+    }
+  }
+
+  private static JsBinaryOperator relationalOperator(int op) {
+    switch (op) {
+      case TokenStream.LT:
+        return JsBinaryOperator.LT;
+      case TokenStream.LE:
+        return JsBinaryOperator.LTE;
+      case TokenStream.GT:
+        return JsBinaryOperator.GT;
+      case TokenStream.GE:
+        return JsBinaryOperator.GTE;
+      case TokenStream.INSTANCEOF:
+        return JsBinaryOperator.INSTANCEOF;
+      case TokenStream.IN:
+        return JsBinaryOperator.INOP;
+      default:
+        return null;
+    }
+  }
+
+  private static JsBinaryOperator shiftOperator(int op) {
+    switch (op) {
+      case TokenStream.LSH:
+        return JsBinaryOperator.SHL;
+      case TokenStream.RSH:
+        return JsBinaryOperator.SHR;
+      case TokenStream.URSH:
+        return JsBinaryOperator.SHRU;
+      default:
+        return null;
+    }
+  }
+
+  private static JsUnaryOperator unaryOperator(int op) {
+    switch (op) {
+      case TokenStream.SUB:
+        return JsUnaryOperator.NEG;
+      case TokenStream.NOT:
+        return JsUnaryOperator.NOT;
+      case TokenStream.BITNOT:
+        return JsUnaryOperator.BIT_NOT;
+      case TokenStream.TYPEOF:
+        return JsUnaryOperator.TYPEOF;
+      case TokenStream.VOID:
+        return JsUnaryOperator.VOID;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The nesting depth of function bodies; <code>return</code> is only legal inside one.
+   */
+  private int functionDepth;
+
+  /**
+   * The line on which the last member expression ended, used for semicolon insertion after
+   * function literals.
+   */
+  private int lastExprEndLine;
+
+  private final Stack<JsScope> scopeStack = new Stack<JsScope>();
+  private final Stack<SourceInfo> sourceInfoStack = new Stack<SourceInfo>();
+  private final TokenStream ts;
+
+  private JsDirectParser(TokenStream ts) {
+    this.ts = ts;
+  }
+
+  private JsExpression addExpr() throws IOException, JsParserException {
+    JsExpression pn = mulExpr();
+    int tt;
+    while ((tt = ts.getToken()) == TokenStream.ADD || tt == TokenStream.SUB) {
+      JsBinaryOperator op = tt == TokenStream.ADD ? JsBinaryOperator.ADD : JsBinaryOperator.SUB;
+      pn = new JsBinaryOperation(currentSourceInfo(), op, pn, mulExpr());
+    }
+    ts.ungetToken(tt);
+    return pn;
+  }
+
+  private JsExpression andExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = bitOrExpr(inForInit);
+    if (ts.matchToken(TokenStream.AND)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.AND, pn,
+          andExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private void argumentList(List<JsExpression> args) throws IOException, JsParserException {
+    if (!matchTokenAllowingRegExp(TokenStream.GWT)) {
+      do {
+        args.add(assignExpr(false));
+      } while (ts.matchToken(TokenStream.COMMA));
+      mustMatchToken(TokenStream.GWT, "msg.no.paren.arg");
+    }
+  }
+
+  /**
+   * Rhino maps a statement that is not a block, used where a block is expected, as a block of its
+   * own; wrap it instead.
+   */
+  private JsBlock asBlock(JsStatement stmt) {
+    if (stmt instanceof JsBlock) {
+      return (JsBlock) stmt;
+    }
+    JsBlock block = new JsBlock(stmt.getSourceInfo());
+    block.getStatements().add(stmt);
+    return block;
+  }
+
+  private JsExpression assignExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = condExpr(inForInit);
+    if (ts.matchToken(TokenStream.ASSIGN)) {
+      JsBinaryOperator op = assignmentOperator(ts.getOp());
+      JsExpression rhs = assignExpr(inForInit);
+      if (!(pn instanceof JsNameRef || pn instanceof JsArrayAccess)) {
+        throw syntaxError("msg.bad.lhs.assign");
+      }
+      if (op == null) {
+        throw parserException("Unknown assignment operator variant: " + ts.getOp());
+      }
+      pn = new JsBinaryOperation(currentSourceInfo(), op, pn, rhs);
+    }
+    return pn;
+  }
+
+  private JsExpression bitAndExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = eqExpr(inForInit);
+    while (ts.matchToken(TokenStream.BITAND)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.BIT_AND, pn,
+          eqExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private JsExpression bitOrExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = bitXorExpr(inForInit);
+    while (ts.matchToken(TokenStream.BITOR)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.BIT_OR, pn,
+          bitXorExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private JsExpression bitXorExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = bitAndExpr(inForInit);
+    while (ts.matchToken(TokenStream.BITXOR)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.BIT_XOR, pn,
+          bitAndExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private JsExpression condExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = orExpr(inForInit);
+    if (ts.matchToken(TokenStream.HOOK)) {
+      SourceInfo info = currentSourceInfo();
+      JsExpression ifTrue = assignExpr(false);
+      mustMatchToken(TokenStream.COLON, "msg.no.colon.cond");
+      JsExpression ifFalse = assignExpr(inForInit);
+      return new JsConditional(info, pn, ifTrue, ifFalse);
+    }
+    return pn;
+  }
+
+  private JsExpression condition() throws IOException, JsParserException {
+    mustMatchToken(TokenStream.LP, "msg.no.paren.cond");
+    JsExpression pn = expr(false);
+    mustMatchToken(TokenStream.GWT, "msg.no.paren.after.cond");
+    return pn;
+  }
+
+  private SourceInfo currentSourceInfo() {
+    return sourceInfoStack.peek();
+  }
+
+  private JsExpression eqExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = relExpr(inForInit);
+    while (ts.matchToken(TokenStream.EQOP)) {
+      JsBinaryOperator op = equalityOperator(ts.getOp());
+      if (op == null) {
+        throw parserException("Unknown equality operator variant: " + ts.getOp());
+      }
+      pn = new JsBinaryOperation(currentSourceInfo(), op, pn, relExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private JsExpression expr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = assignExpr(inForInit);
+    while (ts.matchToken(TokenStream.COMMA)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.COMMA, pn,
+          assignExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private JsFunction function(boolean isExpr) throws IOException, JsParserException {
+    String name = null;
+    if (ts.matchToken(TokenStream.NAME)) {
+      name = ts.getString();
+      mustMatchToken(TokenStream.LP, "msg.no.paren.parms");
+    } else {
+      mustMatchToken(TokenStream.LP, "msg.no.paren.parms");
+    }
+
+    JsName fnName = name == null ? null : getScope().declareName(name);
+    SourceInfo fnSourceInfo = currentSourceInfo();
+    JsFunction fn = new JsFunction(fnSourceInfo, getScope(), fnName);
+
+    // Creating a function also creates a new scope.
+    pushScope(fn.getScope(), fnSourceInfo);
+    if (!ts.matchToken(TokenStream.GWT)) {
+      do {
+        mustMatchToken(TokenStream.NAME, "msg.no.parm");
+        // Not unique; duplicate parameter names are legal.
+        JsName paramName = fn.getScope().declareName(ts.getString());
+        fn.getParameters().add(new JsParameter(fnSourceInfo, paramName));
+      } while (ts.matchToken(TokenStream.COMMA));
+      mustMatchToken(TokenStream.GWT, "msg.no.paren.after.parms");
+    }
+    mustMatchToken(TokenStream.LC, "msg.no.brace.body");
+    fn.setBody(functionBody());
+    mustMatchToken(TokenStream.RC, "msg.no.brace.after.body");
+    popScope();
+
+    if (!isExpr) {
+      wellTerminated(TokenStream.FUNCTION);
+    }
+    return fn;
+  }
+
+  private JsBlock functionBody() throws IOException, JsParserException {
+    ++functionDepth;
+    SourceInfo info = makeSourceInfo(ts.getLineno());
+    JsBlock block = new JsBlock(info);
+    pushSourceInfo(info);
+    int tt;
+    while ((tt = ts.peekToken()) > TokenStream.EOF && tt != TokenStream.RC) {
+      if (tt == TokenStream.FUNCTION) {
+        ts.getToken();
+        block.getStatements().add(function(false).makeStmt());
+      } else {
+        block.getStatements().add(statement());
+      }
+    }
+    popSourceInfo();
+    --functionDepth;
+    return block;
+  }
+
+  private JsScope getScope() {
+    return scopeStack.peek();
+  }
+
+  private int getTokenAllowingRegExp() throws IOException {
+    ts.setRegExpAllowed(true);
+    int tt = ts.getToken();
+    ts.setRegExpAllowed(false);
+    return tt;
+  }
+
+  private SourceInfo makeSourceInfo(int lineno) {
+    SourceInfo parent = sourceInfoStack.peek();
+    return parent.makeChild(SourceOrigin.create(lineno, parent.getFileName()));
+  }
+
+  private JsStringLiteral makeStringLiteral(String value) {
+    // A distinct child, so the correlation can be added.
+    SourceInfo info = makeSourceInfo(currentSourceInfo().getStartLine());
+    info.addCorrelation(info.getCorrelator().by(Literal.STRING));
+    return new JsStringLiteral(info, value);
+  }
+
+  /**
+   * Returns the label following <code>break</code> or <code>continue</code> on the same line, if
+   * any.
+   */
+  private String matchLabel() throws IOException, JsParserException {
+    int lineno = ts.getLineno();
+    String label = null;
+    if (ts.peekTokenSameLine() == TokenStream.NAME) {
+      ts.getToken();
+      label = ts.getString();
+    }
+    if (lineno == ts.getLineno()) {
+      wellTerminated(TokenStream.ERROR);
+    }
+    return label;
+  }
+
+  private boolean matchTokenAllowingRegExp(int toMatch) throws IOException {
+    ts.setRegExpAllowed(true);
+    boolean matched = ts.matchToken(toMatch);
+    ts.setRegExpAllowed(false);
+    return matched;
+  }
+
+  private JsExpression memberExpr(boolean allowCallSyntax) throws IOException, JsParserException {
+    JsExpression pn;
+    if (peekTokenAllowingRegExp() == TokenStream.NEW) {
+      ts.getToken();
+      JsNew newExpr = new JsNew(currentSourceInfo(), memberExpr(false));
+      if (ts.matchToken(TokenStream.LP)) {
+        argumentList(newExpr.getArguments());
+      }
+      // Rhino's experimental syntax: an object literal following a new expression is passed as an
+      // additional argument.
+      if (ts.peekToken() == TokenStream.LC) {
+        newExpr.getArguments().add(primaryExpr());
+      }
+      pn = newExpr;
+    } else {
+      pn = primaryExpr();
+    }
+    return memberExprTail(allowCallSyntax, pn);
+  }
+
+  private JsExpression memberExprTail(boolean allowCallSyntax, JsExpression pn)
+      throws IOException, JsParserException {
+    lastExprEndLine = ts.getLineno();
+    int tt;
+    while ((tt = ts.getToken()) > TokenStream.EOF) {
+      if (tt == TokenStream.DOT) {
+        mustMatchToken(TokenStream.NAME, "msg.no.name.after.dot");
+        JsNameRef nameRef = new JsNameRef(currentSourceInfo(), ts.getString());
+        nameRef.setQualifier(pn);
+        pn = nameRef;
+        lastExprEndLine = ts.getLineno();
+      } else if (tt == TokenStream.LB) {
+        pn = new JsArrayAccess(currentSourceInfo(), pn, expr(false));
+        mustMatchToken(TokenStream.RB, "msg.no.bracket.index");
+        lastExprEndLine = ts.getLineno();
+      } else if (allowCallSyntax && tt == TokenStream.LP) {
+        JsInvocation invocation = new JsInvocation(currentSourceInfo());
+        invocation.setQualifier(pn);
+        argumentList(invocation.getArguments());
+        pn = invocation;
+        lastExprEndLine = ts.getLineno();
+      } else {
+        ts.ungetToken(tt);
+        break;
+      }
+    }
+    return pn;
+  }
+
+  private JsExpression mulExpr() throws IOException, JsParserException {
+    JsExpression pn = unaryExpr();
+    int tt;
+    while ((tt = ts.peekToken()) == TokenStream.MUL || tt == TokenStream.DIV
+        || tt == TokenStream.MOD) {
+      tt = ts.getToken();
+      JsBinaryOperator op = tt == TokenStream.MUL ? JsBinaryOperator.MUL
+          : tt == TokenStream.DIV ? JsBinaryOperator.DIV : JsBinaryOperator.MOD;
+      pn = new JsBinaryOperation(currentSourceInfo(), op, pn, unaryExpr());
+    }
+    return pn;
+  }
+
+  private void mustMatchToken(int toMatch, String messageId) throws IOException {
+    if (ts.getToken() != toMatch) {
+      throw syntaxError(messageId);
+    }
+  }
+
+  private JsExpression orExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = andExpr(inForInit);
+    if (ts.matchToken(TokenStream.OR)) {
+      pn = new JsBinaryOperation(currentSourceInfo(), JsBinaryOperator.OR, pn,
+          orExpr(inForInit));
+    }
+    return pn;
+  }
+
+  private List<JsStatement> parseScript(SourceInfo rootSourceInfo, JsScope scope)
+      throws IOException, JsParserException {
+    List<JsStatement> stmts = new ArrayList<JsStatement>();
+    pushScope(scope, rootSourceInfo);
+    while (true) {
+      int tt = getTokenAllowingRegExp();
+      if (tt <= TokenStream.EOF) {
+        break;
+      }
+      if (tt == TokenStream.FUNCTION) {
+        stmts.add(function(false).makeStmt());
+      } else {
+        ts.ungetToken(tt);
+        stmts.add(statement());
+      }
+    }
+    popScope();
+    return stmts;
+  }
+
+  private JsParserException parserException(String msg) {
+    return new JsParserException(msg, ts.getLineno(), null, 0,
+        currentSourceInfo().getFileName());
+  }
+
+  private int peekTokenAllowingRegExp() throws IOException {
+    ts.setRegExpAllowed(true);
+    int tt = ts.peekToken();
+    ts.setRegExpAllowed(false);
+    return tt;
+  }
+
+  private void popScope() {
+    scopeStack.pop();
+    sourceInfoStack.pop();
+  }
+
+  private void popSourceInfo() {
+    sourceInfoStack.pop();
+  }
+
+  private JsExpression primaryExpr() throws IOException, JsParserException {
+    int tt = getTokenAllowingRegExp();
+    switch (tt) {
+      case TokenStream.FUNCTION:
+        return function(true);
+
+      case TokenStream.LB: {
+        JsArrayLiteral arrayLiteral = new JsArrayLiteral(currentSourceInfo());
+        if (!matchTokenAllowingRegExp(TokenStream.RB)) {
+          do {
+            tt = peekTokenAllowingRegExp();
+            if (tt == TokenStream.RB) {
+              // Trailing comma.
+              break;
+            }
+            if (tt == TokenStream.COMMA) {
+              arrayLiteral.getExpressions().add(
+                  new JsNameRef(currentSourceInfo(), JsRootScope.INSTANCE.getUndefined()));
+            } else {
+              arrayLiteral.getExpressions().add(assignExpr(false));
+            }
+          } while (ts.matchToken(TokenStream.COMMA));
+          mustMatchToken(TokenStream.RB, "msg.no.bracket.arg");
+        }
+        return arrayLiteral;
+      }
+
+      case TokenStream.LC: {
+        JsObjectLiteral.Builder objectLiteralBuilder =
+            JsObjectLiteral.builder(currentSourceInfo());
+        if (!ts.matchToken(TokenStream.RC)) {
+          do {
+            JsExpression labelExpr;
+            tt = ts.getToken();
+            if (tt == TokenStream.NAME) {
+              labelExpr = new JsNameRef(currentSourceInfo(), ts.getString());
+            } else if (tt == TokenStream.STRING) {
+              labelExpr = makeStringLiteral(ts.getString());
+            } else if (tt == TokenStream.NUMBER) {
+              labelExpr = new JsNumberLiteral(currentSourceInfo(), ts.getNumber());
+            } else if (tt == TokenStream.RC) {
+              // Trailing comma.
+              ts.ungetToken(tt);
+              break;
+            } else {
+              throw syntaxError("msg.bad.prop");
+            }
+            mustMatchToken(TokenStream.COLON, "msg.no.colon.prop");
+            objectLiteralBuilder.add(labelExpr.getSourceInfo(), labelExpr, assignExpr(false));
+          } while (ts.matchToken(TokenStream.COMMA));
+          mustMatchToken(TokenStream.RC, "msg.no.brace.prop");
+        }
+        return objectLiteralBuilder.build();
+      }
+
+      case TokenStream.LP: {
+        JsExpression pn = expr(false);
+        mustMatchToken(TokenStream.GWT, "msg.no.paren");
+        return pn;
+      }
+
+      case TokenStream.NAME:
+        return new JsNameRef(currentSourceInfo(), ts.getString());
+
+      case TokenStream.NUMBER:
+        return new JsNumberLiteral(currentSourceInfo(), ts.getNumber());
+
+      case TokenStream.STRING:
+        return makeStringLiteral(ts.getString());
+
+      case TokenStream.REGEXP: {
+        String flags = ts.takeRegExpFlags();
+        JsRegExp regExp = new JsRegExp(currentSourceInfo());
+        regExp.setPattern(ts.getString());
+        if (flags.length() > 0) {
+          regExp.setFlags(flags);
+        }
+        return regExp;
+      }
+
+      case TokenStream.PRIMARY:
+        switch (ts.getOp()) {
+          case TokenStream.THIS:
+            return new JsThisRef(currentSourceInfo());
+          case TokenStream.TRUE:
+            return JsBooleanLiteral.TRUE;
+          case TokenStream.FALSE:
+            return JsBooleanLiteral.FALSE;
+          case TokenStream.NULL:
+            return JsNullLiteral.INSTANCE;
+          default:
+            throw parserException("Unknown primary: " + ts.getOp());
+        }
+
+      case TokenStream.RESERVED:
+        throw syntaxError("msg.reserved.id");
+
+      default:
+        throw syntaxError("msg.syntax");
+    }
+  }
+
+  private void pushScope(JsScope scope, SourceInfo sourceInfo) {
+    scopeStack.push(scope);
+    sourceInfoStack.push(sourceInfo);
+  }
+
+  private void pushSourceInfo(SourceInfo sourceInfo) {
+    assert sourceInfo.getStartLine() >= 0 : "Bad SourceInfo line number";
+    sourceInfoStack.push(sourceInfo);
+  }
+
+  private JsExpression relExpr(boolean inForInit) throws IOException, JsParserException {
+    JsExpression pn = shiftExpr();
+    while (ts.matchToken(TokenStream.RELOP)) {
+      int op = ts.getOp();
+      if (inForInit && op == TokenStream.IN) {
+        ts.ungetToken(TokenStream.RELOP);
+        break;
+      }
+      JsBinaryOperator binaryOp = relationalOperator(op);
+      if (binaryOp == null) {
+        throw parserException("Unknown relational operator variant: " + op);
+      }
+      pn = new JsBinaryOperation(currentSourceInfo(), binaryOp, pn, shiftExpr());
+    }
+    return pn;
+  }
+
+  private JsExpression shiftExpr() throws IOException, JsParserException {
+    JsExpression pn = addExpr();
+    while (ts.matchToken(TokenStream.SHOP)) {
+      JsBinaryOperator op = shiftOperator(ts.getOp());
+      if (op == null) {
+        throw parserException("Unknown shift operator variant: " + ts.getOp());
+      }
+      pn = new JsBinaryOperation(currentSourceInfo(), op, pn, addExpr());
+    }
+    return pn;
+  }
+
+  private JsStatement statement() throws IOException, JsParserException {
+    JsStatement stmt;
+    int tt = ts.getToken();
+    switch (tt) {
+      case TokenStream.IF: {
+        JsIf toIf = new JsIf(currentSourceInfo());
+        toIf.setIfExpr(condition());
+        toIf.setThenStmt(statement());
+        if (ts.matchToken(TokenStream.ELSE)) {
+          toIf.setElseStmt(statement());
+        }
+        stmt = toIf;
+        break;
+      }
+
+      case TokenStream.SWITCH: {
+        SourceInfo info = makeSourceInfo(ts.getLineno());
+        JsSwitch toSwitch = new JsSwitch(info);
+        pushSourceInfo(info);
+        mustMatchToken(TokenStream.LP, "msg.no.paren.switch");
+        toSwitch.setExpr(expr(false));
+        mustMatchToken(TokenStream.GWT, "msg.no.paren.after.switch");
+        mustMatchToken(TokenStream.LC, "msg.no.brace.switch");
+        while ((tt = ts.getToken()) != TokenStream.RC && tt != TokenStream.EOF) {
+          JsSwitchMember member;
+          if (tt == TokenStream.CASE) {
+            JsCase toCase = new JsCase(currentSourceInfo());
+            toCase.setCaseExpr(expr(false));
+            member = toCase;
+          } else if (tt == TokenStream.DEFAULT) {
+            member = new JsDefault(currentSourceInfo());
+          } else {
+            throw syntaxError("msg.bad.switch");
+          }
+          mustMatchToken(TokenStream.COLON, "msg.no.colon.case");
+          while ((tt = ts.peekToken()) != TokenStream.RC && tt != TokenStream.CASE
+              && tt != TokenStream.DEFAULT && tt != TokenStream.EOF) {
+            member.getStmts().add(statement());
+          }
+          toSwitch.getCases().add(member);
+        }
+        popSourceInfo();
+        stmt = toSwitch;
+        break;
+      }
+
+      case TokenStream.WHILE: {
+        SourceInfo info = makeSourceInfo(ts.getLineno());
+        pushSourceInfo(info);
+        JsExpression cond = condition();
+        JsStatement body = statement();
+        popSourceInfo();
+        stmt = new JsWhile(info, cond, body);
+        break;
+      }
+
+      case TokenStream.DO: {
+        SourceInfo info = makeSourceInfo(ts.getLineno());
+        pushSourceInfo(info);
+        JsStatement body = statement();
+        mustMatchToken(TokenStream.WHILE, "msg.no.while.do");
+        JsExpression cond = condition();
+        popSourceInfo();
+        stmt = new JsDoWhile(info, cond, body);
+        break;
+      }
+
+      case TokenStream.FOR:
+        stmt = forStatement();
+        break;
+
+      case TokenStream.TRY:
+        stmt = tryStatement();
+        break;
+
+      case TokenStream.THROW: {
+        int lineno = ts.getLineno();
+        SourceInfo info = makeSourceInfo(lineno);
+        pushSourceInfo(info);
+        stmt = new JsThrow(info, expr(false));
+        popSourceInfo();
+        if (lineno == ts.getLineno()) {
+          wellTerminated(TokenStream.ERROR);
+        }
+        break;
+      }
+
+      case TokenStream.BREAK:
+      case TokenStream.CONTINUE: {
+        SourceInfo info = makeSourceInfo(ts.getLineno());
+        String label = matchLabel();
+        JsNameRef labelRef = label == null ? null : new JsNameRef(currentSourceInfo(), label);
+        if (tt == TokenStream.BREAK) {
+          stmt = labelRef == null ? new JsBreak(info) : new JsBreak(info, labelRef);
+        } else {
+          stmt = labelRef == null ? new JsContinue(info) : new JsContinue(info, labelRef);
+        }
+        break;
+      }
+
+      case TokenStream.DEBUGGER:
+        stmt = new JsDebugger(currentSourceInfo());
+        break;
+
+      case TokenStream.WITH:
+        // Unsupported because it makes it impossible to tell statically whether a name is
+        // obfuscatable.
+        throw syntaxError("msg.jsni.unsupported.with");
+
+      case TokenStream.VAR: {
+        int lineno = ts.getLineno();
+        stmt = variables(false);
+        if (ts.getLineno() == lineno) {
+          wellTerminated(TokenStream.ERROR);
+        }
+        break;
+      }
+
+      case TokenStream.RETURN: {
+        if (functionDepth == 0) {
+          throw syntaxError("msg.bad.return");
+        }
+        ts.setRegExpAllowed(true);
+        tt = ts.peekTokenSameLine();
+        ts.setRegExpAllowed(false);
+        if (tt != TokenStream.EOF && tt != TokenStream.EOL && tt != TokenStream.SEMI
+            && tt != TokenStream.RC) {
+          int lineno = ts.getLineno();
+          JsReturn toReturn = new JsReturn(makeSourceInfo(lineno));
+          pushSourceInfo(toReturn.getSourceInfo());
+          toReturn.setExpr(expr(false));
+          popSourceInfo();
+          if (ts.getLineno() == lineno) {
+            wellTerminated(TokenStream.ERROR);
+          }
+          stmt = toReturn;
+        } else {
+          // The Rhino parser attributes an empty return to line 0.
+          stmt = new JsReturn(makeSourceInfo(0));
+        }
+        break;
+      }
+
+      case TokenStream.LC:
+        stmt = statements();
+        mustMatchToken(TokenStream.RC, "msg.no.brace.block");
+        break;
+
+      case TokenStream.ERROR:
+      case TokenStream.EOL:
+      case TokenStream.SEMI:
+        stmt = new JsEmpty(currentSourceInfo());
+        break;
+
+      default: {
+        int lastExprType = tt;
+        int tokenno = ts.getTokenno();
+        ts.ungetToken(tt);
+        int lineno = ts.getLineno();
+
+        pushSourceInfo(makeSourceInfo(lineno));
+        JsExpression expr = expr(false);
+        popSourceInfo();
+
+        if (ts.peekToken() == TokenStream.COLON) {
+          // Check that the last thing the tokenizer returned was a NAME and that only one token
+          // was consumed.
+          if (lastExprType != TokenStream.NAME || ts.getTokenno() != tokenno) {
+            throw syntaxError("msg.bad.label");
+          }
+          ts.getToken();
+          JsLabel toLabel = new JsLabel(currentSourceInfo(),
+              getScope().declareName(ts.getString()));
+          toLabel.setStmt(statement());
+          return toLabel;
+        }
+
+        if (lastExprType == TokenStream.FUNCTION && !(expr instanceof JsFunction)) {
+          throw syntaxError("msg.syntax");
+        }
+        stmt = expr.makeStmt();
+
+        // Semicolon insertion after a (multi-line) function literal.
+        if (ts.getLineno() == lineno
+            || (lastExprType == TokenStream.FUNCTION && ts.getLineno() == lastExprEndLine)) {
+          wellTerminated(lastExprType);
+        }
+        break;
+      }
+    }
+    ts.matchToken(TokenStream.SEMI);
+    return stmt;
+  }
+
+  private JsStatement forStatement() throws IOException, JsParserException {
+    SourceInfo info = currentSourceInfo();
+    mustMatchToken(TokenStream.LP, "msg.no.paren.for");
+
+    JsVars initVars = null;
+    JsExpression initExpr = null;
+    int tt = ts.peekToken();
+    if (tt == TokenStream.VAR) {
+      ts.getToken();
+      initVars = variables(true);
+    } else if (tt != TokenStream.SEMI) {
+      initExpr = expr(true);
+    }
+
+    JsStatement result;
+    if (ts.peekToken() == TokenStream.RELOP && ts.getOp() == TokenStream.IN) {
+      ts.matchToken(TokenStream.RELOP);
+      JsForIn toForIn;
+      if (initVars != null) {
+        // A named iterator var, with an initializer that is only useful for side effects.
+        JsVar iterVar = initVars.iterator().next();
+        toForIn = new JsForIn(info, iterVar.getName());
+        toForIn.setIterExpr(iterVar.getInitExpr());
+      } else {
+        toForIn = new JsForIn(info);
+        toForIn.setIterExpr(initExpr);
+      }
+      toForIn.setObjExpr(expr(false));
+      result = toForIn;
+    } else {
+      JsFor toFor = new JsFor(info);
+      if (initVars != null) {
+        toFor.setInitVars(initVars);
+      } else {
+        toFor.setInitExpr(initExpr);
+      }
+      mustMatchToken(TokenStream.SEMI, "msg.no.semi.for");
+      if (ts.peekToken() != TokenStream.SEMI) {
+        toFor.setCondition(expr(false));
+      }
+      mustMatchToken(TokenStream.SEMI, "msg.no.semi.for.cond");
+      if (ts.peekToken() != TokenStream.GWT) {
+        toFor.setIncrExpr(expr(false));
+      }
+      result = toFor;
+    }
+    mustMatchToken(TokenStream.GWT, "msg.no.paren.for.ctrl");
+    JsStatement body = statement();
+    if (result instanceof JsForIn) {
+      ((JsForIn) result).setBody(body);
+    } else {
+      ((JsFor) result).setBody(body);
+    }
+    return result;
+  }
+
+  private JsBlock statements() throws IOException, JsParserException {
+    SourceInfo info = makeSourceInfo(ts.getLineno());
+    JsBlock block = new JsBlock(info);
+    pushSourceInfo(info);
+    int tt;
+    while ((tt = ts.peekToken()) > TokenStream.EOF && tt != TokenStream.RC) {
+      block.getStatements().add(statement());
+    }
+    popSourceInfo();
+    return block;
+  }
+
+  /**
+   * Reports a syntax error at the current position through the Rhino error reporter, which
+   * always throws.
+   */
+  private RuntimeException syntaxError(String messageId) {
+    ts.reportSyntaxError(messageId, null);
+    throw new IllegalStateException("Error reporter returned for " + messageId);
+  }
+
+  private JsTry tryStatement() throws IOException, JsParserException {
+    JsTry toTry = new JsTry(currentSourceInfo());
+    toTry.setTryBlock(asBlock(statement()));
+
+    int peek = ts.peekToken();
+    if (peek == TokenStream.CATCH) {
+      boolean sawDefaultCatch = false;
+      JsCatch lastCatch = null;
+      while (ts.matchToken(TokenStream.CATCH)) {
+        if (sawDefaultCatch) {
+          throw syntaxError("msg.catch.unreachable");
+        }
+        int lineno = ts.getLineno();
+        mustMatchToken(TokenStream.LP, "msg.no.paren.catch");
+        mustMatchToken(TokenStream.NAME, "msg.bad.catchcond");
+        String varName = ts.getString();
+        JsExpression catchCond = null;
+        if (ts.matchToken(TokenStream.IF)) {
+          catchCond = expr(false);
+        } else {
+          sawDefaultCatch = true;
+        }
+        mustMatchToken(TokenStream.GWT, "msg.bad.catchcond");
+        mustMatchToken(TokenStream.LC, "msg.no.brace.catchblock");
+
+        lastCatch = new JsCatch(makeSourceInfo(lineno), getScope(), varName);
+        lastCatch.setCondition(catchCond);
+        pushScope(lastCatch.getScope(), lastCatch.getSourceInfo());
+        lastCatch.setBody(statements());
+        popScope();
+        mustMatchToken(TokenStream.RC, "msg.no.brace.after.body");
+        toTry.getCatches().add(lastCatch);
+      }
+      // A last catch block whose condition is literally true is unconditional.
+      JsExpression lastCondition = lastCatch.getCondition();
+      if (lastCondition instanceof JsBooleanLiteral
+          && ((JsBooleanLiteral) lastCondition).getValue()) {
+        lastCatch.setCondition(null);
+      }
+    } else if (peek != TokenStream.FINALLY) {
+      throw syntaxError("msg.try.no.catchfinally");
+    }
+
+    if (ts.matchToken(TokenStream.FINALLY)) {
+      toTry.setFinallyBlock(asBlock(statement()));
+    }
+    return toTry;
+  }
+
+  private JsExpression unaryExpr() throws IOException, JsParserException {
+    int tt = getTokenAllowingRegExp();
+    switch (tt) {
+      case TokenStream.UNARYOP:
+      case TokenStream.SUB: {
+        int op = tt == TokenStream.SUB ? TokenStream.SUB : ts.getOp();
+        SourceInfo info = currentSourceInfo();
+        JsUnaryOperator unaryOp = unaryOperator(op);
+        if (unaryOp == null) {
+          throw parserException("Unknown unary operator variant: " + op);
+        }
+        return new JsPrefixOperation(info, unaryOp, unaryExpr());
+      }
+
+      case TokenStream.ADD: {
+        JsExpression operand = unaryExpr();
+        if (operand instanceof JsNumberLiteral) {
+          // Pretend we didn't see it.
+          return operand;
+        }
+        return new JsPrefixOperation(currentSourceInfo(), JsUnaryOperator.POS, operand);
+      }
+
+      case TokenStream.INC:
+      case TokenStream.DEC: {
+        JsUnaryOperator op = tt == TokenStream.INC ? JsUnaryOperator.INC : JsUnaryOperator.DEC;
+        return new JsPrefixOperation(currentSourceInfo(), op, memberExpr(true));
+      }
+
+      case TokenStream.DELPROP: {
+        JsExpression operand = unaryExpr();
+        if (!(operand instanceof JsNameRef || operand instanceof JsArrayAccess)) {
+          throw parserException(
+              "'delete' can only operate on property names and array elements");
+        }
+        return new JsPrefixOperation(currentSourceInfo(), JsUnaryOperator.DELETE, operand);
+      }
+
+      default: {
+        ts.ungetToken(tt);
+        int lineno = ts.getLineno();
+        JsExpression pn = memberExpr(true);
+
+        // Don't look across a newline boundary for a postfix incop.
+        int peeked = ts.peekToken();
+        if ((peeked == TokenStream.INC || peeked == TokenStream.DEC)
+            && ts.getLineno() == lineno) {
+          ts.getToken();
+          JsUnaryOperator op =
+              peeked == TokenStream.INC ? JsUnaryOperator.INC : JsUnaryOperator.DEC;
+          return new JsPostfixOperation(currentSourceInfo(), op, pn);
+        }
+        return pn;
+      }
+    }
+  }
+
+  private JsVars variables(boolean inForInit) throws IOException, JsParserException {
+    SourceInfo info = makeSourceInfo(ts.getLineno());
+    JsVars toVars = new JsVars(info);
+    pushSourceInfo(info);
+    while (true) {
+      mustMatchToken(TokenStream.NAME, "msg.bad.var");
+      // Use a conservative name allocation strategy that allocates all names from the function's
+      // scope, even the names of properties in field literals.
+      JsVar toVar = new JsVar(info, getScope().declareName(ts.getString()));
+      if (ts.matchToken(TokenStream.ASSIGN)) {
+        if (ts.getOp() != TokenStream.NOP) {
+          throw syntaxError("msg.bad.var.init");
+        }
+        toVar.setInitExpr(assignExpr(inForInit));
+      }
+      toVars.add(toVar);
+      if (!ts.matchToken(TokenStream.COMMA)) {
+        break;
+      }
+    }
+    popSourceInfo();
+    return toVars;
+  }
+
+  /**
+   * Checks that a statement ends at the end of the line, a semicolon or a closing brace.
+   */
+  private void wellTerminated(int lastExprType) throws IOException {
+    int tt = ts.peekTokenSameLine();
+    if (tt == TokenStream.ERROR) {
+      return;
+    }
+    if (tt != TokenStream.EOF && tt != TokenStream.EOL && tt != TokenStream.SEMI
+        && tt != TokenStream.RC) {
+      // Like Rhino at its default language version, tolerate a missing semicolon next to a
+      // function literal.
+      if (tt != TokenStream.FUNCTION && lastExprType != TokenStream.FUNCTION) {
+        throw syntaxError("msg.no.semi.stmt");
+      }
+    }
+  }
+}
@@ -628,6 +628,11 @@ public class JsInliner {
     private final InvocationCountingVisitor invocationCountingVisitor =
         new InvocationCountingVisitor();
     private final Stack<List<JsName>> newLocalVariableStack = Stack.create();
+    /**
+     * Whether anything had changed before entering each function on the function stack.
+     */
+    private final Stack<Boolean> changedBeforeFunctionStack = Stack.create();
+    private final JsOptimizerContext optimizerContext;
 
     /**
      * A map containing the next integer to try as an identifier suffix for a
@@ -641,8 +646,17 @@ public class JsInliner {
      */
     private JsFunction programFunction;
 
-    public InliningVisitor(JsProgram program, Set<JsNode> whitelist) {
+    /**
+     * Whether the last call site rejected by {@link #process} was rejected
+     * because of the names visible from the caller, which can change without
+     * the caller or the callee being modified.
+     */
+    private boolean rejectedForUnstableNames;
+
+    public InliningVisitor(JsProgram program, Set<JsNode> whitelist,
+        JsOptimizerContext optimizerContext) {
       this.whitelist = whitelist;
+      this.optimizerContext = optimizerContext;
       invocationCountingVisitor.accept(program);
     }
 
@@ -743,6 +757,11 @@ public class JsInliner {
       List<JsName> newLocalVariables = newLocalVariableStack.pop();
 
       addVars(x, body, newLocalVariables);
+
+      if (didChange) {
+        optimizerContext.markModified(x);
+      }
+      didChange |= changedBeforeFunctionStack.pop();
     }
 
     @Override
@@ -793,10 +812,29 @@ public class JsInliner {
         return;
       }
 
+      /*
+       * Skip call sites that were already rejected in an earlier pass if neither
+       * function has been modified since. Top-level call sites are not cached
+       * since the program function is synthesized anew on every pass.
+       */
+      JsInvocation callSite = x;
+      int invocationCount = invocationCountingVisitor.invocationCount(invokedFunction);
+      boolean cacheable = callerFunction != programFunction;
+      if (cacheable && optimizerContext.isKnownNotInlinable(callSite, callerFunction,
+          invokedFunction, invocationCount)) {
+        return;
+      }
+
       inlining.push(invokedFunction);
       x = tryToUnravelExplicitCall(x);
+      rejectedForUnstableNames = false;
       JsExpression op = process(x, callerFunction, invokedFunction);
 
+      if (x == op && cacheable && !rejectedForUnstableNames) {
+        optimizerContext.recordNotInlinable(callSite, callerFunction, invokedFunction,
+            invocationCount);
+      }
+
       if (x != op) {
         /*
          * See if any further inlining can be performed in the current context.
@@ -829,6 +867,8 @@ public class JsInliner {
     public boolean visit(JsFunction x, JsContext ctx) {
       functionStack.push(x);
       newLocalVariableStack.push(Lists.<JsName>newArrayList());
+      changedBeforeFunctionStack.push(didChange);
+      didChange = false;
       return whitelist.contains(x);
     }
 
@@ -984,8 +1024,18 @@ public class JsInliner {
         op = outerOp;
       }
 
+      /*
+       * Names can be declared in the scopes enclosing the caller without
+       * modifying it, so this check is not remembered across passes.
+       */
+      if (!hasStableNames(callerFunction, invokedFunction, op)) {
+        rejectedForUnstableNames = true;
+        return x;
+      }
+
       // Confirm that the expression conforms to the desired heuristics
-      if (!isInlinable(callerFunction, invokedFunction, thisExpr, x.getArguments(), op)) {
+      if (!isInlinable(callerFunction, invokedFunction, thisExpr, x.getArguments(), op,
+          optimizerContext)) {
         return x;
       }
 
@@ -1027,6 +1077,13 @@ public class JsInliner {
       // We've committed to the inlining, ensure the vars are created
       newLocalVariableStack.peek().addAll(extrudedNames);
 
+      /*
+       * The caller's body is about to change, so facts cached about it (e.g. whether it
+       * contains nested functions) are no longer valid for the remaining call sites.
+       */
+      optimizerContext.markModified(callerFunction);
+      optimizerContext.recordInlined(callerFunction, invokedFunction);
+
       // update invocation counts according to this inlining
       invocationCountingVisitor.removeCountsFor(x);
       invocationCountingVisitor.accept(op);
@@ -1268,23 +1325,6 @@ public class JsInliner {
     }
   }
 
-  /**
-   * Detects function declarations.
-   */
-  private static class NestedFunctionVisitor extends JsVisitor {
-
-    private boolean containsNestedFunctions = false;
-
-    public boolean containsNestedFunctions() {
-      return containsNestedFunctions;
-    }
-
-    @Override
-    public void endVisit(JsFunction x, JsContext ctx) {
-      containsNestedFunctions = true;
-    }
-  }
-
   /**
    * Detects uses of parameters that would produce incorrect results if inlined.
    * Generally speaking, we disallow the use of parameters as lvalues. Also
@@ -1552,14 +1592,25 @@ public class JsInliner {
   private static final int INLINING_BIAS = Integer.parseInt(System.getProperty(
       "gwt.jsinlinerInliningBias", "5"));
 
+  public static OptimizerStats exec(JsProgram program, Collection<JsNode> toInline) {
+    return exec(program, toInline, new JsOptimizerContext());
+  }
+
   /**
-   * Static entry point used by JavaToJavaScriptCompiler.
+   * Static entry point used by JavaToJavaScriptCompiler. Passing the same
+   * {@code optimizerContext} to every pass of the optimization loop lets later
+   * passes skip call sites whose caller and callee have not changed.
    */
-  public static OptimizerStats exec(JsProgram program, Collection<JsNode> toInline) {
+  public static OptimizerStats exec(JsProgram program, Collection<JsNode> toInline,
+      JsOptimizerContext optimizerContext) {
     Event optimizeJsEvent = SpeedTracerLogger.start(
         CompilerEventType.OPTIMIZE_JS, "optimizer", NAME);
-    OptimizerStats stats = execImpl(program, toInline);
-    optimizeJsEvent.end("didChange", "" + stats.didChange());
+    int inlinedBefore = optimizerContext.getInliningDecisions().size();
+    int cacheHitsBefore = optimizerContext.getRejectedCallCacheHits();
+    OptimizerStats stats = execImpl(program, toInline, optimizerContext);
+    optimizeJsEvent.end("didChange", "" + stats.didChange(),
+        "inlined", "" + (optimizerContext.getInliningDecisions().size() - inlinedBefore),
+        "skipped", "" + (optimizerContext.getRejectedCallCacheHits() - cacheHitsBefore));
     return stats;
   }
 
@@ -1569,13 +1620,13 @@ public class JsInliner {
    * immutable) variables are defined.
    */
   private static boolean affectedBySideEffects(List<JsExpression> list,
-      JsFunction context) {
+      JsFunction context, JsOptimizerContext optimizerContext) {
     /*
      * If the caller contains no nested functions, none of its locals can
      * possibly be affected by side effects.
      */
     JsScope safeScope = null;
-    if (context != null && !containsNestedFunctions(context)) {
+    if (context != null && !optimizerContext.containsNestedFunctions(context)) {
       safeScope = context.getScope();
     }
     AffectedBySideEffectsVisitor v = new AffectedBySideEffectsVisitor(safeScope);
@@ -1592,16 +1643,8 @@ public class JsInliner {
     return e.getComplexity();
   }
 
-  /**
-   * Examine a JsFunction to determine if it contains nested functions.
-   */
-  private static boolean containsNestedFunctions(JsFunction func) {
-    NestedFunctionVisitor v = new NestedFunctionVisitor();
-    v.accept(func.getBody());
-    return v.containsNestedFunctions();
-  }
-
-  private static OptimizerStats execImpl(JsProgram program, Collection<JsNode> toInline) {
+  private static OptimizerStats execImpl(JsProgram program, Collection<JsNode> toInline,
+      JsOptimizerContext optimizerContext) {
     OptimizerStats stats = new OptimizerStats(NAME);
 
     // We are not covering the whole AST, hence we will try to inline functions with a single call
@@ -1619,7 +1662,7 @@ public class JsInliner {
       rc.accept(fn);
     }
 
-    InliningVisitor v = new InliningVisitor(program, candidates);
+    InliningVisitor v = new InliningVisitor(program, candidates, optimizerContext);
     v.blacklist(d.getRedefined());
     v.blacklist(rc.getRecursive());
     // Do not accept among candidates as the list might get stale and contain nodes that are not
@@ -1740,11 +1783,29 @@ public class JsInliner {
     return JsSafeCloner.clone(expression);
   }
 
+  /**
+   * Make sure that inlining won't change the final name of non-parameter
+   * idents due to the change of scope. The most likely cause would be the use
+   * of an unqualified variable reference in a JSNI block that happened to
+   * conflict with a Java-derived identifier.
+   */
+  private static boolean hasStableNames(JsFunction caller, JsFunction callee, JsNode toInline) {
+    Set<JsName> parameterNames = Sets.newHashSet();
+    for (JsParameter param : callee.getParameters()) {
+      parameterNames.add(param.getName());
+    }
+    StableNameChecker detector = new StableNameChecker(caller.getScope(),
+        callee.getScope(), parameterNames);
+    detector.accept(toInline);
+    return detector.isStable();
+  }
+
   /**
    * Determine if a statement can be inlined into a call site.
    */
   private static boolean isInlinable(JsFunction caller, JsFunction callee,
-      JsExpression thisExpr, List<JsExpression> arguments, JsNode toInline) {
+      JsExpression thisExpr, List<JsExpression> arguments, JsNode toInline,
+      JsOptimizerContext optimizerContext) {
 
     /*
      * This will happen with varargs-style JavaScript functions that rely on the
@@ -1764,19 +1825,6 @@ public class JsInliner {
       parameterIdents.add(param.getName().getIdent());
     }
 
-    /*
-     * Make sure that inlining won't change the final name of non-parameter
-     * idents due to the change of scope. The most likely cause would be the use
-     * of an unqualified variable reference in a JSNI block that happened to
-     * conflict with a Java-derived identifier.
-     */
-    StableNameChecker detector = new StableNameChecker(caller.getScope(),
-        callee.getScope(), parameterNames);
-    detector.accept(toInline);
-    if (!detector.isStable()) {
-      return false;
-    }
-
     /*
      * Ensure that the names referred to by the argument list and the statement
      * are disjoint. This prevents inlining of the following:
@@ -1801,21 +1849,21 @@ public class JsInliner {
      * effects. This will determine how aggressively the parameters may be
      * reordered.
      */
-    if (isVolatile(evalArgs, caller)) {
+    if (isVolatile(evalArgs, caller, optimizerContext)) {
       /*
        * Determine the order in which the parameters must be evaluated. This
        * will vary between call sites, based on whether or not the invocation's
        * arguments can be repeated without ill effect.
        */
       List<JsName> requiredOrder = Lists.newArrayList();
-      if (thisExpr != null && isVolatile(thisExpr, callee)) {
+      if (thisExpr != null && isVolatile(thisExpr, callee, optimizerContext)) {
         requiredOrder.add(EvaluationOrderVisitor.THIS_NAME);
       }
       for (int i = 0; i < arguments.size(); i++) {
         JsExpression e = arguments.get(i);
         JsParameter p = callee.getParameters().get(i);
 
-        if (isVolatile(e, callee)) {
+        if (isVolatile(e, callee, optimizerContext)) {
           requiredOrder.add(p.getName());
         }
       }
@@ -1862,8 +1910,9 @@ public class JsInliner {
    * affected by side effects when evaluated within a particular function
    * context.
    */
-  private static boolean isVolatile(JsExpression e, JsFunction context) {
-    return isVolatile(Collections.singletonList(e), context);
+  private static boolean isVolatile(JsExpression e, JsFunction context,
+      JsOptimizerContext optimizerContext) {
+    return isVolatile(Collections.singletonList(e), context, optimizerContext);
   }
 
   /**
@@ -1871,8 +1920,9 @@ public class JsInliner {
    * affected by side effects when evaluated within a particular function
    * context.
    */
-  private static boolean isVolatile(List<JsExpression> list, JsFunction context) {
-    return hasSideEffects(list) || affectedBySideEffects(list, context);
+  private static boolean isVolatile(List<JsExpression> list, JsFunction context,
+      JsOptimizerContext optimizerContext) {
+    return hasSideEffects(list) || affectedBySideEffects(list, context, optimizerContext);
   }
 
   /**
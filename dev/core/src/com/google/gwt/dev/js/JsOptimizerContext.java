@@ -0,0 +1,234 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.js;
+
+import com.google.gwt.dev.js.ast.JsContext;
+import com.google.gwt.dev.js.ast.JsFunction;
+import com.google.gwt.dev.js.ast.JsInvocation;
+import com.google.gwt.dev.js.ast.JsName;
+import com.google.gwt.dev.js.ast.JsVisitor;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modification and summary information shared by the JavaScript optimizers across the passes of
+ * the JavaScript optimization loop.
+ * <p>
+ * Every optimizer that rewrites the body of a function marks it as modified, which advances a
+ * logical clock. Facts derived from a function body, and call sites that {@link JsInliner} has
+ * already rejected, are stamped with the clock and reused until the caller or the callee is
+ * modified again. This way later passes only redo the work for the call sites of functions that
+ * actually changed. Only rejections that follow from the call site and the bodies of the caller
+ * and the callee are recorded; those that depend on other code are checked on every pass.
+ * <p>
+ * Rejected call sites are kept by caller and forgotten when the caller is modified or removed, so
+ * that call sites removed from the program are not retained.
+ */
+public class JsOptimizerContext {
+
+  /**
+   * A successful inlining of <code>callee</code> into <code>caller</code>.
+   */
+  public static class InliningDecision {
+    private final String callee;
+    private final String caller;
+
+    private InliningDecision(String caller, String callee) {
+      this.caller = caller;
+      this.callee = callee;
+    }
+
+    /**
+     * The name of the function that was inlined.
+     */
+    public String getCallee() {
+      return callee;
+    }
+
+    /**
+     * The name of the function that received the inlined code.
+     */
+    public String getCaller() {
+      return caller;
+    }
+
+    @Override
+    public String toString() {
+      return callee + " -> " + caller;
+    }
+  }
+
+  /**
+   * A call site that could not be inlined.
+   */
+  private static class RejectedCall {
+    private final JsFunction callee;
+    private final int calleeInvocationCount;
+    private final long stamp;
+
+    private RejectedCall(JsFunction callee, int calleeInvocationCount, long stamp) {
+      this.callee = callee;
+      this.calleeInvocationCount = calleeInvocationCount;
+      this.stamp = stamp;
+    }
+  }
+
+  /**
+   * Facts about a function body that are expensive to recompute.
+   */
+  private static class Summary {
+    private final boolean containsNestedFunctions;
+    private final long stamp;
+
+    private Summary(long stamp, boolean containsNestedFunctions) {
+      this.stamp = stamp;
+      this.containsNestedFunctions = containsNestedFunctions;
+    }
+  }
+
+  private static String nameOf(JsFunction function) {
+    JsName name = function.getName();
+    return name == null ? "<anonymous>" : name.getIdent();
+  }
+
+  private long clock = 0;
+
+  private final List<InliningDecision> inliningDecisions = Lists.newArrayList();
+
+  private final Map<JsFunction, Long> modificationStampByFunction = Maps.newIdentityHashMap();
+
+  private int rejectedCallCacheHits = 0;
+
+  private final Map<JsFunction, Map<JsInvocation, RejectedCall>> rejectedCallsByCaller =
+      Maps.newIdentityHashMap();
+
+  private final Map<JsFunction, Summary> summaryByFunction = Maps.newIdentityHashMap();
+
+  /**
+   * Returns whether the body of <code>function</code> contains a nested function literal.
+   */
+  public boolean containsNestedFunctions(JsFunction function) {
+    Summary summary = summaryByFunction.get(function);
+    if (summary == null || summary.stamp < getModificationStamp(function)) {
+      final boolean[] found = new boolean[1];
+      new JsVisitor() {
+        @Override
+        public boolean visit(JsFunction x, JsContext ctx) {
+          found[0] = true;
+          return false;
+        }
+      }.accept(function.getBody());
+      summary = new Summary(clock, found[0]);
+      summaryByFunction.put(function, summary);
+    }
+    return summary.containsNestedFunctions;
+  }
+
+  /**
+   * Returns the successful inlinings performed so far, in order.
+   */
+  public List<InliningDecision> getInliningDecisions() {
+    return Collections.unmodifiableList(inliningDecisions);
+  }
+
+  /**
+   * Returns the number of times an inlining attempt was skipped because the same call site had
+   * already been rejected and neither function has changed since.
+   */
+  public int getRejectedCallCacheHits() {
+    return rejectedCallCacheHits;
+  }
+
+  /**
+   * Returns whether the call site <code>x</code> has already been found not to be inlinable and
+   * neither <code>caller</code> nor <code>callee</code> has been modified since.
+   */
+  public boolean isKnownNotInlinable(JsInvocation x, JsFunction caller, JsFunction callee,
+      int calleeInvocationCount) {
+    Map<JsInvocation, RejectedCall> rejectedCalls = rejectedCallsByCaller.get(caller);
+    RejectedCall rejected = rejectedCalls == null ? null : rejectedCalls.get(x);
+    if (rejected == null) {
+      return false;
+    }
+    if (rejected.callee != callee || rejected.calleeInvocationCount != calleeInvocationCount
+        || getModificationStamp(callee) > rejected.stamp) {
+      rejectedCalls.remove(x);
+      return false;
+    }
+    rejectedCallCacheHits++;
+    return true;
+  }
+
+  /**
+   * Records that the body of <code>function</code> was rewritten, which also forgets the rejected
+   * call sites in it.
+   */
+  public void markModified(JsFunction function) {
+    modificationStampByFunction.put(function, ++clock);
+    rejectedCallsByCaller.remove(function);
+  }
+
+  /**
+   * Records that <code>function</code> was removed from the program, forgetting everything known
+   * about it.
+   */
+  public void markRemoved(JsFunction function) {
+    modificationStampByFunction.remove(function);
+    rejectedCallsByCaller.remove(function);
+    summaryByFunction.remove(function);
+  }
+
+  /**
+   * Records that <code>callee</code> was inlined into <code>caller</code>.
+   */
+  public void recordInlined(JsFunction caller, JsFunction callee) {
+    inliningDecisions.add(new InliningDecision(nameOf(caller), nameOf(callee)));
+  }
+
+  /**
+   * Records that the call site <code>x</code> could not be inlined given the current bodies of
+   * <code>caller</code> and <code>callee</code>, and nothing else.
+   */
+  public void recordNotInlinable(JsInvocation x, JsFunction caller, JsFunction callee,
+      int calleeInvocationCount) {
+    Map<JsInvocation, RejectedCall> rejectedCalls = rejectedCallsByCaller.get(caller);
+    if (rejectedCalls == null) {
+      rejectedCalls = Maps.newIdentityHashMap();
+      rejectedCallsByCaller.put(caller, rejectedCalls);
+    }
+    rejectedCalls.put(x, new RejectedCall(callee, calleeInvocationCount, clock));
+  }
+
+  /**
+   * Returns the number of call sites currently known not to be inlinable.
+   */
+  int getRejectedCallCount() {
+    int count = 0;
+    for (Map<JsInvocation, RejectedCall> rejectedCalls : rejectedCallsByCaller.values()) {
+      count += rejectedCalls.size();
+    }
+    return count;
+  }
+
+  private long getModificationStamp(JsFunction function) {
+    Long stamp = modificationStampByFunction.get(function);
+    return stamp == null ? 0 : stamp;
+  }
+}
@@ -80,12 +80,23 @@ import java.util.List;
 
 /**
  * Parses JavaScript source.
+ * <p>
+ * Source is parsed by {@link JsDirectParser}, which builds the AST in a single
+ * pass. Setting the system property <code>gwt.jjs.rhinoJsParser</code> selects
+ * the original path instead, which parses into a Rhino <code>Node</code> tree
+ * and then maps that tree onto the AST.
  */
 public class JsParser {
 
+  private static final boolean USE_RHINO_PARSER =
+      System.getProperty("gwt.jjs.rhinoJsParser") != null;
+
   public static List<JsStatement> parse(SourceInfo rootSourceInfo,
       JsScope scope, Reader r) throws IOException, JsParserException {
-    return new JsParser().parseImpl(rootSourceInfo, scope, r);
+    if (USE_RHINO_PARSER) {
+      return parseWithRhino(rootSourceInfo, scope, r);
+    }
+    return JsDirectParser.parse(rootSourceInfo, scope, r);
   }
 
   public static void parseInto(SourceInfo rootSourceInfo, JsScope scope,
@@ -98,11 +109,21 @@ public class JsParser {
   private final Stack<JsScope> scopeStack = new Stack<JsScope>();
   private final Stack<SourceInfo> sourceInfoStack = new Stack<SourceInfo>();
 
-  private JsParser() {
+  /**
+   * Parses through the Rhino parser and its intermediate tree.
+   */
+  static List<JsStatement> parseWithRhino(SourceInfo rootSourceInfo,
+      JsScope scope, Reader r) throws IOException, JsParserException {
+    return new JsParser().parseImpl(rootSourceInfo, scope, r);
   }
 
-  List<JsStatement> parseImpl(final SourceInfo rootSourceInfo, JsScope scope,
-      Reader r) throws JsParserException, IOException {
+  /**
+   * Enters a Rhino context whose error reporter throws
+   * {@link UncheckedJsParserException}s, so that errors found while scanning
+   * can be rethrown as our own exceptions. Must be paired with
+   * {@link #exitContext()}.
+   */
+  static void enterContext(final SourceInfo rootSourceInfo) {
     // Create a custom error handler so that we can throw our own exceptions.
     Context.enter().setErrorReporter(new ErrorReporter() {
       @Override
@@ -124,6 +145,18 @@ public class JsParser {
         // Ignore warnings.
       }
     });
+  }
+
+  static void exitContext() {
+    Context.exit();
+  }
+
+  private JsParser() {
+  }
+
+  List<JsStatement> parseImpl(final SourceInfo rootSourceInfo, JsScope scope,
+      Reader r) throws JsParserException, IOException {
+    enterContext(rootSourceInfo);
     try {
       // Parse using the Rhino parser.
       //
@@ -140,7 +173,7 @@ public class JsParser {
     } catch (UncheckedJsParserException e) {
       throw e.getParserException();
     } finally {
-      Context.exit();
+      exitContext();
     }
   }
 
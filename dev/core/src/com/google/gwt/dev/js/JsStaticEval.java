@@ -50,6 +50,7 @@ import com.google.gwt.dev.js.ast.JsVisitor;
 import com.google.gwt.dev.js.ast.JsWhile;
 import com.google.gwt.dev.js.rhino.ScriptRuntime;
 import com.google.gwt.dev.util.Ieee754_64_Arithmetic;
+import com.google.gwt.dev.util.collect.Stack;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
@@ -163,6 +164,11 @@ public class JsStaticEval {
      */
     private Map<JsExpression, Boolean> coercesToStringMap = new IdentityHashMap<JsExpression, Boolean>();
 
+    /**
+     * Whether anything had changed before entering each function being visited.
+     */
+    private final Stack<Boolean> changedBeforeFunctionStack = Stack.create();
+
     @Override
     public void endVisit(JsBinaryOperation x, JsContext ctx) {
       JsBinaryOperator op = x.getOperator();
@@ -345,6 +351,18 @@ public class JsStaticEval {
       }
     }
 
+    /**
+     * Mark the function as modified if its body changed, and restore the change
+     * flag of the enclosing function.
+     */
+    @Override
+    public void endVisit(JsFunction x, JsContext ctx) {
+      if (didChange) {
+        optimizerContext.markModified(x);
+      }
+      didChange |= changedBeforeFunctionStack.pop();
+    }
+
     /**
      * Simplify if statements.
      */
@@ -461,6 +479,13 @@ public class JsStaticEval {
       return true;
     }
 
+    @Override
+    public boolean visit(JsFunction x, JsContext ctx) {
+      changedBeforeFunctionStack.push(didChange);
+      didChange = false;
+      return true;
+    }
+
     @Override
     public boolean visit(JsIf x, JsContext ctx) {
       evalBooleanContext.add(x.getIfExpr());
@@ -602,9 +627,17 @@ public class JsStaticEval {
       JsBinaryOperator.BIT_OR, JsBinaryOperator.COMMA);
 
   public static OptimizerStats exec(JsProgram program) {
+    return exec(program, new JsOptimizerContext());
+  }
+
+  /**
+   * Runs static evaluation, marking every function it rewrites as modified in
+   * {@code optimizerContext}.
+   */
+  public static OptimizerStats exec(JsProgram program, JsOptimizerContext optimizerContext) {
     Event optimizeJsEvent = SpeedTracerLogger.start(
         CompilerEventType.OPTIMIZE_JS, "optimizer", NAME);
-    OptimizerStats stats = new JsStaticEval(program).execImpl();
+    OptimizerStats stats = new JsStaticEval(program, optimizerContext).execImpl();
     optimizeJsEvent.end("didChange", "" + stats.didChange());
     return stats;
   }
@@ -834,10 +867,17 @@ public class JsStaticEval {
         leftExpr.getArg2());
   }
 
+  private final JsOptimizerContext optimizerContext;
+
   private final JsProgram program;
 
   public JsStaticEval(JsProgram program) {
+    this(program, new JsOptimizerContext());
+  }
+
+  public JsStaticEval(JsProgram program, JsOptimizerContext optimizerContext) {
     this.program = program;
+    this.optimizerContext = optimizerContext;
   }
 
   public OptimizerStats execImpl() {
@@ -26,6 +26,7 @@ import com.google.gwt.dev.js.ast.JsNameRef;
 import com.google.gwt.dev.js.ast.JsProgram;
 import com.google.gwt.dev.js.ast.JsVisitor;
 import com.google.gwt.dev.util.collect.IdentityHashSet;
+import com.google.gwt.dev.util.collect.Stack;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
@@ -38,6 +39,11 @@ import java.util.Set;
 public class JsUnusedFunctionRemover {
   private class RemovalVisitor extends JsModVisitor {
 
+    /**
+     * Whether anything had changed before entering each function being visited.
+     */
+    private final Stack<Boolean> changedBeforeFunctionStack = Stack.create();
+
     @Override
     public void endVisit(JsExprStmt x, JsContext ctx) {
       if (!(x.getExpression() instanceof JsFunction)) {
@@ -58,8 +64,24 @@ public class JsUnusedFunctionRemover {
             + name.getStaticRef().toSource());
       }
       // Remove the statement
+      optimizerContext.markRemoved(f);
       ctx.removeMe();
     }
+
+    @Override
+    public void endVisit(JsFunction x, JsContext ctx) {
+      if (didChange) {
+        optimizerContext.markModified(x);
+      }
+      didChange |= changedBeforeFunctionStack.pop();
+    }
+
+    @Override
+    public boolean visit(JsFunction x, JsContext ctx) {
+      changedBeforeFunctionStack.push(didChange);
+      didChange = false;
+      return true;
+    }
   }
 
   /**
@@ -76,18 +98,32 @@ public class JsUnusedFunctionRemover {
   public static final String NAME = JsUnusedFunctionRemover.class.getSimpleName();
 
   public static OptimizerStats exec(JsProgram program) {
+    return exec(program, new JsOptimizerContext());
+  }
+
+  /**
+   * Removes unused functions, marking every function whose body loses a nested
+   * function declaration as modified in {@code optimizerContext}.
+   */
+  public static OptimizerStats exec(JsProgram program, JsOptimizerContext optimizerContext) {
     Event optimizeJsEvent =
         SpeedTracerLogger.start(CompilerEventType.OPTIMIZE_JS, "optimizer", NAME);
-    OptimizerStats stats = new JsUnusedFunctionRemover(program).execImpl();
+    OptimizerStats stats = new JsUnusedFunctionRemover(program, optimizerContext).execImpl();
     optimizeJsEvent.end("didChange", "" + stats.didChange());
     return stats;
   }
 
+  private final JsOptimizerContext optimizerContext;
   private final JsProgram program;
   private final Set<JsName> seen = new IdentityHashSet<JsName>();
 
   public JsUnusedFunctionRemover(JsProgram program) {
+    this(program, new JsOptimizerContext());
+  }
+
+  public JsUnusedFunctionRemover(JsProgram program, JsOptimizerContext optimizerContext) {
     this.program = program;
+    this.optimizerContext = optimizerContext;
   }
 
   public OptimizerStats execImpl() {
@@ -685,6 +685,27 @@ public class TokenStream {
         return result;
     }
 
+    /**
+     * Sets whether a '/' starting the next scanned token begins a regular
+     * expression literal rather than a division operator.  This is the
+     * TSF_REGEXP flag, for parsers that live outside this package.
+     */
+    public void setRegExpAllowed(boolean allowed) {
+        if (allowed)
+            flags |= TSF_REGEXP;
+        else
+            flags &= ~TSF_REGEXP;
+    }
+
+    /**
+     * Returns the flags of the last REGEXP token and clears them.
+     */
+    public String takeRegExpFlags() {
+        String result = regExpFlags;
+        regExpFlags = null;
+        return result;
+    }
+
     public static boolean isJSKeyword(String s) {
         return getKeywordId(s) != 0;
     }
@@ -15,6 +15,7 @@
  */
 package com.google.gwt.dev.shell;
 
+import com.google.gwt.core.ext.BadPropertyValueException;
 import com.google.gwt.core.ext.CachedGeneratorResult;
 import com.google.gwt.core.ext.PropertyOracle;
 import com.google.gwt.core.ext.RebindMode;
@@ -25,16 +26,22 @@ import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.linker.ArtifactSet;
 import com.google.gwt.dev.RebindCache;
 import com.google.gwt.dev.cfg.Rule;
+import com.google.gwt.dev.cfg.RuleGenerateWith;
 import com.google.gwt.dev.javac.CachedGeneratorResultImpl;
 import com.google.gwt.dev.javac.StandardGeneratorContext;
 import com.google.gwt.dev.jdt.RebindOracle;
 import com.google.gwt.dev.util.log.speedtracer.DevModeEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
 import com.google.gwt.thirdparty.guava.common.collect.Maps;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
 
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implements rebind logic in terms of a variety of other well-known oracles.
@@ -46,6 +53,12 @@ public class StandardRebindOracle implements RebindOracle {
    */
   private final class Rebinder implements RebindRuleResolver {
 
+    private final StandardGeneratorContext genCtx;
+
+    public Rebinder(StandardGeneratorContext genCtx) {
+      this.genCtx = genCtx;
+    }
+
     @Override
     public boolean checkRebindRuleResolvable(String typeName) {
       try {
@@ -246,19 +259,77 @@ public class StandardRebindOracle implements RebindOracle {
     this.genCtx = genCtx;
   }
 
+  /**
+   * Returns a key that is equal for the permutations in which rebinding
+   * {@code typeName} runs the same generator on the same property values, and
+   * so creates the same types. Returns null if {@code typeName} should rather
+   * be rebound on the calling thread: when it was already rebound, when no
+   * generator runs, or when the generator is not annotated with
+   * {@link com.google.gwt.core.ext.Generator.RunsConcurrently}.
+   */
+  public Object getConcurrentRebindKey(TreeLogger logger, String typeName)
+      throws UnableToCompleteException {
+    if (typeNameBindingMap.containsKey(typeName)) {
+      return null;
+    }
+    Rebinder rebinder = new Rebinder(genCtx);
+    genCtx.setPropertyOracle(propOracle);
+    Rule rule = rebinder.getRebindRule(TreeLogger.NULL, typeName);
+    if (!(rule instanceof RuleGenerateWith) || !((RuleGenerateWith) rule).isThreadSafe()) {
+      return null;
+    }
+
+    Set<String> propertyNames = ((RuleGenerateWith) rule).getAccessedPropertyNames();
+    if (propertyNames.equals(RuleGenerateWith.ALL_PROPERTIES)) {
+      // The generator may read any property, so its output is specific to this permutation.
+      return Arrays.asList(rule, this);
+    }
+    List<Object> key = Lists.<Object>newArrayList(rule);
+    for (String propertyName : Sets.newTreeSet(propertyNames)) {
+      key.add(propertyName);
+      try {
+        key.add(propOracle.getSelectionProperty(logger, propertyName).getCurrentValue());
+      } catch (BadPropertyValueException e) {
+        try {
+          key.add(propOracle.getConfigurationProperty(propertyName).getValues());
+        } catch (BadPropertyValueException e2) {
+          // Undefined, the generator will fail the same way in each permutation.
+          key.add(null);
+        }
+      }
+    }
+    return key;
+  }
+
   @Override
   public String rebind(TreeLogger logger, String typeName) throws UnableToCompleteException {
-    return rebind(logger, typeName, null);
+    return rebind(logger, typeName, null, genCtx);
   }
 
   public String rebind(TreeLogger logger, String typeName, ArtifactAcceptor artifactAcceptor)
       throws UnableToCompleteException {
+    return rebind(logger, typeName, artifactAcceptor, genCtx);
+  }
+
+  /**
+   * Rebinds {@code typeName} running any generator in {@code context}, which
+   * is usually a {@link StandardGeneratorContext#fork() fork} of the context
+   * this oracle was created with.
+   */
+  public String rebindInContext(TreeLogger logger, String typeName,
+      StandardGeneratorContext context)
+      throws UnableToCompleteException {
+    return rebind(logger, typeName, null, context);
+  }
+
+  private String rebind(TreeLogger logger, String typeName, ArtifactAcceptor artifactAcceptor,
+      StandardGeneratorContext context) throws UnableToCompleteException {
 
     String resultTypeName = typeNameBindingMap.get(typeName);
     if (resultTypeName == null) {
       logger = Messages.TRACE_TOPLEVEL_REBIND.branch(logger, typeName, null);
 
-      Rebinder rebinder = new Rebinder();
+      Rebinder rebinder = new Rebinder(context);
       resultTypeName = rebinder.rebind(logger, typeName, artifactAcceptor);
       typeNameBindingMap.put(typeName, resultTypeName);
 
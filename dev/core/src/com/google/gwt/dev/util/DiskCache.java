@@ -22,43 +22,218 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A nifty class that lets you squirrel away data on the file system. Write
- * once, read many times. Instance of this are thread-safe by way of internal
- * synchronization.
+ * once, read many times. Instance of this are thread-safe.
  *
- * Note that in the current implementation, the backing temp file will get
- * arbitrarily large as you continue adding things to it. There is no internal
- * GC or compaction.
+ * <p>Data is appended to a sequence of memory-mapped segment files. Reads do
+ * not lock: a token is looked up in a concurrent index and the bytes are copied
+ * straight out of the mapped segment. Writes are appended under a single lock.
+ *
+ * <p>Every token starts with one reference, held by the writer. Callers that
+ * are done with some data may {@link #release(long)} it, and a
+ * {@link DiskCacheToken} holds its own reference until it is garbage collected.
+ * Once at least half of a full segment is no longer referenced, a background
+ * thread copies the remaining data to the current segment and deletes the
+ * segment file. Data that is never released is kept for the life of the
+ * process, as before.
  */
 public class DiskCache {
+
   /**
-   * For future thought: if we used Object tokens instead of longs, we could
-   * actually track references and do GC/compaction on the underlying file.
-   *
-   * I considered using memory mapping, but I didn't see any obvious way to make
-   * the map larger after the fact, which kind of defeats the infinite-append
-   * design. At any rate, I measured the current performance of this design to
-   * be so fast relative to what I'm using it for, I didn't pursue this further.
+   * The index entry of a token. The location changes when the data is moved by
+   * compaction.
+   */
+  private static class Entry {
+    volatile Location location;
+    final AtomicInteger references = new AtomicInteger(1);
+
+    Entry(Location location) {
+      this.location = location;
+    }
+  }
+
+  /**
+   * Where the bytes of a token are stored.
+   */
+  private static class Location {
+    final int length;
+    final int offset;
+    final Segment segment;
+
+    Location(Segment segment, int offset, int length) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    ByteBuffer open() {
+      ByteBuffer buffer = segment.buffer.duplicate();
+      buffer.position(offset);
+      buffer.limit(offset + length);
+      return buffer;
+    }
+  }
+
+  /**
+   * A memory-mapped file that data is appended to until it is full.
+   */
+  private static class Segment {
+    final MappedByteBuffer buffer;
+    final int capacity;
+    final AtomicLong deadBytes = new AtomicLong();
+    final File file;
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * The live tokens stored in this segment.
+     */
+    final Set<Long> tokens = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    /**
+     * Guarded by the write lock until the segment is sealed.
+     */
+    volatile int used;
+    volatile boolean sealed;
+
+    Segment(int capacity) throws IOException {
+      this.capacity = capacity;
+      file = File.createTempFile("gwt", "byte-cache");
+      file.deleteOnExit();
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      } finally {
+        // The mapping stays valid after the channel is closed.
+        raf.close();
+      }
+    }
+
+    boolean isMostlyDead() {
+      return sealed && deadBytes.get() * 2 >= used;
+    }
+  }
+
+  /**
+   * Tells when the mapping of a compacted segment whose file could not be
+   * deleted is no longer reachable.
+   */
+  private static class SegmentFileReference extends PhantomReference<MappedByteBuffer> {
+    final File file;
+
+    SegmentFileReference(Segment segment, ReferenceQueue<MappedByteBuffer> queue) {
+      super(segment.buffer, queue);
+      this.file = segment.file;
+    }
+  }
+
+  /**
+   * Releases the reference of a token when its owner is garbage collected.
    */
+  private static class TokenReference extends PhantomReference<Object> {
+    final long token;
+
+    TokenReference(Object owner, long token, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      this.token = token;
+    }
+  }
+
+  private static final int DEFAULT_SEGMENT_SIZE = 32 * 1024 * 1024;
 
   /**
    * A global shared Disk cache.
    */
-  public static DiskCache INSTANCE = new DiskCache();
+  public static DiskCache INSTANCE =
+      new DiskCache(Integer.getInteger("gwt.diskcache.segmentSize", DEFAULT_SEGMENT_SIZE), true);
 
-  private boolean atEnd = true;
-  private RandomAccessFile file;
+  private final ReferenceQueue<Object> collectedOwners = new ReferenceQueue<Object>();
 
-  private DiskCache() {
-    try {
-      File temp = File.createTempFile("gwt", "byte-cache");
-      temp.deleteOnExit();
-      file = new RandomAccessFile(temp, "rw");
-      file.setLength(0);
-    } catch (IOException e) {
-      throw new RuntimeException("Unable to initialize byte cache", e);
+  /**
+   * The files of compacted segments which are no longer mapped but could not
+   * be deleted yet, guarded by the compaction lock.
+   */
+  private final List<File> filesToDelete = new ArrayList<File>();
+
+  private final Object compactionLock = new Object();
+
+  private final BlockingQueue<Segment> compactionQueue = new LinkedBlockingQueue<Segment>();
+
+  private Segment current;
+
+  private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<Long, Entry>();
+
+  private long nextToken = 0;
+
+  private final int segmentSize;
+
+  /**
+   * All segments that have not been deleted, guarded by the write lock.
+   */
+  private final List<Segment> segments = new ArrayList<Segment>();
+
+  /**
+   * Keeps the references to mappings of compacted segments reachable until
+   * they are enqueued.
+   */
+  private final Set<SegmentFileReference> segmentFileReferences =
+      Collections.newSetFromMap(new ConcurrentHashMap<SegmentFileReference, Boolean>());
+
+  private final Set<TokenReference> tokenReferences =
+      Collections.newSetFromMap(new ConcurrentHashMap<TokenReference, Boolean>());
+
+  private final ReferenceQueue<MappedByteBuffer> unmappedSegments =
+      new ReferenceQueue<MappedByteBuffer>();
+
+  private final Object writeLock = new Object();
+
+  /**
+   * Creates a cache that appends to segments of <code>segmentSize</code> bytes,
+   * and compacts them on a background thread if <code>compactInBackground</code>
+   * is set.
+   */
+  DiskCache(int segmentSize, boolean compactInBackground) {
+    this.segmentSize = segmentSize;
+    synchronized (writeLock) {
+      startSegment(segmentSize);
+    }
+    if (compactInBackground) {
+      Thread compactor = new Thread() {
+        @Override
+        public void run() {
+          while (true) {
+            try {
+              Segment segment = compactionQueue.poll(1, TimeUnit.SECONDS);
+              releaseCollectedTokens();
+              if (segment != null) {
+                compact(segment);
+              }
+              deleteUnmappedSegmentFiles();
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+        }
+      };
+      compactor.setDaemon(true);
+      compactor.setName("DiskCache compactor");
+      compactor.start();
     }
   }
 
@@ -68,17 +243,11 @@ public class DiskCache {
    * @param token a previously returned token
    * @return the bytes that were written
    */
-  public synchronized byte[] readByteArray(long token) {
-    try {
-      atEnd = false;
-      file.seek(token);
-      int length = file.readInt();
-      byte[] result = new byte[length];
-      file.readFully(result);
-      return result;
-    } catch (IOException e) {
-      throw new RuntimeException("Unable to read from byte cache", e);
-    }
+  public byte[] readByteArray(long token) {
+    Location location = locate(token);
+    byte[] result = new byte[location.length];
+    location.open().get(result);
+    return result;
   }
 
   /**
@@ -111,6 +280,50 @@ public class DiskCache {
     return Util.toString(readByteArray(token));
   }
 
+  /**
+   * Drops one reference to the data of <code>token</code>. Once no references
+   * remain the token can no longer be read, and its space is reclaimed by
+   * compaction.
+   *
+   * @param token a previously returned token
+   */
+  public void release(long token) {
+    Entry entry = entries.get(token);
+    if (entry == null) {
+      throw new IllegalStateException("Token " + token + " has already been released");
+    }
+    if (entry.references.decrementAndGet() > 0) {
+      return;
+    }
+    Location location;
+    synchronized (entry) {
+      entries.remove(token);
+      location = entry.location;
+      location.segment.tokens.remove(token);
+    }
+    markDead(location.segment, location.length);
+  }
+
+  /**
+   * Adds a reference to the data of <code>token</code>, which must be balanced
+   * by a call to {@link #release(long)}.
+   *
+   * @param token a previously returned token
+   */
+  public void retain(long token) {
+    Entry entry = entries.get(token);
+    while (entry != null) {
+      int references = entry.references.get();
+      if (references == 0) {
+        break;
+      }
+      if (entry.references.compareAndSet(references, references + 1)) {
+        return;
+      }
+    }
+    throw new IllegalStateException("Token " + token + " has already been released");
+  }
+
   /**
    * Write the rest of the data in an input stream to disk. Note: this method
    * does not close the InputStream.
@@ -119,29 +332,36 @@ public class DiskCache {
    *
    * @return a token to retrieve the data later
    */
-  public synchronized long transferFromStream(InputStream in) throws IOException {
+  public long transferFromStream(InputStream in) throws IOException {
     assert in != null;
     byte[] buf = Util.takeThreadLocalBuf();
     try {
-      long position = moveToEndPosition();
-
-      // Placeholder, we don't know the length yet.
-      file.writeInt(-1);
-
-      // Transfer all the bytes.
-      int length = 0;
-      int bytesRead;
-      while ((bytesRead = in.read(buf)) != -1) {
-        file.write(buf, 0, bytesRead);
-        length += bytesRead;
+      synchronized (writeLock) {
+        Segment segment = current;
+        int offset = segment.used;
+        int length = 0;
+        ByteBuffer out = segment.buffer.duplicate();
+        out.position(offset);
+        int bytesRead;
+        while ((bytesRead = in.read(buf)) != -1) {
+          if (segment.capacity - offset - length < bytesRead) {
+            // Move the unpublished bytes so far to a segment that can hold more.
+            long needed = 2L * (length + bytesRead);
+            Segment larger = startSegment((int) Math.min(Integer.MAX_VALUE,
+                Math.max(segmentSize, needed)));
+            ByteBuffer partial = segment.buffer.duplicate();
+            partial.position(offset);
+            partial.limit(offset + length);
+            out = larger.buffer.duplicate();
+            out.put(partial);
+            segment = larger;
+            offset = 0;
+          }
+          out.put(buf, 0, bytesRead);
+          length += bytesRead;
+        }
+        return append(segment, offset, length);
       }
-
-      // Now go back and fill in the length.
-      file.seek(position);
-      file.writeInt(length);
-      // Don't eagerly seek the end, the next operation might be a read.
-      atEnd = false;
-      return position;
     } finally {
       Util.releaseThreadLocalBuf(buf);
     }
@@ -153,21 +373,13 @@ public class DiskCache {
    * @param token a previously returned token
    * @param out the stream to write into
    */
-  public synchronized void transferToStream(long token, OutputStream out) throws IOException {
+  public void transferToStream(long token, OutputStream out) throws IOException {
+    ByteBuffer in = locate(token).open();
     byte[] buf = Util.takeThreadLocalBuf();
     try {
-      atEnd = false;
-      file.seek(token);
-      int length = file.readInt();
-      int bufLen = buf.length;
-      while (length > bufLen) {
-        int read = file.read(buf, 0, bufLen);
-        length -= read;
-        out.write(buf, 0, read);
-      }
-      while (length > 0) {
-        int read = file.read(buf, 0, length);
-        length -= read;
+      while (in.hasRemaining()) {
+        int read = Math.min(buf.length, in.remaining());
+        in.get(buf, 0, read);
         out.write(buf, 0, read);
       }
     } finally {
@@ -180,14 +392,34 @@ public class DiskCache {
    *
    * @return a token to retrieve the data later
    */
-  public synchronized long writeByteArray(byte[] bytes) {
-    try {
-      long position = moveToEndPosition();
-      file.writeInt(bytes.length);
-      file.write(bytes);
-      return position;
-    } catch (IOException e) {
-      throw new RuntimeException("Unable to write to byte cache", e);
+  public long writeByteArray(byte[] bytes) {
+    return writeByteArrays(bytes);
+  }
+
+  /**
+   * Write several byte arrays to disk back to back, as if they had first been
+   * concatenated into a single array. This lets callers wrap a large body with
+   * a small prefix and suffix without building the combined array in memory.
+   *
+   * @return a token to retrieve the concatenated data later
+   */
+  public long writeByteArrays(byte[]... chunks) {
+    long length = 0;
+    for (byte[] chunk : chunks) {
+      length += chunk.length;
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new RuntimeException("Unable to write " + length + " bytes to byte cache");
+    }
+    synchronized (writeLock) {
+      Segment segment = reserve((int) length);
+      int offset = segment.used;
+      ByteBuffer out = segment.buffer.duplicate();
+      out.position(offset);
+      for (byte[] chunk : chunks) {
+        out.put(chunk);
+      }
+      return append(segment, offset, (int) length);
     }
   }
 
@@ -216,21 +448,182 @@ public class DiskCache {
   }
 
   /**
-   * Moves to the end of the file if necessary and returns the offset position.
-   * Caller must synchronize.
-   *
-   * @return the offset position of the end of the file
-   * @throws IOException
+   * Compacts every segment that is waiting for compaction.
+   */
+  void compactPendingSegments() {
+    releaseCollectedTokens();
+    Segment segment;
+    while ((segment = compactionQueue.poll()) != null) {
+      compact(segment);
+    }
+    deleteUnmappedSegmentFiles();
+  }
+
+  /**
+   * Deletes the files of compacted segments whose mappings have been
+   * collected. A file which still cannot be deleted, because the mapping is
+   * only released some time after its buffer is collected, is tried again
+   * later, and is deleted on exit otherwise.
+   */
+  void deleteUnmappedSegmentFiles() {
+    synchronized (compactionLock) {
+      SegmentFileReference reference;
+      while ((reference = (SegmentFileReference) unmappedSegments.poll()) != null) {
+        segmentFileReferences.remove(reference);
+        filesToDelete.add(reference.file);
+      }
+      for (Iterator<File> it = filesToDelete.iterator(); it.hasNext();) {
+        File file = it.next();
+        if (file.delete() || !file.exists()) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  int getSegmentCount() {
+    synchronized (writeLock) {
+      return segments.size();
+    }
+  }
+
+  /**
+   * Releases the reference of every token whose owner has been collected.
+   */
+  void releaseCollectedTokens() {
+    TokenReference reference;
+    while ((reference = (TokenReference) collectedOwners.poll()) != null) {
+      tokenReferences.remove(reference);
+      release(reference.token);
+    }
+  }
+
+  /**
+   * Adds a reference to the data of <code>token</code> that is released once
+   * <code>owner</code> has been garbage collected.
    */
-  private long moveToEndPosition() throws IOException {
-    // Get an end pointer.
-    if (atEnd) {
-      return file.getFilePointer();
-    } else {
-      long position = file.length();
-      file.seek(position);
-      atEnd = true;
-      return position;
+  void retainUntilCollected(Object owner, long token) {
+    retain(token);
+    tokenReferences.add(new TokenReference(owner, token, collectedOwners));
+  }
+
+  /**
+   * Publishes the bytes just written at <code>offset</code> of the segment.
+   * Caller must hold the write lock.
+   */
+  private long append(Segment segment, int offset, int length) {
+    segment.used = offset + length;
+    long token = nextToken++;
+    segment.tokens.add(token);
+    entries.put(token, new Entry(new Location(segment, offset, length)));
+    return token;
+  }
+
+  /**
+   * Copies the live data of a mostly dead segment to the current segment and
+   * deletes it.
+   */
+  private void compact(Segment segment) {
+    synchronized (compactionLock) {
+      synchronized (writeLock) {
+        if (!segments.contains(segment)) {
+          return;
+        }
+      }
+      for (Long token : segment.tokens) {
+        Entry entry = entries.get(token);
+        if (entry != null) {
+          relocate(token, entry);
+        }
+      }
+      synchronized (writeLock) {
+        segments.remove(segment);
+      }
+      // Readers that already located data in the segment keep the mapping
+      // alive. Some platforms, such as Windows, refuse to delete a mapped file,
+      // in which case it is deleted once the mapping is collected.
+      if (!segment.file.delete()) {
+        segmentFileReferences.add(new SegmentFileReference(segment, unmappedSegments));
+      }
+    }
+  }
+
+  private Location locate(long token) {
+    Entry entry = entries.get(token);
+    if (entry == null) {
+      throw new RuntimeException("Unable to read from byte cache: token " + token
+          + " has been released");
+    }
+    return entry.location;
+  }
+
+  private void markDead(Segment segment, int length) {
+    segment.deadBytes.addAndGet(length);
+    scheduleIfMostlyDead(segment);
+  }
+
+  /**
+   * Copies the data of a token to the current segment. Only the space is
+   * claimed under the write lock, so that writers are not blocked by the copy.
+   * Caller must hold the compaction lock, which keeps the target segment from
+   * being compacted before the token is added to it.
+   */
+  private void relocate(long token, Entry entry) {
+    Location from = entry.location;
+    Segment segment;
+    int offset;
+    synchronized (writeLock) {
+      segment = reserve(from.length);
+      offset = segment.used;
+      segment.used = offset + from.length;
+    }
+    ByteBuffer out = segment.buffer.duplicate();
+    out.position(offset);
+    out.put(from.open());
+    synchronized (entry) {
+      if (entry.references.get() > 0) {
+        entry.location = new Location(segment, offset, from.length);
+        segment.tokens.add(token);
+        return;
+      }
+    }
+    // Released while it was being copied.
+    markDead(segment, from.length);
+  }
+
+  /**
+   * Returns a segment with room for <code>length</code> more bytes. Caller
+   * must hold the write lock.
+   */
+  private Segment reserve(int length) {
+    if (current.capacity - current.used >= length) {
+      return current;
+    }
+    return startSegment(Math.max(segmentSize, length));
+  }
+
+  private void scheduleIfMostlyDead(Segment segment) {
+    if (segment.isMostlyDead() && segment.scheduled.compareAndSet(false, true)) {
+      compactionQueue.add(segment);
+    }
+  }
+
+  /**
+   * Seals the current segment and starts a new one. Caller must hold the write
+   * lock.
+   */
+  private Segment startSegment(int capacity) {
+    Segment previous = current;
+    try {
+      current = new Segment(capacity);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to initialize byte cache", e);
+    }
+    segments.add(current);
+    if (previous != null) {
+      previous.sealed = true;
+      scheduleIfMostlyDead(previous);
     }
+    return current;
   }
-}
\ No newline at end of file
+}
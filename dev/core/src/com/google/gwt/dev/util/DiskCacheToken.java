@@ -21,7 +21,11 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
- * Wrapper around a {@link DiskCache} token that allows easy serialization.
+ * Wrapper around a {@link DiskCache} token that allows easy serialization. The
+ * wrapper holds its own reference to the data, which is released once the
+ * wrapper has been garbage collected. The methods that read the data are
+ * synchronized, which keeps the wrapper reachable, and so the data in place,
+ * until they return.
  */
 public class DiskCacheToken implements Serializable {
 
@@ -42,6 +46,7 @@ public class DiskCacheToken implements Serializable {
     assert token >= 0;
     this.diskCache = diskCache;
     this.token = token;
+    diskCache.retainUntilCollected(this, token);
   }
 
   /**
@@ -60,16 +65,19 @@ public class DiskCacheToken implements Serializable {
    * @param type the type of the object to deserialize
    * @return the deserialized object
    */
-  public <T> T readObject(Class<T> type) {
+  public synchronized <T> T readObject(Class<T> type) {
     return diskCache.readObject(token, type);
   }
 
   private void readObject(ObjectInputStream inputStream) throws IOException {
     diskCache = DiskCache.INSTANCE;
     token = diskCache.transferFromStream(inputStream);
+    // Hand the writer's reference over to this wrapper.
+    diskCache.retainUntilCollected(this, token);
+    diskCache.release(token);
   }
 
-  private void writeObject(ObjectOutputStream outputStream) throws IOException {
+  private synchronized void writeObject(ObjectOutputStream outputStream) throws IOException {
     diskCache.transferToStream(token, outputStream);
   }
 }
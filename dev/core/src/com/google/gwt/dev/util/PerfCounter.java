@@ -15,6 +15,7 @@
  */
 package com.google.gwt.dev.util;
 
+import com.google.gwt.dev.util.log.speedtracer.TraceRecorder;
 import com.google.gwt.thirdparty.guava.common.base.Preconditions;
 
 import java.util.ArrayList;
@@ -27,6 +28,9 @@ import java.util.Map;
  * A counter which records bunch of statistics for frequently occuring
  * operations. Calculates: count, total time, average time, maximum time
  * & slow operations.
+ * <p>
+ * When the {@link TraceRecorder} is enabled, operations are also recorded as
+ * trace spans and counters as trace counters.
  */
 public class PerfCounter {
   private static class OperationStats {
@@ -86,6 +90,7 @@ public class PerfCounter {
    * Record the end of the operation.
    */
   public static void end(String operation, long slowThresholdNano) {
+    TraceRecorder.endNamed(operation);
     if (!enabled) {
       return;
     }
@@ -123,6 +128,7 @@ public class PerfCounter {
       OperationStats stats = getStats(operation);
       stats.count++;
       stats.isCounter = true;
+      TraceRecorder.counter(operation, stats.count);
     }
   }
 
@@ -145,6 +151,7 @@ public class PerfCounter {
    * Start operation.
    */
   public static void start(String operation) {
+    TraceRecorder.begin(operation);
     if (!enabled) {
       return;
     }
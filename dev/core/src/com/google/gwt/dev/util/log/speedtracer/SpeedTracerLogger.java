@@ -115,6 +115,11 @@ public final class SpeedTracerLogger {
     long threadCpuDurationNanos;
     long threadCpuStartTimeNanos;
 
+    /**
+     * The id of the matching {@link TraceRecorder} span, or -1.
+     */
+    long traceSpan = -1;
+
     Event() {
       if (enabled) {
         if (logThreadCpuTime) {
@@ -336,6 +341,31 @@ public final class SpeedTracerLogger {
     }
   }
 
+  /**
+   * An event that is only recorded by the {@link TraceRecorder}, used when
+   * SpeedTracer logging has not been turned on.
+   */
+  private class TraceEvent extends Event {
+    TraceEvent(long traceSpan) {
+      this.traceSpan = traceSpan;
+    }
+
+    @Override
+    public void addData(String... data) {
+      TraceRecorder.addData(traceSpan, data);
+    }
+
+    @Override
+    public void end(String... data) {
+      TraceRecorder.end(traceSpan, data);
+    }
+
+    @Override
+    public String toString() {
+      return "Trace";
+    }
+  }
+
   /**
    * Provides functionality specific to garbage collection events.
    */
@@ -813,13 +843,16 @@ public final class SpeedTracerLogger {
       // Missed a closing end for one or more frames! Try to sync back up.
       currentEvent.addData("Missed",
           "This event was closed without an explicit call to Event.end()");
+      TraceRecorder.end(currentEvent.traceSpan, "Missed", "true");
       currentEvent = threadPendingEvents.pop();
       currentEvent.updateDuration();
     }
+    TraceRecorder.end(event.traceSpan, data);
 
     if (threadPendingEvents.isEmpty() && currentEvent != event) {
       currentEvent.addData(
           "Missed", "Fell off the end of the threadPending events");
+      TraceRecorder.end(currentEvent.traceSpan, "Missed", "true");
     }
 
     if (logGcTime) {
@@ -864,8 +897,9 @@ public final class SpeedTracerLogger {
   }
 
   Event startImpl(DevModeSession session, EventType type, String... data) {
+    long traceSpan = TraceRecorder.begin(type, data);
     if (!enabled) {
-      return dummyEvent;
+      return traceSpan < 0 ? dummyEvent : new TraceEvent(traceSpan);
     }
 
     if (data.length % 2 == 1) {
@@ -886,6 +920,7 @@ public final class SpeedTracerLogger {
     }
 
     Event newEvent = new Event(session, parent, type, data);
+    newEvent.traceSpan = traceSpan;
     // Add a field to the top level event in order to  track the base time
     // so we can re-normalize the data
     if (threadPendingEvents.size() == 0) {
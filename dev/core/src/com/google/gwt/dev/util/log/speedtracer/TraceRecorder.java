@@ -0,0 +1,587 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util.log.speedtracer;
+
+import com.google.gwt.dev.json.JsonString;
+import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.EventType;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A low overhead recorder of compiler spans and counters that exports the Chrome trace event
+ * format, which can be loaded in chrome://tracing or any viewer of that format.
+ * <p>
+ * Recording is enabled with <code>-Dgwt.trace=&lt;file&gt;</code>; the trace is written to that
+ * file when the VM exits. Every {@link SpeedTracerLogger} event and {@link
+ * com.google.gwt.dev.util.PerfCounter PerfCounter} operation is recorded as a span, so the
+ * existing compiler instrumentation provides the per-pass, per-permutation and per-generator
+ * breakdown.
+ * <p>
+ * Each thread records into its own fixed size ring of parallel primitive arrays, so starting and
+ * ending a span does not allocate. A span is ended through the id returned when it was started, or
+ * by name for instrumentation that only knows the name, so spans need not be strictly nested; ends
+ * that match no open span of the thread are ignored. When a ring is full the oldest records are overwritten and
+ * counted as dropped; the size of the rings is set with <code>-Dgwt.trace.bufferSize</code>.
+ * Spans also record the bytes allocated by their thread where the VM supports it, and every
+ * top-level span samples the garbage collector counters.
+ */
+public final class TraceRecorder {
+
+  /**
+   * Reads the per-thread allocation counter of HotSpot compatible VMs. It is kept in its own class
+   * so that VMs without <code>com.sun.management</code> only lose the allocation counts.
+   */
+  private static class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean threadMXBean = lookup();
+
+    static long allocatedBytes(long threadId) {
+      return threadMXBean == null ? 0 : threadMXBean.getThreadAllocatedBytes(threadId);
+    }
+
+    private static com.sun.management.ThreadMXBean lookup() {
+      try {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+          com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+          if (sunBean.isThreadAllocatedMemorySupported()
+              && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean;
+          }
+        }
+      } catch (Throwable e) {
+        // Not a HotSpot compatible VM.
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The records of a single thread. Only the owning thread writes to it; the lock is uncontended
+   * except while a trace is being written.
+   */
+  private static final class ThreadBuffer {
+    /**
+     * For spans the bytes allocated, for counters the value.
+     */
+    final long[] amounts;
+    final String[][] data;
+    final long[] endNanos;
+    final int mask;
+    final String[] names;
+    /**
+     * The sequence numbers of the open spans, most recently started last.
+     */
+    long[] open = new long[16];
+    /**
+     * The names of the open spans, which outlive their records in the ring.
+     */
+    String[] openNames = new String[16];
+    /**
+     * The number of open spans.
+     */
+    int depth;
+    /**
+     * The sequence number of the next record; the ring holds the last <code>mask + 1</code>.
+     */
+    long next;
+    final byte[] phases;
+    final long[] startNanos;
+    final long threadId;
+    final String threadName;
+
+    ThreadBuffer(Thread thread, int capacity) {
+      this.threadId = thread.getId();
+      this.threadName = thread.getName();
+      this.mask = capacity - 1;
+      amounts = new long[capacity];
+      data = new String[capacity][];
+      endNanos = new long[capacity];
+      names = new String[capacity];
+      phases = new byte[capacity];
+      startNanos = new long[capacity];
+    }
+
+    synchronized long begin(String name, String[] spanData, long now, long allocated) {
+      long seq = next++;
+      int slot = (int) seq & mask;
+      names[slot] = name;
+      data[slot] = spanData.length == 0 ? null : spanData;
+      phases[slot] = PHASE_SPAN;
+      startNanos[slot] = now;
+      endNanos[slot] = -1;
+      amounts[slot] = allocated;
+      if (depth == open.length) {
+        open = Arrays.copyOf(open, depth * 2);
+        openNames = Arrays.copyOf(openNames, depth * 2);
+      }
+      open[depth] = seq;
+      openNames[depth] = name;
+      depth++;
+      return seq;
+    }
+
+    synchronized void counter(String name, long now, long value) {
+      long seq = next++;
+      int slot = (int) seq & mask;
+      names[slot] = name;
+      data[slot] = null;
+      phases[slot] = PHASE_COUNTER;
+      startNanos[slot] = now;
+      endNanos[slot] = now;
+      amounts[slot] = value;
+    }
+
+    synchronized void addData(long span, String[] moreData) {
+      int index = indexOfOpen(span);
+      int slot = index < 0 ? -1 : slotOf(span);
+      if (slot >= 0 && moreData.length > 0) {
+        data[slot] = concat(data[slot], moreData);
+      }
+    }
+
+    /**
+     * Ends the open span at the given index of {@link #open}, and returns whether no spans are
+     * left open.
+     */
+    synchronized boolean end(int index, String[] moreData, long now, long allocated) {
+      int slot = slotOf(open[index]);
+      depth--;
+      System.arraycopy(open, index + 1, open, index, depth - index);
+      System.arraycopy(openNames, index + 1, openNames, index, depth - index);
+      openNames[depth] = null;
+      if (slot >= 0) {
+        endNanos[slot] = now;
+        amounts[slot] = allocated - amounts[slot];
+        if (moreData.length > 0) {
+          data[slot] = concat(data[slot], moreData);
+        }
+      }
+      return depth == 0;
+    }
+
+    /**
+     * Returns the index in {@link #open} of the given span, or -1 if it is not open.
+     */
+    synchronized int indexOfOpen(long span) {
+      for (int i = depth - 1; i >= 0; i--) {
+        if (open[i] == span) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the index in {@link #open} of the most recently started open span with the given
+     * name, or -1 if there is none.
+     */
+    synchronized int indexOfOpen(String name) {
+      for (int i = depth - 1; i >= 0; i--) {
+        if (openNames[i].equals(name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the slot of a record, or -1 if it was overwritten.
+     */
+    int slotOf(long seq) {
+      return next - seq > mask + 1 ? -1 : (int) seq & mask;
+    }
+
+    long dropped() {
+      return Math.max(0, next - (mask + 1));
+    }
+  }
+
+  /**
+   * Accumulated totals of the spans that share a breakdown key.
+   */
+  private static class Totals {
+    long allocatedBytes;
+    int count;
+    long nanos;
+  }
+
+  /**
+   * The data keys whose value distinguishes spans of the same type in the breakdown: the
+   * optimizer of an optimization pass, the generator class of a rebind and the properties of a
+   * permutation.
+   */
+  private static final String[] BREAKDOWN_KEYS = {"optimizer", "class", "name"};
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private static final long GC_SAMPLE_INTERVAL_NANOS = 10000000L;
+
+  private static final Logger log = Logger.getLogger(TraceRecorder.class.getName());
+
+  private static final byte PHASE_COUNTER = 'C';
+
+  private static final byte PHASE_SPAN = 'X';
+
+  private static final String[] NO_DATA = new String[0];
+
+  private static final String traceFile = System.getProperty("gwt.trace");
+
+  private static final TraceRecorder singleton = traceFile == null ? null : createGlobal();
+
+  /**
+   * Adds key/value pairs to a span of the current thread, if it is still open.
+   */
+  public static void addData(long span, String... data) {
+    if (singleton != null) {
+      singleton.addDataImpl(span, data);
+    }
+  }
+
+  /**
+   * Starts a span of the given type on the current thread, and returns the id to end it with, or
+   * -1 if spans are not being recorded.
+   */
+  public static long begin(EventType type) {
+    return singleton == null ? -1 : singleton.beginImpl(type.getName(), NO_DATA);
+  }
+
+  /**
+   * Starts a span of the given type with key/value pairs (each key is followed by its value).
+   */
+  public static long begin(EventType type, String... data) {
+    return singleton == null ? -1 : singleton.beginImpl(type.getName(), data);
+  }
+
+  /**
+   * Starts a span with an arbitrary name.
+   */
+  public static long begin(String name) {
+    return singleton == null ? -1 : singleton.beginImpl(name, NO_DATA);
+  }
+
+  /**
+   * Records the current value of a counter.
+   */
+  public static void counter(String name, long value) {
+    if (singleton != null) {
+      singleton.counterImpl(name, value);
+    }
+  }
+
+  /**
+   * Ends a span of the current thread, unless it is not open.
+   */
+  public static void end(long span) {
+    if (singleton != null) {
+      singleton.endImpl(span, NO_DATA);
+    }
+  }
+
+  /**
+   * Ends a span of the current thread and adds key/value pairs to it, unless it is not open.
+   */
+  public static void end(long span, String... data) {
+    if (singleton != null) {
+      singleton.endImpl(span, data);
+    }
+  }
+
+  /**
+   * Ends the most recently started open span of the current thread with the given name, if any.
+   */
+  public static void endNamed(String name) {
+    if (singleton != null) {
+      singleton.endNamedImpl(name);
+    }
+  }
+
+  /**
+   * Returns whether spans are being recorded.
+   */
+  public static boolean isEnabled() {
+    return singleton != null;
+  }
+
+  private static String[] concat(String[] data, String[] moreData) {
+    if (moreData.length % 2 == 1) {
+      throw new IllegalArgumentException("Unmatched data argument");
+    }
+    if (data == null) {
+      return moreData;
+    }
+    String[] result = new String[data.length + moreData.length];
+    System.arraycopy(data, 0, result, 0, data.length);
+    System.arraycopy(moreData, 0, result, data.length, moreData.length);
+    return result;
+  }
+
+  private static TraceRecorder createGlobal() {
+    int capacity = Integer.getInteger("gwt.trace.bufferSize", DEFAULT_BUFFER_SIZE);
+    final TraceRecorder recorder = new TraceRecorder(capacity, true);
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        try {
+          Writer writer = new BufferedWriter(new FileWriter(traceFile));
+          try {
+            recorder.write(writer);
+          } finally {
+            writer.close();
+          }
+        } catch (IOException e) {
+          log.log(Level.SEVERE, "Unable to write gwt.trace '" + traceFile + "'", e);
+        }
+      }
+    });
+    return recorder;
+  }
+
+  private static void writeKey(Writer writer, String key) throws IOException {
+    JsonString.create(key).write(writer);
+    writer.write(':');
+  }
+
+  private final List<ThreadBuffer> buffers = new ArrayList<ThreadBuffer>();
+
+  private final int capacity;
+
+  private final String[] gcCountNames;
+
+  private final List<GarbageCollectorMXBean> gcMXBeans;
+
+  private final String[] gcTimeNames;
+
+  /**
+   * Shared by all threads; a lost update only causes an extra sample.
+   */
+  private volatile long lastGcSampleNanos;
+
+  private final boolean recordAllocations;
+
+  private final ThreadLocal<ThreadBuffer> threadBuffer = new ThreadLocal<ThreadBuffer>() {
+    @Override
+    protected ThreadBuffer initialValue() {
+      ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread(), capacity);
+      synchronized (buffers) {
+        buffers.add(buffer);
+      }
+      return buffer;
+    }
+  };
+
+  private final long zeroTimeNanos = System.nanoTime();
+
+  /**
+   * Creates a recorder whose per-thread rings hold <code>capacity</code> records, rounded up to a
+   * power of two.
+   */
+  TraceRecorder(int capacity, boolean recordGcAndAllocations) {
+    this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+    this.recordAllocations = recordGcAndAllocations;
+    this.gcMXBeans = recordGcAndAllocations ? ManagementFactory.getGarbageCollectorMXBeans()
+        : new ArrayList<GarbageCollectorMXBean>();
+    lastGcSampleNanos = zeroTimeNanos - GC_SAMPLE_INTERVAL_NANOS;
+    gcCountNames = new String[gcMXBeans.size()];
+    gcTimeNames = new String[gcMXBeans.size()];
+    for (int i = 0; i < gcMXBeans.size(); i++) {
+      gcCountNames[i] = "GC " + gcMXBeans.get(i).getName() + " count";
+      gcTimeNames[i] = "GC " + gcMXBeans.get(i).getName() + " ms";
+    }
+  }
+
+  void addDataImpl(long span, String... data) {
+    threadBuffer.get().addData(span, data);
+  }
+
+  long beginImpl(String name, String... data) {
+    if (data.length % 2 == 1) {
+      throw new IllegalArgumentException("Unmatched data argument");
+    }
+    ThreadBuffer buffer = threadBuffer.get();
+    return buffer.begin(name, data, System.nanoTime(), allocatedBytes(buffer));
+  }
+
+  void counterImpl(String name, long value) {
+    threadBuffer.get().counter(name, System.nanoTime(), value);
+  }
+
+  void endImpl(long span, String... data) {
+    ThreadBuffer buffer = threadBuffer.get();
+    end(buffer, buffer.indexOfOpen(span), data);
+  }
+
+  void endNamedImpl(String name) {
+    ThreadBuffer buffer = threadBuffer.get();
+    end(buffer, buffer.indexOfOpen(name), NO_DATA);
+  }
+
+  /**
+   * Writes the recorded spans and counters as a Chrome trace event JSON object. Besides the
+   * standard <code>traceEvents</code> the object has a <code>breakdown</code> of the total time,
+   * allocation and count of the finished spans by type and breakdown key, and the number of
+   * <code>droppedRecords</code> that were overwritten before they could be written.
+   */
+  void write(Writer writer) throws IOException {
+    List<ThreadBuffer> snapshot;
+    synchronized (buffers) {
+      snapshot = new ArrayList<ThreadBuffer>(buffers);
+    }
+    Map<String, Totals> breakdown = new TreeMap<String, Totals>();
+    long dropped = 0;
+    boolean first = true;
+    writer.write("{\"traceEvents\":[");
+    for (ThreadBuffer buffer : snapshot) {
+      synchronized (buffer) {
+        dropped += buffer.dropped();
+        first = writeThreadName(writer, buffer, first);
+        long begin = Math.max(0, buffer.next - capacity);
+        for (long seq = begin; seq < buffer.next; seq++) {
+          int slot = (int) seq & buffer.mask;
+          if (buffer.endNanos[slot] < 0) {
+            // Still open.
+            continue;
+          }
+          writer.write(",\n");
+          writeRecord(writer, buffer, slot);
+          if (buffer.phases[slot] == PHASE_SPAN) {
+            String key = breakdownKey(buffer.names[slot], buffer.data[slot]);
+            Totals totals = breakdown.get(key);
+            if (totals == null) {
+              totals = new Totals();
+              breakdown.put(key, totals);
+            }
+            totals.count++;
+            totals.nanos += buffer.endNanos[slot] - buffer.startNanos[slot];
+            totals.allocatedBytes += buffer.amounts[slot];
+          }
+        }
+      }
+    }
+    writer.write("\n],\n\"displayTimeUnit\":\"ms\",\n");
+    writeKey(writer, "droppedRecords");
+    writer.write(Long.toString(dropped));
+    writer.write(",\n");
+    writeKey(writer, "breakdown");
+    writer.write('{');
+    first = true;
+    for (Map.Entry<String, Totals> entry : breakdown.entrySet()) {
+      writer.write(first ? "\n" : ",\n");
+      first = false;
+      Totals totals = entry.getValue();
+      writeKey(writer, entry.getKey());
+      writer.write("{\"count\":" + totals.count + ",\"ms\":" + totals.nanos / 1000000.0d
+          + ",\"allocatedBytes\":" + totals.allocatedBytes + "}");
+    }
+    writer.write("\n}}\n");
+    writer.flush();
+  }
+
+  private long allocatedBytes(ThreadBuffer buffer) {
+    return recordAllocations ? AllocationCounter.allocatedBytes(buffer.threadId) : 0;
+  }
+
+  private String breakdownKey(String name, String[] data) {
+    if (data != null) {
+      for (String key : BREAKDOWN_KEYS) {
+        for (int i = 0; i < data.length; i += 2) {
+          if (key.equals(data[i])) {
+            return name + " " + data[i + 1];
+          }
+        }
+      }
+    }
+    return name;
+  }
+
+  private void end(ThreadBuffer buffer, int index, String[] data) {
+    if (index >= 0 && buffer.end(index, data, System.nanoTime(), allocatedBytes(buffer))) {
+      recordGcCounters(buffer);
+    }
+  }
+
+  /**
+   * Samples the cumulative collection count and time of each garbage collector,
+   * at most once per {@link #GC_SAMPLE_INTERVAL_NANOS}.
+   */
+  private void recordGcCounters(ThreadBuffer buffer) {
+    long now = System.nanoTime();
+    if (now - lastGcSampleNanos < GC_SAMPLE_INTERVAL_NANOS) {
+      return;
+    }
+    lastGcSampleNanos = now;
+    for (int i = 0; i < gcMXBeans.size(); i++) {
+      GarbageCollectorMXBean gcMXBean = gcMXBeans.get(i);
+      buffer.counter(gcCountNames[i], now, gcMXBean.getCollectionCount());
+      buffer.counter(gcTimeNames[i], now, gcMXBean.getCollectionTime());
+    }
+  }
+
+  private void writeRecord(Writer writer, ThreadBuffer buffer, int slot) throws IOException {
+    long startMicros = (buffer.startNanos[slot] - zeroTimeNanos) / 1000;
+    writer.write("{\"ph\":\"" + (char) buffer.phases[slot] + "\",\"pid\":1,\"tid\":"
+        + buffer.threadId + ",\"ts\":" + startMicros + ",");
+    writeKey(writer, "name");
+    JsonString.create(buffer.names[slot]).write(writer);
+    writer.write(",\"args\":{");
+    if (buffer.phases[slot] == PHASE_COUNTER) {
+      writer.write("\"value\":" + buffer.amounts[slot] + "}}");
+      return;
+    }
+    long durationMicros = (buffer.endNanos[slot] - buffer.startNanos[slot]) / 1000;
+    String[] data = buffer.data[slot];
+    boolean first = true;
+    if (data != null) {
+      for (int i = 0; i < data.length; i += 2) {
+        if (!first) {
+          writer.write(',');
+        }
+        first = false;
+        writeKey(writer, data[i]);
+        JsonString.create(String.valueOf(data[i + 1])).write(writer);
+      }
+    }
+    if (recordAllocations) {
+      writer.write(first ? "" : ",");
+      writer.write("\"allocatedBytes\":" + buffer.amounts[slot]);
+    }
+    writer.write("},\"dur\":" + durationMicros + "}");
+  }
+
+  private boolean writeThreadName(Writer writer, ThreadBuffer buffer, boolean first)
+      throws IOException {
+    if (!first) {
+      writer.write(",");
+    }
+    writer.write("\n{\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.threadId
+        + ",\"name\":\"thread_name\",\"args\":{");
+    writeKey(writer, "name");
+    JsonString.create(buffer.threadName).write(writer);
+    writer.write("}}");
+    return false;
+  }
+}
@@ -60,6 +60,7 @@ class BigLongLibBase {
       * TWO_PWR_16_DBL;
   protected static final double TWO_PWR_44_DBL = TWO_PWR_22_DBL
       * TWO_PWR_22_DBL;
+  protected static final double TWO_PWR_53_DBL = TWO_PWR_44_DBL * 0x200;
   protected static final double TWO_PWR_63_DBL = TWO_PWR_32_DBL
       * TWO_PWR_31_DBL;
 
@@ -39,6 +39,13 @@ public class LongLib {
     double d;
   }
 
+  /**
+   * The high bits of a {@link BigLong}, sign extended, are in the range
+   * <code>[-SAFE_HIGH_BITS_LIMIT, SAFE_HIGH_BITS_LIMIT)</code> for the values in the safe integer
+   * range.
+   */
+  private static final int SAFE_HIGH_BITS_LIMIT = 1 << (53 - BigLongLibBase.BITS01);
+
   /**
    * Allow standalone Java tests such as LongLibTest/LongLibJreTest to run this
    * code.
@@ -224,9 +231,12 @@ public class LongLib {
     return BigLongLib.getAsLongArray(l);
   }
 
-  // TODO(goktug): Safe integer range could potentially increased update up to 53 bits.
+  /**
+   * Whether the value is an integer in the range where doubles represent every integer, so that
+   * the results of the arithmetic operations are exact whenever they are in this range as well.
+   */
   private static boolean isSafeIntegerRange(double value) {
-    return -BigLongLibBase.TWO_PWR_44_DBL < value && value < BigLongLibBase.TWO_PWR_44_DBL;
+    return -BigLongLibBase.TWO_PWR_53_DBL < value && value < BigLongLibBase.TWO_PWR_53_DBL;
   }
 
   private static double truncate(double value) {
@@ -307,15 +317,13 @@ public class LongLib {
 
   private static BigLong toBigLong(SmallLong longValue) {
     double value = asDouble(longValue);
-    int a3 = 0;
-    if (value < 0) {
-      // Convert to a positive number that will have the exact same first 44 bits
-      value += BigLongLibBase.TWO_PWR_44_DBL;
-      a3 = BigLongLib.MASK_2;
-    }
+    // Flooring leaves a positive number with the exact same first 44 bits; all of this is exact
+    // for integers in the safe range.
+    int a2 = (int) Math.floor(value / BigLongLibBase.TWO_PWR_44_DBL);
+    value -= a2 * BigLongLibBase.TWO_PWR_44_DBL;
     int a1 = (int) (value / BigLongLibBase.TWO_PWR_22_DBL);
     int a0 = (int) (value - a1 * BigLongLibBase.TWO_PWR_22_DBL);
-    return BigLongLibBase.create(a0, a1, a3);
+    return BigLongLibBase.create(a0, a1, a2 & BigLongLib.MASK_2);
   }
 
   private static LongEmul createSmallLongEmul(double value) {
@@ -335,14 +343,17 @@ public class LongLib {
 
   private static LongEmul createLongEmul(BigLong big) {
     int a2 = BigLongLibBase.getH(big);
-    if (a2 == 0) {
-      return createSmallLongEmul(
-          BigLongLibBase.getL(big) + BigLongLibBase.getM(big) * BigLongLibBase.TWO_PWR_22_DBL);
+    if ((a2 & BigLongLibBase.SIGN_BIT_VALUE) != 0) {
+      a2 -= BigLongLibBase.MASK_2 + 1;
     }
-    if (a2 == BigLongLibBase.MASK_2) {
-      return createSmallLongEmul(BigLongLibBase.getL(big)
+    // Values in the safe range have at most 9 significant high bits, and then the sum is exact
+    if (-SAFE_HIGH_BITS_LIMIT <= a2 && a2 < SAFE_HIGH_BITS_LIMIT) {
+      double value = BigLongLibBase.getL(big)
           + BigLongLibBase.getM(big) * BigLongLibBase.TWO_PWR_22_DBL
-          - BigLongLib.TWO_PWR_44_DBL);
+          + a2 * BigLongLibBase.TWO_PWR_44_DBL;
+      if (isSafeIntegerRange(value)) {
+        return createSmallLongEmul(value);
+      }
     }
 
     return createBigLongEmul(big);
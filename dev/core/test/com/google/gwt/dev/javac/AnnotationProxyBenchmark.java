@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.dev.javac.typemodel.test.AnnotatedClass;
+import com.google.gwt.dev.javac.typemodel.test.TestAnnotation;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Times the accesses generators make to the annotations of a TypeOracle, such
+ * as reading members that have default values, equals and hashCode, against
+ * the same accesses to the annotations of the JDK. Run it as an application;
+ * the optional arguments are the number of accesses and the number of rounds.
+ */
+public class AnnotationProxyBenchmark {
+
+  private static int sink;
+
+  public static void main(String[] args) throws NoSuchMethodException {
+    int accesses = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+    TestAnnotation jdkAnnotation = AnnotatedClass.class.getDeclaredMethod(
+        "annotatedMethod").getAnnotation(TestAnnotation.class);
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("value", "Method");
+    TestAnnotation proxy = (TestAnnotation) AnnotationProxyFactory.create(
+        TestAnnotation.class, values);
+
+    for (int round = 1; round <= rounds; ++round) {
+      long createNanos = System.nanoTime();
+      for (int i = 0; i < accesses / 100; ++i) {
+        sink += AnnotationProxyFactory.create(TestAnnotation.class, values).hashCode();
+      }
+      createNanos = System.nanoTime() - createNanos;
+      System.out.println("Round " + round + ": " + accesses + " accesses, proxy "
+          + time(proxy, accesses) / 1000000 + " ms, jdk "
+          + time(jdkAnnotation, accesses) / 1000000 + " ms; " + accesses / 100
+          + " creations " + createNanos / 1000000 + " ms");
+    }
+  }
+
+  private static long time(TestAnnotation annotation, int accesses) {
+    Annotation other = annotation;
+    long start = System.nanoTime();
+    for (int i = 0; i < accesses; ++i) {
+      sink += annotation.stringValue().length() + annotation.intArrayValue().length
+          + annotation.nestedAnnotation().value().length();
+      if (i % 10 == 0) {
+        sink += annotation.hashCode() + (annotation.equals(other) ? 1 : 0);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+}
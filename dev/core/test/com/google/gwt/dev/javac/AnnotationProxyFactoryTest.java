@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.dev.javac.typemodel.test.AnnotatedClass;
+import com.google.gwt.dev.javac.typemodel.test.TestAnnotation;
+
+import junit.framework.TestCase;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit test for {@link AnnotationProxyFactory}.
+ */
+public class AnnotationProxyFactoryTest extends TestCase {
+
+  private static Map<String, Object> values(Object... keysAndValues) {
+    Map<String, Object> values = new HashMap<String, Object>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      values.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return values;
+  }
+
+  public void testArrayValuesAreCopied() {
+    TestAnnotation proxy = (TestAnnotation) AnnotationProxyFactory.create(
+        TestAnnotation.class, values("value", "Method"));
+
+    int[] values = proxy.intArrayValue();
+    values[0] = 42;
+    assertNotSame(values, proxy.intArrayValue());
+    assertEquals(1, proxy.intArrayValue()[0]);
+    assertSame(proxy, AnnotationProxyFactory.create(TestAnnotation.class,
+        values("value", "Method", "intArrayValue", new int[] {1, 2, 3})));
+  }
+
+  public void testDefaultValues() throws Exception {
+    TestAnnotation realAnnotation = AnnotatedClass.class.getDeclaredMethod(
+        "annotatedMethod").getAnnotation(TestAnnotation.class);
+    TestAnnotation proxy = (TestAnnotation) AnnotationProxyFactory.create(
+        TestAnnotation.class, values("value", "Method"));
+
+    assertEquals(TestAnnotation.class, proxy.annotationType());
+    assertEquals("Method", proxy.value());
+    assertEquals(Long.MIN_VALUE, proxy.longValue());
+    assertEquals(3, proxy.intArrayValue().length);
+    assertEquals(realAnnotation.nestedAnnotation(), proxy.nestedAnnotation());
+
+    assertEquals(realAnnotation, proxy);
+    assertEquals(proxy, realAnnotation);
+    assertEquals(realAnnotation.hashCode(), proxy.hashCode());
+  }
+
+  public void testEqualAnnotationsAreShared() {
+    Annotation first = AnnotationProxyFactory.create(TestAnnotation.class,
+        values("value", "Method", "intArrayValue", new int[] {1, 2, 3}));
+    // The explicit value is the same as the default value.
+    Annotation second = AnnotationProxyFactory.create(TestAnnotation.class,
+        values("value", "Method"));
+    Annotation other = AnnotationProxyFactory.create(TestAnnotation.class,
+        values("value", "Method", "intArrayValue", new int[] {1, 2}));
+
+    assertSame(first, second);
+    assertNotSame(first, other);
+    assertFalse(first.equals(other));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.javac.CompilationUnitTypeOracleUpdater.TypeData;
+import com.google.gwt.dev.javac.asm.CollectClassData;
+import com.google.gwt.dev.javac.asm.CollectFieldData;
+import com.google.gwt.dev.javac.testing.impl.MockJavaResource;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the reading of class files by {@link CompilationUnitTypeOracleUpdater}.
+ */
+public class CompilationUnitTypeOracleUpdaterTest extends TestCase {
+
+  private static CompiledClass compileFoo(final String fieldName) {
+    MockJavaResource foo = new MockJavaResource("test.Foo") {
+      @Override
+      public CharSequence getContent() {
+        StringBuilder code = new StringBuilder();
+        code.append("package test;\n");
+        code.append("public class Foo {\n");
+        code.append("  public int " + fieldName + ";\n");
+        code.append("}\n");
+        return code;
+      }
+    };
+    CompilationState state =
+        TypeOracleTestingUtils.buildStandardCompilationStateWith(TreeLogger.NULL, foo);
+    CompilationUnit unit = state.getCompilationUnitMap().get("test.Foo");
+    assertEquals(1, unit.getCompiledClasses().size());
+    return unit.getCompiledClasses().iterator().next();
+  }
+
+  private static String getOnlyFieldName(CollectClassData classData) {
+    List<CollectFieldData> fields = classData.getFields();
+    assertEquals(1, fields.size());
+    return fields.get(0).getName();
+  }
+
+  public void testClassDataReusedForUnchangedClasses() {
+    CompiledClass foo = compileFoo("a");
+    CollectClassData classData = new TypeData(foo).getCollectClassData();
+    assertEquals("test/Foo", classData.getInternalName());
+    assertEquals("a", getOnlyFieldName(classData));
+
+    // Later type oracle updates reuse the class data of the same compiled class.
+    assertSame(classData, new TypeData(foo).getCollectClassData());
+
+    // A recompiled class is read again, and does not change the data of the old one.
+    CollectClassData changedClassData = new TypeData(compileFoo("b")).getCollectClassData();
+    assertNotSame(classData, changedClassData);
+    assertEquals("b", getOnlyFieldName(changedClassData));
+    assertEquals("a", getOnlyFieldName(new TypeData(foo).getCollectClassData()));
+  }
+
+  public void testTypeDataPrefetchedInParallel() {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    final AtomicInteger prefetchedTogether = new AtomicInteger();
+    List<TypeData> typeDataList = new ArrayList<TypeData>();
+    for (int i = 0; i < threads; i++) {
+      typeDataList.add(new TypeData("test", "test.Foo" + i, "test/Foo" + i, null, 0) {
+        @Override
+        synchronized CollectClassData getCollectClassData() {
+          try {
+            // Passes only once every type data is being prefetched at the same time.
+            barrier.await(10, TimeUnit.SECONDS);
+            prefetchedTogether.incrementAndGet();
+          } catch (Exception e) {
+            // Timed out waiting for the others, or one of them did.
+          }
+          return null;
+        }
+      });
+    }
+
+    CompilationUnitTypeOracleUpdater.prefechTypeData(typeDataList);
+    assertEquals(threads, prefetchedTogether.get());
+  }
+}
@@ -40,6 +40,7 @@ public class JavaCompilationSuite {
   public static Test suite() {
     TestSuite suite = new TestSuite(JavaCompilationSuite.class.getName());
 
+    suite.addTestSuite(AnnotationProxyFactoryTest.class);
     suite.addTestSuite(BinaryTypeReferenceRestrictionsCheckerTest.class);
     suite.addTestSuite(BytecodeSignatureMakerTest.class);
     suite.addTestSuite(CompilationStateTest.class);
@@ -54,10 +55,12 @@ public class JavaCompilationSuite {
     suite.addTestSuite(JsniMethodCollectorTest.class);
     suite.addTestSuite(JSORestrictionsTest.class);
     suite.addTestSuite(MemoryUnitCacheTest.class);
+    suite.addTestSuite(PersistentGeneratorCacheTest.class);
     suite.addTestSuite(PersistentUnitCacheTest.class);
     suite.addTestSuite(CompilationStateBuilderTest.class);
     suite.addTestSuite(CompilationUnitTypeOracleUpdaterFromByteCodeTest.class);
     suite.addTestSuite(CompilationUnitTypeOracleUpdaterFromSourceTest.class);
+    suite.addTestSuite(CompilationUnitTypeOracleUpdaterTest.class);
 
     suite.addTestSuite(CollectClassDataTest.class);
     suite.addTestSuite(CollectReferencesVisitorTest.class);
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.ConfigurationProperty;
+import com.google.gwt.core.ext.DefaultConfigurationProperty;
+import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.Generator.RunsLocal;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.PropertyOracle;
+import com.google.gwt.core.ext.SelectionProperty;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.linker.ArtifactSet;
+import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
+import com.google.gwt.core.ext.linker.GeneratedResource;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.dev.CompilerContext;
+import com.google.gwt.dev.cfg.MockModuleDef;
+import com.google.gwt.dev.javac.PersistentGeneratorCache.InputReader;
+import com.google.gwt.dev.javac.PersistentGeneratorCache.Inputs;
+import com.google.gwt.dev.javac.PersistentGeneratorCache.Output;
+import com.google.gwt.dev.javac.testing.impl.JavaResourceBase;
+import com.google.gwt.dev.javac.testing.impl.MockJavaResource;
+import com.google.gwt.dev.javac.testing.impl.MockResource;
+import com.google.gwt.dev.resource.Resource;
+import com.google.gwt.dev.util.Util;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit test for {@link PersistentGeneratorCache}.
+ */
+public class PersistentGeneratorCacheTest extends TestCase {
+
+  /**
+   * Names its answer after the number of methods of the requested type, which
+   * is the only type it reads.
+   */
+  @RunsLocal
+  public static class MethodCountGenerator extends Generator {
+    private static int runs;
+
+    @Override
+    public String generate(TreeLogger logger, GeneratorContext context, String typeName) {
+      runs++;
+      JClassType type = context.getTypeOracle().findType(typeName);
+      return typeName + "_" + type.getMethods().length;
+    }
+  }
+
+  /**
+   * Creates a type and a resource shared by all permutations, and a type
+   * specific to the value of property "p".
+   */
+  public static class PermutationGenerator extends Generator {
+    private static int runs;
+
+    @Override
+    public String generate(TreeLogger logger, GeneratorContext context, String typeName)
+        throws UnableToCompleteException {
+      runs++;
+      PrintWriter pw = context.tryCreate(logger, "test", "Shared");
+      if (pw != null) {
+        pw.print("package test; public class Shared {}");
+        context.commit(logger, pw);
+      }
+      OutputStream os = context.tryCreateResource(logger, "shared.txt");
+      if (os != null) {
+        context.commitResource(logger, os);
+      }
+      String value;
+      try {
+        value = context.getPropertyOracle().getConfigurationProperty("p").getValues().get(0);
+      } catch (BadPropertyValueException e) {
+        throw new UnableToCompleteException();
+      }
+      pw = context.tryCreate(logger, "test", "Impl_" + value);
+      if (pw != null) {
+        pw.print("package test; public class Impl_" + value + " {}");
+        context.commit(logger, pw);
+      }
+      return "test.Impl_" + value;
+    }
+  }
+
+  private static class MockInputReader implements InputReader {
+    private String allTypes;
+    private final Map<String, String> configurationProperties = new HashMap<String, String>();
+    private final Map<String, Resource> resources = new HashMap<String, Resource>();
+    private final Map<String, String> types = new HashMap<String, String>();
+
+    @Override
+    public String readAllTypes() {
+      return allTypes;
+    }
+
+    @Override
+    public String readConfigurationProperty(String name) {
+      return configurationProperties.get(name);
+    }
+
+    @Override
+    public boolean readRebindRuleAvailable(String typeName) {
+      return typeName.startsWith("available.");
+    }
+
+    @Override
+    public String readResource(String path) {
+      return Inputs.hash(resources.get(path));
+    }
+
+    @Override
+    public String readSelectionProperty(String name) {
+      return null;
+    }
+
+    @Override
+    public String readType(String typeName) {
+      return types.get(typeName);
+    }
+  }
+
+  private static final String KEY = "KEY";
+
+  private static PropertyOracle permutation(final String value) {
+    return new PropertyOracle() {
+      @Override
+      public ConfigurationProperty getConfigurationProperty(String name)
+          throws BadPropertyValueException {
+        if (!name.equals("p")) {
+          throw new BadPropertyValueException(name);
+        }
+        return property(name, value);
+      }
+
+      @Override
+      public SelectionProperty getSelectionProperty(TreeLogger logger, String name)
+          throws BadPropertyValueException {
+        throw new BadPropertyValueException(name);
+      }
+    };
+  }
+
+  private static MockJavaResource javaResource(String typeName, final String members) {
+    return new MockJavaResource("test." + typeName) {
+      @Override
+      public CharSequence getContent() {
+        return "package test; public class " + getTypeName().substring(5) + " { " + members
+            + " }";
+      }
+    };
+  }
+
+  private static ConfigurationProperty property(String name, String value) {
+    return new DefaultConfigurationProperty(name, Arrays.asList(value));
+  }
+
+  private static Resource resource(String path, final String content) {
+    return new MockResource(path) {
+      @Override
+      public CharSequence getContent() {
+        return content;
+      }
+    };
+  }
+
+  private PersistentGeneratorCache cache;
+  private File dir;
+  private final TreeLogger logger = TreeLogger.NULL;
+
+  private static Set<String> getResourcePaths(StandardGeneratorContext context) {
+    Set<String> paths = new HashSet<String>();
+    for (GeneratedResource resource : context.getArtifacts().find(GeneratedResource.class)) {
+      paths.add(resource.getPartialPath());
+    }
+    return paths;
+  }
+
+  private StandardGeneratorContext createContext(Resource... resources)
+      throws UnableToCompleteException {
+    CompilerContext compilerContext =
+        new CompilerContext.Builder().module(new MockModuleDef()).build();
+    Set<Resource> allResources = new HashSet<Resource>(Arrays.asList(resources));
+    if (resources.length > 0) {
+      allResources.addAll(Arrays.asList(JavaResourceBase.getStandardResources()));
+    }
+    CompilationState compilationState =
+        CompilationStateBuilder.buildFrom(logger, compilerContext, allResources);
+    return new StandardGeneratorContext(compilerContext, compilationState, new ArtifactSet(),
+        true, cache);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dir = File.createTempFile("generatorCache", "");
+    assertTrue(dir.delete());
+    assertTrue(dir.mkdir());
+    cache = new PersistentGeneratorCache(dir);
+    PermutationGenerator.runs = 0;
+    MethodCountGenerator.runs = 0;
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Util.recursiveDelete(dir, false);
+    super.tearDown();
+  }
+
+  /**
+   * Tests that each permutation of a compilation can be replayed on its own,
+   * even though only the first one created the type and resource shared by
+   * all of them.
+   */
+  public void testContextReplaysPermutations() throws UnableToCompleteException {
+    String[] values = {"a", "b", "c"};
+    StandardGeneratorContext context = createContext();
+    for (String value : values) {
+      context.setPropertyOracle(permutation(value));
+      assertEquals("test.Impl_" + value, context.runGeneratorIncrementally(logger,
+          PermutationGenerator.class, "test.Foo").getResultTypeName());
+    }
+    assertEquals(3, PermutationGenerator.runs);
+
+    // A compilation of any single permutation creates the shared output too.
+    PermutationGenerator.runs = 0;
+    for (String value : values) {
+      StandardGeneratorContext replay = createContext();
+      replay.setPropertyOracle(permutation(value));
+      assertEquals("test.Impl_" + value, replay.runGeneratorIncrementally(logger,
+          PermutationGenerator.class, "test.Foo").getResultTypeName());
+      assertEquals(Sets.newHashSet("test.Shared", "test.Impl_" + value),
+          replay.getGeneratedUnitMap().keySet());
+      assertEquals(context.getGeneratedUnitMap().get("test.Shared").getSource(),
+          replay.getGeneratedUnitMap().get("test.Shared").getSource());
+      assertTrue(getResourcePaths(replay).contains("shared.txt"));
+    }
+    assertEquals(0, PermutationGenerator.runs);
+  }
+
+  /**
+   * Tests that a generator that only reads the requested type is rerun when
+   * what the type oracle reads from it changes, and only then, while other
+   * generators are rerun when any type changes that way.
+   */
+  public void testContextRecordsTypes() throws UnableToCompleteException {
+    String[][] versions = {
+        {"int a() { return 1; }", "void c() {}"},
+        // Method bodies are not read.
+        {"int a() { return 2; }", "void c() { c(); }"},
+        // Other is not read by MethodCountGenerator.
+        {"int a() { return 2; }", "void c() {} void d() {}"},
+        {"int a() { return 2; } int b() { return 3; }", "void c() {} void d() {}"}};
+    int[] methodCountRuns = {1, 1, 1, 2};
+    int[] permutationRuns = {1, 1, 2, 3};
+    for (int i = 0; i < versions.length; i++) {
+      StandardGeneratorContext context = createContext(javaResource("Foo", versions[i][0]),
+          javaResource("Other", versions[i][1]));
+      context.setPropertyOracle(permutation("a"));
+      String resultTypeName = context.runGeneratorIncrementally(logger,
+          MethodCountGenerator.class, "test.Foo").getResultTypeName();
+      context.runGeneratorIncrementally(logger, PermutationGenerator.class, "test.Foo");
+      assertEquals(i < 3 ? "test.Foo_1" : "test.Foo_2", resultTypeName);
+      assertEquals(methodCountRuns[i], MethodCountGenerator.runs);
+      assertEquals(permutationRuns[i], PermutationGenerator.runs);
+    }
+  }
+
+  public void testMissingAndUnreadableEntries() throws IOException {
+    assertNull(cache.find(logger, KEY, new MockInputReader()));
+
+    FileOutputStream out = new FileOutputStream(new File(dir, KEY));
+    out.write(new byte[] {1, 2, 3});
+    out.close();
+    assertNull(cache.find(logger, KEY, new MockInputReader()));
+
+    // An unreadable entry is replaced by the next run.
+    cache.put(logger, KEY, new Inputs(), new Output("Foo"));
+    assertEquals("Foo", cache.find(logger, KEY, new MockInputReader()).getResultTypeName());
+  }
+
+  public void testOutputRoundTrip() {
+    Output output = new Output("com.example.FooImpl");
+    output.addSource("com.example.FooImpl", "package com.example; class FooImpl {}");
+    output.addResource("foo.txt", new byte[] {4, 2}, Visibility.Private);
+    cache.put(logger, KEY, new Inputs(), output);
+
+    Output found = new PersistentGeneratorCache(dir).find(logger, KEY, new MockInputReader());
+    assertEquals("com.example.FooImpl", found.getResultTypeName());
+    assertEquals("package com.example; class FooImpl {}",
+        found.getSources().get("com.example.FooImpl"));
+    assertEquals(2, found.getResources().get("foo.txt").length);
+    assertEquals(Visibility.Private, found.getVisibility("foo.txt"));
+  }
+
+  public void testRecordedInputsMustMatch() {
+    MockInputReader reader = new MockInputReader();
+    reader.resources.put("Foo.ui.xml", resource("Foo.ui.xml", "<ui/>"));
+    reader.configurationProperties.put("flag", "true");
+
+    Inputs inputs = new Inputs();
+    inputs.recordResource("Foo.ui.xml", reader.resources.get("Foo.ui.xml"));
+    inputs.recordResource("Missing.css", null);
+    inputs.recordConfigurationProperty("flag", property("flag", "true"));
+    inputs.recordRebindRule("available.Foo", true);
+    cache.put(logger, KEY, inputs, new Output("FooImpl"));
+    assertEquals("FooImpl", cache.find(logger, KEY, reader).getResultTypeName());
+
+    reader.resources.put("Foo.ui.xml", resource("Foo.ui.xml", "<ui></ui>"));
+    assertNull(cache.find(logger, KEY, reader));
+    reader.resources.put("Foo.ui.xml", resource("Foo.ui.xml", "<ui/>"));
+
+    reader.resources.put("Missing.css", resource("Missing.css", ""));
+    assertNull(cache.find(logger, KEY, reader));
+    reader.resources.remove("Missing.css");
+
+    reader.configurationProperties.put("flag", "false");
+    assertNull(cache.find(logger, KEY, reader));
+    reader.configurationProperties.put("flag", "true");
+    assertNotNull(cache.find(logger, KEY, reader));
+  }
+
+  public void testRecordedTypesMustMatch() {
+    MockInputReader reader = new MockInputReader();
+    reader.types.put("test.Foo", "foo");
+    reader.allTypes = "all";
+
+    Inputs local = new Inputs();
+    local.recordType("test.Foo", "foo");
+    local.recordType("test.Missing", null);
+    cache.put(logger, KEY, local, new Output("Local"));
+    Inputs global = new Inputs();
+    global.recordAllTypes("all");
+    cache.put(logger, KEY, global, new Output("Global"));
+    assertEquals("Global", cache.find(logger, KEY, reader).getResultTypeName());
+
+    reader.allTypes = "changed";
+    assertEquals("Local", cache.find(logger, KEY, reader).getResultTypeName());
+
+    reader.types.put("test.Missing", "missing");
+    assertNull(cache.find(logger, KEY, reader));
+    reader.types.remove("test.Missing");
+
+    reader.types.put("test.Foo", "changed");
+    assertNull(cache.find(logger, KEY, reader));
+  }
+
+  public void testUncacheableInputs() {
+    Inputs inputs = new Inputs();
+    inputs.markUncacheable();
+    cache.put(logger, KEY, inputs, new Output("FooImpl"));
+    assertNull(cache.find(logger, KEY, new MockInputReader()));
+  }
+
+  public void testVariants() {
+    MockInputReader reader = new MockInputReader();
+    for (String value : new String[] {"a", "b"}) {
+      Inputs inputs = new Inputs();
+      inputs.recordConfigurationProperty("p", property("p", value));
+      cache.put(logger, KEY, inputs, new Output("Impl_" + value));
+    }
+
+    reader.configurationProperties.put("p", "a");
+    assertEquals("Impl_a", cache.find(logger, KEY, reader).getResultTypeName());
+    reader.configurationProperties.put("p", "b");
+    assertEquals("Impl_b", cache.find(logger, KEY, reader).getResultTypeName());
+    reader.configurationProperties.put("p", "c");
+    assertNull(cache.find(logger, KEY, reader));
+  }
+}
@@ -37,6 +37,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Test cases for the {@link TypeOracle}'s {@link Annotation} support.
@@ -211,6 +213,24 @@ public class TypeOracleAnnotationSupportTest extends TestCase {
         realAnnotation);
   }
 
+  /**
+   * Tests the lookup of types and methods by their annotations.
+   */
+  public void testAnnotatedTypesAndMethods() throws NotFoundException {
+    JClassType annotatedClass = typeOracle.getType(AnnotatedClass.class.getName());
+    assertEquals(Arrays.asList(annotatedClass), Arrays.asList(
+        typeOracle.getTypesAnnotatedWith(ClassLiteralReferenceAnnotation.class)));
+    assertEquals(0, typeOracle.getTypesAnnotatedWith(SourceRetentionAnnotation.class).length);
+
+    List<JMethod> methods =
+        Arrays.asList(typeOracle.getMethodsAnnotatedWith(TestAnnotation.class));
+    assertTrue(methods.contains(annotatedClass.getMethod("annotatedMethod", TypeOracle.NO_JTYPES)));
+    assertTrue(methods.contains(
+        annotatedClass.getMethod("annotatedWithArrayOfClasses", TypeOracle.NO_JTYPES)));
+    assertFalse(methods.contains(annotatedClass.getMethod("methodWithAnnotatedParameter",
+        new JType[]{JPrimitiveType.INT})));
+  }
+
   /**
    * Tests translatable classes that are annotated with annotations for which we
    * have no source.
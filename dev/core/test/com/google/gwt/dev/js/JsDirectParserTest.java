@@ -0,0 +1,329 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.js;
+
+import com.google.gwt.dev.jjs.Correlation.Axis;
+import com.google.gwt.dev.jjs.SourceInfo;
+import com.google.gwt.dev.js.ast.JsExpression;
+import com.google.gwt.dev.js.ast.JsName;
+import com.google.gwt.dev.js.ast.JsNode;
+import com.google.gwt.dev.js.ast.JsProgram;
+import com.google.gwt.dev.js.ast.JsStatement;
+import com.google.gwt.dev.js.ast.JsStringLiteral;
+import com.google.gwt.dev.js.ast.JsVisitable;
+import com.google.gwt.dev.js.ast.JsVisitor;
+import com.google.gwt.dev.util.Util;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests that {@link JsDirectParser} produces the same AST, source lines and
+ * errors as the Rhino path of {@link JsParser}.
+ */
+public class JsDirectParserTest extends TestCase {
+
+  /**
+   * Packages whose Java sources hold many JSNI methods.
+   */
+  static final String[] JSNI_PACKAGES = {
+      "com/google/gwt/lang", "com/google/gwt/core/client", "com/google/gwt/core/client/impl",
+      "com/google/gwt/dom/client", "com/google/gwt/json/client",
+      "com/google/gwt/user/client/impl", "com/google/gwt/user/client/ui/impl"};
+
+  static final Pattern JSNI_BODY = Pattern.compile("/\\*-\\{(.*?)\\}-\\*/", Pattern.DOTALL);
+
+  /**
+   * Packages holding the scripts of the linkers.
+   */
+  private static final String[] SCRIPT_PACKAGES = {
+      "com/google/gwt/core/linker", "com/google/gwt/core/ext/linker/impl"};
+
+  /**
+   * Records every statement and expression with its source line.
+   */
+  private static class LineRecorder extends JsVisitor {
+    private final List<String> lines = new ArrayList<String>();
+
+    @Override
+    protected <T extends JsVisitable> T doAccept(T node) {
+      if (node instanceof JsStatement || node instanceof JsExpression) {
+        SourceInfo info = ((JsNode) node).getSourceInfo();
+        String entry = node.getClass().getSimpleName() + "@" + info.getStartLine();
+        if (node instanceof JsStringLiteral) {
+          entry += info.getCorrelation(Axis.LITERAL) == null ? "" : "#literal";
+        }
+        lines.add(entry);
+      }
+      return super.doAccept(node);
+    }
+
+    @Override
+    protected <T extends JsVisitable> void doAcceptList(List<T> collection) {
+      for (T node : collection) {
+        doAccept(node);
+      }
+    }
+  }
+
+  private static class Parsed {
+    private final List<String> declaredNames = new ArrayList<String>();
+    private final JsParserException exception;
+    private final List<String> lines;
+    private final String source;
+
+    Parsed(JsProgram program, List<JsStatement> stmts) {
+      StringBuilder sb = new StringBuilder();
+      for (JsStatement stmt : stmts) {
+        sb.append(stmt.toSource());
+      }
+      source = sb.toString();
+      LineRecorder recorder = new LineRecorder();
+      recorder.acceptList(stmts);
+      lines = recorder.lines;
+      for (JsName name : program.getScope().getAllNames()) {
+        declaredNames.add(name.getIdent());
+      }
+      exception = null;
+    }
+
+    Parsed(JsParserException exception) {
+      this.exception = exception;
+      this.lines = null;
+      this.source = null;
+    }
+  }
+
+  private static Parsed parse(String js, boolean useRhino) {
+    JsProgram program = new JsProgram();
+    SourceInfo rootSourceInfo = program.createSourceInfo(1, "test.js");
+    try {
+      List<JsStatement> stmts = useRhino
+          ? JsParser.parseWithRhino(rootSourceInfo, program.getScope(), new StringReader(js))
+          : JsDirectParser.parse(rootSourceInfo, program.getScope(), new StringReader(js));
+      return new Parsed(program, stmts);
+    } catch (IOException e) {
+      throw new RuntimeException("Unexpected error reading in-memory stream", e);
+    } catch (JsParserException e) {
+      return new Parsed(e);
+    }
+  }
+
+  public void testErrors() {
+    assertSameError("1a2b");
+    assertSameError("foo(");
+    assertSameError("+");
+    assertSameError(")");
+    assertSameError("}");
+    assertSameError("foo();\nbar;\n}");
+    assertSameError("return 1;");
+    assertSameError("function f() { with (a) { b(); } }");
+    assertSameError("var a += 1;");
+    assertSameError("f() = 3;");
+    assertSameError("a b");
+    assertSameError("x = {a 1};");
+    assertSameError("x = [1, 2");
+    assertSameError("try { a(); }");
+    assertSameError("try {} catch (e) {} catch (f) {}");
+    assertSameError("switch (a) { foo: 1 }");
+    assertSameError("for (var i = 0; i < 3 i++) {}");
+    assertSameError("x = 'unterminated");
+    assertSameError("a.1");
+    assertSameError("var class = 1;");
+  }
+
+  public void testExpressions() {
+    assertSameAst("a = b ? c : d, e || f || g && h && i;");
+    assertSameAst("x = a | b ^ c & d == e != f === g !== h;");
+    assertSameAst("x = a < b <= c > d >= e instanceof f in g;");
+    assertSameAst("x = a << b >> c >>> d + e - f * g / h % i;");
+    assertSameAst("x += 1; x -= 2; x *= 3; x /= 4; x %= 5; x &= 6; x |= 7; x ^= 8;"
+        + " x <<= 9; x >>= 10; x >>>= 11;");
+    assertSameAst("x = -a + +b + +1 + !c + ~d + typeof e + void f;");
+    assertSameAst("++a; --b; c++; d--; delete e.f; delete g[h];");
+    assertSameAst("x = new Foo; y = new Foo(1, 2).bar(3)[4];");
+    assertSameAst("x = [1, , 'two', [3], ]; y = [];");
+    assertSameAst("x = {a: 1, 'b': 2, 3: 3, }; y = {};");
+    assertSameAst("x = /ab+c/gi.test('abbc') && /d/.exec(s);");
+    assertSameAst("x = this.a; y = true || false || null;");
+    assertSameAst("x = a.b.c(d)(e)[f].g;");
+    assertSameAst("x = (function(a, b) { return a + b; })(1, 2);");
+    assertSameAst("x = 1e3 + 0x1F + .5 + 017;");
+  }
+
+  /**
+   * Checks both parsers against the JSNI methods of the JRE emulation and core
+   * libraries, parsed as anonymous functions like JsniMethodCollector does.
+   */
+  public void testJsniCorpus() throws IOException, URISyntaxException {
+    int count = 0;
+    for (File file : listResources(JSNI_PACKAGES, ".java")) {
+      Matcher m = JSNI_BODY.matcher(Util.readFileAsString(file));
+      while (m.find()) {
+        assertSameResult(file.getName(), "function () {" + m.group(1) + "}");
+        count++;
+      }
+    }
+    assertTrue("Only found " + count + " JSNI methods", count > 100);
+  }
+
+  public void testJsniStyleBody() {
+    assertSameAst("function(a, b) {\n"
+        + "  var self = this;\n"
+        + "  return self.@com.google.Foo::bar(II)(a, b);\n"
+        + "}");
+  }
+
+  /**
+   * Checks both parsers against the scripts the linkers parse, which include
+   * template placeholders.
+   */
+  public void testLinkerScripts() throws IOException, URISyntaxException {
+    List<File> scripts = listResources(SCRIPT_PACKAGES, ".js");
+    assertTrue("Only found " + scripts.size() + " scripts", scripts.size() > 10);
+    for (File script : scripts) {
+      assertSameResult(script.getName(), Util.readFileAsString(script));
+    }
+  }
+
+  public void testSourceLines() {
+    assertSameAst("function f(a) {\n"
+        + "  var x = 'one',\n"
+        + "      y = 2;\n"
+        + "  if (a) {\n"
+        + "    x = 'two';\n"
+        + "  }\n"
+        + "  while (a--) {\n"
+        + "    y++;\n"
+        + "  }\n"
+        + "  do {\n"
+        + "    y--;\n"
+        + "  } while (y > 0);\n"
+        + "  switch (a) {\n"
+        + "    case 'x':\n"
+        + "      break;\n"
+        + "    default:\n"
+        + "      y = 3;\n"
+        + "  }\n"
+        + "  throw\n"
+        + "    new Error('bad');\n"
+        + "  return;\n"
+        + "}\n"
+        + "f(1)\n"
+        + "f(2)\n");
+  }
+
+  public void testStatements() {
+    assertSameAst("function f(a) { return a; }\nfunction g() {}");
+    assertSameAst("if (a) b(); else if (c) d(); else { e(); }");
+    assertSameAst("for (var i = 0, j = 1; i < j; i++) {} for (;;) { break; }");
+    assertSameAst("for (x in y) z(x); for (var k in o) { continue; }");
+    assertSameAst("outer: for (;;) { inner: while (a) { break outer; continue inner; } }");
+    assertSameAst("try { a(); } catch (e) { b(e); } finally { c(); }");
+    assertSameAst("try { a(); } catch (e if e instanceof Foo) { b(); } catch (f) { c(); }");
+    assertSameAst("try { a(); } finally { c(); }");
+    assertSameAst("switch (a) { case 1: case 2: b(); break; default: c(); }");
+    assertSameAst("do { a(); } while (b); ; ; debugger;");
+    assertSameAst("var a = function b() { var c = 1; return function() { return c; }; };");
+    assertSameAst("{ a(); { b(); } }");
+    assertSameAst("a()\nb()\nvar c = 1\nthrow c");
+    assertSameAst("x = function() {}\ny = 2");
+    assertSameAst("try { a(); } catch (e) { var e = 2; var f; }");
+  }
+
+  private void assertSameAst(String js) {
+    Parsed expected = parse(js, true);
+    Parsed actual = parse(js, false);
+    if (expected.exception != null) {
+      fail("Rhino parser failed on " + js + ": " + expected.exception.getMessage());
+    }
+    if (actual.exception != null) {
+      fail("Direct parser failed on " + js + ": " + actual.exception.getMessage());
+    }
+    assertEquals(expected.source, actual.source);
+    assertEquals(expected.lines, actual.lines);
+    assertEquals(expected.declaredNames, actual.declaredNames);
+  }
+
+  /**
+   * Lists the files with the given extension in the given packages, in every
+   * classpath entry which holds them as a directory.
+   */
+  static List<File> listResources(String[] packages, String extension)
+      throws IOException, URISyntaxException {
+    List<File> files = new ArrayList<File>();
+    ClassLoader loader = JsDirectParserTest.class.getClassLoader();
+    for (String pkg : packages) {
+      Enumeration<URL> dirs = loader.getResources(pkg);
+      while (dirs.hasMoreElements()) {
+        URL dir = dirs.nextElement();
+        if (!"file".equals(dir.getProtocol())) {
+          continue;
+        }
+        File[] children = new File(dir.toURI()).listFiles();
+        if (children == null) {
+          continue;
+        }
+        for (File child : children) {
+          if (child.isFile() && child.getName().endsWith(extension)) {
+            files.add(child);
+          }
+        }
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  /**
+   * Checks that both parsers accept the source and agree on it, or both
+   * reject it with the same error.
+   */
+  private void assertSameResult(String name, String js) {
+    Parsed expected = parse(js, true);
+    Parsed actual = parse(js, false);
+    if (expected.exception != null) {
+      assertNotNull("Direct parser accepted " + name, actual.exception);
+      assertEquals(name, expected.exception.getMessage(), actual.exception.getMessage());
+    } else {
+      if (actual.exception != null) {
+        fail("Direct parser failed on " + name + ": " + actual.exception.getMessage());
+      }
+      assertEquals(name, expected.source, actual.source);
+      assertEquals(name, expected.lines, actual.lines);
+      assertEquals(name, expected.declaredNames, actual.declaredNames);
+    }
+  }
+
+  private void assertSameError(String js) {
+    Parsed expected = parse(js, true);
+    Parsed actual = parse(js, false);
+    assertNotNull("Rhino parser accepted " + js, expected.exception);
+    assertNotNull("Direct parser accepted " + js, actual.exception);
+    assertEquals(expected.exception.getMessage(), actual.exception.getMessage());
+  }
+}
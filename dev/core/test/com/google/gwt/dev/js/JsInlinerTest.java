@@ -396,6 +396,88 @@ public class JsInlinerTest extends OptimizerTestBase {
     verifyOptimizedObfuscated(expected, code);
   }
 
+  public void testRejectedCallSitesCachedAcrossPasses() throws Exception {
+    String code = Joiner.on('\n').join(
+        "function big(a) { $wnd.x(a, a); $wnd.y(a, a); return $wnd.z(a, a, a); }",
+        "function caller_doNotInline() { big(1); big(2); }",
+        "caller_doNotInline();");
+    JsProgram program = optimize(code, JsSymbolResolver.class, FixStaticRefsVisitor.class);
+    JsOptimizerContext optimizerContext = new JsOptimizerContext();
+
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(0, optimizerContext.getRejectedCallCacheHits());
+
+    // Nothing changed, so both call sites are skipped on the next pass.
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(2, optimizerContext.getRejectedCallCacheHits());
+
+    // Modifying the callee invalidates the cached rejections.
+    for (JsNode node : JsInlinerProxy.collectFunctions(program)) {
+      optimizerContext.markModified((JsFunction) node);
+    }
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(2, optimizerContext.getRejectedCallCacheHits());
+    assertTrue(optimizerContext.getInliningDecisions().isEmpty());
+  }
+
+  public void testRejectedCallsForgottenWithTheirCaller() throws Exception {
+    String code = Joiner.on('\n').join(
+        "function big(a) { $wnd.x(a, a); $wnd.y(a, a); return $wnd.z(a, a, a); }",
+        "function caller_doNotInline() { big(1); big(2); }",
+        "caller_doNotInline();");
+    JsProgram program = optimize(code, JsSymbolResolver.class, FixStaticRefsVisitor.class);
+    JsOptimizerContext optimizerContext = new JsOptimizerContext();
+    JsFunction caller = null;
+    for (JsNode node : JsInlinerProxy.collectFunctions(program)) {
+      JsFunction function = (JsFunction) node;
+      if (function.getName() != null
+          && function.getName().getIdent().equals("caller_doNotInline")) {
+        caller = function;
+      }
+    }
+
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(2, optimizerContext.getRejectedCallCount());
+
+    // The call sites in a modified caller may be gone, so they are not retained.
+    optimizerContext.markModified(caller);
+    assertEquals(0, optimizerContext.getRejectedCallCount());
+
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(2, optimizerContext.getRejectedCallCount());
+    optimizerContext.markRemoved(caller);
+    assertEquals(0, optimizerContext.getRejectedCallCount());
+  }
+
+  public void testRejectionsForUnstableNamesNotCached() throws Exception {
+    String code = Joiner.on('\n').join(
+        "var x = 1;",
+        "function getX() { return x; }",
+        "function caller_doNotInline() { var x = 2; return getX(); }",
+        "caller_doNotInline();");
+    JsProgram program = optimize(code, JsSymbolResolver.class, FixStaticRefsVisitor.class);
+    JsOptimizerContext optimizerContext = new JsOptimizerContext();
+
+    // Names visible from the caller can change without modifying it, so the
+    // rejection is checked again on every pass.
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(0, optimizerContext.getRejectedCallCount());
+    assertFalse(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals(0, optimizerContext.getRejectedCallCacheHits());
+  }
+
+  public void testInliningDecisionsRecorded() throws Exception {
+    String code = Joiner.on('\n').join(
+        "function getP(t) { return t.a; }",
+        "function b1(o) { return getP(o) == getP(o); } b1({});");
+    JsProgram program = optimize(code, JsSymbolResolver.class, FixStaticRefsVisitor.class);
+    JsOptimizerContext optimizerContext = new JsOptimizerContext();
+
+    assertTrue(JsInlinerProxy.exec(program, optimizerContext).didChange());
+    assertEquals("[getP -> b1, getP -> b1]",
+        optimizerContext.getInliningDecisions().toString());
+  }
+
   private void verifyNoChange(String input) throws Exception {
     verifyOptimized(input, input);
   }
@@ -437,6 +519,14 @@ public class JsInlinerTest extends OptimizerTestBase {
      * Static entry point used by JavaToJavaScriptCompiler.
      */
     public static OptimizerStats exec(JsProgram program) {
+      return exec(program, new JsOptimizerContext());
+    }
+
+    public static OptimizerStats exec(JsProgram program, JsOptimizerContext optimizerContext) {
+      return JsInliner.exec(program, collectFunctions(program), optimizerContext);
+    }
+
+    private static List<JsNode> collectFunctions(JsProgram program) {
       final List<JsNode> inlineableFunctions = Lists.newArrayList();
       new JsVisitor() {
         @Override
@@ -453,7 +543,7 @@ public class JsInlinerTest extends OptimizerTestBase {
           }
         }
       }.accept(program);
-      return JsInliner.exec(program, inlineableFunctions);
+      return inlineableFunctions;
     }
   }
 
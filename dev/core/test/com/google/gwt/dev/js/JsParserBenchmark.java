@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.js;
+
+import com.google.gwt.dev.jjs.SourceInfo;
+import com.google.gwt.dev.js.ast.JsProgram;
+import com.google.gwt.dev.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Compares the parse time of {@link JsDirectParser} with the Rhino path of
+ * {@link JsParser}. Run it as an application with dev/core/test and the GWT
+ * sources on the classpath; the optional arguments are the number of measured
+ * rounds and the number of warm-up rounds.
+ * <p>
+ * Each round parses every JSNI method of the packages checked by
+ * {@link JsDirectParserTest}, as JsniMethodCollector does, and a fixed set of
+ * JSNI-like bodies. The report gives the median round time of each parser, the
+ * time per function and the speedup.
+ * </p>
+ */
+public class JsParserBenchmark {
+
+  private static final String[] BODIES = {
+      "function(elem, name) {\n"
+          + "  return elem[name] == null ? null : String(elem[name]);\n"
+          + "}",
+      "function(a, b) {\n"
+          + "  var self = this;\n"
+          + "  if (typeof a === 'undefined') {\n"
+          + "    return self.@com.example.Foo::bar(II)(b, 0);\n"
+          + "  }\n"
+          + "  for (var i = 0; i < a.length; ++i) {\n"
+          + "    self.items.push({key: a[i], value: b ? b[i] : null});\n"
+          + "  }\n"
+          + "  return self.items.length;\n"
+          + "}",
+      "function(callback) {\n"
+          + "  try {\n"
+          + "    $wnd.setTimeout($entry(function() {\n"
+          + "      callback.@java.lang.Runnable::run()();\n"
+          + "    }), 0);\n"
+          + "  } catch (e) {\n"
+          + "    throw new Error('Failed: ' + e.message);\n"
+          + "  }\n"
+          + "}",
+      "function(s) {\n"
+          + "  switch (s.charAt(0)) {\n"
+          + "    case '+': return 1;\n"
+          + "    case '-': return -1;\n"
+          + "    default: return /^\\d+$/.test(s) ? parseInt(s, 10) : 0;\n"
+          + "  }\n"
+          + "}",
+  };
+
+  public static void main(String[] args) throws IOException, JsParserException,
+      URISyntaxException {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int warmUpRounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+    List<String> functions = readFunctions();
+    int chars = 0;
+    for (String function : functions) {
+      chars += function.length();
+    }
+    System.out.println("Parsing " + functions.size() + " functions, " + chars
+        + " characters, in " + rounds + " rounds after " + warmUpRounds + " warm-up rounds");
+
+    for (int round = 0; round < warmUpRounds; ++round) {
+      time(functions, true);
+      time(functions, false);
+    }
+    long[] rhinoNanos = new long[rounds];
+    long[] directNanos = new long[rounds];
+    for (int round = 0; round < rounds; ++round) {
+      rhinoNanos[round] = time(functions, true);
+      directNanos[round] = time(functions, false);
+    }
+
+    long rhinoMedian = median(rhinoNanos);
+    long directMedian = median(directNanos);
+    report("rhino", rhinoMedian, functions.size());
+    report("direct", directMedian, functions.size());
+    System.out.println(String.format("speedup: %.2fx", (double) rhinoMedian / directMedian));
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  /**
+   * Returns whether both parsers accept a function. The JSNI examples of
+   * Javadoc comments also match, and are left out.
+   */
+  private static boolean parses(String function) throws IOException {
+    try {
+      parse(function, true);
+      parse(function, false);
+      return true;
+    } catch (JsParserException e) {
+      return false;
+    }
+  }
+
+  private static void parse(String function, boolean useRhino) throws IOException,
+      JsParserException {
+    JsProgram program = new JsProgram();
+    SourceInfo rootSourceInfo = program.createSourceInfo(1, "Benchmark.java");
+    StringReader r = new StringReader(function);
+    if (useRhino) {
+      JsParser.parseWithRhino(rootSourceInfo, program.getScope(), r);
+    } else {
+      JsDirectParser.parse(rootSourceInfo, program.getScope(), r);
+    }
+  }
+
+  /**
+   * Returns the JSNI methods of the source tree which both parsers accept,
+   * followed by the fixed bodies.
+   */
+  private static List<String> readFunctions() throws IOException, URISyntaxException {
+    List<String> functions = new ArrayList<String>();
+    for (File file : JsDirectParserTest.listResources(JsDirectParserTest.JSNI_PACKAGES,
+        ".java")) {
+      Matcher m = JsDirectParserTest.JSNI_BODY.matcher(Util.readFileAsString(file));
+      while (m.find()) {
+        String function = "function () {" + m.group(1) + "}";
+        if (parses(function)) {
+          functions.add(function);
+        }
+      }
+    }
+    functions.addAll(Arrays.asList(BODIES));
+    return functions;
+  }
+
+  private static void report(String parser, long medianNanos, int functions) {
+    System.out.println(String.format("%-7s median %8.2f ms per round, %6.2f us per function",
+        parser + ":", medianNanos / 1e6, medianNanos / 1e3 / functions));
+  }
+
+  private static long time(List<String> functions, boolean useRhino) throws IOException,
+      JsParserException {
+    long start = System.nanoTime();
+    for (String function : functions) {
+      parse(function, useRhino);
+    }
+    return System.nanoTime() - start;
+  }
+}
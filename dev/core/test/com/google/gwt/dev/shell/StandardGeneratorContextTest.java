@@ -38,6 +38,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -96,6 +97,56 @@ public class StandardGeneratorContextTest extends TestCase {
     genCtx.setCurrentGenerator(Generator.class);
   }
 
+  /**
+   * Tests that forks merged in order keep the first copy of a resource that
+   * more than one of them generated.
+   */
+  public void testMergeFork() throws UnableToCompleteException, IOException {
+    StandardGeneratorContext first = genCtx.fork();
+    StandardGeneratorContext second = genCtx.fork();
+    first.setCurrentGenerator(MockGenerator.class);
+    second.setCurrentGenerator(MockGenerator.class);
+
+    GeneratedResource shared = first.commitResource(mockLogger,
+        first.tryCreateResource(mockLogger, "testMergeFork/shared"));
+    second.commitResource(mockLogger,
+        second.tryCreateResource(mockLogger, "testMergeFork/shared"));
+    GeneratedResource other = second.commitResource(mockLogger,
+        second.tryCreateResource(mockLogger, "testMergeFork/other"));
+    assertEquals(0, artifactSet.size());
+
+    genCtx.mergeFork(mockLogger, first);
+    genCtx.mergeFork(mockLogger, second);
+    assertEquals(2, artifactSet.size());
+    for (GeneratedResource resource : artifactSet.find(GeneratedResource.class)) {
+      assertSame(resource.getPartialPath().endsWith("shared") ? shared : other, resource);
+    }
+
+    // A resource committed before forking can't be created again.
+    assertNull(genCtx.fork().tryCreateResource(mockLogger, "testMergeFork/other"));
+  }
+
+  /**
+   * Tests that a fork doesn't create again the types created before forking,
+   * and that the types it creates are seen once it is merged.
+   */
+  public void testMergeFork_generatedTypes() {
+    PrintWriter pw = genCtx.tryCreate(mockLogger, "test", "Shared");
+    assertNotNull(pw);
+    genCtx.commit(mockLogger, pw);
+
+    StandardGeneratorContext fork = genCtx.fork();
+    assertNull(fork.tryCreate(mockLogger, "test", "Shared"));
+    pw = fork.tryCreate(mockLogger, "test", "Forked");
+    assertNotNull(pw);
+    fork.commit(mockLogger, pw);
+    assertNotNull(genCtx.fork().tryCreate(mockLogger, "test", "Forked"));
+
+    genCtx.mergeFork(mockLogger, fork);
+    assertEquals(2, genCtx.getGeneratedUnitMap().size());
+    assertNull(genCtx.tryCreate(mockLogger, "test", "Forked"));
+  }
+
   public void testTryCreateResource_badFileName() {
     try {
       genCtx.tryCreateResource(mockLogger, null);
@@ -17,6 +17,9 @@ package com.google.gwt.dev.util;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
@@ -49,6 +52,82 @@ public class DiskCacheTest extends TestCase {
     }
   }
 
+  public void testCompaction() {
+    DiskCache cache = new DiskCache(64, false);
+    byte[] kept = filledArray(20, 1);
+    long keptToken = cache.writeByteArray(kept);
+    long deadToken = cache.writeByteArray(filledArray(30, 2));
+    long otherToken = cache.writeByteArray(filledArray(30, 3));
+    assertEquals(2, cache.getSegmentCount());
+
+    // The first segment is now mostly dead, so its live data moves to the second.
+    cache.release(deadToken);
+    cache.compactPendingSegments();
+    assertEquals(1, cache.getSegmentCount());
+    assertTrue(Arrays.equals(kept, cache.readByteArray(keptToken)));
+    assertTrue(Arrays.equals(filledArray(30, 3), cache.readByteArray(otherToken)));
+    try {
+      cache.readByteArray(deadToken);
+      fail("Expected the released token to be unreadable");
+    } catch (RuntimeException expected) {
+    }
+  }
+
+  public void testCompactionOfDeadSegments() {
+    DiskCache cache = new DiskCache(64, false);
+    long[] tokens = new long[20];
+    for (int i = 0; i < tokens.length; ++i) {
+      tokens[i] = cache.writeByteArray(filledArray(40, i));
+    }
+    assertEquals(20, cache.getSegmentCount());
+    for (int i = 0; i < tokens.length; i += 2) {
+      cache.release(tokens[i]);
+    }
+    cache.compactPendingSegments();
+    // Every full segment was compacted into the current one and later ones.
+    assertTrue(cache.getSegmentCount() < 20);
+    for (int i = 1; i < tokens.length; i += 2) {
+      assertTrue(Arrays.equals(filledArray(40, i), cache.readByteArray(tokens[i])));
+    }
+  }
+
+  public void testRetainAndRelease() {
+    DiskCache cache = new DiskCache(1024, false);
+    long token = cache.writeString("shared");
+    cache.retain(token);
+    cache.release(token);
+    assertEquals("shared", cache.readString(token));
+    cache.release(token);
+    try {
+      cache.retain(token);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testStreamsLargerThanSegment() throws IOException {
+    DiskCache cache = new DiskCache(16, false);
+    long small = cache.writeByteArray(filledArray(10, 4));
+    byte[] large = filledArray(10000, 5);
+    long token = cache.transferFromStream(new ByteArrayInputStream(large));
+    assertTrue(Arrays.equals(large, cache.readByteArray(token)));
+    assertTrue(Arrays.equals(filledArray(10, 4), cache.readByteArray(small)));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    cache.transferToStream(token, out);
+    assertTrue(Arrays.equals(large, out.toByteArray()));
+  }
+
+  public void testChunks() {
+    byte[] a = new byte[] {1, 2, 3};
+    byte[] b = new byte[0];
+    byte[] c = new byte[] {4, 5};
+    long token = diskCache.writeByteArrays(a, b, c);
+    long other = diskCache.writeByteArray(a);
+    assertTrue(Arrays.equals(new byte[] {1, 2, 3, 4, 5}, diskCache.readByteArray(token)));
+    assertTrue(Arrays.equals(a, diskCache.readByteArray(other)));
+  }
+
   public void testStrings() {
     String a = "";
     String b = "abjdsfkl;jasdf";
@@ -76,4 +155,12 @@ public class DiskCacheTest extends TestCase {
           expected, actual);
     }
   }
+
+  private static byte[] filledArray(int length, int seed) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; ++i) {
+      result[i] = (byte) (i * 31 + seed);
+    }
+    return result;
+  }
 }
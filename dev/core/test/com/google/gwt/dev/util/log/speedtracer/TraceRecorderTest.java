@@ -0,0 +1,228 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util.log.speedtracer;
+
+import com.google.gwt.dev.json.JsonArray;
+import com.google.gwt.dev.json.JsonException;
+import com.google.gwt.dev.json.JsonObject;
+import com.google.gwt.dev.json.JsonValue;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the TraceRecorder class.
+ */
+public class TraceRecorderTest extends TestCase {
+
+  private static JsonObject write(TraceRecorder recorder) throws IOException, JsonException {
+    StringWriter writer = new StringWriter();
+    recorder.write(writer);
+    return JsonObject.parse(new StringReader(writer.toString()));
+  }
+
+  private static List<JsonObject> eventsWithPhase(JsonObject trace, String phase) {
+    List<JsonObject> events = new ArrayList<JsonObject>();
+    JsonArray traceEvents = trace.get("traceEvents").asArray();
+    for (int i = 0; i < traceEvents.getLength(); i++) {
+      JsonObject event = traceEvents.get(i).asObject();
+      if (phase.equals(event.get("ph").asString().getString())) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  private static String getString(JsonObject object, String key) {
+    return object.get(key).asString().getString();
+  }
+
+  public void testBreakdown() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    recorder.endImpl(recorder.beginImpl("Optimize", "optimizer", "Pruner"));
+    recorder.endImpl(recorder.beginImpl("Optimize", "optimizer", "Pruner"));
+    recorder.endImpl(recorder.beginImpl("Optimize", "optimizer", "DeadCodeElimination"));
+    recorder.endImpl(recorder.beginImpl("Link"));
+
+    JsonObject breakdown = write(recorder).get("breakdown").asObject();
+    assertEquals(2, breakdown.get("Optimize Pruner").asObject().get("count").asNumber()
+        .getInteger());
+    assertEquals(1, breakdown.get("Optimize DeadCodeElimination").asObject().get("count")
+        .asNumber().getInteger());
+    assertEquals(1, breakdown.get("Link").asObject().get("count").asNumber().getInteger());
+  }
+
+  public void testCounters() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    recorder.counterImpl("units", 3);
+    recorder.counterImpl("units", 5);
+
+    List<JsonObject> counters = eventsWithPhase(write(recorder), "C");
+    assertEquals(2, counters.size());
+    assertEquals("units", getString(counters.get(1), "name"));
+    assertEquals(5, counters.get(1).get("args").asObject().get("value").asNumber().getInteger());
+  }
+
+  public void testGcCountersOnTopLevelSpans() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, true);
+    long compile = recorder.beginImpl("Compile");
+    recorder.endImpl(recorder.beginImpl("Optimize"));
+    int countersAfterNestedSpan = eventsWithPhase(write(recorder), "C").size();
+    recorder.endImpl(compile);
+    int countersAfterTopLevelSpan = eventsWithPhase(write(recorder), "C").size();
+
+    assertEquals(0, countersAfterNestedSpan);
+    assertTrue(countersAfterTopLevelSpan > 0);
+    JsonObject span = eventsWithPhase(write(recorder), "X").get(0);
+    assertNotNull(span.get("args").asObject().get("allocatedBytes"));
+  }
+
+  public void testOpenSpansAreNotWritten() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    recorder.beginImpl("Compile");
+    recorder.endImpl(recorder.beginImpl("Link"));
+
+    List<JsonObject> spans = eventsWithPhase(write(recorder), "X");
+    assertEquals(1, spans.size());
+    assertEquals("Link", getString(spans.get(0), "name"));
+  }
+
+  public void testRingOverwritesOldestRecords() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(16, false);
+    long outer = recorder.beginImpl("Outer");
+    for (int i = 0; i < 40; i++) {
+      recorder.endImpl(recorder.beginImpl("Inner", "i", String.valueOf(i)));
+    }
+    recorder.endImpl(outer, "outer", "done");
+
+    JsonObject trace = write(recorder);
+    List<JsonObject> spans = eventsWithPhase(trace, "X");
+    assertEquals(16, spans.size());
+    assertEquals(25, trace.get("droppedRecords").asNumber().getInteger());
+    assertEquals("39", getString(spans.get(15).get("args").asObject(), "i"));
+  }
+
+  public void testSpans() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    long compileSpan = recorder.beginImpl("Compile", "module", "Hello");
+    long optimizeSpan = recorder.beginImpl("Optimize");
+    recorder.addDataImpl(optimizeSpan, "pass", "1");
+    recorder.endImpl(optimizeSpan, "changed", "true");
+    recorder.endImpl(compileSpan);
+
+    JsonObject trace = write(recorder);
+    assertEquals(0, trace.get("droppedRecords").asNumber().getInteger());
+    assertEquals(1, eventsWithPhase(trace, "M").size());
+    List<JsonObject> spans = eventsWithPhase(trace, "X");
+    assertEquals(2, spans.size());
+
+    JsonObject compile = spans.get(0);
+    JsonObject optimize = spans.get(1);
+    assertEquals("Compile", getString(compile, "name"));
+    assertEquals("Hello", getString(compile.get("args").asObject(), "module"));
+    assertEquals("Optimize", getString(optimize, "name"));
+    assertEquals("1", getString(optimize.get("args").asObject(), "pass"));
+    assertEquals("true", getString(optimize.get("args").asObject(), "changed"));
+
+    long compileStart = compile.get("ts").asNumber().getInteger();
+    long compileEnd = compileStart + compile.get("dur").asNumber().getInteger();
+    long optimizeStart = optimize.get("ts").asNumber().getInteger();
+    long optimizeEnd = optimizeStart + optimize.get("dur").asNumber().getInteger();
+    assertTrue(compileStart <= optimizeStart);
+    assertTrue(optimizeEnd <= compileEnd);
+  }
+
+  public void testThreads() throws IOException, InterruptedException, JsonException {
+    final TraceRecorder recorder = new TraceRecorder(1024, false);
+    Thread[] threads = new Thread[3];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 100; j++) {
+            recorder.endImpl(recorder.beginImpl("Work"));
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    JsonObject trace = write(recorder);
+    assertEquals(3, eventsWithPhase(trace, "M").size());
+    assertEquals(300, eventsWithPhase(trace, "X").size());
+  }
+
+  public void testSpansEndedByIdentity() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    long compile = recorder.beginImpl("Compile");
+    long link = recorder.beginImpl("Link");
+    // Ending the outer span first leaves the inner one open.
+    recorder.endImpl(compile, "outer", "true");
+    List<JsonObject> spans = eventsWithPhase(write(recorder), "X");
+    assertEquals(1, spans.size());
+    assertEquals("true", getString(spans.get(0).get("args").asObject(), "outer"));
+
+    recorder.addDataImpl(link, "inner", "true");
+    recorder.endImpl(link);
+    spans = eventsWithPhase(write(recorder), "X");
+    assertEquals(2, spans.size());
+    assertEquals("Link", getString(spans.get(1), "name"));
+    assertEquals("true", getString(spans.get(1).get("args").asObject(), "inner"));
+  }
+
+  public void testSpansEndedByName() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    recorder.beginImpl("parse");
+    long optimize = recorder.beginImpl("Optimize");
+    recorder.endNamedImpl("parse");
+    recorder.endNamedImpl("unknown");
+
+    List<JsonObject> spans = eventsWithPhase(write(recorder), "X");
+    assertEquals(1, spans.size());
+    assertEquals("parse", getString(spans.get(0), "name"));
+
+    recorder.endImpl(optimize);
+    assertEquals(2, eventsWithPhase(write(recorder), "X").size());
+  }
+
+  public void testUnmatchedEnd() throws IOException, JsonException {
+    TraceRecorder recorder = new TraceRecorder(64, false);
+    // Ends of spans that are not open are dropped.
+    recorder.endImpl(42);
+    long compile = recorder.beginImpl("Compile");
+    recorder.endImpl(compile);
+    recorder.endImpl(compile, "again", "true");
+    recorder.addDataImpl(compile, "late", "true");
+
+    List<JsonObject> spans = eventsWithPhase(write(recorder), "X");
+    assertEquals(1, spans.size());
+    assertSame(JsonValue.NULL, spans.get(0).get("args").asObject().get("again"));
+    assertSame(JsonValue.NULL, spans.get(0).get("args").asObject().get("late"));
+    try {
+      recorder.beginImpl("Compile", "key");
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -76,6 +76,10 @@ public class LongLibJreTest extends TestCase {
     impl.testNegativeZeroSeal();
   }
 
+  public void testSafeIntegerRange() {
+    impl.testSafeIntegerRange();
+  }
+
   public void testShift() {
     impl.testShift();
   }
@@ -464,6 +464,18 @@ public class LongLibTest extends TestCase {
     assertEquals(0xedcba, array[2]);
     assertEquals(0x261d95, array[1]);
     assertEquals(0x32110, array[0]);
+
+    longVal = (1L << 53) - 1;
+    array = LongLib.getAsLongArray(longVal);
+    assertEquals(1, array.length);
+    assertEquals(longVal, array[0]);
+
+    longVal = 1L << 53;
+    array = LongLib.getAsLongArray(longVal);
+    assertEquals(3, array.length);
+    assertEquals(0x200, array[2]);
+    assertEquals(0, array[1]);
+    assertEquals(0, array[0]);
   }
 
   public static void testGt() {
@@ -593,6 +605,17 @@ public class LongLibTest extends TestCase {
     }
   }
 
+  public static void testSafeIntegerRepresentation() {
+    for (long longVal : TEST_VALUES) {
+      boolean safe = -(1L << 53) < longVal && longVal < (1L << 53);
+      // In the JVM a small long has no BigLong
+      boolean small = LongLib.asBigLong(fromLong(longVal)) == null;
+      if (safe != small) {
+        fail("Unexpected representation: longVal = " + longVal);
+      }
+    }
+  }
+
   public static void testShl() {
     doTestShift(OP_SHL);
   }
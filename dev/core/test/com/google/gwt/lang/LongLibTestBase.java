@@ -363,6 +363,36 @@ public class LongLibTestBase extends TestCase {
     assertEquals(Double.POSITIVE_INFINITY, 1d / LongLib.toInt(shouldBePositiveZero));
   }
 
+  public void testSafeIntegerRange() {
+    LongEmul twoPwr53 = LongLib.shl(LongLib.fromInt(1), 53);
+    LongEmul maxSafe = LongLib.sub(twoPwr53, Const.ONE);
+    LongEmul minSafe = LongLib.neg(maxSafe);
+    assertEquals("9007199254740991", LongLib.toString(maxSafe));
+    assertEquals("-9007199254740991", LongLib.toString(minSafe));
+    assertEquals("9007199254740992", LongLib.toString(LongLib.add(maxSafe, Const.ONE)));
+    assertEquals("-9007199254740992", LongLib.toString(LongLib.sub(minSafe, Const.ONE)));
+    assertEquals("18014398509481982", LongLib.toString(LongLib.mul(maxSafe, Const.TWO)));
+    assertEquals("-18014398509481982", LongLib.toString(LongLib.add(minSafe, minSafe)));
+    assertEquals(maxSafe, LongLib.sub(LongLib.add(maxSafe, Const.TWO), Const.TWO));
+    assertEquals(LongLib.fromInt(4194303), LongLib.div(maxSafe, LongLib.fromDouble(2147483649.0)));
+    assertEquals(LongLib.fromInt(-1), LongLib.mod(minSafe, Const.TWO));
+    assertTrue(LongLib.lt(minSafe, LongLib.add(minSafe, Const.ONE)));
+    assertTrue(LongLib.gt(LongLib.add(maxSafe, Const.ONE), maxSafe));
+    assertEquals(Math.pow(2, 53) - 1, LongLib.toDouble(maxSafe), 0.0);
+    assertEquals(-1, LongLib.toInt(maxSafe));
+    assertEquals(1, LongLib.toInt(minSafe));
+    assertEquals(maxSafe, LongLib.fromDouble(Math.pow(2, 53) - 1));
+    assertEquals(LongLib.neg(twoPwr53), LongLib.fromDouble(-Math.pow(2, 53)));
+
+    // Values which are safe, but whose high bits are not all zeros or ones
+    LongEmul n = LongLib.fromDouble(Math.pow(2, 50) + 12345);
+    assertEquals(LongLib.fromInt(12345), LongLib.and(n, LongLib.fromInt(0xffff)));
+    assertEquals(LongLib.fromDouble(-Math.pow(2, 50) - 12346), LongLib.not(n));
+    assertEquals(LongLib.fromDouble(Math.pow(2, 36)), LongLib.shr(n, 14));
+    assertEquals(LongLib.fromDouble(-Math.pow(2, 36) - 1), LongLib.shr(LongLib.neg(n), 14));
+    assertEquals("1125831187365887", LongLib.toString(LongLib.shru(LongLib.neg(n), 14)));
+  }
+
   public void testShift() {
     assertEquals(longFromBits(0xd048d115, 0x9d159c00), LongLib.shl(
         longFromBits(0x12341234, 0x45674567), 10));
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.core.client.impl;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * A {@link SchedulerImpl} which runs deferred and incremental commands at the
+ * start of animation frames, within a per-frame budget, so that long-running
+ * work leaves the rest of the frame to the browser. Select it by setting the
+ * <code>scheduler.frameAware</code> property to <code>true</code>.
+ *
+ * <p>
+ * Deferred commands run in order until the budget is spent, and the rest run
+ * in the following frames. Incremental commands can be given a
+ * {@link Priority}: high priority commands run before the deferred commands
+ * of each frame, and idle commands run in idle callbacks where the browser
+ * supports them. Entry and finally commands are not affected.
+ * </p>
+ *
+ * <p>
+ * Animation frames are not delivered to hidden pages, so a frame which has not
+ * arrived after 100ms is replaced by a timer.
+ * </p>
+ */
+public class FrameAwareSchedulerImpl extends SchedulerImpl {
+
+  /**
+   * The priority of an incremental command.
+   */
+  public enum Priority {
+    /**
+     * Runs first in every frame.
+     */
+    HIGH,
+
+    /**
+     * Runs in every frame after the deferred commands which were waiting when
+     * the frame started, like commands passed to
+     * {@link SchedulerImpl#scheduleIncremental}. Deferred commands scheduled
+     * during the frame wait for the next one, so they run after these.
+     */
+    NORMAL,
+
+    /**
+     * Runs when the browser is idle, or after the other commands of a frame if
+     * the browser does not support idle callbacks.
+     */
+    IDLE
+  }
+
+  /**
+   * The default number of milliseconds of each frame used to run commands,
+   * which leaves the rest of a 60fps frame for rendering.
+   */
+  public static final double DEFAULT_FRAME_BUDGET = 8;
+
+  /**
+   * The longest delay before commands run when no animation frame arrives.
+   */
+  private static final int FRAME_TIMEOUT = 100;
+
+  /**
+   * The longest delay before idle commands run when the browser is never
+   * idle.
+   */
+  private static final int IDLE_TIMEOUT = 1000;
+
+  /**
+   * Called from the idle callback to give $entry a static function.
+   */
+  private static boolean flushIdle(FrameAwareSchedulerImpl scheduler, double timeRemaining) {
+    return scheduler.flushIdleCommands(timeRemaining);
+  }
+
+  /**
+   * Called from the frame callback to give $entry a static function.
+   */
+  private static boolean execute(RepeatingCommand cmd) {
+    return cmd.execute();
+  }
+
+  private static native boolean isAnimationFrameSupported() /*-{
+    return !!$wnd.requestAnimationFrame;
+  }-*/;
+
+  private static native void scheduleFrameImpl(RepeatingCommand cmd, int timeoutMs) /*-{
+    var frameId, timeoutId;
+    function callback() {
+      // Whichever of the frame and the timer comes first cancels the other
+      $wnd.cancelAnimationFrame(frameId);
+      $wnd.clearTimeout(timeoutId);
+      // $entry takes care of uncaught exception handling
+      var ret = $entry(@FrameAwareSchedulerImpl::execute(*))(cmd);
+      if (!@com.google.gwt.core.client.GWT::isScript()()) {
+        // Unwrap from Development Mode
+        ret = ret == true;
+      }
+      if (ret) {
+        request();
+      }
+    }
+    function request() {
+      frameId = $wnd.requestAnimationFrame(callback);
+      timeoutId = $wnd.setTimeout(callback, timeoutMs);
+    }
+    request();
+  }-*/;
+
+  JsArray<Task> highPriorityCommands;
+  JsArray<Task> idleCommands;
+
+  private double frameBudget = DEFAULT_FRAME_BUDGET;
+
+  private boolean idleFlushPending;
+
+  private double lastSliceMillis;
+
+  private double maxSliceMillis;
+
+  private int overBudgetSliceCount;
+
+  private int sliceCount;
+
+  /**
+   * Returns the number of milliseconds of each frame used to run commands.
+   */
+  public double getFrameBudget() {
+    return frameBudget;
+  }
+
+  /**
+   * Returns the duration of the last slice of deferred, incremental or idle
+   * commands, in milliseconds.
+   */
+  public double getLastSliceMillis() {
+    return lastSliceMillis;
+  }
+
+  /**
+   * Returns the duration of the longest slice of commands, in milliseconds.
+   */
+  public double getMaxSliceMillis() {
+    return maxSliceMillis;
+  }
+
+  /**
+   * Returns the number of slices which took longer than their budget, usually
+   * because a single command took longer.
+   */
+  public int getOverBudgetSliceCount() {
+    return overBudgetSliceCount;
+  }
+
+  /**
+   * Returns the number of deferred, incremental and idle commands waiting to
+   * run.
+   */
+  public int getQueueDepth() {
+    return length(deferredCommands) + length(incrementalCommands)
+        + length(highPriorityCommands) + length(idleCommands);
+  }
+
+  /**
+   * Returns the number of slices of commands run so far.
+   */
+  public int getSliceCount() {
+    return sliceCount;
+  }
+
+  /**
+   * Clears the slice metrics.
+   */
+  public void resetMetrics() {
+    lastSliceMillis = 0;
+    maxSliceMillis = 0;
+    overBudgetSliceCount = 0;
+    sliceCount = 0;
+  }
+
+  /**
+   * Sets the number of milliseconds of each frame used to run commands. At
+   * least one deferred command and one pass over the high priority commands
+   * run in every frame, whatever the budget.
+   */
+  public void setFrameBudget(double frameBudget) {
+    this.frameBudget = frameBudget;
+  }
+
+  /**
+   * Schedules a repeating command with the given priority.
+   *
+   * @see #scheduleIncremental(RepeatingCommand)
+   */
+  public void scheduleIncremental(RepeatingCommand cmd, Priority priority) {
+    switch (priority) {
+      case HIGH:
+        highPriorityCommands = push(highPriorityCommands, Task.create(cmd));
+        maybeSchedulePostEventPumpCommands();
+        break;
+      case IDLE:
+        idleCommands = push(idleCommands, Task.create(cmd));
+        if (isIdleCallbackSupported()) {
+          maybeScheduleIdleCommands();
+        } else {
+          maybeSchedulePostEventPumpCommands();
+        }
+        break;
+      default:
+        scheduleIncremental(cmd);
+    }
+  }
+
+  /**
+   * Called when the browser is idle, with the time it expects to stay idle.
+   *
+   * @return whether idle commands remain
+   */
+  boolean flushIdleCommands(double timeRemaining) {
+    // Cleared first, so that a command which throws does not leave it set
+    idleFlushPending = false;
+    if (idleCommands != null) {
+      Duration duration = createDuration();
+      // Run a pass even when the callback timed out
+      idleCommands = runRepeatingTasks(idleCommands, duration, Math.max(timeRemaining, 1));
+      recordSlice(duration, timeRemaining);
+    }
+    idleFlushPending = idleCommands != null;
+    return idleFlushPending;
+  }
+
+  @Override
+  void flushPostEventPumpCommands() {
+    Duration duration = createDuration();
+
+    if (highPriorityCommands != null) {
+      highPriorityCommands = runRepeatingTasks(highPriorityCommands, duration, frameBudget);
+    }
+
+    if (deferredCommands != null) {
+      runDeferredTasks(duration);
+    }
+
+    if (incrementalCommands != null) {
+      incrementalCommands = runRepeatingTasks(incrementalCommands, duration, frameBudget);
+    }
+
+    if (idleCommands != null) {
+      if (isIdleCallbackSupported()) {
+        // Restarts the idle callbacks if an idle command threw
+        maybeScheduleIdleCommands();
+      } else {
+        idleCommands = runRepeatingTasks(idleCommands, duration, frameBudget);
+      }
+    }
+
+    recordSlice(duration, frameBudget);
+  }
+
+  /**
+   * Whether idle commands run in idle callbacks, rather than in frames.
+   */
+  native boolean isIdleCallbackSupported() /*-{
+    return !!$wnd.requestIdleCallback;
+  }-*/;
+
+  @Override
+  boolean isWorkQueued() {
+    return super.isWorkQueued() || highPriorityCommands != null
+        || (idleCommands != null && !isIdleCallbackSupported());
+  }
+
+  @Override
+  void scheduleFlusher(RepeatingCommand flusher) {
+    if (isAnimationFrameSupported()) {
+      scheduleFrameImpl(flusher, FRAME_TIMEOUT);
+    } else {
+      super.scheduleFlusher(flusher);
+    }
+  }
+
+  private int length(JsArray<Task> queue) {
+    return queue == null ? 0 : queue.length();
+  }
+
+  private void maybeScheduleIdleCommands() {
+    if (!idleFlushPending) {
+      idleFlushPending = true;
+      scheduleIdleImpl(IDLE_TIMEOUT);
+    }
+  }
+
+  private void recordSlice(Duration duration, double budget) {
+    lastSliceMillis = duration.elapsedMillis();
+    maxSliceMillis = Math.max(maxSliceMillis, lastSliceMillis);
+    if (lastSliceMillis > budget) {
+      overBudgetSliceCount++;
+    }
+    sliceCount++;
+  }
+
+  /**
+   * Runs deferred commands in order until the frame budget is spent, keeping
+   * the rest ahead of the commands they scheduled. Repeating commands which
+   * want to repeat move to the incremental commands queue.
+   */
+  private void runDeferredTasks(Duration duration) {
+    JsArray<Task> tasks = deferredCommands;
+    deferredCommands = null;
+
+    int i = 0;
+    int length = tasks.length();
+    do {
+      Task t = tasks.get(i++);
+      try {
+        if (t.isRepeating()) {
+          if (t.executeRepeating()) {
+            incrementalCommands = push(incrementalCommands, t);
+          }
+        } else {
+          t.executeScheduled();
+        }
+      } catch (Throwable e) {
+        GWT.reportUncaughtException(e);
+      }
+    } while (i < length && duration.elapsedMillis() < frameBudget);
+
+    if (i < length) {
+      JsArray<Task> remaining = createQueue();
+      for (; i < length; i++) {
+        remaining.push(tasks.get(i));
+      }
+      for (int j = 0, n = length(deferredCommands); j < n; j++) {
+        remaining.push(deferredCommands.get(j));
+      }
+      deferredCommands = remaining;
+    }
+  }
+
+  private native void scheduleIdleImpl(int timeoutMs) /*-{
+    var self = this;
+    function callback(deadline) {
+      // $entry takes care of uncaught exception handling
+      var ret = $entry(@FrameAwareSchedulerImpl::flushIdle(*))(self, deadline.timeRemaining());
+      if (!@com.google.gwt.core.client.GWT::isScript()()) {
+        // Unwrap from Development Mode
+        ret = ret == true;
+      }
+      if (ret) {
+        $wnd.requestIdleCallback(callback, {timeout: timeoutMs});
+      }
+    }
+    $wnd.requestIdleCallback(callback, {timeout: timeoutMs});
+  }-*/;
+}
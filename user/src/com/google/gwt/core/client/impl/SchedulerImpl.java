@@ -96,7 +96,7 @@ public class SchedulerImpl extends Scheduler {
          * Since JS is single-threaded, if we're here, then than means that
          * FLUSHER.execute() started, but did not finish. Reschedule FLUSHER.
          */
-        scheduleFixedDelay(flusher, FLUSHER_DELAY);
+        scheduleFlusher(flusher);
       }
       return shouldBeRunning;
     }
@@ -130,7 +130,7 @@ public class SchedulerImpl extends Scheduler {
   /**
    * Extract boilerplate code.
    */
-  private static JsArray<Task> createQueue() {
+  static JsArray<Task> createQueue() {
     return JavaScriptObject.createArray().cast();
   }
 
@@ -144,7 +144,7 @@ public class SchedulerImpl extends Scheduler {
   /**
    * Provides lazy-init pattern for the task queues.
    */
-  private static JsArray<Task> push(JsArray<Task> queue, Task task) {
+  static JsArray<Task> push(JsArray<Task> queue, Task task) {
     if (queue == null) {
       queue = createQueue();
     }
@@ -348,7 +348,7 @@ public class SchedulerImpl extends Scheduler {
     }
 
     if (incrementalCommands != null) {
-      incrementalCommands = runRepeatingTasks(incrementalCommands);
+      incrementalCommands = runRepeatingTasks(incrementalCommands, createDuration(), TIME_SLICE);
     }
   }
 
@@ -356,14 +356,14 @@ public class SchedulerImpl extends Scheduler {
     return deferredCommands != null || incrementalCommands != null;
   }
 
-  private void maybeSchedulePostEventPumpCommands() {
+  void maybeSchedulePostEventPumpCommands() {
     if (!shouldBeRunning) {
       shouldBeRunning = true;
 
       if (flusher == null) {
         flusher = new Flusher();
       }
-      scheduleFixedDelayImpl(flusher, FLUSHER_DELAY);
+      scheduleFlusher(flusher);
 
       if (rescue == null) {
         rescue = new Rescuer();
@@ -373,11 +373,13 @@ public class SchedulerImpl extends Scheduler {
   }
 
   /**
-   * Execute a list of Tasks that hold RepeatingCommands.
+   * Execute a list of Tasks that hold RepeatingCommands, until they are all
+   * finished or <code>timeSlice</code> milliseconds have elapsed on
+   * <code>duration</code>.
    *
    * @return A replacement array that is possibly a shorter copy of <code>tasks</code>
    */
-  private JsArray<Task> runRepeatingTasks(JsArray<Task> tasks) {
+  JsArray<Task> runRepeatingTasks(JsArray<Task> tasks, Duration duration, double timeSlice) {
     assert tasks != null : "tasks";
 
     int length = tasks.length();
@@ -387,8 +389,7 @@ public class SchedulerImpl extends Scheduler {
 
     boolean canceledSomeTasks = false;
 
-    Duration duration = createDuration();
-    while (duration.elapsedMillis() < TIME_SLICE) {
+    while (duration.elapsedMillis() < timeSlice) {
       boolean executedSomeTask = false;
       for (int i = 0; i < length; i++) {
         assert tasks.length() == length : "Working array length changed " + tasks.length() + " != "
@@ -426,4 +427,11 @@ public class SchedulerImpl extends Scheduler {
       return tasks;
     }
   }
+
+  /**
+   * Starts the timer which runs the {@link Flusher} until it returns false.
+   */
+  void scheduleFlusher(RepeatingCommand flusher) {
+    scheduleFixedDelayImpl(flusher, FLUSHER_DELAY);
+  }
 }
@@ -22,7 +22,6 @@ import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.PropertyOracle;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
-import com.google.gwt.core.ext.impl.ResourceLocatorImpl;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.NotFoundException;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
@@ -33,12 +32,8 @@ import com.google.gwt.i18n.shared.GwtLocale;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 
-import org.apache.tapestry.util.text.LocalizedProperties;
-
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -322,7 +317,7 @@ public class CurrencyListGenerator extends Generator {
      */
     Map<String, CurrencyInfo> allCurrencyData = new HashMap<String, CurrencyInfo>();
 
-    LocalizedProperties currencyExtra = null;
+    Map<String, String> currencyExtra = null;
     /*
      * The searchList is guaranteed to be ordered such that subclasses always
      * precede superclasses. Therefore, we iterate backwards to ensure that
@@ -331,7 +326,7 @@ public class CurrencyListGenerator extends Generator {
     String lastDefaultCurrencyCode = null;
     for (int i = searchList.size(); i-- > 0;) {
       GwtLocale search = searchList.get(i);
-      LocalizedProperties newExtra =
+      Map<String, String> newExtra =
           getProperties(logger, CURRENCY_EXTRA_PREFIX, search, context.getResourcesOracle());
       if (newExtra != null) {
         currencyExtra = newExtra;
@@ -346,7 +341,7 @@ public class CurrencyListGenerator extends Generator {
       // Go ahead and populate the data map.
       for (String currencyCode : currencies) {
         String extraData = currencyExtra == null ? null
-            : currencyExtra.getProperty(currencyCode);
+            : currencyExtra.get(currencyCode);
         allCurrencyData.put(currencyCode, new CurrencyInfo(currencyCode,
             currencyData.get(currencyCode), extraData));
       }
@@ -562,15 +557,14 @@ public class CurrencyListGenerator extends Generator {
    * digits is omitted, 2 is used If a currency is not generally used,
    * not-used-flag=1 Trailing empty fields can be omitted
    */
-  @SuppressWarnings("unchecked")
   private Map<String, String> getCurrencyData(TreeLogger logger, GwtLocale locale,
       ResourceOracle resourceOracle) {
-    LocalizedProperties currencyData =
+    Map<String, String> currencyData =
         getProperties(logger, CURRENCY_DATA_PREFIX, locale, resourceOracle);
     if (currencyData == null) {
       return Collections.emptyMap();
     }
-    return currencyData.getPropertyMap();
+    return currencyData;
   }
 
   /**
@@ -579,10 +573,10 @@ public class CurrencyListGenerator extends Generator {
   private String getDefaultCurrency(TreeLogger logger, GwtLocale locale,
       ResourceOracle resourceOracle) {
     String defCurrencyCode = null;
-    LocalizedProperties numberConstants =
+    Map<String, String> numberConstants =
         getProperties(logger, NUMBER_CONSTANTS_PREFIX, locale, resourceOracle);
     if (numberConstants != null) {
-      defCurrencyCode = numberConstants.getProperty("defCurrencyCode");
+      defCurrencyCode = numberConstants.get("defCurrencyCode");
     }
     if (defCurrencyCode == null && locale.isDefault()) {
       defCurrencyCode = "USD";
@@ -598,38 +592,15 @@ public class CurrencyListGenerator extends Generator {
    * @param locale locale to load
    * @param resourceOracle with which to locate resources
    *
-   * @return LocalizedProperties instance containing properties file or null if
-   *         not found.
+   * @return unmodifiable map containing properties file or null if not found.
    */
-  private LocalizedProperties getProperties(TreeLogger logger, String prefix,
+  private Map<String, String> getProperties(TreeLogger logger, String prefix,
       GwtLocale locale, ResourceOracle resourceOracle) {
-    String propFile = prefix;
-    if (!locale.isDefault()) {
-      propFile += "_" + locale.getAsString();
-    }
-    propFile += ".properties";
-    InputStream str = null;
-    LocalizedProperties props = new LocalizedProperties();
     try {
-      str = ResourceLocatorImpl.tryFindResourceAsStream(logger, resourceOracle, propFile);
-      if (str != null) {
-        props.load(str, "UTF-8");
-        return props;
-      }
-    } catch (UnsupportedEncodingException e) {
-      // UTF-8 should always be defined
-      return null;
+      return LocaleDataIndex.getLocaleProperties(logger, resourceOracle, prefix, locale);
     } catch (IOException e) {
       return null;
-    } finally {
-      if (str != null) {
-        try {
-          str.close();
-        } catch (IOException e) {
-        }
-      }
     }
-    return null;
   }
 
   /**
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.i18n.rebind;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.impl.ResourceLocatorImpl;
+import com.google.gwt.dev.resource.Resource;
+import com.google.gwt.dev.resource.ResourceOracle;
+import com.google.gwt.i18n.shared.GwtLocale;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
+
+import org.apache.tapestry.util.text.LocalizedPropertiesLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the properties files holding locale data, such as the CLDR data
+ * read by {@link LocaleInfoGenerator} and {@link CurrencyListGenerator} or the
+ * localized properties of Messages and Constants interfaces.
+ * <p>
+ * Each file is parsed once for as long as it is unchanged, and the parsed
+ * contents are shared by every generator, permutation and thread of the JVM.
+ * The returned maps are unmodifiable.
+ */
+public class LocaleDataIndex {
+
+  /**
+   * Parsed properties by the location and modification time of their file, or
+   * of the jar holding it.
+   */
+  private static final Cache<String, Map<String, String>> parsedProperties =
+      CacheBuilder.newBuilder().softValues().build();
+
+  /**
+   * Returns the properties of the first locale in the search list of
+   * {@code locale} which has a {@code prefix_locale.properties} file, or null
+   * if there is no such file.
+   *
+   * @param logger logger to use
+   * @param resourceOracle oracle with which to locate files
+   * @param prefix classpath prefix of the properties files
+   * @param locale locale whose inheritance chain is searched
+   * @throws IOException if the first file found could not be read
+   */
+  public static Map<String, String> findInherited(TreeLogger logger,
+      ResourceOracle resourceOracle, String prefix, GwtLocale locale)
+      throws IOException {
+    for (GwtLocale search : locale.getCompleteSearchList()) {
+      Map<String, String> properties = getLocaleProperties(logger,
+          resourceOracle, prefix, search);
+      if (properties != null) {
+        return properties;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the properties of {@code prefix_locale.properties}, or of
+   * {@code prefix.properties} for the default locale, or null if the file does
+   * not exist. Locale inheritance is the responsibility of the caller.
+   *
+   * @throws IOException if the file could not be read
+   */
+  public static Map<String, String> getLocaleProperties(TreeLogger logger,
+      ResourceOracle resourceOracle, String prefix, GwtLocale locale)
+      throws IOException {
+    String path = prefix;
+    if (!locale.isDefault()) {
+      path += ResourceFactory.LOCALE_SEPARATOR + locale.getAsString();
+    }
+    return getProperties(logger, resourceOracle, path + ".properties");
+  }
+
+  /**
+   * Returns the properties of a file, or null if it does not exist.
+   *
+   * @throws IOException if the file could not be read
+   */
+  public static Map<String, String> getProperties(TreeLogger logger,
+      ResourceOracle resourceOracle, String path) throws IOException {
+    Resource resource = resourceOracle.getResource(path);
+    if (resource != null) {
+      return getProperties(resource);
+    }
+    URL url = ResourceLocatorImpl.tryFindResourceUrl(logger, resourceOracle,
+        path);
+    if (url == null) {
+      return null;
+    }
+    // Bypass the JarFile cache, which would not see a rebuilt jar.
+    URLConnection connection = url.openConnection();
+    connection.setUseCaches(false);
+    long lastModified = getLastModified(url);
+    if (lastModified == 0) {
+      // Without a modification time, a change could not be noticed.
+      return load(connection.getInputStream());
+    }
+    String key = url.toExternalForm() + "@" + lastModified;
+    Map<String, String> properties = parsedProperties.getIfPresent(key);
+    if (properties == null) {
+      properties = load(connection.getInputStream());
+      parsedProperties.put(key, properties);
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the properties of a resource.
+   *
+   * @throws IOException if the resource could not be read
+   */
+  public static Map<String, String> getProperties(Resource resource)
+      throws IOException {
+    String key = resource.getLocation() + "@" + resource.getLastModified();
+    Map<String, String> properties = parsedProperties.getIfPresent(key);
+    if (properties == null) {
+      properties = load(resource.openContents());
+      parsedProperties.put(key, properties);
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the modification time of the file or jar holding a resource, or 0
+   * if it is not known.
+   */
+  private static long getLastModified(URL url) {
+    try {
+      if ("jar".equals(url.getProtocol())) {
+        url = ((JarURLConnection) url.openConnection()).getJarFileURL();
+      }
+      if ("file".equals(url.getProtocol())) {
+        return new File(url.toURI()).lastModified();
+      }
+    } catch (IOException e) {
+    } catch (URISyntaxException e) {
+    } catch (IllegalArgumentException e) {
+    }
+    return 0;
+  }
+
+  private static Map<String, String> load(InputStream stream)
+      throws IOException {
+    try {
+      Map<String, String> properties = new HashMap<String, String>();
+      new LocalizedPropertiesLoader(stream, "UTF-8").load(properties);
+      return Collections.unmodifiableMap(properties);
+    } finally {
+      try {
+        stream.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  private LocaleDataIndex() {
+  }
+}
@@ -24,23 +24,20 @@ import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.PropertyOracle;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
-import com.google.gwt.core.ext.impl.ResourceLocatorImpl;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.NotFoundException;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.dev.resource.ResourceOracle;
 import com.google.gwt.i18n.client.impl.LocaleInfoImpl;
 import com.google.gwt.i18n.server.GwtLocaleImpl;
 import com.google.gwt.i18n.shared.GwtLocale;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 
-import org.apache.tapestry.util.text.LocalizedProperties;
-
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -123,29 +120,16 @@ public class LocaleInfoGenerator extends Generator {
     Arrays.sort(allLocales);
     PrintWriter pw = context.tryCreate(logger, packageName, superClassName);
     if (pw != null) {
-      LocalizedProperties displayNames = new LocalizedProperties();
-      LocalizedProperties displayNamesManual = new LocalizedProperties();
-      LocalizedProperties displayNamesOverride = new LocalizedProperties();
+      Map<String, String> displayNames;
+      Map<String, String> displayNamesManual;
+      Map<String, String> displayNamesOverride;
       try {
-        InputStream str = ResourceLocatorImpl.tryFindResourceAsStream(logger,
-            context.getResourcesOracle(), GENERATED_LOCALE_NATIVE_DISPLAY_NAMES);
-        if (str != null) {
-          displayNames.load(str, "UTF-8");
-        }
-        str = ResourceLocatorImpl.tryFindResourceAsStream(logger, context.getResourcesOracle(),
+        displayNames = getDisplayNames(logger, context.getResourcesOracle(),
+            GENERATED_LOCALE_NATIVE_DISPLAY_NAMES);
+        displayNamesManual = getDisplayNames(logger, context.getResourcesOracle(),
             MANUAL_LOCALE_NATIVE_DISPLAY_NAMES);
-        if (str != null) {
-          displayNamesManual.load(str, "UTF-8");
-        }
-        str = ResourceLocatorImpl.tryFindResourceAsStream(logger, context.getResourcesOracle(),
+        displayNamesOverride = getDisplayNames(logger, context.getResourcesOracle(),
             OVERRIDE_LOCALE_NATIVE_DISPLAY_NAMES);
-        if (str != null) {
-          displayNamesOverride.load(str, "UTF-8");
-        }
-      } catch (UnsupportedEncodingException e) {
-        // UTF-8 should always be defined
-        logger.log(TreeLogger.ERROR, "UTF-8 encoding is not defined", e);
-        throw new UnableToCompleteException();
       } catch (IOException e) {
         logger.log(TreeLogger.ERROR, "Exception reading locale display names",
             e);
@@ -195,12 +179,12 @@ public class LocaleInfoGenerator extends Generator {
       {
         for (GwtLocaleImpl possibleLocale : allLocales) {
           String localeName = possibleLocale.toString();
-          String displayName = displayNamesOverride.getProperty(localeName);
+          String displayName = displayNamesOverride.get(localeName);
           if (displayName == null) {
-            displayName = displayNamesManual.getProperty(localeName);
+            displayName = displayNamesManual.get(localeName);
           }
           if (displayName == null) {
-            displayName = displayNames.getProperty(localeName);
+            displayName = displayNames.get(localeName);
           }
           if (displayName != null && displayName.length() != 0) {
             writer.println("      nativeDisplayNamesJava.put("
@@ -226,12 +210,12 @@ public class LocaleInfoGenerator extends Generator {
         boolean needComma = false;
         for (GwtLocaleImpl possibleLocale : allLocales) {
           String localeName = possibleLocale.toString();
-          String displayName = displayNamesOverride.getProperty(localeName);
+          String displayName = displayNamesOverride.get(localeName);
           if (displayName == null) {
-            displayName = displayNamesManual.getProperty(localeName);
+            displayName = displayNamesManual.get(localeName);
           }
           if (displayName == null) {
-            displayName = displayNames.getProperty(localeName);
+            displayName = displayNames.get(localeName);
           }
           if (displayName != null && displayName.length() != 0) {
             if (needComma) {
@@ -318,6 +302,18 @@ public class LocaleInfoGenerator extends Generator {
     return packageName + "." + className;
   }
 
+  /**
+   * Returns the display names of a properties file, or an empty map if it does
+   * not exist.
+   */
+  private Map<String, String> getDisplayNames(TreeLogger logger,
+      ResourceOracle resourceOracle, String path) throws IOException {
+    Map<String, String> displayNames = LocaleDataIndex.getProperties(logger,
+        resourceOracle, path);
+    return displayNames == null ? Collections.<String, String> emptyMap()
+        : displayNames;
+  }
+
   /**
    * @param logger
    * @param context
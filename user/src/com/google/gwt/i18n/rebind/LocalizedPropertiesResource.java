@@ -15,6 +15,7 @@
  */
 package com.google.gwt.i18n.rebind;
 
+import com.google.gwt.dev.resource.Resource;
 import com.google.gwt.dev.util.Util;
 import com.google.gwt.i18n.shared.GwtLocale;
 
@@ -24,7 +25,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 /**
@@ -44,6 +44,12 @@ class LocalizedPropertiesResource extends AbstractResource {
           locale);
       return bundle;
     }
+
+    @Override
+    AbstractResource load(Resource resource, GwtLocale locale) throws IOException {
+      // Share the parsed file between generators and permutations
+      return new LocalizedPropertiesResource(LocaleDataIndex.getProperties(resource), locale);
+    }
   }
 
   private Map<String, MultipleFormEntry> entries;
@@ -57,9 +63,17 @@ class LocalizedPropertiesResource extends AbstractResource {
     } catch (IOException e) {
       throw new RuntimeException("Failed to load " + this.getPath(), e);
     }
+    addEntries(props.getPropertyMap());
+  }
+
+  LocalizedPropertiesResource(Map<String, String> properties, GwtLocale locale) {
+    super(locale);
+    addEntries(properties);
+  }
+
+  private void addEntries(Map<String, String> properties) {
     entries = new HashMap<String, MultipleFormEntry>();
-    for (Object propEntryObj : props.getPropertyMap().entrySet()) {
-      Map.Entry<String, String> propEntry = (Entry<String, String>) propEntryObj;
+    for (Map.Entry<String, String> propEntry : properties.entrySet()) {
       String key = propEntry.getKey().trim();
       String value = propEntry.getValue();
       int startBracket = key.indexOf('[');
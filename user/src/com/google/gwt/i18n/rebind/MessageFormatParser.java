@@ -16,6 +16,8 @@
 package com.google.gwt.i18n.rebind;
 
 import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -326,6 +328,12 @@ public class MessageFormatParser {
     void visit(StringChunk stringChunk) throws UnableToCompleteException;
   }
 
+  /**
+   * Parsed templates, of which callers only get copies.
+   */
+  private static final Cache<String, List<TemplateChunk>> parsedTemplates =
+      CacheBuilder.newBuilder().softValues().build();
+
   /**
    * Generate a MessageFormat-style string representing the supplied components,
    * properly quoting any special characters in string literal portions.
@@ -345,8 +353,31 @@ public class MessageFormatParser {
     return buf.toString();
   }
 
+  /**
+   * Parses a MessageFormat-style template. Since the same templates are parsed
+   * for each locale and permutation, each template is parsed once and later
+   * callers get a copy of the chunks.
+   *
+   * @param template template to parse
+   * @return list of the chunks of the template
+   * @throws ParseException if the template is invalid
+   */
   public static List<TemplateChunk> parse(String template)
       throws ParseException {
+    List<TemplateChunk> parsed = parsedTemplates.getIfPresent(template);
+    if (parsed == null) {
+      parsed = parseTemplate(template);
+      parsedTemplates.put(template, parsed);
+    }
+    List<TemplateChunk> chunks = new ArrayList<TemplateChunk>(parsed.size());
+    for (TemplateChunk chunk : parsed) {
+      chunks.add(copyOf(chunk));
+    }
+    return chunks;
+  }
+
+  private static List<TemplateChunk> parseTemplate(String template)
+      throws ParseException {
     int curPos = 0;
     boolean inQuote = false;
     int templateLen = template.length();
@@ -494,6 +525,28 @@ public class MessageFormatParser {
    * @param formatArgs map to add tag/value pairs to
    * @return format portion of supplied string
    */
+  private static Map<String, String> copyOf(Map<String, String> args) {
+    return args == null ? null : new HashMap<String, String>(args);
+  }
+
+  /**
+   * Returns a copy of a chunk returned by {@link #parseTemplate}, so that
+   * callers cannot modify the parsed template.
+   */
+  private static TemplateChunk copyOf(TemplateChunk chunk) {
+    if (chunk instanceof StringChunk) {
+      return new StringChunk(chunk.getString());
+    }
+    if (chunk instanceof ArgumentChunk) {
+      ArgumentChunk argChunk = (ArgumentChunk) chunk;
+      return new ArgumentChunk(argChunk.getArgumentNumber(),
+          copyOf(argChunk.getListArgs()), argChunk.getFormat(),
+          copyOf(argChunk.getFormatArgs()), argChunk.getSubFormat());
+    }
+    // StaticArgChunks cannot be modified.
+    return chunk;
+  }
+
   private static String parseFormatArgs(
       String format, Map<String, String> formatArgs) {
     int colon = format.indexOf(':');
@@ -18,7 +18,6 @@ package com.google.gwt.i18n.rebind;
 import com.google.gwt.codegen.server.StringGenerator;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
-import com.google.gwt.core.ext.impl.ResourceLocatorImpl;
 import com.google.gwt.core.ext.typeinfo.JArrayType;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.JEnumConstant;
@@ -60,10 +59,7 @@ import com.google.gwt.user.rebind.AbstractGeneratorClassCreator;
 import com.google.gwt.user.rebind.AbstractMethodCreator;
 import com.google.gwt.user.rebind.SourceWriter;
 
-import org.apache.tapestry.util.text.LocalizedPropertiesLoader;
-
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1550,26 +1546,18 @@ class MessagesMethodCreator extends AbstractMethodCreator {
   private Map<String, String> getListPatternParts(TreeLogger logger, GwtLocale locale) {
     Map<String, String> map = listPatternCache.get(locale);
     if (map == null) {
-      String baseName = MessagesMethodCreator.class.getPackage().getName().replace('.', '/')
-          + "/cldr/ListPatterns_";
+      String prefix = MessagesMethodCreator.class.getPackage().getName().replace('.', '/')
+          + "/cldr/ListPatterns";
       for (GwtLocale search : locale.getCompleteSearchList()) {
-        String propFile = baseName + search.getAsString() + ".properties";
-        InputStream stream =
-            ResourceLocatorImpl.tryFindResourceAsStream(logger, resourceOracle, propFile);
-        if (stream != null) {
-          try {
-            LocalizedPropertiesLoader loader = new LocalizedPropertiesLoader(stream, "UTF-8");
-            map = new HashMap<String, String>();
-            loader.load(map);
+        // The default locale is in ListPatterns_.properties
+        String path = prefix + "_" + search.getAsString() + ".properties";
+        try {
+          map = LocaleDataIndex.getProperties(logger, resourceOracle, path);
+          if (map != null) {
             break;
-          } catch (IOException e) {
-            logger.log(TreeLogger.WARN, "Ignoring error reading file " + propFile, e);
-          } finally {
-            try {
-              stream.close();
-            } catch (IOException e) {
-            }
           }
+        } catch (IOException e) {
+          logger.log(TreeLogger.WARN, "Ignoring error reading file " + path, e);
         }
       }
       listPatternCache.put(locale, map);
@@ -146,14 +146,13 @@ public abstract class ResourceFactory {
         resource = resourceOracle.getResource(path);
       }
       if (resource != null) {
-        InputStream resourceStream = null;
+        AbstractResource found;
         try {
-          resourceStream = resource.openContents();
+          found = element.load(resource, locale);
         } catch (IOException ex) {
           logger.log(TreeLogger.ERROR, "Error opening resource: " + resource.getLocation());
           throw new RuntimeException(ex);
         }
-        AbstractResource found = element.load(resourceStream, locale);
         found.setPath(path);
         resources.add(found);
       }
@@ -229,4 +228,12 @@ public abstract class ResourceFactory {
   abstract String getExt();
 
   abstract AbstractResource load(InputStream m, GwtLocale locale);
+
+  /**
+   * Loads a resource file, by default reading its contents with
+   * {@link #load(InputStream, GwtLocale)}.
+   */
+  AbstractResource load(Resource resource, GwtLocale locale) throws IOException {
+    return load(resource.openContents(), locale);
+  }
 }
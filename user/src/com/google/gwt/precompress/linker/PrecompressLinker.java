@@ -27,11 +27,11 @@ import com.google.gwt.core.ext.linker.LinkerOrder;
 import com.google.gwt.core.ext.linker.LinkerOrder.Order;
 import com.google.gwt.core.ext.linker.Shardable;
 import com.google.gwt.dev.util.collect.HashSet;
+import com.google.gwt.thirdparty.guava.common.io.CountingOutputStream;
 import com.google.gwt.util.regexfilter.RegexFilter;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 import java.util.zip.Deflater;
@@ -127,9 +127,6 @@ public class PrecompressLinker extends AbstractLinker {
     }
 
     try {
-      // Buffer for streaming data to be compressed
-      byte[] buf = new byte[BUF_SIZE];
-
       ArtifactSet updated = new ArtifactSet(artifacts);
       for (EmittedArtifact art : artifacts.find(EmittedArtifact.class)) {
         if (art.getVisibility() != Visibility.Public) {
@@ -152,24 +149,23 @@ public class PrecompressLinker extends AbstractLinker {
         TreeLogger compressBranch = logger.branch(TreeLogger.TRACE,
             "Compressing " + art.getPartialPath());
 
-        InputStream originalBytes = art.getContents(compressBranch);
         ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
-        GZIPOutputStream gzip = new GZIPOutputStream(compressedBytes) {
+        GZIPOutputStream gzip = new GZIPOutputStream(compressedBytes, BUF_SIZE) {
             {
               def.setLevel(Deflater.BEST_COMPRESSION);
             }
         };
 
-        int originalLength = 0;
-        int n;
-        while ((n = originalBytes.read(buf)) > 0) {
-          originalLength += n;
-          gzip.write(buf, 0, n);
-        }
+        /*
+         * Stream the artifact straight into the compressor rather than
+         * materializing its whole contents through getContents() first.
+         */
+        CountingOutputStream counter = new CountingOutputStream(gzip);
+        art.writeTo(compressBranch, counter);
         gzip.close();
 
         byte[] compressed = compressedBytes.toByteArray();
-        if (compressed.length < originalLength) {
+        if (compressed.length < counter.getCount()) {
           updated.add(emitBytes(compressBranch, compressed,
               art.getPartialPath() + ".gz"));
           if (!leaveOriginals) {
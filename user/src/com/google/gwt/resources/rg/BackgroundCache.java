@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.resources.rg;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
+import com.google.gwt.thirdparty.guava.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of computations shared by the resource generators of a JVM, such as
+ * decoded images or parsed stylesheets, which can be started in the background
+ * before they are needed. Values are softly held so that later compilations can
+ * reuse them without pinning them in memory.
+ * <p>
+ * Computations run on a single pool shared by all caches, with one thread per
+ * processor. When its queue is full, further computations run on the thread
+ * starting them.
+ * </p>
+ *
+ * @param <V> the type of the results
+ */
+class BackgroundCache<V> {
+
+  private static final int MAX_QUEUED_TASKS = 1024;
+
+  private static final ThreadPoolExecutor executor = createExecutor();
+
+  /**
+   * Runs a task on the pool shared by all caches.
+   */
+  static <T> Future<T> submit(Callable<T> task) {
+    return executor.submit(task);
+  }
+
+  private static ThreadPoolExecutor createExecutor() {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(MAX_QUEUED_TASKS), new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat("BackgroundCache %d").build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private final Cache<String, Future<V>> futures = CacheBuilder.newBuilder().softValues().build();
+
+  /**
+   * Returns the result for the given key, waiting for a computation started by
+   * {@link #prefetch} or running the computation on the calling thread if none
+   * was started. Returns <code>null</code> if the computation failed or
+   * returned <code>null</code>; such results are not kept, so that the caller
+   * can compute them again and report the problems to its own logger.
+   */
+  V get(TreeLogger logger, String key, Callable<V> computation)
+      throws UnableToCompleteException {
+    try {
+      V value = start(key, computation, true).get();
+      if (value == null) {
+        futures.invalidate(key);
+      }
+      return value;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.log(TreeLogger.ERROR, "Interrupted while waiting for " + key, e);
+      throw new UnableToCompleteException();
+    } catch (ExecutionException e) {
+      futures.invalidate(key);
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if a computation for the given key was started and not
+   * forgotten.
+   */
+  boolean isCached(String key) {
+    return futures.getIfPresent(key) != null;
+  }
+
+  /**
+   * Starts the computation for the given key in the background, unless it was
+   * already started.
+   */
+  void prefetch(String key, Callable<V> computation) {
+    start(key, computation, false);
+  }
+
+  private Future<V> start(String key, Callable<V> computation, boolean inline) {
+    Future<V> future = futures.getIfPresent(key);
+    if (future != null) {
+      return future;
+    }
+    FutureTask<V> task = new FutureTask<V>(computation);
+    future = futures.asMap().putIfAbsent(key, task);
+    if (future != null) {
+      return future;
+    }
+    if (inline) {
+      task.run();
+    } else {
+      executor.execute(task);
+    }
+    return task;
+  }
+}
@@ -134,6 +134,7 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -145,6 +146,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.Adler32;
@@ -364,6 +366,55 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
     }
   }
 
+  /**
+   * The result of parsing and finalizing stylesheets, before any pass that depends on the
+   * permutation or on the CssResource interface. Instances are shared between generators and never
+   * modified: users work on a copy of the tree.
+   */
+  static class ParsedStylesheet {
+    final CssTree tree;
+    final List<String> permutationAxes;
+    final Set<String> trueConditions;
+    final List<GssError> warnings;
+
+    private ParsedStylesheet(CssTree tree, List<String> permutationAxes,
+        Set<String> trueConditions, List<GssError> warnings) {
+      this.tree = tree;
+      this.permutationAxes = permutationAxes;
+      this.trueConditions = trueConditions;
+      this.warnings = warnings;
+    }
+  }
+
+  /**
+   * {@link ErrorManager} used while parsing stylesheets that may be shared, recording the warnings
+   * so that they can be reported to every generator that uses the stylesheets.
+   */
+  private static class RecordingErrorManager implements ErrorManager {
+    private final List<GssError> warnings = new ArrayList<>();
+    private boolean hasErrors;
+
+    @Override
+    public void generateReport() {
+      // do nothing
+    }
+
+    @Override
+    public boolean hasErrors() {
+      return hasErrors;
+    }
+
+    @Override
+    public void report(GssError error) {
+      hasErrors = true;
+    }
+
+    @Override
+    public void reportWarning(GssError warning) {
+      warnings.add(warning);
+    }
+  }
+
   private static class CssParsingResult {
     final CssTree tree;
     final List<String> permutationAxes;
@@ -420,6 +471,21 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
   // as short as possible. For instance if we have two GssResources to compile, the  prefix
   // for the first resource will be 'a' and the prefix for the second resource will be 'b' and so on
   private static final SubstitutionMap resourcePrefixBuilder = new MinimalSubstitutionMap();
+
+  /**
+   * Whether the stylesheets of a ClientBundle are parsed concurrently before its methods are
+   * prepared.
+   */
+  private static final boolean PARALLEL_PARSING =
+      Boolean.parseBoolean(System.getProperty("gwt.gss.parallelParsing", "true"));
+
+  /**
+   * Parsed stylesheets by a hash of their sources and of the allowed at-rules. Values are softly
+   * held so that later compilations in the same JVM can reuse them.
+   */
+  private static final BackgroundCache<ParsedStylesheet> parsedStylesheets =
+      new BackgroundCache<ParsedStylesheet>();
+
   private static final String KEY_CONVERSION_MODE = "CssResource.conversionMode";
   private static final String KEY_STYLE = "CssResource.style";
   private static final String ALLOWED_AT_RULE = "CssResource.allowedAtRules";
@@ -472,6 +538,93 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
     return b.toString();
   }
 
+  /**
+   * Computes the key of stylesheets in {@link #parsedStylesheets}.
+   */
+  static String computeParsingKey(List<SourceCode> sourceCodes,
+      Set<String> allowedAtRules) {
+    StringBuilder key = new StringBuilder();
+    for (String atRule : new TreeSet<>(allowedAtRules)) {
+      key.append(atRule).append('\n');
+    }
+    for (SourceCode sourceCode : sourceCodes) {
+      key.append('\u0000').append(sourceCode.getFileName());
+      key.append('\u0000').append(sourceCode.getFileContents());
+    }
+    return Util.computeStrongName(Util.getBytes(key.toString()));
+  }
+
+  /**
+   * Parses and finalizes stylesheets, returning <code>null</code> if errors were reported to the
+   * error manager.
+   */
+  private static ParsedStylesheet parseStylesheet(List<SourceCode> sourceCodes,
+      ErrorManager errorManager, Set<String> allowedAtRules) throws GssParserException {
+    CssTree tree = new GssParser(sourceCodes).parse();
+
+    // create more explicit nodes
+    finalizeTree(tree, errorManager, allowedAtRules);
+
+    if (errorManager.hasErrors()) {
+      return null;
+    }
+
+    // collect boolean conditions that have to be mapped to configuration properties
+    BooleanConditionCollector booleanConditionCollector = new BooleanConditionCollector(tree
+        .getMutatingVisitController());
+    booleanConditionCollector.runPass();
+
+    // collect permutations axis used in conditionals.
+    PermutationsCollector permutationsCollector = new PermutationsCollector(tree
+        .getMutatingVisitController());
+    permutationsCollector.runPass();
+
+    List<GssError> warnings = errorManager instanceof RecordingErrorManager
+        ? ((RecordingErrorManager) errorManager).warnings : Collections.<GssError> emptyList();
+    return new ParsedStylesheet(tree, permutationsCollector.getPermutationAxes(),
+        booleanConditionCollector.getBooleanConditions(), warnings);
+  }
+
+  /**
+   * Returns the shared parsing of stylesheets, waiting for it if it was prefetched, or
+   * <code>null</code> if they have errors. The returned tree must not be modified.
+   */
+  static ParsedStylesheet getParsedStylesheet(TreeLogger logger, List<SourceCode> sourceCodes,
+      Set<String> allowedAtRules) throws UnableToCompleteException {
+    return parsedStylesheets.get(logger, computeParsingKey(sourceCodes, allowedAtRules),
+        parsing(sourceCodes, allowedAtRules));
+  }
+
+  /**
+   * Returns true if the parsing of stylesheets was started and is still held.
+   */
+  static boolean isParsingCached(List<SourceCode> sourceCodes, Set<String> allowedAtRules) {
+    return parsedStylesheets.isCached(computeParsingKey(sourceCodes, allowedAtRules));
+  }
+
+  /**
+   * Starts parsing stylesheets in the background, unless another generator has.
+   */
+  static void prefetchParsedStylesheet(List<SourceCode> sourceCodes,
+      Set<String> allowedAtRules) {
+    parsedStylesheets.prefetch(computeParsingKey(sourceCodes, allowedAtRules),
+        parsing(sourceCodes, allowedAtRules));
+  }
+
+  /**
+   * Returns a computation parsing stylesheets, which records warnings and returns
+   * <code>null</code> on errors.
+   */
+  private static Callable<ParsedStylesheet> parsing(final List<SourceCode> sourceCodes,
+      final Set<String> allowedAtRules) {
+    return new Callable<ParsedStylesheet>() {
+      @Override
+      public ParsedStylesheet call() throws GssParserException {
+        return parseStylesheet(sourceCodes, new RecordingErrorManager(), allowedAtRules);
+      }
+    };
+  }
+
   private static boolean checkPropertyIsSingleValueAndBoolean(ConfigurationProperty property,
       TreeLogger logger) {
     List<String> values = property.getValues();
@@ -692,6 +845,44 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
     }
 
     initReplacement(context);
+
+    if (PARALLEL_PARSING) {
+      prefetchStylesheets(context);
+    }
+  }
+
+  /**
+   * Starts parsing the GSS stylesheets of every CssResource of the ClientBundle in the background,
+   * before {@link #prepare} parses them one method at a time. Problems are ignored here and
+   * reported by {@link #prepare}.
+   */
+  private void prefetchStylesheets(ResourceContext context) {
+    JClassType cssResourceType = context.getGeneratorContext().getTypeOracle()
+        .findType(CssResource.class.getCanonicalName());
+    for (JMethod method : context.getClientBundleType().getOverridableMethods()) {
+      JClassType returnType = method.getReturnType().isInterface();
+      if (returnType == null || !returnType.isAssignableTo(cssResourceType)) {
+        continue;
+      }
+      try {
+        URL[] resourceUrls = findResources(TreeLogger.NULL, context, method,
+            gssOptions.isEnabled());
+        List<SourceCode> sourceCodes = new ArrayList<>(resourceUrls.length);
+        for (URL stylesheet : resourceUrls) {
+          if (!stylesheet.toString().endsWith(".gss")) {
+            // Converted stylesheets depend on the configuration properties.
+            sourceCodes = null;
+            break;
+          }
+          sourceCodes.add(readUrlContent(stylesheet, TreeLogger.NULL));
+        }
+        if (sourceCodes != null && !sourceCodes.isEmpty()) {
+          prefetchParsedStylesheet(sourceCodes, allowedAtRules);
+        }
+      } catch (UnableToCompleteException e) {
+        // Reported when the method is prepared
+      }
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -884,11 +1075,14 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
     return notStrict == null;
   }
 
-  private void finalizeTree(CssTree cssTree) throws UnableToCompleteException {
+  private static void finalizeTree(CssTree cssTree, ErrorManager errorManager,
+      Set<String> allowedAtRules) {
     new CheckDependencyNodes(cssTree.getMutatingVisitController(), errorManager, false).runPass();
 
     // Don't continue if errors exist
-    checkErrors();
+    if (errorManager.hasErrors()) {
+      return;
+    }
 
     new CreateStandardAtRuleNodes(cssTree.getMutatingVisitController(), errorManager).runPass();
     new CreateMixins(cssTree.getMutatingVisitController(), errorManager).runPass();
@@ -1089,32 +1283,25 @@ public class GssResourceGenerator extends AbstractCssResourceGenerator implement
       }
     }
 
-    CssTree tree;
-
-    try {
-      tree = new GssParser(sourceCodes).parse();
-    } catch (GssParserException e) {
-      logger.log(TreeLogger.ERROR, "Unable to parse CSS", e);
-      throw new UnableToCompleteException();
+    ParsedStylesheet parsed = getParsedStylesheet(logger, sourceCodes, allowedAtRules);
+    if (parsed != null) {
+      for (GssError warning : parsed.warnings) {
+        errorManager.reportWarning(warning);
+      }
+    } else {
+      // Parse again to report the problems to the right logger.
+      try {
+        parsed = parseStylesheet(sourceCodes, errorManager, allowedAtRules);
+      } catch (GssParserException e2) {
+        logger.log(TreeLogger.ERROR, "Unable to parse CSS", e2);
+        throw new UnableToCompleteException();
+      }
+      checkErrors();
     }
 
-    // create more explicit nodes
-    finalizeTree(tree);
-
-    checkErrors();
-
-    // collect boolean conditions that have to be mapped to configuration properties
-    BooleanConditionCollector booleanConditionCollector = new BooleanConditionCollector(tree
-        .getMutatingVisitController());
-    booleanConditionCollector.runPass();
-
-    // collect permutations axis used in conditionals.
-    PermutationsCollector permutationsCollector = new PermutationsCollector(tree
-        .getMutatingVisitController());
-    permutationsCollector.runPass();
-
-    return new CssParsingResult(tree, permutationsCollector.getPermutationAxes(),
-        booleanConditionCollector.getBooleanConditions(), constantNameMappingBuilder.build());
+    // The passes run by createAssignment modify the tree, so they work on a copy.
+    return new CssParsingResult(new CssTree(parsed.tree), parsed.permutationAxes,
+        parsed.trueConditions, constantNameMappingBuilder.build());
   }
 
   private static String extractCharset(ByteSource byteSource) throws IOException {
@@ -17,9 +17,12 @@ package com.google.gwt.resources.rg;
 
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.dev.util.Util;
 import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 
 import org.w3c.dom.Node;
 
@@ -27,15 +30,16 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -45,6 +49,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -219,6 +224,19 @@ class ImageBundleBuilder {
     }
   }
 
+  /**
+   * The frames decoded from the bytes of an image resource.
+   */
+  private static class DecodedImage {
+    private final BufferedImage[] images;
+    private final boolean lossy;
+
+    DecodedImage(BufferedImage[] images, boolean lossy) {
+      this.images = images;
+      this.lossy = lossy;
+    }
+  }
+
   /**
    * Performs a simple horizontal arrangement of rectangles. Images will be
    * tiled vertically to fill to fill the full height of the image.
@@ -274,6 +292,7 @@ class ImageBundleBuilder {
    */
   static class ImageRect {
 
+    private String contentHash;
     private boolean hasBeenPositioned, lossy;
     private int height, width;
     private final int intrinsicHeight, intrinsicWidth;
@@ -294,6 +313,7 @@ class ImageBundleBuilder {
       this.top = other.getTop();
       this.intrinsicHeight = other.intrinsicHeight;
       this.intrinsicWidth = other.intrinsicWidth;
+      this.contentHash = other.contentHash;
       setTransform(other.getTransform());
     }
 
@@ -305,6 +325,14 @@ class ImageBundleBuilder {
       this.height = this.width = -1;
     }
 
+    /**
+     * Returns the strong name of the bytes the image was decoded from, or
+     * <code>null</code> if the image was not read from a resource.
+     */
+    public String getContentHash() {
+      return contentHash;
+    }
+
     public int getHeight() {
       return height > 0 ? height : intrinsicHeight;
     }
@@ -349,6 +377,10 @@ class ImageBundleBuilder {
       return lossy;
     }
 
+    public void setContentHash(String contentHash) {
+      this.contentHash = contentHash;
+    }
+
     public void setHeight(int height) {
       this.height = height;
       if (width <= 0) {
@@ -421,6 +453,164 @@ class ImageBundleBuilder {
     }
   }
 
+  /**
+   * Arranges the images with the MaxRects algorithm, placing each image, in
+   * order of decreasing height, at the lowest position among the maximal free
+   * rectangles of a strip of fixed width. A few strip widths are tried and the
+   * smallest result is compared with {@link BestFitArranger}, whose
+   * arrangement is kept unless this one needs less area.
+   */
+  static class MaxRectsArranger implements Arranger {
+
+    /**
+     * A rectangle of free space, or of a placed image.
+     */
+    private static class Rect {
+      private final int left, top, width, height;
+
+      Rect(int left, int top, int width, int height) {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+      }
+
+      boolean contains(Rect other) {
+        return other.left >= left && other.top >= top
+            && other.left + other.width <= left + width
+            && other.top + other.height <= top + height;
+      }
+
+      boolean intersects(Rect other) {
+        return other.left < left + width && left < other.left + other.width
+            && other.top < top + height && top < other.top + other.height;
+      }
+    }
+
+    private static final double[] STRIP_WIDTH_FACTORS = {1.0, 1.25, 1.5, 2.0};
+
+    /**
+     * Places the rects into a strip of the given width, returning the positions
+     * by index of the rects and, in the last element, the area used.
+     */
+    private static int[] pack(List<ImageRect> rects, int stripWidth, int stripHeight) {
+      int[] positions = new int[rects.size() * 2 + 1];
+      List<Rect> free = new ArrayList<Rect>();
+      free.add(new Rect(0, 0, stripWidth, stripHeight));
+      int usedWidth = 0;
+      int usedHeight = 0;
+
+      for (int i = 0, n = rects.size(); i < n; i++) {
+        ImageRect rect = rects.get(i);
+        int width = rect.getWidth();
+        int height = rect.getHeight();
+
+        // Bottom-left rule: the lowest top edge, then the leftmost.
+        Rect best = null;
+        for (Rect candidate : free) {
+          if (candidate.width >= width && candidate.height >= height
+              && (best == null || candidate.top < best.top
+                  || (candidate.top == best.top && candidate.left < best.left))) {
+            best = candidate;
+          }
+        }
+        assert best != null : "The strip is always tall enough";
+        Rect placed = new Rect(best.left, best.top, width, height);
+        positions[2 * i] = placed.left;
+        positions[2 * i + 1] = placed.top;
+        usedWidth = Math.max(usedWidth, placed.left + width);
+        usedHeight = Math.max(usedHeight, placed.top + height);
+
+        // Split every free rectangle that overlaps the placed image.
+        List<Rect> next = new ArrayList<Rect>(free.size() + 4);
+        for (Rect r : free) {
+          if (!r.intersects(placed)) {
+            next.add(r);
+            continue;
+          }
+          if (placed.left > r.left) {
+            next.add(new Rect(r.left, r.top, placed.left - r.left, r.height));
+          }
+          if (placed.left + placed.width < r.left + r.width) {
+            next.add(new Rect(placed.left + placed.width, r.top,
+                r.left + r.width - placed.left - placed.width, r.height));
+          }
+          if (placed.top > r.top) {
+            next.add(new Rect(r.left, r.top, r.width, placed.top - r.top));
+          }
+          if (placed.top + placed.height < r.top + r.height) {
+            next.add(new Rect(r.left, placed.top + placed.height, r.width,
+                r.top + r.height - placed.top - placed.height));
+          }
+        }
+
+        // Drop the free rectangles that are contained in another one.
+        free.clear();
+        for (int a = 0, m = next.size(); a < m; a++) {
+          Rect r = next.get(a);
+          boolean contained = false;
+          for (int b = 0; b < m && !contained; b++) {
+            contained = b != a && next.get(b).contains(r)
+                && (!r.contains(next.get(b)) || b < a);
+          }
+          if (!contained) {
+            free.add(r);
+          }
+        }
+      }
+      positions[positions.length - 1] = usedWidth * usedHeight;
+      return positions;
+    }
+
+    public Size arrangeImages(Collection<ImageRect> rects) {
+      Size bestFit = new BestFitArranger().arrangeImages(rects);
+      if (rects.size() < 2) {
+        return bestFit;
+      }
+
+      List<ImageRect> ordered = new ArrayList<ImageRect>(rects);
+      Collections.sort(ordered, BestFitArranger.decreasingHeightComparator);
+      long totalArea = 0;
+      int maxWidth = 0;
+      int totalWidth = 0;
+      int totalHeight = 0;
+      for (ImageRect rect : ordered) {
+        totalArea += (long) rect.getWidth() * rect.getHeight();
+        maxWidth = Math.max(maxWidth, rect.getWidth());
+        totalWidth += rect.getWidth();
+        totalHeight += rect.getHeight();
+      }
+
+      int[] best = null;
+      int lastStripWidth = -1;
+      for (double factor : STRIP_WIDTH_FACTORS) {
+        int stripWidth = (int) Math.ceil(Math.sqrt(totalArea) * factor);
+        stripWidth = Math.min(totalWidth, Math.max(maxWidth, stripWidth));
+        if (stripWidth == lastStripWidth) {
+          continue;
+        }
+        lastStripWidth = stripWidth;
+        int[] positions = pack(ordered, stripWidth, totalHeight);
+        if (best == null || positions[positions.length - 1] < best[best.length - 1]) {
+          best = positions;
+        }
+      }
+
+      if (best[best.length - 1] >= bestFit.width * bestFit.height) {
+        return bestFit;
+      }
+      int width = 0;
+      int height = 0;
+      for (int i = 0, n = ordered.size(); i < n; i++) {
+        ImageRect rect = ordered.get(i);
+        rect.setPosition(best[2 * i], best[2 * i + 1]);
+        width = Math.max(width, rect.getLeft() + rect.getWidth());
+        height = Math.max(height, rect.getTop() + rect.getHeight());
+      }
+      return new Size(width, height);
+    }
+  }
+
   /**
    * Used to return the size of the resulting image from the method
    * {@link ImageBundleBuilder#arrangeImages()}.
@@ -474,6 +664,21 @@ class ImageBundleBuilder {
   private static final int IMAGE_MAX_SIZE = Integer.getInteger(
       "gwt.imageResource.maxBundleSize", 256);
 
+  /**
+   * Decoded images by the strong name of their bytes. Values are softly held
+   * so that the images of earlier compilations in the same JVM can be reused
+   * without pinning them in memory.
+   */
+  private static final BackgroundCache<DecodedImage> decodedImages =
+      new BackgroundCache<DecodedImage>();
+
+  /**
+   * Encoded bundles by a description of their contents and layout, see
+   * {@link #renderKey}.
+   */
+  private static final Cache<String, byte[]> renderedImages =
+      CacheBuilder.newBuilder().softValues().build();
+
   public static void main(String[] args) {
     final TreeLogger logger = new PrintWriterTreeLogger(new PrintWriter(
         System.out));
@@ -512,7 +717,7 @@ class ImageBundleBuilder {
 
     final String outFile = args[0];
     try {
-      BufferedImage bundledImage = builder.drawBundledImage(new BestFitArranger());
+      BufferedImage bundledImage = builder.drawBundledImage(new MaxRectsArranger());
       byte[] bytes = createImageBytes(logger, bundledImage);
 
       FileOutputStream out = new FileOutputStream(outFile);
@@ -529,8 +734,27 @@ class ImageBundleBuilder {
     System.exit(0);
   }
 
+  /**
+   * Starts decoding the image at the given URL in the background, so that a
+   * later call to {@link #assimilate} finds it already decoded. Problems are
+   * ignored here and reported by {@link #assimilate}.
+   */
+  public static void prefetch(URL imageUrl) {
+    byte[] bytes = Util.readURLAsBytes(imageUrl);
+    if (bytes != null) {
+      decodedImages.prefetch(Util.computeStrongName(bytes),
+          decoding(imageUrl.getPath(), bytes));
+    }
+  }
+
   public static byte[] toPng(TreeLogger logger, ImageRect rect)
       throws UnableToCompleteException {
+    String key = renderKey(rect.getWidth(), rect.getHeight(), Collections.singleton(rect));
+    byte[] cached = key == null ? null : renderedImages.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+
     // Create the bundled image.
     BufferedImage bundledImage = new BufferedImage(rect.getWidth(),
         rect.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
@@ -547,6 +771,9 @@ class ImageBundleBuilder {
     g2d.dispose();
 
     byte[] imageBytes = createImageBytes(logger, bundledImage);
+    if (key != null) {
+      renderedImages.put(key, imageBytes);
+    }
     return imageBytes;
   }
 
@@ -576,6 +803,119 @@ class ImageBundleBuilder {
     return imageBytes;
   }
 
+  /**
+   * Reads the frames of an image and whether its encoding is lossy.
+   *
+   * @return the decoded image, or <code>null</code> if no reader recognized
+   *         the format
+   */
+  private static DecodedImage decode(TreeLogger logger, String imageName, byte[] bytes)
+      throws UnableToCompleteException {
+    // Be safe by default and assume that the incoming image is lossy
+    boolean lossy = true;
+    try (MemoryCacheImageInputStream imageInputStream =
+        new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes))) {
+      /*
+       * ImageIO uses an SPI pattern API. We don't care about the particulars of
+       * the implementation, so just choose the first ImageReader.
+       */
+      Iterator<ImageReader> it = ImageIO.getImageReaders(imageInputStream);
+      readers : while (it.hasNext()) {
+        ImageReader reader = it.next();
+        reader.setInput(imageInputStream);
+
+        int numImages = reader.getNumImages(true);
+        if (numImages == 0) {
+          // Fall through
+
+        } else if (numImages == 1) {
+          try {
+            BufferedImage image = reader.read(0);
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata != null
+                && metadata.isStandardMetadataFormatSupported()) {
+              // http://java.sun.com/j2se/1.5.0/docs/api/javax/imageio/metadata/doc-files/standard_metadata.html
+              Node data = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+              metadata : for (int i = 0, j = data.getChildNodes().getLength(); i < j; i++) {
+                Node child = data.getChildNodes().item(i);
+                if (child.getLocalName().equalsIgnoreCase("compression")) {
+                  for (int k = 0, l = child.getChildNodes().getLength(); k < l; k++) {
+                    Node child2 = child.getChildNodes().item(k);
+                    if (child2.getLocalName().equalsIgnoreCase("lossless")) {
+                      Node value = child2.getAttributes().getNamedItem("value");
+                      if (value == null) {
+                        // The default is true, according to the DTD
+                        lossy = false;
+                      } else {
+                        lossy = !Boolean.parseBoolean(value.getNodeValue());
+                      }
+                      break metadata;
+                    }
+                  }
+                }
+              }
+            }
+            if (image != null) {
+              return new DecodedImage(new BufferedImage[] {image}, lossy);
+            }
+          } catch (Exception e) {
+            // Hope we have another reader that can handle the image
+            continue readers;
+          }
+
+        } else {
+          // Read all contained images
+          BufferedImage[] images = new BufferedImage[numImages];
+
+          try {
+            for (int i = 0; i < numImages; i++) {
+              images[i] = reader.read(i);
+            }
+          } catch (Exception e) {
+            // Hope we have another reader that can handle the image
+            continue readers;
+          }
+
+          return new DecodedImage(images, lossy);
+        }
+      }
+    } catch (IllegalArgumentException iex) {
+      if (imageName.toLowerCase(Locale.ROOT).endsWith("png")
+          && iex.getMessage() != null
+          && iex.getStackTrace()[0].getClassName().equals(
+              "javax.imageio.ImageTypeSpecifier$Indexed")) {
+        logger.log(TreeLogger.ERROR,
+            "Unable to read image. The image may not be in valid PNG format. "
+                + "This problem may also be due to a bug in versions of the "
+                + "JRE prior to 1.6. See "
+                + "http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=5098176 "
+                + "for more information. If this bug is the cause of the "
+                + "error, try resaving the image using a different image "
+                + "program, or upgrade to a newer JRE.", null);
+        throw new UnableToCompleteException();
+      } else {
+        throw iex;
+      }
+    } catch (IOException e) {
+      logger.log(TreeLogger.ERROR, "Unable to read image resource", e);
+      throw new UnableToCompleteException();
+    }
+    return null;
+  }
+
+  /**
+   * Returns a computation decoding the given bytes, whose problems are not
+   * logged.
+   */
+  private static Callable<DecodedImage> decoding(final String imageName, final byte[] bytes) {
+    return new Callable<DecodedImage>() {
+      @Override
+      public DecodedImage call() throws UnableToCompleteException {
+        return decode(TreeLogger.NULL, imageName, bytes);
+      }
+    };
+  }
+
   /**
    * Compute the greatest common denominator of two numbers.
    */
@@ -598,6 +938,31 @@ class ImageBundleBuilder {
     return b / gcd(a, b) * a;
   }
 
+  /**
+   * Describes an encoded bundle by its size and, for every image, the strong
+   * name of its bytes and the transform it is drawn with. Returns
+   * <code>null</code> if an image was not read from a resource.
+   */
+  private static String renderKey(int width, int height, Collection<ImageRect> imageRects) {
+    List<String> parts = new ArrayList<String>(imageRects.size());
+    double[] matrix = new double[6];
+    for (ImageRect imageRect : imageRects) {
+      if (imageRect.getContentHash() == null) {
+        return null;
+      }
+      imageRect.transform().getMatrix(matrix);
+      parts.add(imageRect.getContentHash() + Arrays.toString(matrix));
+    }
+    Collections.sort(parts);
+
+    StringBuilder key = new StringBuilder();
+    key.append(width).append('x').append(height);
+    for (String part : parts) {
+      key.append(';').append(part);
+    }
+    return key.toString();
+  }
+
   private static void setBetterRenderingQuality(Graphics2D g2d) {
     g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
         RenderingHints.VALUE_INTERPOLATION_BICUBIC);
@@ -676,11 +1041,24 @@ class ImageBundleBuilder {
       return null;
     }
 
-    // Create the bundled image from all of the constituent images.
-    BufferedImage bundledImage = drawBundledImage(arranger);
+    Collection<ImageRect> imageRects = new LinkedList<ImageRect>(
+        imageNameToImageRectMap.values());
+    Size size = arranger.arrangeImages(imageRects);
 
-    byte[] imageBytes = createImageBytes(logger, bundledImage);
+    // Identical contents laid out identically encode to identical bytes.
+    String key = renderKey(size.width, size.height, imageRects);
+    byte[] imageBytes = key == null ? null : renderedImages.getIfPresent(key);
+    if (imageBytes != null) {
+      return imageBytes;
+    }
 
+    // Create the bundled image from all of the constituent images.
+    BufferedImage bundledImage = drawBundledImage(size, imageRects);
+
+    imageBytes = createImageBytes(logger, bundledImage);
+    if (key != null) {
+      renderedImages.put(key, imageBytes);
+    }
     return imageBytes;
   }
 
@@ -690,106 +1068,36 @@ class ImageBundleBuilder {
     logger = logger.branch(TreeLogger.TRACE,
         "Adding image '" + imageName + "'", null);
 
-    BufferedImage image = null;
-    // Be safe by default and assume that the incoming image is lossy
-    boolean lossy = true;
-    // Load the image
-    try (InputStream is = imageUrl.openStream();
-         MemoryCacheImageInputStream imageInputStream = new MemoryCacheImageInputStream(is)) {
-      /*
-       * ImageIO uses an SPI pattern API. We don't care about the particulars of
-       * the implementation, so just choose the first ImageReader.
-       */
-      Iterator<ImageReader> it = ImageIO.getImageReaders(imageInputStream);
-      readers : while (it.hasNext()) {
-        ImageReader reader = it.next();
-        reader.setInput(imageInputStream);
-
-        int numImages = reader.getNumImages(true);
-        if (numImages == 0) {
-          // Fall through
-
-        } else if (numImages == 1) {
-          try {
-            image = reader.read(0);
-            IIOMetadata metadata = reader.getImageMetadata(0);
-            if (metadata != null
-                && metadata.isStandardMetadataFormatSupported()) {
-              // http://java.sun.com/j2se/1.5.0/docs/api/javax/imageio/metadata/doc-files/standard_metadata.html
-              Node data = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
-              metadata : for (int i = 0, j = data.getChildNodes().getLength(); i < j; i++) {
-                Node child = data.getChildNodes().item(i);
-                if (child.getLocalName().equalsIgnoreCase("compression")) {
-                  for (int k = 0, l = child.getChildNodes().getLength(); k < l; k++) {
-                    Node child2 = child.getChildNodes().item(k);
-                    if (child2.getLocalName().equalsIgnoreCase("lossless")) {
-                      Node value = child2.getAttributes().getNamedItem("value");
-                      if (value == null) {
-                        // The default is true, according to the DTD
-                        lossy = false;
-                      } else {
-                        lossy = !Boolean.parseBoolean(value.getNodeValue());
-                      }
-                      break metadata;
-                    }
-                  }
-                }
-              }
-            }
-          } catch (Exception e) {
-            // Hope we have another reader that can handle the image
-            continue readers;
-          }
-
-        } else {
-          // Read all contained images
-          BufferedImage[] images = new BufferedImage[numImages];
-
-          try {
-            for (int i = 0; i < numImages; i++) {
-              images[i] = reader.read(i);
-            }
-          } catch (Exception e) {
-            // Hope we have another reader that can handle the image
-            continue readers;
-          }
-
-          ImageRect rect = new ImageRect(imageName, images);
-          throw new UnsuitableForStripException(rect);
-        }
-      }
-    } catch (IllegalArgumentException iex) {
-      if (imageName.toLowerCase(Locale.ROOT).endsWith("png")
-          && iex.getMessage() != null
-          && iex.getStackTrace()[0].getClassName().equals(
-              "javax.imageio.ImageTypeSpecifier$Indexed")) {
-        logger.log(TreeLogger.ERROR,
-            "Unable to read image. The image may not be in valid PNG format. "
-                + "This problem may also be due to a bug in versions of the "
-                + "JRE prior to 1.6. See "
-                + "http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=5098176 "
-                + "for more information. If this bug is the cause of the "
-                + "error, try resaving the image using a different image "
-                + "program, or upgrade to a newer JRE.", null);
-        throw new UnableToCompleteException();
-      } else {
-        throw iex;
-      }
-    } catch (IOException e) {
-      logger.log(TreeLogger.ERROR, "Unable to read image resource", e);
+    byte[] bytes = Util.readURLAsBytes(imageUrl);
+    if (bytes == null) {
+      logger.log(TreeLogger.ERROR, "Unable to read image resource", null);
       throw new UnableToCompleteException();
     }
+    String contentHash = Util.computeStrongName(bytes);
 
-    if (image == null) {
+    DecodedImage decoded = decodedImages.get(logger, contentHash, decoding(imageName, bytes));
+    if (decoded == null) {
+      // Decode again to report the problem to the right logger.
+      decoded = decode(logger, imageName, bytes);
+    }
+
+    if (decoded == null) {
       logger.log(TreeLogger.ERROR, "Unrecognized image file format", null);
       throw new UnableToCompleteException();
     }
 
-    ImageRect toReturn = new ImageRect(imageName, image);
-    toReturn.setLossy(lossy);
+    if (decoded.images.length > 1) {
+      ImageRect rect = new ImageRect(imageName, decoded.images);
+      rect.setContentHash(contentHash);
+      throw new UnsuitableForStripException(rect);
+    }
+
+    ImageRect toReturn = new ImageRect(imageName, decoded.images);
+    toReturn.setContentHash(contentHash);
+    toReturn.setLossy(decoded.lossy);
 
     // Don't composite the image if it's lossy or if it is too big
-    if (lossy || toReturn.getHeight() > IMAGE_MAX_SIZE
+    if (decoded.lossy || toReturn.getHeight() > IMAGE_MAX_SIZE
         || toReturn.getWidth() > IMAGE_MAX_SIZE) {
       throw new UnsuitableForStripException(toReturn);
     }
@@ -822,6 +1130,13 @@ class ImageBundleBuilder {
     // Arrange images and determine the size of the resulting bundle.
     Size size = arranger.arrangeImages(imageRects);
 
+    return drawBundledImage(size, imageRects);
+  }
+
+  /**
+   * Draws already arranged images into a bundle of the given size.
+   */
+  private BufferedImage drawBundledImage(Size size, Collection<ImageRect> imageRects) {
     // Create the bundled image.
     BufferedImage bundledImage = new BufferedImage(size.width, size.height,
         BufferedImage.TYPE_INT_ARGB_PRE);
@@ -24,6 +24,7 @@ import com.google.gwt.dev.util.StringKey;
 import com.google.gwt.dev.util.Util;
 import com.google.gwt.dev.util.collect.Maps;
 import com.google.gwt.dev.util.collect.Sets;
+import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.resources.client.ImageResource.ImageOptions;
 import com.google.gwt.resources.client.ImageResource.RepeatStyle;
 import com.google.gwt.resources.client.impl.ImageResourcePrototype;
@@ -45,9 +46,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Builds an image strip for all ImageResources defined within an ClientBundle.
@@ -61,6 +67,8 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
     private static final String MIME_TYPE_IMAGE_PNG = "image/png";
     private final ImageBundleBuilder builder;
     private boolean dirty = false;
+    private byte[] encodedNormalContents;
+    private byte[] encodedRtlContents;
     private Map<LocalizedImage, ImageRect> images;
     private Set<LocalizedImage> rtlImages = Sets.create();
     private Map<ImageResourceDeclaration, LocalizedImage> localizedByImageResource;
@@ -111,6 +119,45 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
       return localized;
     }
 
+    /**
+     * Arranges and encodes the images of a dirty bundle, without deploying
+     * them. This may run concurrently with the encoding of other bundles.
+     */
+    public void encode(TreeLogger logger, RepeatStyle repeatStyle)
+        throws UnableToCompleteException {
+      Arranger arranger;
+      switch (repeatStyle) {
+        case None:
+          arranger = new ImageBundleBuilder.MaxRectsArranger();
+          break;
+        case Horizontal:
+          arranger = new ImageBundleBuilder.VerticalArranger();
+          break;
+        case Vertical:
+          arranger = new ImageBundleBuilder.HorizontalArranger();
+          break;
+        case Both:
+          arranger = new ImageBundleBuilder.IdentityArranger();
+          break;
+        default:
+          logger.log(TreeLogger.ERROR, "Unknown RepeatStyle " + repeatStyle);
+          throw new UnableToCompleteException();
+      }
+      encodedNormalContents = builder.render(logger, arranger);
+
+      if (!rtlImages.isEmpty()) {
+        for (LocalizedImage rtlImage : rtlImages) {
+          // Create a transformation to mirror about the Y-axis and translate
+          AffineTransform tx = new AffineTransform();
+          ImageRect imageRect = images.get(rtlImage);
+          tx.setTransform(-1, 0, 0, 1, imageRect.getWidth(), 0);
+          imageRect.setTransform(tx);
+        }
+        encodedRtlContents = builder.render(logger, new ImageBundleBuilder.IdentityArranger());
+        assert encodedRtlContents != null;
+      }
+    }
+
     public ImageBundleBuilder getImageBundleBuilder() {
       return builder;
     }
@@ -130,41 +177,18 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
       }
 
       if (dirty) {
-        Arranger arranger;
-        switch (repeatStyle) {
-          case None:
-            arranger = new ImageBundleBuilder.BestFitArranger();
-            break;
-          case Horizontal:
-            arranger = new ImageBundleBuilder.VerticalArranger();
-            break;
-          case Vertical:
-            arranger = new ImageBundleBuilder.HorizontalArranger();
-            break;
-          case Both:
-            arranger = new ImageBundleBuilder.IdentityArranger();
-            break;
-          default:
-            logger.log(TreeLogger.ERROR, "Unknown RepeatStyle " + repeatStyle);
-            throw new UnableToCompleteException();
+        if (encodedNormalContents == null) {
+          encode(logger, repeatStyle);
         }
-        URL normalContents = renderToTempPngFile(logger, builder, arranger);
+        URL normalContents = writeToTempPngFile(logger, encodedNormalContents);
         normalContentsUrlExpression = context.deploy(normalContents, MIME_TYPE_IMAGE_PNG, false);
 
-        if (!rtlImages.isEmpty()) {
-          for (LocalizedImage rtlImage : rtlImages) {
-            // Create a transformation to mirror about the Y-axis and translate
-            AffineTransform tx = new AffineTransform();
-            ImageRect imageRect = images.get(rtlImage);
-            tx.setTransform(-1, 0, 0, 1, imageRect.getWidth(), 0);
-            imageRect.setTransform(tx);
-          }
-          URL rtlContents =
-              renderToTempPngFile(logger, builder, new ImageBundleBuilder.IdentityArranger());
-          assert rtlContents != null;
+        if (encodedRtlContents != null) {
+          URL rtlContents = writeToTempPngFile(logger, encodedRtlContents);
           rtlContentsUrlExpression = context.deploy(rtlContents, MIME_TYPE_IMAGE_PNG, false);
         }
 
+        encodedNormalContents = encodedRtlContents = null;
         dirty = false;
         if (logger.isLoggable(TreeLogger.DEBUG)) {
           logger.log(TreeLogger.DEBUG, "Composited " + builder.getImageCount() + " images");
@@ -190,6 +214,10 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
     public void setRtlImage(LocalizedImage image) {
       rtlImages = Sets.add(rtlImages, image);
     }
+
+    boolean needsEncoding() {
+      return dirty && builder.getImageCount() > 0;
+    }
   }
 
   /**
@@ -448,17 +476,50 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
   }
 
   /**
-   * Re-encode an image as a PNG to strip random header data.
+   * Encodes the dirty bundles concurrently, ahead of their sequential
+   * deployment by {@link BundledImage#render}.
    */
-  private static URL renderToTempPngFile(TreeLogger logger,
-      ImageBundleBuilder builder, Arranger arranger)
-      throws UnableToCompleteException {
-    try {
-      byte[] imageBytes = builder.render(logger, arranger);
-      if (imageBytes == null) {
-        return null;
+  private static void encodeBundles(final TreeLogger logger,
+      Map<BundleKey, BundledImage> bundledImages) throws UnableToCompleteException {
+    List<Future<Void>> encodings = new ArrayList<Future<Void>>();
+    for (final Map.Entry<BundleKey, BundledImage> entry : bundledImages.entrySet()) {
+      if (entry.getValue().needsEncoding()) {
+        encodings.add(BackgroundCache.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws UnableToCompleteException {
+            entry.getValue().encode(logger, entry.getKey().getRepeatStyle());
+            return null;
+          }
+        }));
       }
+    }
 
+    boolean failed = false;
+    for (Future<Void> encoding : encodings) {
+      try {
+        encoding.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.log(TreeLogger.ERROR, "Interrupted while encoding image bundles", e);
+        failed = true;
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof UnableToCompleteException)) {
+          logger.log(TreeLogger.ERROR, "Unable to encode image bundle", e.getCause());
+        }
+        failed = true;
+      }
+    }
+    if (failed) {
+      throw new UnableToCompleteException();
+    }
+  }
+
+  /**
+   * Write a bundle's encoded bytes to a temporary file.
+   */
+  private static URL writeToTempPngFile(TreeLogger logger, byte[] imageBytes)
+      throws UnableToCompleteException {
+    try {
       File file = File.createTempFile(ImageResourceGenerator.class.getSimpleName(), ".png");
       file.deleteOnExit();
       Util.writeBytesToFile(logger, file, imageBytes);
@@ -520,6 +581,7 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
   @Override
   public void createFields(TreeLogger logger, ResourceContext context, ClientBundleFields fields)
       throws UnableToCompleteException {
+    encodeBundles(logger, shared.bundledImages);
     renderImageMap(logger, context, fields, shared.bundledImages);
     renderImageMap(logger, context, fields, shared.externalImages);
   }
@@ -534,6 +596,7 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
     } else {
       shared = new CachedState();
       context.putCachedData(key, shared);
+      prefetchImages(context);
     }
   }
 
@@ -648,6 +711,29 @@ public final class ImageResourceGenerator extends AbstractResourceGenerator
     return sb.toString();
   }
 
+  /**
+   * Starts decoding the images of the ClientBundle in the background, before
+   * {@link #prepare} assimilates them one at a time.
+   */
+  private void prefetchImages(ResourceContext context) {
+    String imageResourceType = ImageResource.class.getCanonicalName();
+    for (JMethod method : context.getClientBundleType().getOverridableMethods()) {
+      JClassType returnType = method.getReturnType().isClassOrInterface();
+      if (returnType == null
+          || !imageResourceType.equals(returnType.getQualifiedSourceName())) {
+        continue;
+      }
+      try {
+        URL[] resources = ResourceGeneratorUtil.findResources(TreeLogger.NULL, context, method);
+        if (resources.length == 1) {
+          ImageBundleBuilder.prefetch(resources[0]);
+        }
+      } catch (UnableToCompleteException e) {
+        // Reported when the method is prepared
+      }
+    }
+  }
+
   private DisplayedImage getImage(ImageResourceDeclaration image) {
     DisplayedImage toReturn = shared.externalImages.get(new BundleKey(image, true));
     if (toReturn != null) {
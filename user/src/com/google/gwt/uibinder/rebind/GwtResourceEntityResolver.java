@@ -28,6 +28,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -48,6 +50,12 @@ class GwtResourceEntityResolver implements EntityResolver {
 
   private String pathBase;
 
+  /**
+   * The system ids resolved so far, with a hash of the contents they resolved
+   * to, or <code>null</code> for those left to the parser.
+   */
+  private final Map<String, String> resolvedEntities = new LinkedHashMap<String, String>();
+
   private final ResourceOracle resourceOracle;
   private final TreeLogger logger;
 
@@ -58,29 +66,35 @@ class GwtResourceEntityResolver implements EntityResolver {
     this.pathBase = pathBase;
   }
 
-  @Override
-  public InputSource resolveEntity(String publicId, String systemId) {
-    String matchingPrefix = findMatchingPrefix(systemId);
-
-    Resource resource = null;
-    if (matchingPrefix != null) {
-      resource =
-          resourceOracle.getResource(RESOURCES + systemId.substring(matchingPrefix.length()));
-    }
+  /**
+   * Returns the system ids resolved so far, with a hash of the contents they
+   * resolved to, or <code>null</code> for those left to the parser.
+   */
+  public Map<String, String> getResolvedEntities() {
+    return Collections.unmodifiableMap(resolvedEntities);
+  }
 
-    if (resource == null) {
-      resource = resourceOracle.getResource(pathBase + systemId);
+  /**
+   * Returns true if the given system ids, as returned by
+   * {@link #getResolvedEntities()}, still resolve to the same contents.
+   */
+  public boolean isResolvedAlike(Map<String, String> entities) {
+    for (Map.Entry<String, String> entry : entities.entrySet()) {
+      Resource resource = findResource(entry.getKey());
+      if (entry.getValue() == null || resource == null
+          || !entry.getValue().equals(hash(readContent(resource)))) {
+        return false;
+      }
     }
+    return true;
+  }
 
+  @Override
+  public InputSource resolveEntity(String publicId, String systemId) {
+    Resource resource = findResource(systemId);
     if (resource != null) {
-      String content;
-      try {
-        InputStream resourceStream = resource.openContents();
-        content = Util.readStreamAsString(resourceStream);
-      } catch (IOException ex) {
-        logger.log(TreeLogger.ERROR, "Error reading resource: " + resource.getLocation());
-        throw new RuntimeException(ex);
-      }
+      String content = readContent(resource);
+      resolvedEntities.put(systemId, hash(content));
       InputSource inputSource = new InputSource(new StringReader(content));
       inputSource.setPublicId(publicId);
       inputSource.setSystemId(resource.getPath());
@@ -89,6 +103,7 @@ class GwtResourceEntityResolver implements EntityResolver {
     /*
      * Let Sax find it on the interweb.
      */
+    resolvedEntities.put(systemId, null);
     return null;
   }
 
@@ -100,4 +115,33 @@ class GwtResourceEntityResolver implements EntityResolver {
     }
     return null;
   }
+
+  private Resource findResource(String systemId) {
+    String matchingPrefix = findMatchingPrefix(systemId);
+
+    Resource resource = null;
+    if (matchingPrefix != null) {
+      resource =
+          resourceOracle.getResource(RESOURCES + systemId.substring(matchingPrefix.length()));
+    }
+
+    if (resource == null) {
+      resource = resourceOracle.getResource(pathBase + systemId);
+    }
+    return resource;
+  }
+
+  private static String hash(String content) {
+    return Util.computeStrongName(Util.getBytes(content));
+  }
+
+  private String readContent(Resource resource) {
+    try {
+      InputStream resourceStream = resource.openContents();
+      return Util.readStreamAsString(resourceStream);
+    } catch (IOException ex) {
+      logger.log(TreeLogger.ERROR, "Error reading resource: " + resource.getLocation());
+      throw new RuntimeException(ex);
+    }
+  }
 }
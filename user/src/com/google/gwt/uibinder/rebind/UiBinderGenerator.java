@@ -202,11 +202,14 @@ public class UiBinderGenerator extends Generator {
     Document doc = null;
     try {
       String content = designTime.getTemplateContent(templatePath);
+      W3cDomHelper helper = new W3cDomHelper(logger.getTreeLogger(), resourceOracle);
       if (content == null) {
-        content = Util.readStreamAsString(resource.openContents());
+        // Unchanged templates are only parsed once
+        doc = helper.cachedDocumentFor(Util.readStreamAsString(resource.openContents()),
+            resource.getPath());
+      } else {
+        doc = helper.documentFor(content, resource.getPath());
       }
-      doc = new W3cDomHelper(logger.getTreeLogger(), resourceOracle).documentFor(content,
-          resource.getPath());
     } catch (IOException iex) {
       logger.die("Error opening resource:" + resource.getLocation(), iex);
     } catch (SAXParseException e) {
@@ -71,6 +71,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Writer for UiBinder generated classes.
@@ -89,6 +91,13 @@ public class UiBinderWriter implements Statements {
   private static final String CLIENT_BUNDLE_FIELD =
       "clientBundleFieldNameUnlikelyToCollideWithUserSpecifiedFieldOkay";
 
+  /**
+   * Element parser classes by name, shared by all writers since they are
+   * looked up for each class in the hierarchy of each element.
+   */
+  private static final ConcurrentMap<String, Class<? extends ElementParser>> parserClasses =
+      new ConcurrentHashMap<String, Class<? extends ElementParser>>();
+
   public static String asCommaSeparatedList(String... args) {
     StringBuilder b = new StringBuilder();
     for (String arg : args) {
@@ -1262,8 +1271,14 @@ public class UiBinderWriter implements Statements {
     }
 
     // And instantiate it.
+    Class<? extends ElementParser> parserClass = parserClasses.get(parserClassName);
+    if (parserClass != null) {
+      return parserClass;
+    }
     try {
-      return Class.forName(parserClassName).asSubclass(ElementParser.class);
+      parserClass = Class.forName(parserClassName).asSubclass(ElementParser.class);
+      parserClasses.put(parserClassName, parserClass);
+      return parserClass;
     } catch (ClassNotFoundException e) {
       throw new RuntimeException("Unable to instantiate parser", e);
     } catch (ClassCastException e) {
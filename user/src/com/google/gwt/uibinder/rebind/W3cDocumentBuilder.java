@@ -22,12 +22,14 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.Text;
+import org.w3c.dom.UserDataHandler;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.ext.DefaultHandler2;
 
+import java.util.Map;
 import java.util.Stack;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -36,10 +38,26 @@ import javax.xml.parsers.ParserConfigurationException;
 /**
  * Uses SAX events to construct a DOM Document. Each node in the Document will
  * have a {@link XMLElement.Location} object attached to that Node's user data
- * with the {@value XMLElement#LOCATION_KEY} key.
+ * with the {@value XMLElement#LOCATION_KEY} key, which is kept by copies of
+ * the node.
  */
 class W3cDocumentBuilder extends DefaultHandler2 {
+
+  /**
+   * Gives the copies of a node the user data of the node.
+   */
+  static final UserDataHandler COPY_USER_DATA = new UserDataHandler() {
+    @Override
+    public void handle(short operation, String key, Object data, Node src,
+        Node dst) {
+      if (operation == NODE_CLONED || operation == NODE_IMPORTED) {
+        dst.setUserData(key, data, this);
+      }
+    }
+  };
+
   private final Document document;
+  private boolean hasProblems;
   private final Stack<Node> eltStack = new Stack<Node>();
   private Locator locator;
   private final TreeLogger logger;
@@ -77,6 +95,7 @@ class W3cDocumentBuilder extends DefaultHandler2 {
 
   @Override
   public void error(SAXParseException exception) {
+    hasProblems = true;
     logger.log(TreeLogger.ERROR, exception.getMessage());
     logger.log(TreeLogger.DEBUG, "SAXParseException", exception);
   }
@@ -87,6 +106,7 @@ class W3cDocumentBuilder extends DefaultHandler2 {
      * Fatal errors seem to be no scarier than error errors, and simply happen
      * due to badly formed XML.
      */
+    hasProblems = true;
     logger.log(TreeLogger.ERROR, exception.getMessage());
     logger.log(TreeLogger.DEBUG, "SAXParseException", exception);
   }
@@ -95,6 +115,21 @@ class W3cDocumentBuilder extends DefaultHandler2 {
     return document;
   }
 
+  /**
+   * Returns the external entities resolved while parsing, see
+   * {@link GwtResourceEntityResolver#getResolvedEntities()}.
+   */
+  public Map<String, String> getResolvedEntities() {
+    return resolver.getResolvedEntities();
+  }
+
+  /**
+   * Returns true if errors or warnings were logged while parsing.
+   */
+  public boolean hasProblems() {
+    return hasProblems;
+  }
+
   @Override
   public InputSource resolveEntity(String name, String publicId,
       String baseURI, String systemId) {
@@ -124,11 +159,12 @@ class W3cDocumentBuilder extends DefaultHandler2 {
 
     XMLElement.Location location = new XMLElement.Location(
         locator.getSystemId(), locator.getLineNumber());
-    elt.setUserData(XMLElement.LOCATION_KEY, location, null);
+    elt.setUserData(XMLElement.LOCATION_KEY, location, COPY_USER_DATA);
   }
 
   @Override
   public void warning(SAXParseException exception) {
+    hasProblems = true;
     logger.log(TreeLogger.WARN, exception.getMessage());
     logger.log(TreeLogger.DEBUG, "SAXParseException", exception);
   }
@@ -17,6 +17,9 @@ package com.google.gwt.uibinder.rebind;
 
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.resource.ResourceOracle;
+import com.google.gwt.dev.util.Util;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
@@ -25,6 +28,7 @@ import org.xml.sax.SAXParseException;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -35,9 +39,36 @@ import javax.xml.parsers.SAXParserFactory;
  * UiBinder likes it. Used by both prod and test.
  */
 public class W3cDomHelper {
+  /**
+   * A document parsed without problems, and the external entities it read.
+   */
+  private static class ParsedDocument {
+    private final Document document;
+    private final Map<String, String> resolvedEntities;
+
+    ParsedDocument(Document document, Map<String, String> resolvedEntities) {
+      this.document = document;
+      this.resolvedEntities = resolvedEntities;
+    }
+  }
+
   private static final String LOAD_EXTERNAL_DTD =
       "http://apache.org/xml/features/nonvalidating/load-external-dtd";
 
+  /**
+   * Documents parsed without problems, by path and a hash of their contents.
+   * Callers only ever get copies of them.
+   */
+  private static final Cache<String, ParsedDocument> parsedDocuments =
+      CacheBuilder.newBuilder().softValues().build();
+
+  private static Document copy(Document document) {
+    // Reading a DOM updates its internal caches
+    synchronized (document) {
+      return (Document) document.cloneNode(true);
+    }
+  }
+
   private final SAXParserFactory factory;
   private final TreeLogger logger;
   private final ResourceOracle resourceOracle;
@@ -61,18 +92,54 @@ public class W3cDomHelper {
    */
   public Document documentFor(String string, String resourcePath)
       throws SAXParseException {
+    return parse(string, resourcePath).getDocument();
+  }
+
+  /**
+   * Creates an XML document model with the given contents, reusing the parse
+   * of the same contents at the same path when it had no errors or warnings,
+   * and the external entities it read still resolve to the same contents.
+   * The returned document is a copy that the caller may modify.
+   */
+  public Document cachedDocumentFor(String string, String resourcePath)
+      throws SAXParseException {
+    String key = resourcePath + '\n'
+        + Util.computeStrongName(Util.getBytes(string));
+    ParsedDocument cached = parsedDocuments.getIfPresent(key);
+    if (cached != null && new GwtResourceEntityResolver(logger, resourceOracle,
+        getPathBase(resourcePath)).isResolvedAlike(cached.resolvedEntities)) {
+      return copy(cached.document);
+    }
+    W3cDocumentBuilder handler = parse(string, resourcePath);
+    Document document = handler.getDocument();
+    if (!handler.hasProblems() && !handler.getResolvedEntities().containsValue(null)) {
+      parsedDocuments.put(key, new ParsedDocument(copy(document),
+          handler.getResolvedEntities()));
+    } else {
+      parsedDocuments.invalidate(key);
+    }
+    return document;
+  }
+
+  private String getPathBase(String resourcePath) {
+    if (resourcePath == null) {
+      return null;
+    }
+    int pos = resourcePath.lastIndexOf('/');
+    return (pos < 0) ? "" : resourcePath.substring(0, pos + 1);
+  }
+
+  private W3cDocumentBuilder parse(String string, String resourcePath)
+      throws SAXParseException {
     try {
-      if (resourcePath != null) {
-        int pos = resourcePath.lastIndexOf('/');
-        resourcePath = (pos < 0) ? "" : resourcePath.substring(0, pos + 1);
-      }
+      resourcePath = getPathBase(resourcePath);
       W3cDocumentBuilder handler = new W3cDocumentBuilder(logger, resourcePath,
           resourceOracle);
       SAXParser parser = factory.newSAXParser();
       InputSource input = new InputSource(new StringReader(string));
       input.setSystemId(resourcePath);
       parser.parse(input, handler);
-      return handler.getDocument();
+      return handler;
     } catch (SAXParseException e) {
       // Let SAXParseExceptions through.
       throw e;
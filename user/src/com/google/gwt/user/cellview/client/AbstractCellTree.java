@@ -34,6 +34,8 @@ public abstract class AbstractCellTree extends Composite implements
     HasOpenHandlers<TreeNode>, HasCloseHandlers<TreeNode>,
     HasKeyboardSelectionPolicy {
 
+  private final ClosedNodeCache closedNodeCache = new ClosedNodeCache();
+
   private KeyboardSelectionPolicy keyboardSelectionPolicy = KeyboardSelectionPolicy.ENABLED;
 
   /**
@@ -59,6 +61,16 @@ public abstract class AbstractCellTree extends Composite implements
     return addHandler(handler, OpenEvent.getType());
   }
 
+  /**
+   * Get the number of closed nodes whose rows are kept.
+   *
+   * @return the number of nodes
+   * @see #setClosedNodeCacheSize(int)
+   */
+  public int getClosedNodeCacheSize() {
+    return closedNodeCache.getMaxSize();
+  }
+
   public KeyboardSelectionPolicy getKeyboardSelectionPolicy() {
     return keyboardSelectionPolicy;
   }
@@ -79,6 +91,19 @@ public abstract class AbstractCellTree extends Composite implements
     return viewModel;
   }
 
+  /**
+   * Set the number of closed nodes whose rows are kept, so that they are
+   * displayed right away if the node opens again, rather than once the data
+   * provider has pushed them. The display and its DOM are released when a node
+   * closes either way. The rows of the least recently closed nodes are dropped
+   * first. Defaults to 0, which keeps no rows.
+   *
+   * @param size the number of nodes
+   */
+  public void setClosedNodeCacheSize(int size) {
+    closedNodeCache.setMaxSize(size);
+  }
+
   public void setKeyboardSelectionPolicy(KeyboardSelectionPolicy policy) {
     if (policy == null) {
       throw new NullPointerException("KeyboardSelectionPolicy cannot be null");
@@ -97,6 +122,13 @@ public abstract class AbstractCellTree extends Composite implements
     return viewModel.getNodeInfo(value);
   }
 
+  /**
+   * Get the cache of the rows of closed nodes.
+   */
+  ClosedNodeCache getClosedNodeCache() {
+    return closedNodeCache;
+  }
+
   /**
    * Check if keyboard selection is disabled.
    *
@@ -624,6 +624,7 @@ public class CellBrowser extends AbstractCellTree implements ProvidesResize, Req
      * Unregister the list view and remove it from the widget.
      */
     private void destroy() {
+      getClosedNodeCache().save(getPath(display.level), display);
       display.isDestroyed = true;
       valueChangeHandler.removeHandler();
       display.deselectValue();
@@ -1186,6 +1187,7 @@ public class CellBrowser extends AbstractCellTree implements ProvidesResize, Req
      * selection manager because it is provided by the node info.
      */
     view.setSelectionModel(nodeInfo.getSelectionModel(), null);
+    getClosedNodeCache().restore(getPath(level), view);
     nodeInfo.setDataDisplay(view);
 
     // Add the view to the LayoutPanel.
@@ -1251,6 +1253,20 @@ public class CellBrowser extends AbstractCellTree implements ProvidesResize, Req
     return template.imageWrapper(cssBuilder.toSafeStyles(), image);
   }
 
+  /**
+   * Get the keys of the open values from the root to the specified level.
+   *
+   * @param level the level of the node
+   * @return the keys
+   */
+  private List<Object> getPath(int level) {
+    List<Object> path = new ArrayList<Object>();
+    for (int i = 0; i < level; i++) {
+      path.add(treeNodes.get(i).display.focusedKey);
+    }
+    return path;
+  }
+
   /**
    * Get the {@link SplitLayoutPanel} used to lay out the views.
    * 
@@ -999,6 +999,9 @@ class CellTreeNodeView<T> extends UIObject {
   protected void cleanup(boolean destroy) {
     // Unregister the list handler.
     if (listView != null) {
+      if (!isRootNode()) {
+        tree.getClosedNodeCache().save(getPath(), listView);
+      }
       listView.cleanup();
       nodeInfo.unsetDataDisplay();
       listView = null;
@@ -1140,6 +1143,9 @@ class CellTreeNodeView<T> extends UIObject {
     NodeCellList<C> view = new NodeCellList<C>(nodeInfo, this, tree.getDefaultNodeSize());
     listView = view;
     view.setSelectionModel(nodeInfo.getSelectionModel());
+    if (!isRootNode()) {
+      tree.getClosedNodeCache().restore(getPath(), view);
+    }
     nodeInfo.setDataDisplay(view);
   }
 
@@ -1215,6 +1221,17 @@ class CellTreeNodeView<T> extends UIObject {
     return parentNode;
   }
 
+  /**
+   * Get the keys of the values from the root to this node.
+   */
+  List<Object> getPath() {
+    List<Object> path = new ArrayList<Object>();
+    for (CellTreeNodeView<?> node = this; !node.isRootNode(); node = node.parentNode) {
+      path.add(0, node.getValueKey());
+    }
+    return path;
+  }
+
   Element getShowMoreElement() {
     return showMoreElem;
   }
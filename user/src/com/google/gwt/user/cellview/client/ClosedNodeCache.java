@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.cellview.client;
+
+import com.google.gwt.view.client.HasData;
+import com.google.gwt.view.client.Range;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the rows last displayed by the most recently closed nodes of an
+ * {@link AbstractCellTree}, so that a node which is opened again can display
+ * them while its data provider loads the current rows. Nodes are identified by
+ * the keys of the values on their path from the root. Only the rows are kept:
+ * the displays, their DOM and their data providers are released as usual.
+ */
+class ClosedNodeCache {
+
+  /**
+   * The rows of a closed node and the range they were displayed in.
+   */
+  private static class Entry {
+    private final Range range;
+    private final int rowCount;
+    private final boolean isRowCountExact;
+    private final List<?> rows;
+
+    Entry(HasData<?> display) {
+      this.range = display.getVisibleRange();
+      this.rowCount = display.getRowCount();
+      this.isRowCountExact = display.isRowCountExact();
+      int count = display.getVisibleItemCount();
+      List<Object> rows = new ArrayList<Object>(count);
+      for (int i = 0; i < count; i++) {
+        rows.add(display.getVisibleItem(i));
+      }
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * The entries, from the least to the most recently closed node.
+   */
+  private final Map<List<Object>, Entry> entries = new LinkedHashMap<List<Object>, Entry>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+      return size() > maxSize;
+    }
+  };
+
+  private int maxSize;
+
+  /**
+   * Get the maximum number of closed nodes whose rows are kept.
+   */
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Display the rows kept for a node, if any, and forget them. Call this before
+   * the display is attached to its data provider.
+   *
+   * @param path the keys of the values from the root to the node
+   * @param display the new display of the node
+   */
+  @SuppressWarnings("unchecked")
+  <C> void restore(List<Object> path, HasData<C> display) {
+    Entry entry = entries.remove(path);
+    if (entry != null) {
+      display.setVisibleRange(entry.range);
+      display.setRowCount(entry.rowCount, entry.isRowCountExact);
+      display.setRowData(entry.range.getStart(), (List<C>) entry.rows);
+    }
+  }
+
+  /**
+   * Keep the rows of a node which is closing, evicting the least recently
+   * closed node if the cache is full.
+   *
+   * @param path the keys of the values from the root to the node
+   * @param display the display of the node
+   */
+  void save(List<Object> path, HasData<?> display) {
+    if (maxSize > 0 && display.getVisibleItemCount() > 0) {
+      // Removed first, so that the node becomes the most recently closed one
+      entries.remove(path);
+      entries.put(path, new Entry(display));
+    }
+  }
+
+  /**
+   * Set the maximum number of closed nodes whose rows are kept, evicting the
+   * least recently closed nodes if there are more.
+   */
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    Iterator<List<Object>> it = entries.keySet().iterator();
+    while (entries.size() > maxSize) {
+      it.next();
+      it.remove();
+    }
+  }
+}
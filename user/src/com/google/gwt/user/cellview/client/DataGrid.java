@@ -42,6 +42,9 @@ import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.view.client.ProvidesKey;
+import com.google.gwt.view.client.Range;
+import com.google.gwt.view.client.RangeChangeEvent;
+import com.google.gwt.view.client.RowCountChangeEvent;
 
 /**
  * A tabular view with a fixed header and footer section and a scrollable data
@@ -478,6 +481,18 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
   }
 
   private static final int DEFAULT_PAGESIZE = 50;
+
+  /**
+   * The row height assumed by virtual scrolling until a row has been measured.
+   */
+  private static final int DEFAULT_VIRTUAL_ROW_HEIGHT = 25;
+
+  /**
+   * The number of rows rendered above and below the viewport when scrolling
+   * virtually, so that short scrolls do not render anything.
+   */
+  private static final int VIRTUAL_SCROLLING_BUFFER_ROWS = 20;
+
   private static Resources DEFAULT_RESOURCES;
 
   /**
@@ -518,6 +533,18 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
   private final SimplePanel tableHeaderContainer;
   private final Element tableHeaderScroller;
 
+  /**
+   * Set while the visible range is moved to follow the scroll position.
+   */
+  private boolean isUpdatingVirtualRange;
+
+  /**
+   * The page size to restore when virtual scrolling is disabled.
+   */
+  private int pageSizeBeforeVirtualScrolling;
+  private int virtualRowHeight = DEFAULT_VIRTUAL_ROW_HEIGHT;
+  private boolean virtualScrolling;
+
   /**
    * Constructs a table with a default page size of 50.
    */
@@ -659,6 +686,39 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
         int scrollLeft = tableDataScroller.getHorizontalScrollPosition();
         tableHeaderScroller.setScrollLeft(scrollLeft);
         tableFooterScroller.setScrollLeft(scrollLeft);
+        if (virtualScrolling) {
+          updateVirtualRange();
+        }
+      }
+    });
+
+    // Keep the scroll position and the rendered rows in sync when scrolling virtually.
+    addRangeChangeHandler(new RangeChangeEvent.Handler() {
+      @Override
+      public void onRangeChange(RangeChangeEvent event) {
+        if (virtualScrolling && !isUpdatingVirtualRange) {
+          // The range was moved by a pager or keyboard paging, so follow it.
+          updateVirtualSpacers();
+          tableDataScroller.setVerticalScrollPosition(
+              event.getNewRange().getStart() * virtualRowHeight);
+        }
+      }
+    });
+    addRowCountChangeHandler(new RowCountChangeEvent.Handler() {
+      @Override
+      public void onRowCountChange(RowCountChangeEvent event) {
+        if (virtualScrolling) {
+          updateVirtualSpacers();
+        }
+      }
+    });
+    addRedrawHandler(new RedrawEvent.Handler() {
+      @Override
+      public void onRedraw() {
+        if (virtualScrolling) {
+          measureVirtualRowHeight();
+          updateVirtualSpacers();
+        }
       }
     });
   }
@@ -701,9 +761,23 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
     tableDataContainer.getStyle().clearWidth();
   }
 
+  /**
+   * Returns whether this grid only renders the rows around its scroll
+   * viewport.
+   *
+   * @return true if virtual scrolling is enabled
+   * @see #setVirtualScrolling(boolean)
+   */
+  public boolean isVirtualScrolling() {
+    return virtualScrolling;
+  }
+
   @Override
   public void onResize() {
     headerPanel.onResize();
+    if (virtualScrolling) {
+      updateVirtualRange();
+    }
   }
 
   @Override
@@ -798,6 +872,46 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
     tableDataContainer.getStyle().setWidth(value, unit);
   }
 
+  /**
+   * Enables or disables virtual scrolling. By default, the grid renders every
+   * row of its visible range and the data section scrolls over all of them.
+   *
+   * <p>
+   * When virtual scrolling is enabled, the data section scrolls over all the
+   * rows of the row count, but the visible range only covers the rows in the
+   * viewport and a buffer of rows above and below it. Disabling it restores
+   * the page size the grid had before. Scrolling moves the
+   * visible range once the viewport leaves the rendered rows, and moving the
+   * visible range, with a pager or the keyboard, scrolls to it. Use it with a
+   * data provider which serves any range, such as a
+   * {@link com.google.gwt.view.client.ListDataProvider}, to show thousands of
+   * rows without rendering them all. Selection, keyboard selection and column
+   * sorting work as they do on the visible range.
+   * </p>
+   *
+   * <p>
+   * The scroll height is estimated from the average height of the rendered
+   * rows, so virtual scrolling works best when all rows have the same height.
+   * </p>
+   *
+   * @param virtualScrolling true to enable virtual scrolling
+   */
+  public void setVirtualScrolling(boolean virtualScrolling) {
+    if (this.virtualScrolling == virtualScrolling) {
+      return;
+    }
+    this.virtualScrolling = virtualScrolling;
+    if (virtualScrolling) {
+      pageSizeBeforeVirtualScrolling = getPageSize();
+      updateVirtualSpacers();
+      updateVirtualRange();
+    } else {
+      tableDataContainer.getStyle().clearPaddingTop();
+      tableDataContainer.getStyle().clearPaddingBottom();
+      setPageSize(pageSizeBeforeVirtualScrolling);
+    }
+  }
+
   @Override
   protected void doSetColumnWidth(int column, String width) {
     if (width == null) {
@@ -843,8 +957,9 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
   @Override
   protected void onLoadingStateChanged(LoadingState state) {
     Widget message = tableData;
-    if (state == LoadingState.LOADING) {
-      // Loading indicator.
+    if (state == LoadingState.LOADING && (!virtualScrolling || getRowCount() == 0)) {
+      // Loading indicator. When scrolling virtually, the rows stay in place
+      // while the next rows load, so that the scroll position is kept.
       message = loadingIndicatorContainer;
     } else if (state == LoadingState.LOADED && getPresenter().isEmpty()) {
       // Empty table.
@@ -868,4 +983,61 @@ public class DataGrid<T> extends AbstractCellTable<T> implements RequiresResize
     tableData.hideUnusedColumns(columnCount);
     tableFooter.hideUnusedColumns(columnCount);
   }
+
+  int getVirtualRowHeight() {
+    return virtualRowHeight;
+  }
+
+  /**
+   * Measures the average height of the rendered rows.
+   */
+  private void measureVirtualRowHeight() {
+    int rowCount = tableData.section.getRows().getLength();
+    int height = tableData.section.getOffsetHeight();
+    if (rowCount > 0 && height > 0) {
+      virtualRowHeight = Math.max(1, Math.round((float) height / rowCount));
+    }
+  }
+
+  /**
+   * Moves the visible range to the rows around the viewport if the viewport
+   * has scrolled out of the rendered rows.
+   */
+  private void updateVirtualRange() {
+    int viewportHeight = tableDataScroller.getOffsetHeight();
+    // Assume a page of the default size until the grid is laid out.
+    int viewportRows = viewportHeight > 0
+        ? (viewportHeight + virtualRowHeight - 1) / virtualRowHeight : DEFAULT_PAGESIZE;
+    int firstRow = tableDataScroller.getVerticalScrollPosition() / virtualRowHeight;
+    int lastRow = firstRow + viewportRows;
+    if (isRowCountExact()) {
+      lastRow = Math.min(lastRow, getRowCount());
+      firstRow = Math.max(0, Math.min(firstRow, lastRow - viewportRows));
+    }
+
+    int windowRows = viewportRows + 2 * VIRTUAL_SCROLLING_BUFFER_ROWS;
+    Range range = getVisibleRange();
+    if (firstRow >= range.getStart() && lastRow <= range.getStart() + range.getLength()
+        && range.getLength() <= windowRows) {
+      return;
+    }
+    isUpdatingVirtualRange = true;
+    try {
+      setVisibleRange(Math.max(0, firstRow - VIRTUAL_SCROLLING_BUFFER_ROWS), windowRows);
+    } finally {
+      isUpdatingVirtualRange = false;
+    }
+    updateVirtualSpacers();
+  }
+
+  /**
+   * Pads the rendered rows so that they are positioned in a scroll area as
+   * tall as all rows.
+   */
+  private void updateVirtualSpacers() {
+    Range range = getVisibleRange();
+    int rowsBelow = Math.max(0, getRowCount() - range.getStart() - range.getLength());
+    tableDataContainer.getStyle().setPaddingTop(range.getStart() * virtualRowHeight, Unit.PX);
+    tableDataContainer.getStyle().setPaddingBottom(rowsBelow * virtualRowHeight, Unit.PX);
+  }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.client.rpc;
+
+/**
+ * An interface implemented by client-side RPC proxy objects. Cast the object
+ * returned from {@link com.google.gwt.core.client.GWT#create(Class)} on a
+ * {@link RemoteService} to this interface to send the calls made through it in
+ * the same event loop turn as a single HTTP request.
+ * <p>
+ * The calls of a batch are sent when the current event loop turn ends, with
+ * the {@value RpcRequestBuilder#BATCH_HEADER} header, and
+ * {@link com.google.gwt.user.server.rpc.RemoteServiceServlet} processes them
+ * one by one, as if they had been sent separately: each one is checked against
+ * its serialization policy, and a call which fails does not affect the others.
+ * Each callback receives the result of its own call. A batch holding a single
+ * call is sent as a regular request. Methods whose asynchronous version
+ * returns a {@link com.google.gwt.http.client.RequestBuilder} are never
+ * batched.
+ * </p>
+ * <p>
+ * Batching is disabled by default. Only enable it for services served by a
+ * {@code RemoteServiceServlet} which understands the batch header: other
+ * servers would reject a batch as a malformed call.
+ * </p>
+ */
+public interface HasRpcBatching {
+
+  /**
+   * Returns whether the calls made in the same event loop turn are sent as a
+   * single request.
+   */
+  boolean isRpcBatchingEnabled();
+
+  /**
+   * Sets whether the calls made in the same event loop turn are sent as a
+   * single request. Calls which are already waiting for the end of the turn
+   * are sent together even if batching is disabled meanwhile.
+   */
+  void setRpcBatchingEnabled(boolean enabled);
+}
@@ -27,6 +27,17 @@ import com.google.gwt.http.client.RequestCallback;
  * {@link ServiceDefTarget#setRpcRequestBuilder}.
  */
 public class RpcRequestBuilder {
+  /**
+   * Set by RPC proxies on requests which carry several calls, to the number of
+   * calls.
+   *
+   * @see HasRpcBatching
+   */
+  /*
+   * NB: Also used by RemoteServiceServlet.
+   */
+  public static final String BATCH_HEADER = "X-GWT-RPC-Batch";
+
   /**
    * Used by {@link #doSetContentType}.
    */
@@ -16,11 +16,14 @@
 package com.google.gwt.user.client.rpc.impl;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.http.client.Request;
 import com.google.gwt.http.client.RequestBuilder;
 import com.google.gwt.http.client.RequestCallback;
 import com.google.gwt.http.client.RequestException;
 import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.gwt.user.client.rpc.HasRpcBatching;
 import com.google.gwt.user.client.rpc.HasRpcToken;
 import com.google.gwt.user.client.rpc.InvocationException;
 import com.google.gwt.user.client.rpc.RpcRequestBuilder;
@@ -31,8 +34,11 @@ import com.google.gwt.user.client.rpc.SerializationStreamFactory;
 import com.google.gwt.user.client.rpc.SerializationStreamReader;
 import com.google.gwt.user.client.rpc.SerializationStreamWriter;
 import com.google.gwt.user.client.rpc.ServiceDefTarget;
+import com.google.gwt.user.client.rpc.impl.RequestBatch.BatchedRequest;
 import com.google.gwt.user.client.rpc.impl.RequestCallbackAdapter.ResponseReader;
 
+import java.util.List;
+
 /**
  * Superclass for client-side
  * {@link com.google.gwt.user.client.rpc.RemoteService RemoteService} proxies.
@@ -40,7 +46,7 @@ import com.google.gwt.user.client.rpc.impl.RequestCallbackAdapter.ResponseReader
  * For internal use only.
  */
 public abstract class RemoteServiceProxy implements SerializationStreamFactory,
-    ServiceDefTarget, HasRpcToken {
+    ServiceDefTarget, HasRpcToken, HasRpcBatching {
 
   /**
    * The content type to be used in HTTP requests.
@@ -203,6 +209,14 @@ public abstract class RemoteServiceProxy implements SerializationStreamFactory,
    */
   private final String moduleBaseURL;
 
+  /**
+   * The calls waiting for the end of the event loop turn to be sent, if
+   * batching is enabled.
+   */
+  private RequestBatch pendingBatch;
+
+  private boolean rpcBatchingEnabled;
+
   /**
    * URL of the {@link com.google.gwt.user.client.rpc.RemoteService
    * RemoteService}.
@@ -305,6 +319,20 @@ public abstract class RemoteServiceProxy implements SerializationStreamFactory,
     return remoteServiceURL;
   }
 
+  /**
+   * @see HasRpcBatching#isRpcBatchingEnabled()
+   */
+  public boolean isRpcBatchingEnabled() {
+    return rpcBatchingEnabled;
+  }
+
+  /**
+   * @see HasRpcBatching#setRpcBatchingEnabled(boolean)
+   */
+  public void setRpcBatchingEnabled(boolean enabled) {
+    this.rpcBatchingEnabled = enabled;
+  }
+
   public void setRpcRequestBuilder(RpcRequestBuilder builder) {
     this.rpcRequestBuilder = builder;
   }
@@ -365,6 +393,11 @@ public abstract class RemoteServiceProxy implements SerializationStreamFactory,
       String methodName, RpcStatsContext statsContext, String requestData,
       AsyncCallback<T> callback) {
 
+    if (rpcBatchingEnabled) {
+      return doInvokeBatched(responseReader, methodName, statsContext,
+          requestData, callback);
+    }
+
     RequestBuilder rb = doPrepareRequestBuilderImpl(responseReader, methodName,
         statsContext, requestData, callback);
 
@@ -409,6 +442,40 @@ public abstract class RemoteServiceProxy implements SerializationStreamFactory,
     return rb;
   }
 
+  /**
+   * Adds a remote service method invocation to the calls to be sent at the end
+   * of the current event loop turn, starting a new batch if there is none yet
+   * for the current service entry point.
+   */
+  private <T> Request doInvokeBatched(ResponseReader responseReader,
+      String methodName, RpcStatsContext statsContext, String requestData,
+      AsyncCallback<T> callback) {
+
+    if (getServiceEntryPoint() == null) {
+      throw new NoServiceEntryPointSpecifiedException();
+    }
+
+    if (pendingBatch == null
+        || !pendingBatch.getServiceEntryPoint().equals(getServiceEntryPoint())) {
+      final RequestBatch batch = new RequestBatch(getServiceEntryPoint());
+      pendingBatch = batch;
+      Scheduler.get().scheduleFinally(new ScheduledCommand() {
+        @Override
+        public void execute() {
+          if (pendingBatch == batch) {
+            pendingBatch = null;
+          }
+          sendBatch(batch);
+        }
+      });
+    }
+
+    RequestCallback responseHandler = doCreateRequestCallback(responseReader,
+        methodName, statsContext, callback);
+    return pendingBatch.add(methodName, statsContext, requestData,
+        responseHandler);
+  }
+
   /**
    * Configures a RequestBuilder to send an RPC request.
    *
@@ -448,4 +515,51 @@ public abstract class RemoteServiceProxy implements SerializationStreamFactory,
       rpcRequestBuilder = new RpcRequestBuilder();
     }
   }
+
+  /**
+   * Sends the calls of a batch which have not been canceled, on their own if
+   * there is only one.
+   */
+  private void sendBatch(RequestBatch batch) {
+    List<BatchedRequest> requests = batch.getRequests();
+    if (requests.isEmpty()) {
+      return;
+    }
+
+    BatchedRequest first = requests.get(0);
+    String requestData = requests.size() == 1 ? first.getRequestData()
+        : batch.getRequestData();
+
+    ensureRpcRequestBuilder();
+    rpcRequestBuilder.create(batch.getServiceEntryPoint());
+    rpcRequestBuilder.setCallback(requests.size() == 1 ? first.getCallback() : batch);
+    rpcRequestBuilder.setContentType(RPC_CONTENT_TYPE);
+    rpcRequestBuilder.setRequestData(requestData);
+    rpcRequestBuilder.setRequestId(first.getStatsContext().getRequestId());
+    RequestBuilder rb = rpcRequestBuilder.finish();
+    if (requests.size() > 1) {
+      rb.setHeader(RpcRequestBuilder.BATCH_HEADER, String.valueOf(requests.size()));
+    }
+
+    try {
+      Request sent = rb.send();
+      if (requests.size() == 1) {
+        first.setSent(sent);
+      }
+    } catch (RequestException ex) {
+      String invocation = requests.size() == 1 ? first.getMethodName()
+          : requests.size() + " batched calls";
+      batch.onError(null, new InvocationException(
+          "Unable to initiate the asynchronous service invocation ("
+          + invocation + ") -- check the network connection", ex));
+    } finally {
+      for (BatchedRequest request : requests) {
+        RpcStatsContext statsContext = request.getStatsContext();
+        if (statsContext.isStatsAvailable()) {
+          statsContext.stats(statsContext.bytesStat(request.getMethodName(),
+              request.getRequestData().length(), "requestSent"));
+        }
+      }
+    }
+  }
 }
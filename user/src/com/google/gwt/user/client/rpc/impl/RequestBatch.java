@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.client.rpc.impl;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.http.client.Header;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The calls made through a {@link RemoteServiceProxy} with batching enabled,
+ * waiting to be sent as a single request, and the callback which dispatches
+ * the parts of the response to the callbacks of the calls.
+ *
+ * @see RpcBatch
+ */
+class RequestBatch implements RequestCallback {
+
+  /**
+   * A call of a batch, returned to the caller so that it can be canceled.
+   */
+  static class BatchedRequest extends Request {
+    private final RequestCallback callback;
+    private final String methodName;
+    private final String requestData;
+    private final RpcStatsContext statsContext;
+
+    /**
+     * The request the call was sent with, when it was sent on its own.
+     */
+    private Request sent;
+
+    private boolean pending = true;
+
+    BatchedRequest(String methodName, RpcStatsContext statsContext,
+        String requestData, RequestCallback callback) {
+      this.methodName = methodName;
+      this.statsContext = statsContext;
+      this.requestData = requestData;
+      this.callback = callback;
+    }
+
+    /**
+     * Cancels the call. If it was sent with other calls, the request is not
+     * aborted, but the response to the call is ignored.
+     */
+    @Override
+    public void cancel() {
+      pending = false;
+      if (sent != null) {
+        sent.cancel();
+      }
+    }
+
+    @Override
+    public boolean isPending() {
+      return sent == null ? pending : sent.isPending();
+    }
+
+    String getMethodName() {
+      return methodName;
+    }
+
+    String getRequestData() {
+      return requestData;
+    }
+
+    RequestCallback getCallback() {
+      return callback;
+    }
+
+    RpcStatsContext getStatsContext() {
+      return statsContext;
+    }
+
+    void setSent(Request sent) {
+      this.sent = sent;
+    }
+  }
+
+  /**
+   * The response to one call of a batch.
+   */
+  private static class PartResponse extends Response {
+    private final Response batchResponse;
+    private final int statusCode;
+    private final String text;
+
+    PartResponse(Response batchResponse, int statusCode, String text) {
+      this.batchResponse = batchResponse;
+      this.statusCode = statusCode;
+      this.text = text;
+    }
+
+    @Override
+    public String getHeader(String header) {
+      return batchResponse.getHeader(header);
+    }
+
+    @Override
+    public Header[] getHeaders() {
+      return batchResponse.getHeaders();
+    }
+
+    @Override
+    public String getHeadersAsString() {
+      return batchResponse.getHeadersAsString();
+    }
+
+    @Override
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+      return statusCode == batchResponse.getStatusCode() ? batchResponse.getStatusText() : "";
+    }
+
+    @Override
+    public String getText() {
+      return text;
+    }
+  }
+
+  private final List<BatchedRequest> requests = new ArrayList<BatchedRequest>();
+
+  private final String serviceEntryPoint;
+
+  RequestBatch(String serviceEntryPoint) {
+    this.serviceEntryPoint = serviceEntryPoint;
+  }
+
+  /**
+   * Adds a call to the batch.
+   */
+  BatchedRequest add(String methodName, RpcStatsContext statsContext,
+      String requestData, RequestCallback callback) {
+    BatchedRequest request = new BatchedRequest(methodName, statsContext, requestData,
+        callback);
+    requests.add(request);
+    return request;
+  }
+
+  /**
+   * Returns the encoded payloads of the calls, in the order of
+   * {@link #getRequests()}.
+   */
+  String getRequestData() {
+    StringBuilder data = new StringBuilder();
+    for (BatchedRequest request : requests) {
+      RpcBatch.appendPart(data, request.getRequestData());
+    }
+    return data.toString();
+  }
+
+  /**
+   * Returns the calls which have not been canceled yet, and forgets the
+   * others.
+   */
+  List<BatchedRequest> getRequests() {
+    for (int i = requests.size() - 1; i >= 0; i--) {
+      if (!requests.get(i).pending) {
+        requests.remove(i);
+      }
+    }
+    return requests;
+  }
+
+  String getServiceEntryPoint() {
+    return serviceEntryPoint;
+  }
+
+  @Override
+  public void onError(Request request, Throwable exception) {
+    for (BatchedRequest call : requests) {
+      if (call.pending) {
+        call.pending = false;
+        try {
+          call.callback.onError(call, exception);
+        } catch (Throwable e) {
+          GWT.reportUncaughtException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onResponseReceived(Request request, Response response) {
+    String text = response.getText();
+    if (response.getStatusCode() != Response.SC_OK || text == null) {
+      // The request as a whole failed, and so did each of the calls
+      for (BatchedRequest call : requests) {
+        dispatch(call, response);
+      }
+      return;
+    }
+
+    List<String> parts;
+    try {
+      parts = RpcBatch.split(text);
+      if (parts.size() != 2 * requests.size()) {
+        throw new SerializationException("Expected the responses to " + requests.size()
+            + " calls, got " + parts.size() + " parts");
+      }
+    } catch (SerializationException e) {
+      onError(request, new InvocationException("Malformed batched response", e));
+      return;
+    }
+
+    for (int i = 0; i < requests.size(); i++) {
+      int statusCode;
+      try {
+        statusCode = Integer.parseInt(parts.get(2 * i));
+      } catch (NumberFormatException e) {
+        statusCode = Response.SC_INTERNAL_SERVER_ERROR;
+      }
+      dispatch(requests.get(i), new PartResponse(response, statusCode, parts.get(2 * i + 1)));
+    }
+  }
+
+  /**
+   * Passes a response to the callback of a call which is still pending, so that
+   * a callback which throws does not prevent the others from running.
+   */
+  private void dispatch(BatchedRequest call, Response response) {
+    if (call.pending) {
+      call.pending = false;
+      try {
+        call.callback.onResponseReceived(call, response);
+      } catch (Throwable e) {
+        GWT.reportUncaughtException(e);
+      }
+    }
+  }
+}
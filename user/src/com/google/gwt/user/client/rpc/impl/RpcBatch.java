@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.client.rpc.impl;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes the payloads of several RPC calls into a single string and back, for
+ * requests sent with the
+ * {@value com.google.gwt.user.client.rpc.RpcRequestBuilder#BATCH_HEADER}
+ * header. Each part is written as its length in characters, a colon and the
+ * part itself.
+ * <p>
+ * A batched request holds one part per call. The response holds two parts per
+ * call, in the same order: the status code the call would have been answered
+ * with on its own, and its response payload.
+ * </p>
+ *
+ * For internal use only.
+ */
+public final class RpcBatch {
+
+  /**
+   * Appends a part to an encoded batch.
+   */
+  public static void appendPart(StringBuilder batch, String part) {
+    batch.append(part.length()).append(':').append(part);
+  }
+
+  /**
+   * Splits an encoded batch into its parts.
+   *
+   * @throws SerializationException if the batch is malformed
+   */
+  public static List<String> split(String batch) throws SerializationException {
+    List<String> parts = new ArrayList<String>();
+    int pos = 0;
+    while (pos < batch.length()) {
+      int colon = batch.indexOf(':', pos);
+      if (colon < 0) {
+        throw new SerializationException("Missing part length at " + pos);
+      }
+      int length;
+      try {
+        length = Integer.parseInt(batch.substring(pos, colon));
+      } catch (NumberFormatException e) {
+        throw new SerializationException("Malformed part length at " + pos);
+      }
+      if (length < 0 || length > batch.length() - colon - 1) {
+        throw new SerializationException("Part length out of bounds at " + pos);
+      }
+      pos = colon + 1 + length;
+      parts.add(batch.substring(colon + 1, pos));
+    }
+    return parts;
+  }
+
+  private RpcBatch() {
+  }
+}
@@ -50,6 +50,7 @@ class BlacklistTypeFilter implements TypeFilter {
   }
 
   private final RpcBlacklist blacklist;
+  private final List<String> blacklistEntries;
   private TreeLogger logger;
 
   public BlacklistTypeFilter(TreeLogger logger, PropertyOracle propertyOracle)
@@ -63,7 +64,15 @@ class BlacklistTypeFilter implements TypeFilter {
     }
 
     this.logger = logger.branch(TreeLogger.DEBUG, "Analyzing RPC blacklist information");
-    blacklist = new RpcBlacklist(logger, prop.getValues());
+    blacklistEntries = prop.getValues();
+    blacklist = new RpcBlacklist(logger, blacklistEntries);
+  }
+
+  /**
+   * Returns a description that is equal for filters with the same blacklist.
+   */
+  public String getDescription() {
+    return getName() + blacklistEntries;
   }
 
   public String getName() {
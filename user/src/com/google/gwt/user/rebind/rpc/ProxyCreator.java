@@ -109,6 +109,13 @@ public class ProxyCreator {
 
   private static final String PROXY_SUFFIX = "_Proxy";
 
+  /**
+   * Whether the serializable types reachable from a root type are computed
+   * once for all the services of a compilation.
+   */
+  private static final boolean SHARE_TYPE_ANALYSES =
+      Boolean.parseBoolean(System.getProperty("gwt.rpc.shareTypeAnalyses", "true"));
+
   private static final Map<JPrimitiveType, ResponseReader> JPRIMITIVETYPE_TO_RESPONSEREADER =
       new HashMap<JPrimitiveType, ResponseReader>();
   static {
@@ -279,7 +286,7 @@ public class ProxyCreator {
     final PropertyOracle propertyOracle = context.getPropertyOracle();
 
     // Load the blacklist/whitelist
-    TypeFilter blacklistTypeFilter = new BlacklistTypeFilter(logger, propertyOracle);
+    BlacklistTypeFilter blacklistTypeFilter = new BlacklistTypeFilter(logger, propertyOracle);
 
     // Determine the set of serializable types
     Event event = SpeedTracerLogger.start(CompilerEventType.GENERATOR_RPC_STOB);
@@ -293,6 +300,11 @@ public class ProxyCreator {
       SerializableTypeOracleBuilder typesSentToBrowserBuilder =
           new SerializableTypeOracleBuilder(logger, context);
       typesSentToBrowserBuilder.setTypeFilter(blacklistTypeFilter);
+      if (SHARE_TYPE_ANALYSES) {
+        // Services that send the same types only analyze them once.
+        typesSentFromBrowserBuilder.setSharedAnalysisKey(blacklistTypeFilter.getDescription());
+        typesSentToBrowserBuilder.setSharedAnalysisKey(blacklistTypeFilter.getDescription());
+      }
 
       addRoots(logger, typeOracle, typesSentFromBrowserBuilder, typesSentToBrowserBuilder);
 
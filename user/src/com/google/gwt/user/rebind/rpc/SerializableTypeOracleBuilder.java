@@ -30,6 +30,8 @@ import com.google.gwt.core.ext.typeinfo.JWildcardType;
 import com.google.gwt.core.ext.typeinfo.NotFoundException;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
+import com.google.gwt.thirdparty.guava.common.cache.Cache;
+import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
 import com.google.gwt.user.client.rpc.GwtTransient;
 import com.google.gwt.user.client.rpc.IsSerializable;
 import com.google.gwt.user.rebind.rpc.ProblemReport.Priority;
@@ -55,6 +57,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Builds a {@link SerializableTypeOracle} for a given set of root types.
@@ -113,6 +119,40 @@ import java.util.TreeSet;
  */
 public class SerializableTypeOracleBuilder {
 
+  /**
+   * The outcome of analyzing a single root type on its own: the information
+   * computed for every type reached from it and the problems found on the way.
+   * Once published it is never modified, so builders merge copies of its
+   * {@link TypeInfoComputed}s.
+   */
+  static class RootAnalysis {
+    private final ProblemReport problems;
+    private final boolean succeeded;
+    private final Map<JType, TypeInfoComputed> typeToTypeInfoComputed;
+
+    RootAnalysis(Map<JType, TypeInfoComputed> typeToTypeInfoComputed, ProblemReport problems,
+        boolean succeeded) {
+      this.typeToTypeInfoComputed = typeToTypeInfoComputed;
+      this.problems = problems;
+      this.succeeded = succeeded;
+    }
+
+    /**
+     * Adds the types reached from the root to a builder's map, joining the
+     * information of types that are already there.
+     */
+    void mergeInto(Map<JType, TypeInfoComputed> target) {
+      for (Entry<JType, TypeInfoComputed> entry : typeToTypeInfoComputed.entrySet()) {
+        TypeInfoComputed existing = target.get(entry.getKey());
+        if (existing == null) {
+          target.put(entry.getKey(), new TypeInfoComputed(entry.getValue()));
+        } else {
+          existing.join(entry.getValue());
+        }
+      }
+    }
+  }
+
   static class TypeInfoComputed {
 
     /**
@@ -164,6 +204,22 @@ public class SerializableTypeOracleBuilder {
      */
     private final JType type;
 
+    /**
+     * Copy constructor.
+     */
+    private TypeInfoComputed(TypeInfoComputed other) {
+      this.fieldSerializable = other.fieldSerializable;
+      this.instantiable = other.instantiable;
+      this.instantiableSubtypes = other.instantiableSubtypes;
+      this.instantiableTypes = other.instantiableTypes == null ? null
+          : new HashSet<JClassType>(other.instantiableTypes);
+      this.manualSerializer = other.manualSerializer;
+      this.maybeEnhanced = other.maybeEnhanced;
+      this.path = other.path;
+      this.state = other.state;
+      this.type = other.type;
+    }
+
     private TypeInfoComputed(JType type, TypePath path, TypeOracle typeOracle) {
       this.type = type;
       this.path = path;
@@ -232,6 +288,26 @@ public class SerializableTypeOracleBuilder {
     public void setPendingInstantiable() {
       state = TypeState.CHECK_IN_PROGRESS;
     }
+
+    /**
+     * Joins the information computed for the same type by the analysis of
+     * another root.
+     */
+    private void join(TypeInfoComputed other) {
+      assert type == other.type;
+      fieldSerializable |= other.fieldSerializable;
+      instantiable |= other.instantiable;
+      instantiableSubtypes |= other.instantiableSubtypes;
+      if (other.instantiableTypes != null) {
+        if (instantiableTypes == null) {
+          instantiableTypes = new HashSet<JClassType>();
+        }
+        instantiableTypes.addAll(other.instantiableTypes);
+      }
+      if (other.state == TypeState.CHECK_DONE) {
+        state = TypeState.CHECK_DONE;
+      }
+    }
   }
 
   private enum TypeState {
@@ -304,6 +380,14 @@ public class SerializableTypeOracleBuilder {
    */
   private static Class<? extends Annotation> JPA_ENTITY_ANNOTATION = null;
 
+  /**
+   * Analyses of single root types, by type oracle and then by a description
+   * of the settings and the number of types they were computed with. See
+   * {@link #setSharedAnalysisKey(String)}.
+   */
+  private static final Cache<TypeOracle, ConcurrentMap<String, ConcurrentMap<JClassType, RootAnalysis>>>
+      sharedRootAnalyses = CacheBuilder.newBuilder().weakKeys().build();
+
   static {
     try {
       JDO_PERSISTENCE_CAPABLE_ANNOTATION =
@@ -720,6 +804,12 @@ public class SerializableTypeOracleBuilder {
    */
   private Set<JTypeParameter> typeParametersInRootTypes = new HashSet<JTypeParameter>();
 
+  /**
+   * Analyses of single root types shared with other builders, or
+   * <code>null</code> if every root is analyzed by this builder.
+   */
+  private ConcurrentMap<JClassType, RootAnalysis> rootAnalyses;
+
   /**
    * Map of {@link JType} to {@link TypeInfoComputed}.
    */
@@ -753,6 +843,21 @@ public class SerializableTypeOracleBuilder {
     enhancedClasses = Shared.getEnhancedTypes(context.getPropertyOracle());
   }
 
+  /**
+   * Creates a builder that analyzes a single root type with the settings of
+   * another one.
+   */
+  private SerializableTypeOracleBuilder(SerializableTypeOracleBuilder other) {
+    this.collectionClass = other.collectionClass;
+    this.context = other.context;
+    this.enhancedClasses = other.enhancedClasses;
+    this.mapClass = other.mapClass;
+    this.typeConstrainer = other.typeConstrainer;
+    this.typeFilter = other.typeFilter;
+    this.typeOracle = other.typeOracle;
+    this.typeParameterExposureComputer = other.typeParameterExposureComputer;
+  }
+
   public void addRootType(TreeLogger logger, JType type) {
     if (type.isPrimitive() != null) {
       return;
@@ -786,12 +891,24 @@ public class SerializableTypeOracleBuilder {
 
     boolean allSucceeded = true;
 
+    // Type parameters of the roots make their analyses specific to this builder.
+    boolean shareRootAnalyses = rootAnalyses != null && typeParametersInRootTypes.isEmpty();
+
     for (Entry<JClassType, TreeLogger> entry : rootTypes.entrySet()) {
-      ProblemReport problems = new ProblemReport();
-      problems.setContextType(entry.getKey());
-      boolean entrySucceeded =
-          computeTypeInstantiability(entry.getValue(), entry.getKey(),
-              TypePaths.createRootPath(entry.getKey()), problems).hasInstantiableSubtypes();
+      ProblemReport problems;
+      boolean entrySucceeded;
+      if (shareRootAnalyses) {
+        RootAnalysis analysis = getRootAnalysis(entry.getValue(), entry.getKey());
+        analysis.mergeInto(typeToTypeInfoComputed);
+        problems = analysis.problems;
+        entrySucceeded = analysis.succeeded;
+      } else {
+        problems = new ProblemReport();
+        problems.setContextType(entry.getKey());
+        entrySucceeded =
+            computeTypeInstantiability(entry.getValue(), entry.getKey(),
+                TypePaths.createRootPath(entry.getKey()), problems).hasInstantiableSubtypes();
+      }
       if (!entrySucceeded) {
         if (!problems.hasFatalProblems()) {
           logger.log(TreeLogger.ERROR, "'" + entry.getKey().getQualifiedSourceName() +
@@ -886,6 +1003,53 @@ public class SerializableTypeOracleBuilder {
     this.logOutputWriter = logOutputWriter;
   }
 
+  /**
+   * Shares the analysis of each root type with the other builders for the same
+   * type oracle that are given the same key, so that the types reachable from a
+   * root used by several services are only walked once. The key must describe
+   * the {@link TypeFilter} set on this builder; the settings read from the
+   * generator context and the number of types in the type oracle are added to
+   * it here, so that the analyses are not shared once generated types have been
+   * added.
+   *
+   * <p>
+   * Each root is then analyzed on its own and the results of the roots are
+   * joined, which is independent of the order in which roots are added.
+   * Builders whose roots contain type parameters do not share analyses.
+   * </p>
+   */
+  public void setSharedAnalysisKey(String typeFilterKey) {
+    /*
+     * Generators add types to the type oracle during a compile, and a root
+     * analyzed before may have new subtypes since. Types are only ever added,
+     * so their count tells the states of the type oracle apart.
+     */
+    String key = typeFilterKey + ";serializeFinalFields="
+        + Shared.shouldSerializeFinalFields(TreeLogger.NULL, context)
+        + ";types=" + typeOracle.getTypes().length;
+    ConcurrentMap<String, ConcurrentMap<JClassType, RootAnalysis>> byKey;
+    try {
+      byKey = sharedRootAnalyses.get(typeOracle,
+          new Callable<ConcurrentMap<String, ConcurrentMap<JClassType, RootAnalysis>>>() {
+            @Override
+            public ConcurrentMap<String, ConcurrentMap<JClassType, RootAnalysis>> call() {
+              return new ConcurrentHashMap<String, ConcurrentMap<JClassType, RootAnalysis>>();
+            }
+          });
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+    rootAnalyses = byKey.get(key);
+    if (rootAnalyses == null) {
+      ConcurrentMap<JClassType, RootAnalysis> newAnalyses =
+          new ConcurrentHashMap<JClassType, RootAnalysis>();
+      rootAnalyses = byKey.putIfAbsent(key, newAnalyses);
+      if (rootAnalyses == null) {
+        rootAnalyses = newAnalyses;
+      }
+    }
+  }
+
   public void setTypeFilter(TypeFilter typeFilter) {
     this.typeFilter = typeFilter;
     typeParameterExposureComputer.setTypeFilter(typeFilter);
@@ -1378,6 +1542,31 @@ public class SerializableTypeOracleBuilder {
     return typeParameterExposureComputer.computeTypeParameterExposure(type, index);
   }
 
+  /**
+   * Returns the shared analysis of a root type, analyzing the root on its own
+   * if no builder has done so yet.
+   */
+  private RootAnalysis getRootAnalysis(TreeLogger logger, JClassType root) {
+    RootAnalysis analysis = rootAnalyses.get(root);
+    if (analysis != null) {
+      if (logger.isLoggable(TreeLogger.TRACE)) {
+        logger.log(TreeLogger.TRACE, "Reusing the analysis of "
+            + root.getParameterizedQualifiedSourceName());
+      }
+      return analysis;
+    }
+
+    SerializableTypeOracleBuilder rootBuilder = new SerializableTypeOracleBuilder(this);
+    ProblemReport problems = new ProblemReport();
+    problems.setContextType(root);
+    boolean succeeded =
+        rootBuilder.computeTypeInstantiability(logger, root, TypePaths.createRootPath(root),
+            problems).hasInstantiableSubtypes();
+    analysis = new RootAnalysis(rootBuilder.typeToTypeInfoComputed, problems, succeeded);
+    RootAnalysis existing = rootAnalyses.putIfAbsent(root, analysis);
+    return existing == null ? analysis : existing;
+  }
+
   /**
    * Returns the subtypes of a given base type as parameterized by wildcards.
    */
@@ -62,7 +62,7 @@ public class RPCServletUtils {
 
   private static final String CONTENT_TYPE_APPLICATION_JSON_UTF8 = "application/json; charset=utf-8";
 
-  private static final String GENERIC_FAILURE_MSG = "The call failed on the server; see server log for details";
+  static final String GENERIC_FAILURE_MSG = "The call failed on the server; see server log for details";
 
   private static final String GWT_RPC_CONTENT_TYPE = "text/x-gwt-rpc";
 
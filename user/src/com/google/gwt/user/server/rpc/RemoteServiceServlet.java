@@ -15,11 +15,13 @@
  */
 package com.google.gwt.user.server.rpc;
 
+import static com.google.gwt.user.client.rpc.RpcRequestBuilder.BATCH_HEADER;
 import static com.google.gwt.user.client.rpc.RpcRequestBuilder.MODULE_BASE_HEADER;
 
 import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
 import com.google.gwt.user.client.rpc.RpcTokenException;
 import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.impl.RpcBatch;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,6 +29,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.ParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletConfig;
@@ -260,6 +263,47 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     return serializationPolicy;
   }
 
+  /**
+   * Process the calls of a batched request, sent by a client-side proxy with
+   * batching enabled, one at a time with {@link #processCall(String)}. Each
+   * call goes through {@link #onBeforeRequestDeserialized(String)} and
+   * {@link #onAfterResponseSerialized(String)} as if it had been sent on its
+   * own. A call which throws is logged and answered with the same generic
+   * failure response and status code as a single call would be, without
+   * affecting the other calls; {@link #doUnexpectedFailure(Throwable)} is not
+   * called for it.
+   * <p>
+   * This is public so that it can be unit tested easily without HTTP.
+   * </p>
+   *
+   * @param payload the UTF-8 request payload, encoded by {@link RpcBatch}
+   * @return the status codes and responses of the calls, encoded by
+   *         {@link RpcBatch}
+   * @throws SerializationException if the batch is malformed
+   * @see com.google.gwt.user.client.rpc.HasRpcBatching
+   */
+  public String processBatch(String payload) throws SerializationException {
+    List<String> calls = RpcBatch.split(payload);
+    StringBuilder responses = new StringBuilder();
+    for (String call : calls) {
+      int statusCode;
+      String response;
+      try {
+        onBeforeRequestDeserialized(call);
+        response = processCall(call);
+        onAfterResponseSerialized(response);
+        statusCode = HttpServletResponse.SC_OK;
+      } catch (Exception e) {
+        log("Exception while dispatching incoming batched RPC call", e);
+        response = RPCServletUtils.GENERIC_FAILURE_MSG;
+        statusCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+      }
+      RpcBatch.appendPart(responses, String.valueOf(statusCode));
+      RpcBatch.appendPart(responses, response);
+    }
+    return responses.toString();
+  }
+
   /**
    * Process a call originating from the given request. This method calls
    * {@link RemoteServiceServlet#checkPermutationStrongName()} to prevent
@@ -363,6 +407,13 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     //
     String requestPayload = readContent(request);
 
+    // Batched calls go through the same steps, one at a time.
+    //
+    if (request.getHeader(BATCH_HEADER) != null) {
+      writeResponse(request, response, processBatch(requestPayload));
+      return;
+    }
+
     // Let subclasses see the serialized request.
     //
     onBeforeRequestDeserialized(requestPayload);
@@ -54,22 +54,33 @@ public final class ServerSerializationStreamWriter extends
 
     private final StringBuffer buffer;
     private int count = 0;
+    private final int maxLength;
     private boolean needsComma = false;
     private int total = 0;
     private boolean javascript = false;
 
     public LengthConstrainedArray() {
-      buffer = new StringBuffer();
+      this(16, MAXIMUM_ARRAY_LENGTH);
     }
 
     public LengthConstrainedArray(int capacityGuess) {
+      this(capacityGuess, MAXIMUM_ARRAY_LENGTH);
+    }
+
+    /**
+     * Creates an array which is split into array literals of at most
+     * <code>maxLength</code> elements, or not at all if <code>maxLength</code>
+     * is {@link Integer#MAX_VALUE}.
+     */
+    public LengthConstrainedArray(int capacityGuess, int maxLength) {
       buffer = new StringBuffer(capacityGuess);
+      this.maxLength = maxLength;
     }
 
     public void addToken(CharSequence token) {
       total++;
-      if (count++ == MAXIMUM_ARRAY_LENGTH) {
-        if (total == MAXIMUM_ARRAY_LENGTH + 1) {
+      if (count++ == maxLength) {
+        if (total == maxLength + 1) {
           buffer.append(PRELUDE);
           javascript = true;
         } else {
@@ -106,7 +117,7 @@ public final class ServerSerializationStreamWriter extends
 
     @Override
     public String toString() {
-      if (total > MAXIMUM_ARRAY_LENGTH) {
+      if (total > maxLength) {
         return "[" + buffer.toString() + POSTLUDE;
       } else {
         return "[" + buffer.toString() + "]";
@@ -620,7 +631,7 @@ public final class ServerSerializationStreamWriter extends
     // We take a guess at how big to make to buffer to avoid numerous resizes.
     //
     int capacityGuess = 2 * tokenListCharCount + 2 * tokenList.size();
-    LengthConstrainedArray stream = new LengthConstrainedArray(capacityGuess);
+    LengthConstrainedArray stream = createArray(capacityGuess);
     writePayload(stream);
     writeStringTable(stream);
     writeHeader(stream);
@@ -857,6 +868,18 @@ public final class ServerSerializationStreamWriter extends
     }
   }
 
+  /**
+   * Creates an array for the payload or the string table. The arrays of JSON
+   * payloads are not split, which would turn them back into JavaScript: the
+   * browsers which limit the size of array literals are no longer supported,
+   * and JSON.parse never had such a limit.
+   */
+  private LengthConstrainedArray createArray(int capacityGuess) {
+    int maxLength = getVersion() >= SERIALIZATION_STREAM_JSON_VERSION
+        ? Integer.MAX_VALUE : LengthConstrainedArray.MAXIMUM_ARRAY_LENGTH;
+    return new LengthConstrainedArray(capacityGuess, maxLength);
+  }
+
   /**
    * Notice that the field are written in reverse order that the client can just
    * pop items out of the stream.
@@ -879,7 +902,7 @@ public final class ServerSerializationStreamWriter extends
   }
 
   private void writeStringTable(LengthConstrainedArray stream) {
-    LengthConstrainedArray tableStream = new LengthConstrainedArray();
+    LengthConstrainedArray tableStream = createArray(16);
     for (String s : getStringTable()) {
       tableStream.addEscapedToken(s);
     }
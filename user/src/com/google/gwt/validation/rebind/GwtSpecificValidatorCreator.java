@@ -15,8 +15,12 @@
  */
 package com.google.gwt.validation.rebind;
 
+import static com.google.gwt.dev.util.Util.computeStrongName;
+import static com.google.gwt.dev.util.Util.getBytes;
+
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.UnsafeNativeLong;
+import com.google.gwt.core.ext.BadPropertyValueException;
 import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
@@ -45,6 +49,7 @@ import com.google.gwt.thirdparty.guava.common.collect.Sets;
 import com.google.gwt.thirdparty.guava.common.primitives.Primitives;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
+import com.google.gwt.user.rebind.StringSourceWriter;
 import com.google.gwt.validation.client.impl.AbstractGwtSpecificValidator;
 import com.google.gwt.validation.client.impl.ConstraintDescriptorImpl;
 import com.google.gwt.validation.client.impl.ConstraintOrigin;
@@ -62,6 +67,7 @@ import com.google.gwt.validation.client.impl.metadata.ValidationGroupsMetadata;
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
+import java.io.PrintWriter;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.reflect.Field;
@@ -106,6 +112,22 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
 
   static final JType[] NO_ARGS = new JType[]{};
 
+  /**
+   * Configuration property which, when true, makes every distinct constraint
+   * generate one shared class which builds its descriptor, instead of each
+   * validator writing out the annotation and descriptor of every constraint it
+   * checks.
+   */
+  static final String SHARE_CONSTRAINT_DESCRIPTORS_PROPERTY =
+      "validation.shareConstraintDescriptors";
+
+  /**
+   * The package of the shared constraint descriptors of annotations in the
+   * {@code java} and {@code javax} packages.
+   */
+  private static final String SHARED_CONSTRAINT_DESCRIPTOR_PACKAGE =
+      "com.google.gwt.validation.client.constraints";
+
   private static final String DEFAULT_VIOLATION_VAR = "violations";
 
   private static final Annotation[] NO_ANNOTATIONS = new Annotation[]{};
@@ -336,6 +358,35 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     return Iterables.get(best, 0);
   }
 
+  /**
+   * Returns true if a class can be referenced from any package.
+   */
+  private static boolean isPublic(Class<?> clazz) {
+    for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the validators should share the descriptors of their
+   * constraints.
+   */
+  private static boolean isSharingConstraintDescriptors(GeneratorContext context,
+      TreeLogger logger) {
+    try {
+      List<String> values = context.getPropertyOracle().getConfigurationProperty(
+          SHARE_CONSTRAINT_DESCRIPTORS_PROPERTY).getValues();
+      return !values.isEmpty() && Boolean.parseBoolean(values.get(0));
+    } catch (BadPropertyValueException e) {
+      logger.log(TreeLogger.DEBUG, "No value found for configuration property "
+          + SHARE_CONSTRAINT_DESCRIPTORS_PROPERTY);
+      return false;
+    }
+  }
+
   private final BeanHelper beanHelper;
 
   private final Set<BeanHelper> beansToValidate = Sets.newHashSet();
@@ -348,6 +399,8 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
 
   private final Set<Class<?>> validGroups;
 
+  private final boolean shareConstraintDescriptors;
+
   private final Map<ConstraintDescriptor<?>, Boolean> validConstraintsMap = Maps.newHashMap();
 
   public GwtSpecificValidatorCreator(JClassType validatorType,
@@ -360,6 +413,7 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     Set<Class<?>> tempValidGroups = Sets.newHashSet(validGroupsFromAnnotation);
     tempValidGroups.add(Default.class);
     this.validGroups = Collections.unmodifiableSet(tempValidGroups);
+    this.shareConstraintDescriptors = isSharingConstraintDescriptors(context, logger);
   }
 
   @Override
@@ -554,6 +608,42 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     return getAnnotation(p, useField, Valid.class) != null;
   }
 
+  /**
+   * Returns true if the descriptor of a constraint can be built outside of the
+   * package of the bean, which is the case when all the classes it refers to
+   * are public.
+   */
+  private boolean isShareable(ConstraintDescriptor<?> constraint) {
+    List<Class<?>> referencedClasses = new ArrayList<Class<?>>();
+    referencedClasses.add(constraint.getAnnotation().annotationType());
+    referencedClasses.addAll(constraint.getConstraintValidatorClasses());
+    referencedClasses.addAll(constraint.getGroups());
+    referencedClasses.addAll(constraint.getPayload());
+    for (Object value : constraint.getAttributes().values()) {
+      Object[] elements = value instanceof Object[] ? (Object[]) value : new Object[] {value};
+      for (Object element : elements) {
+        if (element instanceof Class<?>) {
+          referencedClasses.add((Class<?>) element);
+        } else if (element instanceof Enum<?>) {
+          referencedClasses.add(((Enum<?>) element).getDeclaringClass());
+        } else if (element instanceof Annotation) {
+          return false;
+        }
+      }
+    }
+    for (Class<?> referencedClass : referencedClasses) {
+      if (!isPublic(referencedClass)) {
+        return false;
+      }
+    }
+    for (ConstraintDescriptor<?> composingConstraint : constraint.getComposingConstraints()) {
+      if (!isShareable(composingConstraint)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private boolean isPropertyConstrained(BeanHelper helper, PropertyDescriptor p) {
     Set<PropertyDescriptor> propertyDescriptors =
         helper.getBeanDescriptor().getConstrainedProperties();
@@ -753,12 +843,28 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     Class<? extends Annotation> annotationType =
         constraint.getAnnotation().annotationType();
 
+    if (shareConstraintDescriptors && isShareable(constraint)) {
+      // private final ConstraintDescriptorImpl<MyAnnotation> constraintDescriptor =
+      //     MyAnnotation_ConstraintDescriptor_HASH.create(elementType, origin);
+      sw.print("private final ");
+      sw.print(ConstraintDescriptorImpl.class.getCanonicalName());
+      sw.print("<");
+      sw.print(annotationType.getCanonicalName());
+      sw.println(">");
+      sw.indentln(constraintDescripotorVar + " = " + writeSharedConstraintDescriptor(constraint)
+          + ".create(" + asLiteral(elementType) + ", " + asLiteral(origin) + ");");
+      sw.println();
+      return;
+    }
+
     // First list all composing constraints
     int count = 0;
+    List<String> composingConstraints = new ArrayList<String>();
     for (ConstraintDescriptor<?> composingConstraint :
         constraint.getComposingConstraints()) {
-      writeConstraintDescriptor(sw, composingConstraint, elementType, origin,
-          constraintDescripotorVar + "_" + count++);
+      String composingVar = constraintDescripotorVar + "_" + count++;
+      writeConstraintDescriptor(sw, composingConstraint, elementType, origin, composingVar);
+      composingConstraints.add(composingVar);
     }
 
     // private final ConstraintDescriptorImpl<MyAnnotation> constraintDescriptor = ;
@@ -772,6 +878,27 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     sw.println(" " + constraintDescripotorVar + "  = ");
     sw.indent();
     sw.indent();
+    writeConstraintDescriptorBuilder(sw, constraint, null, composingConstraints,
+        asLiteral(elementType), asLiteral(origin));
+    sw.println(";");
+    sw.outdent();
+    sw.outdent();
+    sw.println();
+  }
+
+  /**
+   * Writes the expression building a constraint descriptor.
+   *
+   * @param annotation an expression for the annotation of the constraint, or
+   *          null to write the annotation in place
+   * @param composingConstraints expressions for the composing constraints
+   */
+  private void writeConstraintDescriptorBuilder(SourceWriter sw,
+      ConstraintDescriptor<? extends Annotation> constraint, String annotation,
+      List<String> composingConstraints, String elementType, String origin)
+      throws UnableToCompleteException {
+    Class<? extends Annotation> annotationType =
+        constraint.getAnnotation().annotationType();
 
     // ConstraintDescriptorImpl.<MyConstraint> builder()
     sw.print(ConstraintDescriptorImpl.class.getCanonicalName());
@@ -783,16 +910,22 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     sw.indent();
 
     // .setAnnotation(new MyAnnotation )
-    sw.println(".setAnnotation( ");
-    sw.indent();
-    sw.indent();
-    writeNewAnnotation(sw, constraint);
-    sw.println(")");
-    sw.outdent();
-    sw.outdent();
+    if (annotation != null) {
+      sw.println(".setAnnotation(" + annotation + ")");
+    } else {
+      sw.println(".setAnnotation( ");
+      sw.indent();
+      sw.indent();
+      writeNewAnnotation(sw, constraint);
+      sw.println(")");
+      sw.outdent();
+      sw.outdent();
+    }
 
     // .setAttributes(builder()
-    sw.println(".setAttributes(attributeBuilder()");
+    sw.print(".setAttributes(");
+    sw.print(AbstractGwtSpecificValidator.class.getCanonicalName());
+    sw.println(".attributeBuilder()");
     sw.indent();
 
     for (Map.Entry<String, Object> entry :
@@ -821,11 +954,10 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
         new Class[0])));
     sw.println(")");
 
-    int ccCount = constraint.getComposingConstraints().size();
-    for (int i = 0; i < ccCount; i++) {
+    for (String composingConstraint : composingConstraints) {
       // .addComposingConstraint(cX_X)
       sw.print(".addComposingConstraint(");
-      sw.print(constraintDescripotorVar + "_" + i);
+      sw.print(composingConstraint);
       sw.println(")");
     }
 
@@ -849,22 +981,18 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
 
     // .setElementType(elementType)
     sw.print(".setElementType(");
-    sw.print(asLiteral(elementType));
+    sw.print(elementType);
     sw.println(")");
 
     // .setDefinedOn(origin)
     sw.print(".setDefinedOn(");
-    sw.print(asLiteral(origin));
+    sw.print(origin);
     sw.println(")");
 
-    // .build();
-    sw.println(".build();");
-    sw.outdent();
-    sw.outdent();
-
+    // .build()
+    sw.print(".build()");
     sw.outdent();
     sw.outdent();
-    sw.println();
   }
 
   private void writeExpandDefaultAndValidate(SourceWriter sw, Stage stage) throws UnableToCompleteException {
@@ -1338,6 +1466,85 @@ public final class GwtSpecificValidatorCreator extends AbstractCreator {
     }
   }
 
+  /**
+   * Writes the class which builds the descriptors of a constraint, unless an
+   * identical constraint already wrote it, and returns its name. The class is
+   * named after the hash of its contents so that all the validators of a
+   * compile share it.
+   */
+  private String writeSharedConstraintDescriptor(
+      ConstraintDescriptor<? extends Annotation> constraint)
+      throws UnableToCompleteException {
+    Class<? extends Annotation> annotationType =
+        constraint.getAnnotation().annotationType();
+
+    List<String> composingConstraints = new ArrayList<String>();
+    for (ConstraintDescriptor<?> composingConstraint :
+        constraint.getComposingConstraints()) {
+      composingConstraints.add(writeSharedConstraintDescriptor(composingConstraint)
+          + ".create(elementType, definedOn)");
+    }
+
+    StringSourceWriter body = new StringSourceWriter();
+    // public static final MyAnnotation ANNOTATION = new MyAnnotation(){ ... };
+    body.print("public static final ");
+    body.print(annotationType.getCanonicalName());
+    body.println(" ANNOTATION =");
+    body.indent();
+    body.indent();
+    writeNewAnnotation(body, constraint);
+    body.println(";");
+    body.outdent();
+    body.outdent();
+    body.println();
+
+    // public static ConstraintDescriptorImpl<MyAnnotation> create(
+    //     ElementType elementType, ConstraintOrigin definedOn) {
+    body.print("public static ");
+    body.print(ConstraintDescriptorImpl.class.getCanonicalName());
+    body.print("<");
+    body.print(annotationType.getCanonicalName());
+    body.println("> create(");
+    body.indent();
+    body.indent();
+    body.print(ElementType.class.getCanonicalName());
+    body.print(" elementType, ");
+    body.print(ConstraintOrigin.class.getCanonicalName());
+    body.println(" definedOn) {");
+    body.outdent();
+    body.outdent();
+    body.indent();
+    body.print("return ");
+    writeConstraintDescriptorBuilder(body, constraint, "ANNOTATION",
+        composingConstraints, "elementType", "definedOn");
+    body.println(";");
+    body.outdent();
+    body.println("}");
+
+    String source = body.toString();
+    String annotationPackage = annotationType.getPackage() == null
+        ? "" : annotationType.getPackage().getName();
+    String packageName = annotationPackage;
+    if (packageName.startsWith("java.") || packageName.startsWith("javax.")) {
+      packageName = SHARED_CONSTRAINT_DESCRIPTOR_PACKAGE;
+    }
+    String simpleName = annotationType.getCanonicalName().substring(
+        annotationPackage.isEmpty() ? 0 : annotationPackage.length() + 1).replace('.', '_')
+        + "_ConstraintDescriptor_"
+        + computeStrongName(getBytes(source));
+
+    PrintWriter printWriter = context.tryCreate(logger, packageName, simpleName);
+    if (printWriter != null) {
+      ClassSourceFileComposerFactory composerFactory =
+          new ClassSourceFileComposerFactory(packageName, simpleName);
+      addImports(composerFactory, Annotation.class);
+      SourceWriter sw = composerFactory.createSourceWriter(context, printWriter);
+      sw.println(source);
+      sw.commit(logger);
+    }
+    return packageName + "." + simpleName;
+  }
+
   private void writeValidateAllNonInheritedProperties(SourceWriter sw) {
     // private <T> void validateAllNonInheritedProperties(
     sw.println("private <T> void validateAllNonInheritedProperties(");
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.view.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A concrete subclass of {@link AbstractDataProvider} that is backed by an
+ * in-memory collection of items, identified by their keys, which the displays
+ * see sorted and filtered.
+ *
+ * <p>
+ * Unlike {@link ListDataProvider}, the items are kept in sort order as they are
+ * added, updated and removed, and the filtered view is maintained as they
+ * change. When changes are flushed, each display is only sent the rows of its
+ * visible range which show another item than before, or an item which was
+ * added again, so updating an item in place redraws just its row. Rows after
+ * an inserted or removed item show the next or previous item, so those in the
+ * visible range are redrawn too.
+ * </p>
+ *
+ * <p>
+ * Items equal according to the comparator, or all items if there is no
+ * comparator, are kept in the order in which they were first added.
+ * </p>
+ *
+ * @param <T> the data type of the items
+ */
+public class IndexedListDataProvider<T> extends AbstractDataProvider<T> {
+
+  /**
+   * Selects the items which are shown by the displays.
+   *
+   * @param <T> the data type of the items
+   */
+  public interface Filter<T> {
+    /**
+     * Returns true if the item should be shown.
+     *
+     * @param item the item
+     * @return true to show the item
+     */
+    boolean accept(T item);
+  }
+
+  /**
+   * An item and the order in which it was first added.
+   */
+  private static class Entry<T> {
+    /**
+     * True if the item was added again since the last flush.
+     */
+    private boolean changed;
+    private T item;
+    private final int sequence;
+
+    public Entry(T item, int sequence) {
+      this.item = item;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * The rows last pushed to a display.
+   */
+  private static class PushedRows<T> {
+    private final List<Entry<T>> entries;
+    private final int start;
+
+    public PushedRows(int start, List<Entry<T>> entries) {
+      this.start = start;
+      this.entries = entries;
+    }
+  }
+
+  /**
+   * All entries, in sort order.
+   */
+  private final List<Entry<T>> all = new ArrayList<Entry<T>>();
+
+  /**
+   * The entries whose changed flag is set.
+   */
+  private final List<Entry<T>> changedEntries = new ArrayList<Entry<T>>();
+
+  private Comparator<? super T> comparator;
+
+  private final Map<Object, Entry<T>> entriesByKey = new HashMap<Object, Entry<T>>();
+
+  private Filter<? super T> filter;
+
+  private boolean flushCancelled;
+
+  private final ScheduledCommand flushCommand = new ScheduledCommand() {
+    @Override
+    public void execute() {
+      flushPending = false;
+      if (flushCancelled) {
+        flushCancelled = false;
+        return;
+      }
+      flush();
+    }
+  };
+
+  private boolean flushPending;
+
+  private boolean modified;
+
+  private int nextSequence;
+
+  /**
+   * The rows last pushed to each display.
+   */
+  private final Map<HasData<T>, PushedRows<T>> pushedRows =
+      new HashMap<HasData<T>, PushedRows<T>>();
+
+  /**
+   * The number of rows last pushed to the displays.
+   */
+  private int pushedSize;
+
+  private final Comparator<Entry<T>> order = new Comparator<Entry<T>>() {
+    @Override
+    public int compare(Entry<T> a, Entry<T> b) {
+      if (comparator != null) {
+        int result = comparator.compare(a.item, b.item);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+    }
+  };
+
+  /**
+   * The entries which pass the filter, in sort order.
+   */
+  private final List<Entry<T>> view = new ArrayList<Entry<T>>();
+
+  private final List<T> viewItems = new AbstractList<T>() {
+    @Override
+    public T get(int index) {
+      return view.get(index).item;
+    }
+
+    @Override
+    public int size() {
+      return view.size();
+    }
+  };
+
+  /**
+   * Creates an empty data provider.
+   */
+  public IndexedListDataProvider() {
+    this(null);
+  }
+
+  /**
+   * Creates an empty data provider.
+   *
+   * @param keyProvider an instance of ProvidesKey<T>, or null if the item
+   *        should act as its own key
+   */
+  public IndexedListDataProvider(ProvidesKey<T> keyProvider) {
+    super(keyProvider);
+  }
+
+  /**
+   * Adds an item, or replaces the item with the same key and moves it to its
+   * new position. Call this method again after mutating an item so that its
+   * position and row are updated.
+   *
+   * @param item the item
+   */
+  public void add(T item) {
+    Object key = getKey(item);
+    Entry<T> entry = entriesByKey.get(key);
+    if (entry == null) {
+      entry = new Entry<T>(item, nextSequence++);
+      entriesByKey.put(key, entry);
+    } else {
+      removeEntry(entry);
+      replaceItem(entry, item);
+    }
+    insertEntry(entry);
+    markModified();
+  }
+
+  /**
+   * Adds or replaces several items. The items are sorted and filtered once,
+   * rather than once per item.
+   *
+   * @param items the items
+   * @see #add(Object)
+   */
+  public void addAll(Collection<? extends T> items) {
+    for (T item : items) {
+      Object key = getKey(item);
+      Entry<T> entry = entriesByKey.get(key);
+      if (entry == null) {
+        entry = new Entry<T>(item, nextSequence++);
+        entriesByKey.put(key, entry);
+        all.add(entry);
+      } else {
+        replaceItem(entry, item);
+      }
+    }
+    Collections.sort(all, order);
+    rebuildView();
+  }
+
+  /**
+   * Removes all items.
+   */
+  public void clear() {
+    all.clear();
+    view.clear();
+    entriesByKey.clear();
+    markModified();
+  }
+
+  /**
+   * Returns true if an item with the key of the given item has been added.
+   *
+   * @param item the item
+   * @return true if the item is present
+   */
+  public boolean contains(T item) {
+    return entriesByKey.containsKey(getKey(item));
+  }
+
+  /**
+   * Flush pending changes to the displays. By default, displays are informed
+   * of changes at the end of the current event loop, which makes it possible
+   * to perform multiple operations synchronously without repeatedly refreshing
+   * the displays.
+   */
+  public void flush() {
+    // Cancel any pending flush command.
+    if (flushPending) {
+      flushCancelled = true;
+    }
+
+    int size = view.size();
+    if (pushedSize != size) {
+      pushedSize = size;
+      updateRowCount(size, true);
+    }
+
+    if (modified) {
+      for (HasData<T> display : getDataDisplays()) {
+        pushChangedRows(display);
+      }
+      for (Entry<T> entry : changedEntries) {
+        entry.changed = false;
+      }
+      changedEntries.clear();
+      modified = false;
+    }
+  }
+
+  /**
+   * Returns the comparator which sorts the items, or null if they are shown in
+   * the order in which they were added.
+   *
+   * @return the comparator
+   */
+  public Comparator<? super T> getComparator() {
+    return comparator;
+  }
+
+  /**
+   * Returns the filter which selects the items shown, or null if all items
+   * are shown.
+   *
+   * @return the filter
+   */
+  public Filter<? super T> getFilter() {
+    return filter;
+  }
+
+  /**
+   * Returns the number of items, including those which do not pass the
+   * filter.
+   *
+   * @return the number of items
+   */
+  public int getItemCount() {
+    return all.size();
+  }
+
+  /**
+   * Returns the sorted and filtered items seen by the displays. The list
+   * reflects later changes and cannot be modified.
+   *
+   * @return the items shown
+   */
+  public List<T> getView() {
+    return Collections.unmodifiableList(viewItems);
+  }
+
+  /**
+   * Removes the item with the key of the given item.
+   *
+   * @param item the item
+   * @return true if the item was present
+   */
+  public boolean remove(T item) {
+    Entry<T> entry = entriesByKey.remove(getKey(item));
+    if (entry == null) {
+      return false;
+    }
+    removeEntry(entry);
+    markModified();
+    return true;
+  }
+
+  @Override
+  public void removeDataDisplay(HasData<T> display) {
+    super.removeDataDisplay(display);
+    pushedRows.remove(display);
+  }
+
+  /**
+   * Sets the comparator which sorts the items.
+   *
+   * @param comparator the comparator, or null to show the items in the order
+   *        in which they were added
+   */
+  public void setComparator(Comparator<? super T> comparator) {
+    this.comparator = comparator;
+    Collections.sort(all, order);
+    rebuildView();
+  }
+
+  /**
+   * Sets the filter which selects the items shown. Call this method again
+   * with the same filter if the criteria of the filter have changed.
+   *
+   * @param filter the filter, or null to show all items
+   */
+  public void setFilter(Filter<? super T> filter) {
+    this.filter = filter;
+    rebuildView();
+  }
+
+  @Override
+  protected void onRangeChanged(HasData<T> display) {
+    Range range = display.getVisibleRange();
+    int start = Math.min(range.getStart(), view.size());
+    int end = Math.min(range.getStart() + range.getLength(), view.size());
+    if (view.size() > 0) {
+      // Do not push data if the data set is empty.
+      updateRowData(display, 0, viewItems);
+    }
+    pushedRows.put(display, new PushedRows<T>(start,
+        new ArrayList<Entry<T>>(view.subList(start, end))));
+  }
+
+  private boolean accept(T item) {
+    return filter == null || filter.accept(item);
+  }
+
+  /**
+   * Returns the index of an entry in a sorted list, or -1 if it is not in the
+   * list.
+   */
+  private int find(List<Entry<T>> entries, Entry<T> entry) {
+    int index = Collections.binarySearch(entries, entry, order);
+    if (index < 0) {
+      // The item may have been mutated in place, so that it is out of order.
+      index = entries.indexOf(entry);
+    }
+    return index;
+  }
+
+  /**
+   * Inserts an entry in sort order, and in the view if it passes the filter.
+   */
+  private void insertEntry(Entry<T> entry) {
+    all.add(-Collections.binarySearch(all, entry, order) - 1, entry);
+    if (accept(entry.item)) {
+      view.add(-Collections.binarySearch(view, entry, order) - 1, entry);
+    }
+  }
+
+  private void markModified() {
+    modified = true;
+    flushCancelled = false;
+    if (!flushPending) {
+      flushPending = true;
+      Scheduler.get().scheduleFinally(flushCommand);
+    }
+  }
+
+  /**
+   * Pushes to a display the runs of rows in its visible range which show
+   * another entry than last pushed to it, or an entry which changed.
+   */
+  private void pushChangedRows(HasData<T> display) {
+    Range range = display.getVisibleRange();
+    int start = Math.min(range.getStart(), view.size());
+    int end = Math.min(range.getStart() + range.getLength(), view.size());
+    PushedRows<T> pushed = pushedRows.get(display);
+    int runStart = -1;
+    for (int i = start; i <= end; i++) {
+      boolean changed = false;
+      if (i < end) {
+        Entry<T> entry = view.get(i);
+        int pushedIndex = pushed == null ? -1 : i - pushed.start;
+        changed = entry.changed || pushedIndex < 0 || pushedIndex >= pushed.entries.size()
+            || pushed.entries.get(pushedIndex) != entry;
+      }
+      if (changed && runStart < 0) {
+        runStart = i;
+      } else if (!changed && runStart >= 0) {
+        updateRowData(display, runStart, viewItems.subList(runStart, i));
+        runStart = -1;
+      }
+    }
+    pushedRows.put(display, new PushedRows<T>(start,
+        new ArrayList<Entry<T>>(view.subList(start, end))));
+  }
+
+  /**
+   * Applies the filter to all items again.
+   */
+  private void rebuildView() {
+    view.clear();
+    for (Entry<T> entry : all) {
+      if (accept(entry.item)) {
+        view.add(entry);
+      }
+    }
+    markModified();
+  }
+
+  /**
+   * Removes an entry from the sorted items and from the view.
+   */
+  private void removeEntry(Entry<T> entry) {
+    all.remove(find(all, entry));
+    int index = find(view, entry);
+    if (index >= 0) {
+      view.remove(index);
+    }
+  }
+
+  /**
+   * Replaces the item of an entry, so that its row is pushed again.
+   */
+  private void replaceItem(Entry<T> entry, T item) {
+    entry.item = item;
+    if (!entry.changed) {
+      entry.changed = true;
+      changedEntries.add(entry);
+    }
+  }
+}
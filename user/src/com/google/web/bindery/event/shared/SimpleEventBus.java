@@ -18,11 +18,10 @@ package com.google.web.bindery.event.shared;
 import com.google.web.bindery.event.shared.Event.Type;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,8 +29,73 @@ import java.util.Set;
  * Basic implementation of {@link EventBus}.
  */
 public class SimpleEventBus extends EventBus {
-  private interface Command {
-    void execute();
+
+  /**
+   * The handlers of an event type for one source, or for all sources. Events
+   * are dispatched straight from the handler array, which is never modified
+   * while an event is being fired; changes made during dispatch go to a copy
+   * which replaces it once the outermost event has been fired.
+   */
+  private static class HandlerList {
+    private static final Object[] NO_HANDLERS = new Object[0];
+
+    private Object[] handlers = NO_HANDLERS;
+
+    /**
+     * The copy receiving the changes made during dispatch, or null.
+     */
+    private HandlerList next;
+
+    private int size;
+
+    private final Object source;
+
+    private final Event.Type<?> type;
+
+    public HandlerList(Event.Type<?> type, Object source) {
+      this.type = type;
+      this.source = source;
+    }
+
+    public void add(Object handler) {
+      if (size == handlers.length) {
+        handlers = Arrays.copyOf(handlers, Math.max(4, size * 2));
+      }
+      handlers[size++] = handler;
+    }
+
+    public boolean remove(Object handler) {
+      for (int i = 0; i < size; i++) {
+        if (handler.equals(handlers[i])) {
+          System.arraycopy(handlers, i + 1, handlers, i, size - i - 1);
+          handlers[--size] = null;
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The handlers of an event type.
+   */
+  private static class TypeHandlers {
+    /**
+     * The handlers for all sources, or null.
+     */
+    private HandlerList global;
+
+    /**
+     * The handlers for specific sources, or null.
+     */
+    private Map<Object, HandlerList> sources;
+
+    public HandlerList get(Object source) {
+      if (source == null) {
+        return global;
+      }
+      return sources == null ? null : sources.get(source);
+    }
   }
 
   private final boolean isReverseOrder;
@@ -39,15 +103,14 @@ public class SimpleEventBus extends EventBus {
   private int firingDepth = 0;
 
   /**
-   * Add and remove operations received during dispatch.
+   * Handler lists changed during dispatch.
    */
-  private List<Command> deferredDeltas;
+  private final List<HandlerList> changedLists = new ArrayList<HandlerList>();
 
   /**
-   * Map of event type to map of event source to list of their handlers.
+   * Map of event type to its handlers.
    */
-  private final Map<Event.Type<?>, Map<Object, List<?>>> map =
-      new HashMap<Event.Type<?>, Map<Object, List<?>>>();
+  private final Map<Event.Type<?>, TypeHandlers> map = new HashMap<Event.Type<?>, TypeHandlers>();
 
   public SimpleEventBus() {
     this(false);
@@ -101,10 +164,14 @@ public class SimpleEventBus extends EventBus {
    */
   @Deprecated
   protected <H> void doRemove(Event.Type<H> type, Object source, H handler) {
+    HandlerList list = getHandlerList(type, source);
+    if (list == null) {
+      return;
+    }
     if (firingDepth > 0) {
-      enqueueRemove(type, source, handler);
-    } else {
-      doRemoveNow(type, source, handler);
+      getChanges(list).remove(handler);
+    } else if (list.remove(handler) && list.size == 0) {
+      prune(list);
     }
   }
 
@@ -113,11 +180,16 @@ public class SimpleEventBus extends EventBus {
    */
   @Deprecated
   protected <H> H getHandler(Event.Type<H> type, int index) {
-    assert index < getHandlerCount(type) : "handlers for " + type.getClass() + " have size: "
-        + getHandlerCount(type) + " so do not have a handler at index: " + index;
+    int count = getHandlerCount(type);
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("handlers for " + type.getClass() + " have size: "
+          + count + " so do not have a handler at index: " + index);
+    }
 
-    List<H> l = getHandlerList(type, null);
-    return l.get(index);
+    // safe, we control the adds.
+    @SuppressWarnings("unchecked")
+    H handler = (H) getHandlerList(type, null).handlers[index];
+    return handler;
   }
 
   /**
@@ -125,7 +197,8 @@ public class SimpleEventBus extends EventBus {
    */
   @Deprecated
   protected int getHandlerCount(Event.Type<?> eventKey) {
-    return getHandlerList(eventKey, null).size();
+    HandlerList list = getHandlerList(eventKey, null);
+    return list == null ? 0 : list.size;
   }
 
   /**
@@ -133,14 +206,62 @@ public class SimpleEventBus extends EventBus {
    */
   @Deprecated
   protected boolean isEventHandled(Event.Type<?> eventKey) {
-    return map.containsKey(eventKey);
+    TypeHandlers handlers = map.get(eventKey);
+    if (handlers == null) {
+      return false;
+    }
+    if (handlers.global != null && handlers.global.size > 0) {
+      return true;
+    }
+    if (handlers.sources != null) {
+      // Lists added during dispatch are empty until it ends.
+      for (HandlerList list : handlers.sources.values()) {
+        if (list.size > 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void applyChanges() {
+    for (int i = 0, n = changedLists.size(); i < n; i++) {
+      HandlerList list = changedLists.get(i);
+      list.handlers = list.next.handlers;
+      list.size = list.next.size;
+      list.next = null;
+      if (list.size == 0) {
+        prune(list);
+      }
+    }
+    changedLists.clear();
   }
 
-  private void defer(Command command) {
-    if (deferredDeltas == null) {
-      deferredDeltas = new ArrayList<Command>();
+  /**
+   * Dispatches an event to the handlers of a list, and returns the exceptions
+   * thrown by them added to the given ones.
+   */
+  private <H> Set<Throwable> dispatch(Event<H> event, HandlerList list, Set<Throwable> causes) {
+    if (list == null) {
+      return causes;
+    }
+    // Changes made by the handlers go to another array.
+    Object[] handlers = list.handlers;
+    int size = list.size;
+    for (int i = 0; i < size; i++) {
+      // safe, we control the adds.
+      @SuppressWarnings("unchecked")
+      H handler = (H) handlers[isReverseOrder ? size - 1 - i : i];
+      try {
+        dispatchEvent(event, handler);
+      } catch (Throwable e) {
+        if (causes == null) {
+          causes = new HashSet<Throwable>();
+        }
+        causes.add(e);
+      }
     }
-    deferredDeltas.add(command);
+    return causes;
   }
 
   private <H> HandlerRegistration doAdd(final Event.Type<H> type, final Object source,
@@ -152,10 +273,11 @@ public class SimpleEventBus extends EventBus {
       throw new NullPointerException("Cannot add a null handler");
     }
 
+    HandlerList list = ensureHandlerList(type, source);
     if (firingDepth > 0) {
-      enqueueAdd(type, source, handler);
+      getChanges(list).add(handler);
     } else {
-      doAddNow(type, source, handler);
+      list.add(handler);
     }
 
     return new HandlerRegistration() {
@@ -165,11 +287,6 @@ public class SimpleEventBus extends EventBus {
     };
   }
 
-  private <H> void doAddNow(Event.Type<H> type, Object source, H handler) {
-    List<H> l = ensureHandlerList(type, source);
-    l.add(handler);
-  }
-
   private <H> void doFire(Event<H> event, Object source) {
     if (event == null) {
       throw new NullPointerException("Cannot fire null event");
@@ -181,22 +298,22 @@ public class SimpleEventBus extends EventBus {
         setSourceOfEvent(event, source);
       }
 
-      List<H> handlers = getDispatchList(event.getAssociatedType(), source);
-      Set<Throwable> causes = null;
+      TypeHandlers handlers = map.get(event.getAssociatedType());
+      if (handlers == null) {
+        return;
+      }
 
-      ListIterator<H> it =
-          isReverseOrder ? handlers.listIterator(handlers.size()) : handlers.listIterator();
-      while (isReverseOrder ? it.hasPrevious() : it.hasNext()) {
-        H handler = isReverseOrder ? it.previous() : it.next();
-
-        try {
-          dispatchEvent(event, handler);
-        } catch (Throwable e) {
-          if (causes == null) {
-            causes = new HashSet<Throwable>();
-          }
-          causes.add(e);
-        }
+      // Handlers for the source fire before those for all sources, or after
+      // them when the order is reversed.
+      Set<Throwable> causes = null;
+      if (source == null) {
+        causes = dispatch(event, handlers.global, causes);
+      } else if (isReverseOrder) {
+        causes = dispatch(event, handlers.global, causes);
+        causes = dispatch(event, handlers.get(source), causes);
+      } else {
+        causes = dispatch(event, handlers.get(source), causes);
+        causes = dispatch(event, handlers.global, causes);
       }
 
       if (causes != null) {
@@ -204,107 +321,70 @@ public class SimpleEventBus extends EventBus {
       }
     } finally {
       firingDepth--;
-      if (firingDepth == 0) {
-        handleQueuedAddsAndRemoves();
+      if (firingDepth == 0 && !changedLists.isEmpty()) {
+        applyChanges();
       }
     }
   }
 
-  private <H> void doRemoveNow(Event.Type<H> type, Object source, H handler) {
-    List<H> l = getHandlerList(type, source);
-
-    boolean removed = l.remove(handler);
-
-    if (removed && l.isEmpty()) {
-      prune(type, source);
+  private HandlerList ensureHandlerList(Event.Type<?> type, Object source) {
+    TypeHandlers handlers = map.get(type);
+    if (handlers == null) {
+      handlers = new TypeHandlers();
+      map.put(type, handlers);
     }
-  }
 
-  private <H> void enqueueAdd(final Event.Type<H> type, final Object source, final H handler) {
-    defer(new Command() {
-      public void execute() {
-        doAddNow(type, source, handler);
-      }
-    });
-  }
-
-  private <H> void enqueueRemove(final Event.Type<H> type, final Object source, final H handler) {
-    defer(new Command() {
-      public void execute() {
-        doRemoveNow(type, source, handler);
+    HandlerList list = handlers.get(source);
+    if (list == null) {
+      list = new HandlerList(type, source);
+      if (source == null) {
+        handlers.global = list;
+      } else {
+        if (handlers.sources == null) {
+          handlers.sources = new HashMap<Object, HandlerList>();
+        }
+        handlers.sources.put(source, list);
       }
-    });
-  }
-
-  private <H> List<H> ensureHandlerList(Event.Type<H> type, Object source) {
-    Map<Object, List<?>> sourceMap = map.get(type);
-    if (sourceMap == null) {
-      sourceMap = new HashMap<Object, List<?>>();
-      map.put(type, sourceMap);
     }
 
-    // safe, we control the puts.
-    @SuppressWarnings("unchecked")
-    List<H> handlers = (List<H>) sourceMap.get(source);
-    if (handlers == null) {
-      handlers = new ArrayList<H>();
-      sourceMap.put(source, handlers);
-    }
-
-    return handlers;
+    return list;
   }
 
-  private <H> List<H> getDispatchList(Event.Type<H> type, Object source) {
-    List<H> directHandlers = getHandlerList(type, source);
-    if (source == null) {
-      return directHandlers;
+  /**
+   * Returns the copy of a list which receives the changes made during
+   * dispatch.
+   */
+  private HandlerList getChanges(HandlerList list) {
+    if (list.next == null) {
+      list.next = new HandlerList(list.type, list.source);
+      list.next.handlers = Arrays.copyOf(list.handlers, list.size + 1);
+      list.next.size = list.size;
+      changedLists.add(list);
     }
-
-    List<H> globalHandlers = getHandlerList(type, null);
-
-    List<H> rtn = new ArrayList<H>(directHandlers);
-    rtn.addAll(globalHandlers);
-    return rtn;
+    return list.next;
   }
 
-  private <H> List<H> getHandlerList(Event.Type<H> type, Object source) {
-    Map<Object, List<?>> sourceMap = map.get(type);
-    if (sourceMap == null) {
-      return Collections.emptyList();
-    }
-
-    // safe, we control the puts.
-    @SuppressWarnings("unchecked")
-    List<H> handlers = (List<H>) sourceMap.get(source);
-    if (handlers == null) {
-      return Collections.emptyList();
-    }
-
-    return handlers;
+  private HandlerList getHandlerList(Event.Type<?> type, Object source) {
+    TypeHandlers handlers = map.get(type);
+    return handlers == null ? null : handlers.get(source);
   }
 
-  private void handleQueuedAddsAndRemoves() {
-    if (deferredDeltas != null) {
-      try {
-        for (Command c : deferredDeltas) {
-          c.execute();
-        }
-      } finally {
-        deferredDeltas = null;
+  private void prune(HandlerList list) {
+    TypeHandlers handlers = map.get(list.type);
+
+    if (list.source == null) {
+      assert handlers.global == list : "Can't prune what wasn't there";
+      handlers.global = null;
+    } else {
+      HandlerList pruned = handlers.sources.remove(list.source);
+      assert pruned == list : "Can't prune what wasn't there";
+      if (handlers.sources.isEmpty()) {
+        handlers.sources = null;
       }
     }
-  }
-
-  private void prune(Event.Type<?> type, Object source) {
-    Map<Object, List<?>> sourceMap = map.get(type);
-
-    List<?> pruned = sourceMap.remove(source);
-
-    assert pruned != null : "Can't prune what wasn't there";
-    assert pruned.isEmpty() : "Pruned unempty list!";
 
-    if (sourceMap.isEmpty()) {
-      map.remove(type);
+    if (handlers.global == null && handlers.sources == null) {
+      map.remove(list.type);
     }
   }
-}
\ No newline at end of file
+}
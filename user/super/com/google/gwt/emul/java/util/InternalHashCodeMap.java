@@ -20,9 +20,7 @@ import static java.util.ConcurrentModificationDetector.structureChanged;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Map.Entry;
 
-import javaemul.internal.ArrayHelper;
 import javaemul.internal.JsUtils;
-import javaemul.internal.NativeArray;
 
 /**
  * A simple wrapper around JavaScriptObject to provide {@link java.util.Map}-like semantics for any
@@ -31,11 +29,23 @@ import javaemul.internal.NativeArray;
  * Implementation notes:
  * <p>
  * A key's hashCode is the index in backingMap which should contain that key. Since several keys may
- * have the same hash, each value in hashCodeMap is actually an array containing all entries whose
- * keys share the same hash.
+ * have the same hash, each value in backingMap is actually the first of a linked chain of all
+ * entries whose keys share the same hash, in insertion order. Most chains hold a single entry, so
+ * this allocates nothing but the entry on put and nothing at all on lookup.
  */
 class InternalHashCodeMap<K, V> implements Iterable<Entry<K, V>> {
 
+  /**
+   * An entry linked to the next entry whose key has the same hash.
+   */
+  private static final class ChainEntry<K, V> extends SimpleEntry<K, V> {
+    private ChainEntry<K, V> next;
+
+    public ChainEntry(K key, V value) {
+      super(key, value);
+    }
+  }
+
   private final InternalJsMap<Object> backingMap = InternalJsMapFactory.newJsMap();
   private AbstractHashMap<K, V> host;
   private int size;
@@ -46,19 +56,24 @@ class InternalHashCodeMap<K, V> implements Iterable<Entry<K, V>> {
 
   public V put(K key, V value) {
     int hashCode = hash(key);
-    Entry<K, V>[] chain = getChainOrEmpty(hashCode);
+    ChainEntry<K, V> entry = getChain(hashCode);
 
-    if (chain.length == 0) {
+    if (entry == null) {
       // This is a new chain, put it to the map.
-      backingMap.set(hashCode, chain);
+      backingMap.set(hashCode, new ChainEntry<K, V>(key, value));
     } else {
       // Chain already exists, perhaps key also exists.
-      Entry<K, V> entry = findEntryInChain(key, chain);
-      if (entry != null) {
-        return entry.setValue(value);
+      while (true) {
+        if (host.equals(key, entry.getKey())) {
+          return entry.setValue(value);
+        }
+        if (entry.next == null) {
+          break;
+        }
+        entry = entry.next;
       }
+      entry.next = new ChainEntry<K, V>(key, value);
     }
-    chain[chain.length] = new SimpleEntry<K, V>(key, value);
     size++;
     structureChanged(host);
     return null;
@@ -66,32 +81,29 @@ class InternalHashCodeMap<K, V> implements Iterable<Entry<K, V>> {
 
   public V remove(Object key) {
     int hashCode = hash(key);
-    Entry<K, V>[] chain = getChainOrEmpty(hashCode);
-    for (int i = 0; i < chain.length; i++) {
-      Entry<K, V> entry = chain[i];
+    ChainEntry<K, V> previous = null;
+    for (ChainEntry<K, V> entry = getChain(hashCode); entry != null; entry = entry.next) {
       if (host.equals(key, entry.getKey())) {
-        if (chain.length == 1) {
-          ArrayHelper.setLength(chain, 0);
-          // remove the whole array
-          backingMap.delete(hashCode);
+        if (previous != null) {
+          // unlink the entry we're removing
+          previous.next = entry.next;
+        } else if (entry.next != null) {
+          backingMap.set(hashCode, entry.next);
         } else {
-          // splice out the entry we're removing
-          ArrayHelper.removeFrom(chain, i, 1);
+          // remove the whole chain
+          backingMap.delete(hashCode);
         }
         size--;
         structureChanged(host);
         return entry.getValue();
       }
+      previous = entry;
     }
     return null;
   }
 
   public Map.Entry<K, V> getEntry(Object key) {
-    return findEntryInChain(key, getChainOrEmpty(hash(key)));
-  }
-
-  private Map.Entry<K, V> findEntryInChain(Object key, Entry<K, V>[] chain) {
-    for (Entry<K, V> entry : chain) {
+    for (ChainEntry<K, V> entry = getChain(hash(key)); entry != null; entry = entry.next) {
       if (host.equals(key, entry.getKey())) {
         return entry;
       }
@@ -107,20 +119,18 @@ class InternalHashCodeMap<K, V> implements Iterable<Entry<K, V>> {
   public Iterator<Entry<K, V>> iterator() {
     return new Iterator<Map.Entry<K, V>>() {
       final InternalJsMap.Iterator<?> chains = backingMap.entries();
-      int itemIndex = 0;
-      Entry<K, V>[] chain = newEntryChain();
-      Entry<K, V> lastEntry = null;
+      ChainEntry<K, V> nextEntry = null;
+      ChainEntry<K, V> lastEntry = null;
 
       @Override
       public boolean hasNext() {
-        if (itemIndex < chain.length) {
+        if (nextEntry != null) {
           return true;
         }
         InternalJsMap.IteratorEntry<?> current = chains.next();
         if (!current.isDone()) {
           // Move to the beginning of next chain
-          chain = JsUtils.uncheckedCast(current.getValue());
-          itemIndex = 0;
+          nextEntry = JsUtils.uncheckedCast(current.getValue());
           return true;
         }
         return false;
@@ -128,28 +138,21 @@ class InternalHashCodeMap<K, V> implements Iterable<Entry<K, V>> {
 
       @Override
       public Entry<K, V> next() {
-        lastEntry = chain[itemIndex++];
+        lastEntry = nextEntry;
+        // Removing lastEntry does not unlink it from the entries which follow it.
+        nextEntry = lastEntry.next;
         return lastEntry;
       }
 
       @Override
       public void remove() {
         InternalHashCodeMap.this.remove(lastEntry.getKey());
-        // Unless we are in a new chain, all items have shifted so our itemIndex should as well...
-        if (itemIndex != 0) {
-          itemIndex--;
-        }
       }
     };
   }
 
-  private Entry<K, V>[] getChainOrEmpty(int hashCode) {
-    Entry<K, V>[] chain = JsUtils.uncheckedCast(backingMap.get(hashCode));
-    return chain == null ? newEntryChain() : chain;
-  }
-
-  private Entry<K, V>[] newEntryChain() {
-    return JsUtils.uncheckedCast(new NativeArray());
+  private ChainEntry<K, V> getChain(int hashCode) {
+    return JsUtils.uncheckedCast(backingMap.get(hashCode));
   }
 
   /**
@@ -273,6 +273,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   private static final class MapToIntSpliterator extends Spliterators.AbstractIntSpliterator {
     private final DoubleToIntFunction map;
     private final Spliterator.OfDouble original;
+    private final DoubleConsumer mapping;
+    private IntConsumer downstream;
 
     public MapToIntSpliterator(DoubleToIntFunction map, Spliterator.OfDouble original) {
       super(
@@ -281,11 +283,20 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (double u) -> downstream.accept(map.applyAsInt(u));
     }
 
     @Override
     public boolean tryAdvance(final IntConsumer action) {
-      return original.tryAdvance((double u) -> action.accept(map.applyAsInt(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final IntConsumer action) {
+      original.forEachRemaining((double u) -> action.accept(map.applyAsInt(u)));
     }
   }
 
@@ -297,6 +308,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   private static final class MapToObjSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
     private final DoubleFunction<? extends T> map;
     private final Spliterator.OfDouble original;
+    private final DoubleConsumer mapping;
+    private Consumer<? super T> downstream;
 
     public MapToObjSpliterator(DoubleFunction<? extends T> map, Spliterator.OfDouble original) {
       super(
@@ -305,11 +318,20 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (double u) -> downstream.accept(map.apply(u));
     }
 
     @Override
     public boolean tryAdvance(final Consumer<? super T> action) {
-      return original.tryAdvance((double u) -> action.accept(map.apply(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+      original.forEachRemaining((double u) -> action.accept(map.apply(u)));
     }
   }
 
@@ -319,6 +341,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   private static final class MapToLongSpliterator extends Spliterators.AbstractLongSpliterator {
     private final DoubleToLongFunction map;
     private final Spliterator.OfDouble original;
+    private final DoubleConsumer mapping;
+    private LongConsumer downstream;
 
     public MapToLongSpliterator(DoubleToLongFunction map, Spliterator.OfDouble original) {
       super(
@@ -327,11 +351,20 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (double u) -> downstream.accept(map.applyAsLong(u));
     }
 
     @Override
     public boolean tryAdvance(final LongConsumer action) {
-      return original.tryAdvance((double u) -> action.accept(map.applyAsLong(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+      original.forEachRemaining((double u) -> action.accept(map.applyAsLong(u)));
     }
   }
 
@@ -341,6 +374,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   private static final class MapToDoubleSpliterator extends Spliterators.AbstractDoubleSpliterator {
     private final DoubleUnaryOperator map;
     private final Spliterator.OfDouble original;
+    private final DoubleConsumer mapping;
+    private DoubleConsumer downstream;
 
     public MapToDoubleSpliterator(DoubleUnaryOperator map, Spliterator.OfDouble original) {
       super(
@@ -349,11 +384,20 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (double u) -> downstream.accept(map.applyAsDouble(u));
     }
 
     @Override
     public boolean tryAdvance(final DoubleConsumer action) {
-      return original.tryAdvance((double u) -> action.accept(map.applyAsDouble(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+      original.forEachRemaining((double u) -> action.accept(map.applyAsDouble(u)));
     }
   }
 
@@ -363,6 +407,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   private static final class FilterSpliterator extends Spliterators.AbstractDoubleSpliterator {
     private final DoublePredicate filter;
     private final Spliterator.OfDouble original;
+    private final DoubleConsumer matching;
+    private DoubleConsumer downstream;
 
     private boolean found;
 
@@ -373,6 +419,13 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
       checkNotNull(filter);
       this.filter = filter;
       this.original = original;
+      this.matching =
+          (double item) -> {
+            if (filter.test(item)) {
+              found = true;
+              downstream.accept(item);
+            }
+          };
     }
 
     @Override
@@ -382,20 +435,25 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
 
     @Override
     public boolean tryAdvance(final DoubleConsumer action) {
+      downstream = action;
       found = false;
-      while (!found
-          && original.tryAdvance(
-              (double item) -> {
-                if (filter.test(item)) {
-                  found = true;
-                  action.accept(item);
-                }
-              })) {
-        // do nothing, work is done in tryAdvance
+      while (!found && original.tryAdvance(matching)) {
+        // do nothing, work is done in matching
       }
+      downstream = null;
 
       return found;
     }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+      original.forEachRemaining(
+          (double item) -> {
+            if (filter.test(item)) {
+              action.accept(item);
+            }
+          });
+    }
   }
 
   /**
@@ -423,13 +481,20 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
     @Override
     public boolean tryAdvance(DoubleConsumer action) {
       while (skip > 0) {
-        if (!original.tryAdvance((double ignore) -> { })) {
+        if (!original.tryAdvance(NULL_CONSUMER)) {
           return false;
         }
         skip--;
       }
       return original.tryAdvance(action);
     }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      if (tryAdvance(action)) {
+        original.forEachRemaining(action);
+      }
+    }
   }
 
   /**
@@ -479,6 +544,8 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
     }
   }
 
+  private static final DoubleConsumer NULL_CONSUMER = (double value) -> { };
+
   private final Spliterator.OfDouble spliterator;
 
   public DoubleStreamImpl(TerminatableStream<?> previous, Spliterator.OfDouble spliterator) {
@@ -566,11 +633,9 @@ final class DoubleStreamImpl extends TerminatableStream<DoubleStreamImpl> implem
   @Override
   public long count() {
     terminate();
-    long count = 0;
-    while (spliterator.tryAdvance((double value) -> { })) {
-      count++;
-    }
-    return count;
+    long[] count = {0};
+    spliterator.forEachRemaining((double value) -> count[0]++);
+    return count[0];
   }
 
   @Override
@@ -286,6 +286,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   private static final class MapToIntSpliterator extends Spliterators.AbstractIntSpliterator {
     private final IntUnaryOperator map;
     private final Spliterator.OfInt original;
+    private final IntConsumer mapping;
+    private IntConsumer downstream;
 
     public MapToIntSpliterator(IntUnaryOperator map, Spliterator.OfInt original) {
       super(
@@ -294,11 +296,20 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (int u) -> downstream.accept(map.applyAsInt(u));
     }
 
     @Override
     public boolean tryAdvance(final IntConsumer action) {
-      return original.tryAdvance((int u) -> action.accept(map.applyAsInt(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final IntConsumer action) {
+      original.forEachRemaining((int u) -> action.accept(map.applyAsInt(u)));
     }
   }
 
@@ -310,6 +321,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   private static final class MapToObjSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
     private final IntFunction<? extends T> map;
     private final Spliterator.OfInt original;
+    private final IntConsumer mapping;
+    private Consumer<? super T> downstream;
 
     public MapToObjSpliterator(IntFunction<? extends T> map, Spliterator.OfInt original) {
       super(
@@ -318,11 +331,20 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (int u) -> downstream.accept(map.apply(u));
     }
 
     @Override
     public boolean tryAdvance(final Consumer<? super T> action) {
-      return original.tryAdvance((int u) -> action.accept(map.apply(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+      original.forEachRemaining((int u) -> action.accept(map.apply(u)));
     }
   }
 
@@ -332,6 +354,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   private static final class MapToLongSpliterator extends Spliterators.AbstractLongSpliterator {
     private final IntToLongFunction map;
     private final Spliterator.OfInt original;
+    private final IntConsumer mapping;
+    private LongConsumer downstream;
 
     public MapToLongSpliterator(IntToLongFunction map, Spliterator.OfInt original) {
       super(
@@ -340,11 +364,20 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (int u) -> downstream.accept(map.applyAsLong(u));
     }
 
     @Override
     public boolean tryAdvance(final LongConsumer action) {
-      return original.tryAdvance((int u) -> action.accept(map.applyAsLong(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+      original.forEachRemaining((int u) -> action.accept(map.applyAsLong(u)));
     }
   }
 
@@ -354,6 +387,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   private static final class MapToDoubleSpliterator extends Spliterators.AbstractDoubleSpliterator {
     private final IntToDoubleFunction map;
     private final Spliterator.OfInt original;
+    private final IntConsumer mapping;
+    private DoubleConsumer downstream;
 
     public MapToDoubleSpliterator(IntToDoubleFunction map, Spliterator.OfInt original) {
       super(
@@ -362,11 +397,20 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (int u) -> downstream.accept(map.applyAsDouble(u));
     }
 
     @Override
     public boolean tryAdvance(final DoubleConsumer action) {
-      return original.tryAdvance((int u) -> action.accept(map.applyAsDouble(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+      original.forEachRemaining((int u) -> action.accept(map.applyAsDouble(u)));
     }
   }
 
@@ -376,6 +420,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   private static final class FilterSpliterator extends Spliterators.AbstractIntSpliterator {
     private final IntPredicate filter;
     private final Spliterator.OfInt original;
+    private final IntConsumer matching;
+    private IntConsumer downstream;
 
     private boolean found;
 
@@ -386,6 +432,13 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
       checkNotNull(filter);
       this.filter = filter;
       this.original = original;
+      this.matching =
+          (int item) -> {
+            if (filter.test(item)) {
+              found = true;
+              downstream.accept(item);
+            }
+          };
     }
 
     @Override
@@ -395,20 +448,25 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
 
     @Override
     public boolean tryAdvance(final IntConsumer action) {
+      downstream = action;
       found = false;
-      while (!found
-          && original.tryAdvance(
-              (int item) -> {
-                if (filter.test(item)) {
-                  found = true;
-                  action.accept(item);
-                }
-              })) {
-        // do nothing, work is done in tryAdvance
+      while (!found && original.tryAdvance(matching)) {
+        // do nothing, work is done in matching
       }
+      downstream = null;
 
       return found;
     }
+
+    @Override
+    public void forEachRemaining(final IntConsumer action) {
+      original.forEachRemaining(
+          (int item) -> {
+            if (filter.test(item)) {
+              action.accept(item);
+            }
+          });
+    }
   }
 
   /**
@@ -436,13 +494,20 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
     @Override
     public boolean tryAdvance(IntConsumer action) {
       while (skip > 0) {
-        if (!original.tryAdvance((int ignore) -> { })) {
+        if (!original.tryAdvance(NULL_CONSUMER)) {
           return false;
         }
         skip--;
       }
       return original.tryAdvance(action);
     }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      if (tryAdvance(action)) {
+        original.forEachRemaining(action);
+      }
+    }
   }
 
   /**
@@ -491,6 +556,8 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
     }
   }
 
+  private static final IntConsumer NULL_CONSUMER = (int value) -> { };
+
   private final Spliterator.OfInt spliterator;
 
   public IntStreamImpl(TerminatableStream<?> previous, Spliterator.OfInt spliterator) {
@@ -561,11 +628,9 @@ final class IntStreamImpl extends TerminatableStream<IntStreamImpl> implements I
   @Override
   public long count() {
     terminate();
-    long count = 0;
-    while (spliterator.tryAdvance((int value) -> { })) {
-      count++;
-    }
-    return count;
+    long[] count = {0};
+    spliterator.forEachRemaining((int value) -> count[0]++);
+    return count[0];
   }
 
   @Override
@@ -278,6 +278,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   private static final class MapToIntSpliterator extends Spliterators.AbstractIntSpliterator {
     private final LongToIntFunction map;
     private final Spliterator.OfLong original;
+    private final LongConsumer mapping;
+    private IntConsumer downstream;
 
     public MapToIntSpliterator(LongToIntFunction map, Spliterator.OfLong original) {
       super(
@@ -286,11 +288,20 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (long u) -> downstream.accept(map.applyAsInt(u));
     }
 
     @Override
     public boolean tryAdvance(final IntConsumer action) {
-      return original.tryAdvance((long u) -> action.accept(map.applyAsInt(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final IntConsumer action) {
+      original.forEachRemaining((long u) -> action.accept(map.applyAsInt(u)));
     }
   }
 
@@ -302,6 +313,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   private static final class MapToObjSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
     private final LongFunction<? extends T> map;
     private final Spliterator.OfLong original;
+    private final LongConsumer mapping;
+    private Consumer<? super T> downstream;
 
     public MapToObjSpliterator(LongFunction<? extends T> map, Spliterator.OfLong original) {
       super(
@@ -310,11 +323,20 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (long u) -> downstream.accept(map.apply(u));
     }
 
     @Override
     public boolean tryAdvance(final Consumer<? super T> action) {
-      return original.tryAdvance((long u) -> action.accept(map.apply(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+      original.forEachRemaining((long u) -> action.accept(map.apply(u)));
     }
   }
 
@@ -324,6 +346,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   private static final class MapToLongSpliterator extends Spliterators.AbstractLongSpliterator {
     private final LongUnaryOperator map;
     private final Spliterator.OfLong original;
+    private final LongConsumer mapping;
+    private LongConsumer downstream;
 
     public MapToLongSpliterator(LongUnaryOperator map, Spliterator.OfLong original) {
       super(
@@ -332,11 +356,20 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (long u) -> downstream.accept(map.applyAsLong(u));
     }
 
     @Override
     public boolean tryAdvance(final LongConsumer action) {
-      return original.tryAdvance((long u) -> action.accept(map.applyAsLong(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+      original.forEachRemaining((long u) -> action.accept(map.applyAsLong(u)));
     }
   }
 
@@ -346,6 +379,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   private static final class MapToDoubleSpliterator extends Spliterators.AbstractDoubleSpliterator {
     private final LongToDoubleFunction map;
     private final Spliterator.OfLong original;
+    private final LongConsumer mapping;
+    private DoubleConsumer downstream;
 
     public MapToDoubleSpliterator(LongToDoubleFunction map, Spliterator.OfLong original) {
       super(
@@ -354,11 +389,20 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = (long u) -> downstream.accept(map.applyAsDouble(u));
     }
 
     @Override
     public boolean tryAdvance(final DoubleConsumer action) {
-      return original.tryAdvance((long u) -> action.accept(map.applyAsDouble(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+      original.forEachRemaining((long u) -> action.accept(map.applyAsDouble(u)));
     }
   }
 
@@ -368,6 +412,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   private static final class FilterSpliterator extends Spliterators.AbstractLongSpliterator {
     private final LongPredicate filter;
     private final Spliterator.OfLong original;
+    private final LongConsumer matching;
+    private LongConsumer downstream;
 
     private boolean found;
 
@@ -378,6 +424,13 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
       checkNotNull(filter);
       this.filter = filter;
       this.original = original;
+      this.matching =
+          (long item) -> {
+            if (filter.test(item)) {
+              found = true;
+              downstream.accept(item);
+            }
+          };
     }
 
     @Override
@@ -387,20 +440,25 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
 
     @Override
     public boolean tryAdvance(final LongConsumer action) {
+      downstream = action;
       found = false;
-      while (!found
-          && original.tryAdvance(
-              (long item) -> {
-                if (filter.test(item)) {
-                  found = true;
-                  action.accept(item);
-                }
-              })) {
-        // do nothing, work is done in tryAdvance
+      while (!found && original.tryAdvance(matching)) {
+        // do nothing, work is done in matching
       }
+      downstream = null;
 
       return found;
     }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+      original.forEachRemaining(
+          (long item) -> {
+            if (filter.test(item)) {
+              action.accept(item);
+            }
+          });
+    }
   }
 
   /**
@@ -428,13 +486,20 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
     @Override
     public boolean tryAdvance(LongConsumer action) {
       while (skip > 0) {
-        if (!original.tryAdvance((long ignore) -> { })) {
+        if (!original.tryAdvance(NULL_CONSUMER)) {
           return false;
         }
         skip--;
       }
       return original.tryAdvance(action);
     }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      if (tryAdvance(action)) {
+        original.forEachRemaining(action);
+      }
+    }
   }
 
   /**
@@ -483,6 +548,8 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
     }
   }
 
+  private static final LongConsumer NULL_CONSUMER = (long value) -> { };
+
   private final Spliterator.OfLong spliterator;
 
   public LongStreamImpl(TerminatableStream<?> previous, Spliterator.OfLong spliterator) {
@@ -570,11 +637,9 @@ final class LongStreamImpl extends TerminatableStream<LongStreamImpl> implements
   @Override
   public long count() {
     terminate();
-    long count = 0;
-    while (spliterator.tryAdvance((long value) -> { })) {
-      count++;
-    }
-    return count;
+    long[] count = {0};
+    spliterator.forEachRemaining((long value) -> count[0]++);
+    return count[0];
   }
 
   @Override
@@ -302,6 +302,8 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
   private static final class MapToObjSpliterator<U, T> extends Spliterators.AbstractSpliterator<T> {
     private final Function<? super U, ? extends T> map;
     private final Spliterator<U> original;
+    private final Consumer<U> mapping;
+    private Consumer<? super T> downstream;
 
     public MapToObjSpliterator(Function<? super U, ? extends T> map, Spliterator<U> original) {
       super(
@@ -310,11 +312,20 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = u -> downstream.accept(map.apply(u));
     }
 
     @Override
     public boolean tryAdvance(final Consumer<? super T> action) {
-      return original.tryAdvance(u -> action.accept(map.apply(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+      original.forEachRemaining(u -> action.accept(map.apply(u)));
     }
   }
 
@@ -326,6 +337,8 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
   private static final class MapToIntSpliterator<T> extends Spliterators.AbstractIntSpliterator {
     private final ToIntFunction<? super T> map;
     private final Spliterator<T> original;
+    private final Consumer<T> mapping;
+    private IntConsumer downstream;
 
     public MapToIntSpliterator(ToIntFunction<? super T> map, Spliterator<T> original) {
       super(
@@ -334,11 +347,20 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = u -> downstream.accept(map.applyAsInt(u));
     }
 
     @Override
     public boolean tryAdvance(final IntConsumer action) {
-      return original.tryAdvance(u -> action.accept(map.applyAsInt(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final IntConsumer action) {
+      original.forEachRemaining(u -> action.accept(map.applyAsInt(u)));
     }
   }
 
@@ -350,6 +372,8 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
   private static final class MapToLongSpliterator<T> extends Spliterators.AbstractLongSpliterator {
     private final ToLongFunction<? super T> map;
     private final Spliterator<T> original;
+    private final Consumer<T> mapping;
+    private LongConsumer downstream;
 
     public MapToLongSpliterator(ToLongFunction<? super T> map, Spliterator<T> original) {
       super(
@@ -358,11 +382,20 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = u -> downstream.accept(map.applyAsLong(u));
     }
 
     @Override
     public boolean tryAdvance(final LongConsumer action) {
-      return original.tryAdvance(u -> action.accept(map.applyAsLong(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+      original.forEachRemaining(u -> action.accept(map.applyAsLong(u)));
     }
   }
 
@@ -375,6 +408,8 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       extends Spliterators.AbstractDoubleSpliterator {
     private final ToDoubleFunction<? super T> map;
     private final Spliterator<T> original;
+    private final Consumer<T> mapping;
+    private DoubleConsumer downstream;
 
     public MapToDoubleSpliterator(ToDoubleFunction<? super T> map, Spliterator<T> original) {
       super(
@@ -383,11 +418,20 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       checkNotNull(map);
       this.map = map;
       this.original = original;
+      this.mapping = u -> downstream.accept(map.applyAsDouble(u));
     }
 
     @Override
     public boolean tryAdvance(final DoubleConsumer action) {
-      return original.tryAdvance(u -> action.accept(map.applyAsDouble(u)));
+      downstream = action;
+      boolean advanced = original.tryAdvance(mapping);
+      downstream = null;
+      return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+      original.forEachRemaining(u -> action.accept(map.applyAsDouble(u)));
     }
   }
 
@@ -399,6 +443,8 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
   private static final class FilterSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
     private final Predicate<? super T> filter;
     private final Spliterator<T> original;
+    private final Consumer<T> matching;
+    private Consumer<? super T> downstream;
 
     private boolean found;
 
@@ -409,6 +455,13 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
       checkNotNull(filter);
       this.filter = filter;
       this.original = original;
+      this.matching =
+          item -> {
+            if (filter.test(item)) {
+              found = true;
+              downstream.accept(item);
+            }
+          };
     }
 
     @Override
@@ -418,20 +471,25 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
 
     @Override
     public boolean tryAdvance(final Consumer<? super T> action) {
+      downstream = action;
       found = false;
-      while (!found
-          && original.tryAdvance(
-              item -> {
-                if (filter.test(item)) {
-                  found = true;
-                  action.accept(item);
-                }
-              })) {
-        // do nothing, work is done in tryAdvance
+      while (!found && original.tryAdvance(matching)) {
+        // do nothing, work is done in matching
       }
+      downstream = null;
 
       return found;
     }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+      original.forEachRemaining(
+          item -> {
+            if (filter.test(item)) {
+              action.accept(item);
+            }
+          });
+    }
   }
 
   /**
@@ -461,13 +519,20 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
     @Override
     public boolean tryAdvance(Consumer<? super T> action) {
       while (skip > 0) {
-        if (!original.tryAdvance(ignore -> { })) {
+        if (!original.tryAdvance(NULL_CONSUMER)) {
           return false;
         }
         skip--;
       }
       return original.tryAdvance(action);
     }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      if (tryAdvance(action)) {
+        original.forEachRemaining(action);
+      }
+    }
   }
 
   /**
@@ -540,11 +605,9 @@ final class StreamImpl<T> extends TerminatableStream<StreamImpl<T>> implements S
   @Override
   public long count() {
     terminate();
-    long count = 0;
-    while (spliterator.tryAdvance(a -> { })) {
-      count++;
-    }
-    return count;
+    long[] count = {0};
+    spliterator.forEachRemaining(value -> count[0]++);
+    return count[0];
   }
 
   @Override
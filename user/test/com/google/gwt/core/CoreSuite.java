@@ -25,6 +25,7 @@ import com.google.gwt.core.client.JsIdentityTest;
 import com.google.gwt.core.client.JsonUtilsTest;
 import com.google.gwt.core.client.SchedulerTest;
 import com.google.gwt.core.client.ScriptInjectorTest;
+import com.google.gwt.core.client.impl.FrameAwareSchedulerImplTest;
 import com.google.gwt.core.client.impl.ImplTest;
 import com.google.gwt.core.client.impl.SchedulerImplTest;
 import com.google.gwt.core.client.impl.StackTraceCreatorCollectorTest;
@@ -44,6 +45,7 @@ public class CoreSuite {
   public static Test suite() {
     GWTTestSuite suite = new GWTTestSuite("All core tests");
 
+    suite.addTestSuite(FrameAwareSchedulerImplTest.class);
     suite.addTestSuite(GwtServletBaseTest.class);
     suite.addTestSuite(GWTTest.class);
     suite.addTestSuite(ImplTest.class);
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.core.client.impl;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.core.client.impl.FrameAwareSchedulerImpl.Priority;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a white-box test of {@link FrameAwareSchedulerImpl}. The flushes
+ * are run synchronously, against a clock which only moves when commands
+ * advance it.
+ */
+public class FrameAwareSchedulerImplTest extends GWTTestCase {
+
+  /**
+   * A scheduler with a fake clock, which never starts its own flushes.
+   */
+  static class TestScheduler extends FrameAwareSchedulerImpl {
+    int now;
+
+    @Override
+    Duration createDuration() {
+      final int start = now;
+      return new Duration() {
+        @Override
+        public int elapsedMillis() {
+          return now - start;
+        }
+      };
+    }
+
+    @Override
+    boolean isIdleCallbackSupported() {
+      return false;
+    }
+
+    @Override
+    void scheduleFlusher(RepeatingCommand flusher) {
+    }
+  }
+
+  private final List<String> log = new ArrayList<String>();
+
+  private TestScheduler impl;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.core.Core";
+  }
+
+  public void testDeferredCommandsRespectBudget() {
+    for (int i = 0; i < 4; i++) {
+      impl.scheduleDeferred(logging("deferred" + i, 5));
+    }
+    assertEquals(4, impl.getQueueDepth());
+
+    // The second command spends the budget of 8ms
+    impl.flushPostEventPumpCommands();
+    assertEquals(Arrays.asList("deferred0", "deferred1"), log);
+    assertEquals(2, impl.getQueueDepth());
+    assertTrue(impl.isWorkQueued());
+
+    // Commands scheduled meanwhile run after the remaining ones
+    impl.scheduleDeferred(logging("deferred4", 0));
+    impl.flushPostEventPumpCommands();
+    assertEquals(Arrays.asList("deferred0", "deferred1", "deferred2", "deferred3"), log);
+    impl.flushPostEventPumpCommands();
+    assertEquals(5, log.size());
+    assertEquals("deferred4", log.get(4));
+    assertFalse(impl.isWorkQueued());
+  }
+
+  public void testMetrics() {
+    impl.scheduleDeferred(logging("short", 2));
+    impl.scheduleDeferred(logging("long", 20));
+    impl.flushPostEventPumpCommands();
+    assertEquals(1, impl.getSliceCount());
+    assertEquals(22.0, impl.getLastSliceMillis(), 0.0);
+    assertEquals(22.0, impl.getMaxSliceMillis(), 0.0);
+    assertEquals(1, impl.getOverBudgetSliceCount());
+
+    impl.scheduleDeferred(logging("short", 2));
+    impl.flushPostEventPumpCommands();
+    assertEquals(2, impl.getSliceCount());
+    assertEquals(2.0, impl.getLastSliceMillis(), 0.0);
+    assertEquals(22.0, impl.getMaxSliceMillis(), 0.0);
+    assertEquals(1, impl.getOverBudgetSliceCount());
+
+    impl.resetMetrics();
+    assertEquals(0, impl.getSliceCount());
+    assertEquals(0.0, impl.getMaxSliceMillis(), 0.0);
+  }
+
+  public void testPriorities() {
+    impl.scheduleIncremental(repeating("idle"), Priority.IDLE);
+    impl.scheduleIncremental(repeating("normal"), Priority.NORMAL);
+    impl.scheduleDeferred(logging("deferred", 0));
+    impl.scheduleIncremental(repeating("high"), Priority.HIGH);
+    assertEquals(4, impl.getQueueDepth());
+
+    impl.flushPostEventPumpCommands();
+    assertEquals(Arrays.asList("high", "normal", "deferred", "idle"), log);
+    assertEquals(0, impl.getQueueDepth());
+    assertFalse(impl.isWorkQueued());
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    log.clear();
+    impl = new TestScheduler();
+  }
+
+  private ScheduledCommand logging(final String name, final int millis) {
+    return new ScheduledCommand() {
+      @Override
+      public void execute() {
+        log.add(name);
+        impl.now += millis;
+      }
+    };
+  }
+
+  private RepeatingCommand repeating(final String name) {
+    return new RepeatingCommand() {
+      @Override
+      public boolean execute() {
+        log.add(name);
+        return false;
+      }
+    };
+  }
+}
@@ -21,6 +21,7 @@ import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.linker.Artifact;
 import com.google.gwt.core.ext.linker.ArtifactSet;
+import com.google.gwt.core.ext.linker.CompilationResult;
 import com.google.gwt.core.ext.linker.ConfigurationProperty;
 import com.google.gwt.core.ext.linker.EmittedArtifact;
 import com.google.gwt.core.ext.linker.SelectionProperty;
@@ -30,6 +31,8 @@ import com.google.gwt.thirdparty.guava.common.collect.Lists;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.util.Collections;
 import java.util.SortedSet;
@@ -116,6 +119,53 @@ public class SelectionScriptLinkerUnitTest extends TestCase {
       NonShardableSelectionScriptLinker {
   }
 
+  private static class VerbatimSelectionScriptLinker extends
+      NonShardableSelectionScriptLinker {
+    @Override
+    protected String getDeferredFragmentPrefix(TreeLogger logger,
+        LinkerContext context, int fragment) {
+      return "DEFERRED_PREFIX" + fragment;
+    }
+
+    @Override
+    protected String getDeferredFragmentSuffix2(TreeLogger logger,
+        LinkerContext context, int fragment, String strongName) {
+      return "DEFERRED_SUFFIX" + fragment;
+    }
+
+    @Override
+    protected boolean isDeferredFragmentBodyVerbatim(LinkerContext context) {
+      return true;
+    }
+
+    @Override
+    protected boolean isPrimaryFragmentBodyVerbatim(LinkerContext context) {
+      return true;
+    }
+
+    @Override
+    protected String wrapDeferredFragment(TreeLogger logger,
+        LinkerContext context, int fragment, String script, ArtifactSet artifacts) {
+      return script + "DEFERRED_END";
+    }
+
+    @Override
+    protected String wrapPrimaryFragment(TreeLogger logger,
+        LinkerContext context, String script, ArtifactSet artifacts,
+        CompilationResult result) {
+      return script + "MODULE_END";
+    }
+  }
+
+  private static class WrappingSelectionScriptLinker extends
+      VerbatimSelectionScriptLinker {
+    @Override
+    protected String wrapDeferredFragment(TreeLogger logger,
+        LinkerContext context, int fragment, String script, ArtifactSet artifacts) {
+      return "[" + script + "]";
+    }
+  }
+
   private static final long MOCK_MODULE_LAST_MODIFIED = 1234;
 
   private static final String MOCK_MODULE_NAME = "test";
@@ -174,6 +224,43 @@ public class SelectionScriptLinkerUnitTest extends TestCase {
     }
   }
 
+  /**
+   * Test that emitting fragments from the compiled bytes produces the same
+   * output as the String-based path.
+   */
+  public void testVerbatimFragments() throws UnableToCompleteException {
+    ArtifactSet artifacts = new ArtifactSet();
+    artifacts.add(createCompilationResult());
+    ArtifactSet updated = new VerbatimSelectionScriptLinker().link(
+        TreeLogger.NULL, new MockLinkerContext(), artifacts, true);
+
+    assertEquals("MODULE_PREFIXcode for fragment 0MODULE_SUFFIXMODULE_END",
+        readArtifact(findEmittedArtifact(updated, "fooStrongName.js")));
+    assertEquals("DEFERRED_PREFIX1code for fragment 1DEFERRED_SUFFIX1DEFERRED_END",
+        readArtifact(findEmittedArtifact(updated, SelectionScriptLinker.FRAGMENT_SUBDIR
+            + File.separator + "fooStrongName" + File.separator + "1"
+            + SelectionScriptLinker.FRAGMENT_EXTENSION)));
+  }
+
+  /**
+   * Test that a fragment takes the String-based path when a subclass of the
+   * linker that opted in rewrites it.
+   */
+  public void testVerbatimFragmentsRewrittenBySubclass()
+      throws UnableToCompleteException {
+    ArtifactSet artifacts = new ArtifactSet();
+    artifacts.add(createCompilationResult());
+    ArtifactSet updated = new WrappingSelectionScriptLinker().link(
+        TreeLogger.NULL, new MockLinkerContext(), artifacts, true);
+
+    assertEquals("MODULE_PREFIXcode for fragment 0MODULE_SUFFIXMODULE_END",
+        readArtifact(findEmittedArtifact(updated, "fooStrongName.js")));
+    assertEquals("[DEFERRED_PREFIX1code for fragment 1DEFERRED_SUFFIX1]",
+        readArtifact(findEmittedArtifact(updated, SelectionScriptLinker.FRAGMENT_SUBDIR
+            + File.separator + "fooStrongName" + File.separator + "1"
+            + SelectionScriptLinker.FRAGMENT_EXTENSION)));
+  }
+
   private StandardCompilationResult createCompilationResult() {
     byte[][] js = new byte[][] {getBytes("code for fragment 0"), getBytes("code for fragment 1")};
     String jsStrongName = "fooStrongName";
@@ -199,6 +286,17 @@ public class SelectionScriptLinkerUnitTest extends TestCase {
     return null;
   }
 
+  private String readArtifact(EmittedArtifact artifact)
+      throws UnableToCompleteException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    artifact.writeTo(TreeLogger.NULL, out);
+    try {
+      return out.toString("UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private EmittedArtifact findSelectionScript(ArtifactSet updated) {
     return findEmittedArtifact(updated, MOCK_MODULE_NAME + ".nocache.js");
   }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.emultest.java.util;
+
+import com.google.gwt.core.client.Duration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Times puts, hits, misses, iteration and removals on a {@link HashMap} with
+ * non-String keys, which are stored by hash code, some of them colliding. It
+ * is not part of a suite; run it directly, compiled or in the JVM, and read
+ * the timings it prints.
+ */
+public class HashMapBenchmark extends EmulTestBase {
+
+  /**
+   * A key whose hash code is shared by a few other keys.
+   */
+  private static final class Key {
+    private final int id;
+
+    Key(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && ((Key) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id / 4;
+    }
+  }
+
+  private static final int KEYS = 100000;
+  private static final int ROUNDS = 3;
+
+  private static int sink;
+
+  public void testNonStringKeys() {
+    Key[] keys = new Key[KEYS];
+    Key[] missing = new Key[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = new Key(i);
+      missing[i] = new Key(KEYS + i);
+    }
+
+    for (int round = 1; round <= ROUNDS; round++) {
+      Map<Object, Integer> map = new HashMap<Object, Integer>();
+
+      Duration duration = new Duration();
+      for (int i = 0; i < KEYS; i++) {
+        map.put(keys[i], i);
+      }
+      int put = duration.elapsedMillis();
+
+      duration = new Duration();
+      for (int i = 0; i < KEYS; i++) {
+        sink += map.get(keys[i]);
+        if (map.containsKey(missing[i])) {
+          sink++;
+        }
+      }
+      int get = duration.elapsedMillis();
+
+      duration = new Duration();
+      for (Map.Entry<Object, Integer> entry : map.entrySet()) {
+        sink += entry.getValue();
+      }
+      int iterate = duration.elapsedMillis();
+
+      duration = new Duration();
+      for (int i = 0; i < KEYS; i++) {
+        map.remove(keys[i]);
+      }
+      int remove = duration.elapsedMillis();
+
+      assertTrue(map.isEmpty());
+      System.out.println("Round " + round + ": " + KEYS + " keys, put " + put + " ms, get "
+          + get + " ms, iterate " + iterate + " ms, remove " + remove + " ms");
+    }
+  }
+}
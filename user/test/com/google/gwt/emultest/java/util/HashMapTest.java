@@ -19,6 +19,7 @@ package com.google.gwt.emultest.java.util;
 import org.apache.commons.collections.TestMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -834,6 +835,32 @@ public class HashMapTest extends TestMap {
     assertFalse(it.hasNext());
   }
 
+  public void testRemove_withCollidingHashCodes() {
+    Object first = createObjectWithHashCode(1);
+    Object second = createObjectWithHashCode(1);
+    Object third = createObjectWithHashCode(1);
+
+    HashMap<Object, String> testMap = new HashMap<>();
+    testMap.put(first, "one");
+    testMap.put(second, "two");
+    testMap.put(third, "three");
+
+    // Removing from the middle and the head of the chain keeps the rest reachable
+    assertEquals("two", testMap.remove(second));
+    assertNull(testMap.remove(second));
+    assertEquals("one", testMap.get(first));
+    assertEquals("three", testMap.get(third));
+    assertEquals("one", testMap.remove(first));
+    assertEquals("three", testMap.get(third));
+
+    assertNull(testMap.put(second, "two again"));
+    assertEquals("two again", testMap.get(second));
+    assertEquals("three", testMap.put(third, "three again"));
+    assertEquals(2, testMap.size());
+    assertEquals(2, testMap.keySet().size());
+    assertTrue(testMap.keySet().containsAll(Arrays.asList(second, third)));
+  }
+
   private Object createObjectWithHashCode(final int hashCode) {
     return new Object() {
       @Override
@@ -419,6 +419,21 @@ public class DoubleStreamTest extends EmulTestBase {
     assertEquals(new Double[] {1d, 2d, 3d, 4d, 5d}, vals.toArray(new Double[vals.size()]));
   }
 
+  public void testPartialTraversal() {
+    // Stages serve tryAdvance and forEachRemaining in turn on the same pipeline
+    Spliterator.OfDouble spliterator =
+        DoubleStream.of(0d, 1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d)
+            .filter(d -> d % 2 == 0)
+            .map(d -> d * 10)
+            .skip(1)
+            .spliterator();
+    List<Double> vals = new ArrayList<>();
+    assertTrue(spliterator.tryAdvance((double value) -> vals.add(value)));
+    spliterator.forEachRemaining((double value) -> vals.add(-value));
+    assertEquals(new Double[] {20d, -40d, -60d, -80d}, vals.toArray(new Double[vals.size()]));
+    assertFalse(spliterator.tryAdvance((double value) -> fail()));
+  }
+
   // See https://github.com/gwtproject/gwt/issues/8615
   private static String toIntegralString(double value) {
     return "" + (int) value;
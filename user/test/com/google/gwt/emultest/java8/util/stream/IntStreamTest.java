@@ -435,4 +435,15 @@ public class IntStreamTest extends EmulTestBase {
     assertEquals(5, vals.size());
     assertEquals(new Integer[] {1, 2, 3, 4, 5}, vals.toArray(new Integer[vals.size()]));
   }
+
+  public void testPartialTraversal() {
+    // Stages serve tryAdvance and forEachRemaining in turn on the same pipeline
+    Spliterator.OfInt spliterator =
+        IntStream.range(0, 10).filter(i -> i % 2 == 0).map(i -> i * 10).skip(1).spliterator();
+    List<Integer> vals = new ArrayList<>();
+    assertTrue(spliterator.tryAdvance((int value) -> vals.add(value)));
+    spliterator.forEachRemaining((int value) -> vals.add(-value));
+    assertEquals(new Integer[] {20, -40, -60, -80}, vals.toArray(new Integer[vals.size()]));
+    assertFalse(spliterator.tryAdvance((int value) -> fail()));
+  }
 }
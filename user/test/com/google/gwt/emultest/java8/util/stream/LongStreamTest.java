@@ -433,4 +433,15 @@ public class LongStreamTest extends EmulTestBase {
     assertEquals(5, vals.size());
     assertEquals(new Long[] {1L, 2L, 3L, 4L, 5L}, vals.toArray(new Long[vals.size()]));
   }
+
+  public void testPartialTraversal() {
+    // Stages serve tryAdvance and forEachRemaining in turn on the same pipeline
+    Spliterator.OfLong spliterator =
+        LongStream.range(0, 10).filter(i -> i % 2 == 0).map(i -> i * 10).skip(1).spliterator();
+    List<Long> vals = new ArrayList<>();
+    assertTrue(spliterator.tryAdvance((long value) -> vals.add(value)));
+    spliterator.forEachRemaining((long value) -> vals.add(-value));
+    assertEquals(new Long[] {20L, -40L, -60L, -80L}, vals.toArray(new Long[vals.size()]));
+    assertFalse(spliterator.tryAdvance((long value) -> fail()));
+  }
 }
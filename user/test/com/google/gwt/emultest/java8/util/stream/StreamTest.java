@@ -607,4 +607,19 @@ public class StreamTest extends EmulTestBase {
       assertEquals(0, expected.getSuppressed().length);
     }
   }
+
+  public void testPartialTraversal() {
+    // Stages serve tryAdvance and forEachRemaining in turn on the same pipeline
+    Spliterator<Integer> spliterator =
+        Stream.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)
+            .filter(i -> i % 2 == 0)
+            .map(i -> i * 10)
+            .skip(1)
+            .spliterator();
+    List<Integer> vals = new ArrayList<>();
+    assertTrue(spliterator.tryAdvance(value -> vals.add(value)));
+    spliterator.forEachRemaining(value -> vals.add(-value));
+    assertEquals(asList(20, -40, -60, -80), vals);
+    assertFalse(spliterator.tryAdvance(value -> fail()));
+  }
 }
@@ -17,6 +17,8 @@
 package com.google.gwt.event.shared;
 
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.DomEvent.Type;
 import com.google.gwt.event.dom.client.MouseDownEvent;
 import com.google.gwt.event.dom.client.MouseDownHandler;
@@ -204,6 +206,34 @@ public class SimpleEventBusTest extends HandlerTestBase {
     assertNotFired(able, baker);
   }
 
+  public void testConcurrentChangesDuringNestedFire() {
+    final SimpleEventBus eventBus = new SimpleEventBus();
+    final HandlerRegistration reg = eventBus.addHandler(MouseDownEvent.getType(), mouse1);
+    ClickHandler nested = new ClickHandler() {
+      @Override
+      public void onClick(ClickEvent event) {
+        // The changes wait for the outermost event, not the nested one.
+        eventBus.addHandler(MouseDownEvent.getType(), mouse2);
+        reg.removeHandler();
+        eventBus.fireEvent(new MouseDownEvent() {
+        });
+        add(this);
+      }
+    };
+    eventBus.addHandler(ClickEvent.getType(), nested);
+
+    eventBus.fireEvent(new ClickEvent() {
+    });
+    assertFired(nested, mouse1);
+    assertNotFired(mouse2);
+
+    reset();
+    eventBus.fireEvent(new MouseDownEvent() {
+    });
+    assertFired(mouse2);
+    assertNotFired(mouse1);
+  }
+
   public void testConcurrentAddAndRemoveByNastyUsersTryingToHurtUs() {
     final SimpleEventBus eventBus = new SimpleEventBus();
     final MouseDownHandler two = new MouseDownHandler() {
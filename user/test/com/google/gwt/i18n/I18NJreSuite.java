@@ -15,6 +15,7 @@
  */
 package com.google.gwt.i18n;
 
+import com.google.gwt.i18n.rebind.LocaleDataIndexTest;
 import com.google.gwt.i18n.rebind.LocaleUtilsTest;
 import com.google.gwt.i18n.rebind.LocalizableGeneratorTest;
 import com.google.gwt.i18n.server.GwtLocaleTest;
@@ -44,6 +45,7 @@ public class I18NJreSuite {
     suite.addTestSuite(BidiUtilsTest.class);
     suite.addTestSuite(FirstStrongDirectionEstimatorTest.class);
     suite.addTestSuite(GwtLocaleTest.class);
+    suite.addTestSuite(LocaleDataIndexTest.class);
     suite.addTestSuite(LocaleUtilsTest.class);
     suite.addTestSuite(LocalizableGeneratorTest.class);
     suite.addTestSuite(MessageFormatParserTest.class);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.i18n.rebind;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.javac.testing.impl.MockResource;
+import com.google.gwt.dev.javac.testing.impl.MockResourceOracle;
+import com.google.gwt.i18n.shared.GwtLocaleFactory;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests for {@link LocaleDataIndex}.
+ */
+public class LocaleDataIndexTest extends TestCase {
+
+  private static final String PREFIX = "com/example/LocaleDataIndexTest";
+
+  private static MockResource properties(String path, final String content) {
+    return new MockResource(path) {
+      @Override
+      public CharSequence getContent() {
+        return content;
+      }
+    };
+  }
+
+  private static void writeJar(File jar, String path, String content)
+      throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      out.putNextEntry(new JarEntry(path));
+      out.write(content.getBytes("UTF-8"));
+      out.closeEntry();
+    } finally {
+      out.close();
+    }
+  }
+
+  private final TreeLogger logger = TreeLogger.NULL;
+
+  public void testChangedJarIsParsedAgain() throws IOException {
+    String path = PREFIX + "Jar.properties";
+    File jar = File.createTempFile("LocaleDataIndexTest", ".jar");
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    try {
+      writeJar(jar, path, "a=1\n");
+      assertTrue(jar.setLastModified(1000000000000L));
+      Thread.currentThread().setContextClassLoader(
+          new URLClassLoader(new URL[] {jar.toURI().toURL()}, null));
+      Map<String, String> first = LocaleDataIndex.getProperties(logger,
+          new MockResourceOracle(), path);
+      assertEquals("1", first.get("a"));
+      assertSame(first, LocaleDataIndex.getProperties(logger,
+          new MockResourceOracle(), path));
+
+      // Rebuilding the jar is noticed through its modification time.
+      writeJar(jar, path, "a=2\n");
+      assertTrue(jar.setLastModified(1000000060000L));
+      assertEquals("2", LocaleDataIndex.getProperties(logger,
+          new MockResourceOracle(), path).get("a"));
+    } finally {
+      Thread.currentThread().setContextClassLoader(contextClassLoader);
+      jar.delete();
+    }
+  }
+
+  public void testFindInherited() throws IOException {
+    MockResourceOracle oracle = new MockResourceOracle(
+        properties(PREFIX + ".properties", "key=default"),
+        properties(PREFIX + "_es.properties", "key=es"));
+    GwtLocaleFactory factory = LocaleUtils.getLocaleFactory();
+
+    assertEquals("es", LocaleDataIndex.findInherited(logger, oracle, PREFIX,
+        factory.fromString("es_AR")).get("key"));
+    assertEquals("default", LocaleDataIndex.findInherited(logger, oracle,
+        PREFIX, factory.fromString("fr")).get("key"));
+    assertNull(LocaleDataIndex.getLocaleProperties(logger, oracle, PREFIX,
+        factory.fromString("fr")));
+    assertNull(LocaleDataIndex.findInherited(logger, new MockResourceOracle(),
+        PREFIX, factory.fromString("fr")));
+  }
+
+  public void testParsedOnceWhileUnchanged() throws IOException {
+    String path = PREFIX + ".properties";
+    MockResourceOracle oracle = new MockResourceOracle(
+        properties(path, "a=1\nb[one]=2\n"));
+
+    Map<String, String> first = LocaleDataIndex.getProperties(logger, oracle,
+        path);
+    assertEquals("1", first.get("a"));
+    assertEquals("2", first.get("b[one]"));
+    assertSame(first, LocaleDataIndex.getProperties(logger, oracle, path));
+    try {
+      first.put("a", "2");
+      fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+
+    oracle.replace(properties(path, "a=3\n"));
+    Map<String, String> changed = LocaleDataIndex.getProperties(logger, oracle,
+        path);
+    assertEquals("3", changed.get("a"));
+    assertNull(changed.get("b[one]"));
+  }
+}
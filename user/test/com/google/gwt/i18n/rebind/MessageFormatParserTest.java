@@ -31,6 +31,26 @@ import java.util.Map;
  */
 public class MessageFormatParserTest extends TestCase {
 
+  public void testParsedTemplatesAreCopied() throws ParseException {
+    String str = "Hello {0}, you have {1,number:places=2} messages";
+    List<TemplateChunk> parsed = MessageFormatParser.parse(str);
+    assertEquals(str, MessageFormatParser.assemble(parsed));
+
+    // Changes to the chunks returned to a caller are not seen by later callers.
+    ((StringChunk) parsed.get(0)).append("Bye ");
+    ((ArgumentChunk) parsed.get(3)).getFormatArgs().clear();
+    parsed.clear();
+    List<TemplateChunk> reparsed = MessageFormatParser.parse(str);
+    assertNotSame(parsed, reparsed);
+    assertEquals(str, MessageFormatParser.assemble(reparsed));
+
+    try {
+      MessageFormatParser.parse("{");
+      fail("Expected ParseException");
+    } catch (ParseException expected) {
+    }
+  }
+
   public void testList() throws ParseException {
     String str = "{0,list:max=3,number:curcode=1:space,currency}";
     List<TemplateChunk> parsed = MessageFormatParser.parse(str);
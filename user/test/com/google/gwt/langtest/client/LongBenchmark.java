@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.langtest.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.junit.DoNotRunWith;
+import com.google.gwt.junit.Platform;
+import com.google.gwt.junit.client.GWTTestCase;
+
+/**
+ * Times long arithmetic on values of increasing magnitude: timestamps in
+ * milliseconds, amounts in micro units, which need more than 44 bits, and
+ * values which need more than 53 bits. It is not part of a suite; run it
+ * directly and compare the timings it prints with those of other builds.
+ */
+@DoNotRunWith(Platform.Devel)
+public class LongBenchmark extends GWTTestCase {
+
+  private static final int OPERATIONS = 200000;
+  private static final int ROUNDS = 3;
+
+  private static long sink;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.langtest.LongLibGwtTest";
+  }
+
+  public void testArithmetic() {
+    for (int round = 1; round <= ROUNDS; round++) {
+      time(round, "timestamps", 1450000000000L, 86400000L);
+      time(round, "micros", 1234567890123456L, 1000000L);
+      time(round, "large", 0x123456789abcdefL, 0x10000000001L);
+    }
+  }
+
+  private void time(int round, String name, long start, long step) {
+    Duration duration = new Duration();
+    long sum = 0;
+    long value = start;
+    for (int i = 0; i < OPERATIONS; i++) {
+      value += step;
+      sum -= value / step * 3;
+      if (value > sum) {
+        sum += value % step;
+      }
+    }
+    sink += sum;
+    System.out.println("Round " + round + ": " + OPERATIONS + " " + name + ", "
+        + duration.elapsedMillis() + " ms");
+  }
+}
@@ -81,6 +81,10 @@ public class LongLibGwtTest extends GWTTestCase {
     impl.testNegativeZeroSeal();
   }
 
+  public void testSafeIntegerRange() {
+    impl.testSafeIntegerRange();
+  }
+
   public void testShift() {
     impl.testShift();
   }
@@ -42,6 +42,7 @@ import com.google.gwt.resources.gss.ValidateRuntimeConditionalNodeTest;
 import com.google.gwt.resources.gss.ValueFunctionTest;
 import com.google.gwt.resources.rg.CssClassNamesTestCase;
 import com.google.gwt.resources.rg.CssOutputTestCase;
+import com.google.gwt.resources.rg.ImageBundleBuilderTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -59,6 +60,7 @@ public class ResourcesJreSuite {
     suite.addTestSuite(CssReorderTest.class);
     suite.addTestSuite(CssRtlTest.class);
     suite.addTestSuite(ExtractClassNamesVisitorTest.class);
+    suite.addTestSuite(ImageBundleBuilderTest.class);
     suite.addTestSuite(ResourceGeneratorUtilTest.class);
     suite.addTestSuite(UnknownAtRuleTest.class);
 
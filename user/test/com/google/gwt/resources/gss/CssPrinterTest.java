@@ -22,7 +22,9 @@ import static org.mockito.Mockito.when;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.resources.ext.ResourceContext;
+import com.google.gwt.thirdparty.common.css.compiler.ast.CssRulesetNode;
 import com.google.gwt.thirdparty.common.css.compiler.ast.CssTree;
+import com.google.gwt.thirdparty.common.css.compiler.ast.DefaultTreeVisitor;
 import com.google.gwt.thirdparty.common.css.compiler.ast.ErrorManager;
 import com.google.gwt.thirdparty.common.css.compiler.ast.GssFunction;
 import com.google.gwt.thirdparty.common.css.compiler.ast.MutatingVisitController;
@@ -116,6 +118,43 @@ public class CssPrinterTest extends BaseGssTest {
         ));
   }
 
+  public void testCopiedTreePrintsLikeTheOriginal() {
+    CssTree cssTree = parseAndBuildTree(lines(
+        "@if (eval('com.foo.BAR')) {",
+        "  .foo {",
+        "    width: value('image.getWidth', 'px');",
+        "  }",
+        "}",
+        "@else {",
+        "  .foo {",
+        "    height: eval('com.foo.bar.height()');",
+        "  }",
+        "}"
+    ));
+    String expectedCss = print(cssTree);
+
+    CssTree copy = new CssTree(cssTree);
+    assertEquals(expectedCss, print(copy));
+
+    // changing the copy leaves the original untouched
+    final MutatingVisitController copyVisitController = copy.getMutatingVisitController();
+    copyVisitController.startVisit(new DefaultTreeVisitor() {
+      @Override
+      public boolean enterRuleset(CssRulesetNode ruleset) {
+        copyVisitController.removeCurrentNode();
+        return false;
+      }
+    });
+    assertFalse(expectedCss.equals(print(copy)));
+    assertEquals(expectedCss, print(cssTree));
+  }
+
+  private String print(CssTree cssTree) {
+    CssPrinter pass = new CssPrinter(cssTree);
+    pass.runPass();
+    return pass.getCompactPrintedString();
+  }
+
   private void assertPrintedResult(String expectedCss, String source) {
     CssTree cssTree = parseAndBuildTree(source);
 
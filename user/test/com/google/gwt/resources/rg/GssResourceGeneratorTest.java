@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.resources.rg;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.resources.gss.CssPrinter;
+import com.google.gwt.resources.rg.GssResourceGenerator.ParsedStylesheet;
+import com.google.gwt.thirdparty.common.css.SourceCode;
+import com.google.gwt.thirdparty.common.css.compiler.ast.CssTree;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests the sharing of parsed stylesheets by {@link GssResourceGenerator}.
+ */
+public class GssResourceGeneratorTest extends TestCase {
+
+  private static final Set<String> NO_AT_RULES = Collections.emptySet();
+
+  private static String print(CssTree tree) {
+    CssPrinter printer = new CssPrinter(new CssTree(tree));
+    printer.runPass();
+    // Strip the Java string expression around the printed CSS.
+    String printed = printer.getCompactPrintedString();
+    return printed.substring(2, printed.length() - 2);
+  }
+
+  private static List<SourceCode> stylesheet(String name, String contents) {
+    return Collections.singletonList(new SourceCode(name, contents));
+  }
+
+  public void testErrorsAreNotCached() throws Exception {
+    List<SourceCode> sourceCodes = stylesheet("broken.gss", ".a { width: 1px;");
+
+    assertNull(GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL, sourceCodes,
+        NO_AT_RULES));
+    assertFalse(GssResourceGenerator.isParsingCached(sourceCodes, NO_AT_RULES));
+  }
+
+  public void testParsedStylesheetsAreShared() throws Exception {
+    List<SourceCode> sourceCodes =
+        stylesheet("shared.gss", ".shared { color: red; }\n.other { width: 1px; }");
+    assertFalse(GssResourceGenerator.isParsingCached(sourceCodes, NO_AT_RULES));
+
+    ParsedStylesheet first =
+        GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL, sourceCodes, NO_AT_RULES);
+    assertTrue(GssResourceGenerator.isParsingCached(sourceCodes, NO_AT_RULES));
+    assertEquals(".shared{color:red}.other{width:1px}", print(first.tree));
+
+    // The same sources are not parsed again, even by another generator reading them again.
+    List<SourceCode> sameSourceCodes =
+        stylesheet("shared.gss", ".shared { color: red; }\n.other { width: 1px; }");
+    assertSame(first, GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL,
+        sameSourceCodes, NO_AT_RULES));
+
+    // Other sources or at-rules are parsed on their own.
+    List<SourceCode> changedSourceCodes =
+        stylesheet("shared.gss", ".shared { color: blue; }\n.other { width: 1px; }");
+    ParsedStylesheet changed = GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL,
+        changedSourceCodes, NO_AT_RULES);
+    assertNotSame(first, changed);
+    assertEquals(".shared{color:blue}.other{width:1px}", print(changed.tree));
+    assertNotSame(first, GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL, sourceCodes,
+        Collections.singleton("extra")));
+  }
+
+  public void testPrefetchedStylesheetsMatchTheirSources() throws Exception {
+    List<List<SourceCode>> stylesheets = new ArrayList<List<SourceCode>>();
+    for (int i = 0; i < 32; i++) {
+      StringBuilder contents = new StringBuilder();
+      for (int j = 0; j <= i; j++) {
+        contents.append(".prefetched").append(i).append('-').append(j)
+            .append(" { width: ").append(i).append("px; }\n");
+      }
+      stylesheets.add(stylesheet("prefetched" + i + ".gss", contents.toString()));
+    }
+    for (List<SourceCode> sourceCodes : stylesheets) {
+      GssResourceGenerator.prefetchParsedStylesheet(sourceCodes, NO_AT_RULES);
+    }
+
+    for (int i = 0; i < stylesheets.size(); i++) {
+      ParsedStylesheet parsed = GssResourceGenerator.getParsedStylesheet(TreeLogger.NULL,
+          stylesheets.get(i), NO_AT_RULES);
+      StringBuilder expected = new StringBuilder();
+      for (int j = 0; j <= i; j++) {
+        expected.append(".prefetched").append(i).append('-').append(j)
+            .append("{width:").append(i).append("px}");
+      }
+      assertEquals(expected.toString(), print(parsed.tree));
+    }
+  }
+}
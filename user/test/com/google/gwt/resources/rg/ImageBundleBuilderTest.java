@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.resources.rg;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.resources.rg.ImageBundleBuilder.BestFitArranger;
+import com.google.gwt.resources.rg.ImageBundleBuilder.ImageRect;
+import com.google.gwt.resources.rg.ImageBundleBuilder.MaxRectsArranger;
+
+import junit.framework.TestCase;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Tests the arrangement and rendering of {@link ImageBundleBuilder}.
+ */
+public class ImageBundleBuilderTest extends TestCase {
+
+  private static List<ImageRect> createRects(long seed, int count) {
+    Random random = new Random(seed);
+    List<ImageRect> rects = new ArrayList<ImageRect>();
+    for (int i = 0; i < count; i++) {
+      rects.add(new ImageRect("image" + i, new BufferedImage(1 + random.nextInt(48),
+          1 + random.nextInt(48), BufferedImage.TYPE_INT_ARGB)));
+    }
+    return rects;
+  }
+
+  /**
+   * Returns the area of the bounding box of the arranged rects.
+   */
+  private static int area(List<ImageRect> rects) {
+    int width = 0;
+    int height = 0;
+    for (ImageRect rect : rects) {
+      width = Math.max(width, rect.getLeft() + rect.getWidth());
+      height = Math.max(height, rect.getTop() + rect.getHeight());
+    }
+    return width * height;
+  }
+
+  private static URL writePng(Color color, int width, int height) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = image.createGraphics();
+    g2d.setColor(color);
+    g2d.fillRect(0, 0, width, height);
+    g2d.dispose();
+
+    File file = File.createTempFile("ImageBundleBuilderTest", ".png");
+    file.deleteOnExit();
+    assertTrue(ImageIO.write(image, "png", file));
+    return file.toURI().toURL();
+  }
+
+  public void testMaxRectsArrangement() {
+    for (long seed = 0; seed < 20; seed++) {
+      List<ImageRect> bestFit = createRects(seed, 30);
+      new BestFitArranger().arrangeImages(bestFit);
+      List<ImageRect> rects = createRects(seed, 30);
+      new MaxRectsArranger().arrangeImages(rects);
+
+      assertTrue(area(rects) <= area(bestFit));
+      for (int i = 0; i < rects.size(); i++) {
+        ImageRect a = rects.get(i);
+        assertTrue(a.hasBeenPositioned());
+        assertTrue(a.getLeft() >= 0 && a.getTop() >= 0);
+        for (int j = i + 1; j < rects.size(); j++) {
+          ImageRect b = rects.get(j);
+          boolean overlaps = a.getLeft() < b.getLeft() + b.getWidth()
+              && b.getLeft() < a.getLeft() + a.getWidth()
+              && a.getTop() < b.getTop() + b.getHeight()
+              && b.getTop() < a.getTop() + a.getHeight();
+          assertFalse(a.getName() + " overlaps " + b.getName(), overlaps);
+        }
+      }
+    }
+  }
+
+  public void testMaxRectsIsDeterministic() {
+    List<ImageRect> first = createRects(42, 25);
+    List<ImageRect> second = createRects(42, 25);
+    new MaxRectsArranger().arrangeImages(first);
+    List<ImageRect> reversed = new ArrayList<ImageRect>(second);
+    Collections.reverse(reversed);
+    new MaxRectsArranger().arrangeImages(reversed);
+
+    for (int i = 0; i < first.size(); i++) {
+      assertEquals(first.get(i).getLeft(), second.get(i).getLeft());
+      assertEquals(first.get(i).getTop(), second.get(i).getTop());
+    }
+  }
+
+  public void testRenderReusesDecodedAndEncodedImages() throws Exception {
+    URL red = writePng(Color.RED, 10, 20);
+    URL blue = writePng(Color.BLUE, 30, 5);
+    ImageBundleBuilder.prefetch(red);
+
+    ImageBundleBuilder first = new ImageBundleBuilder();
+    ImageRect redRect = first.assimilate(TreeLogger.NULL, "red", red);
+    first.assimilate(TreeLogger.NULL, "blue", blue);
+    byte[] firstBytes = first.render(TreeLogger.NULL, new MaxRectsArranger());
+
+    // The same contents under other names and URLs.
+    ImageBundleBuilder second = new ImageBundleBuilder();
+    ImageRect otherRedRect =
+        second.assimilate(TreeLogger.NULL, "otherRed", writePng(Color.RED, 10, 20));
+    second.assimilate(TreeLogger.NULL, "otherBlue", writePng(Color.BLUE, 30, 5));
+    byte[] secondBytes = second.render(TreeLogger.NULL, new MaxRectsArranger());
+
+    assertSame(redRect.getImage(), otherRedRect.getImage());
+    assertEquals(redRect.getContentHash(), otherRedRect.getContentHash());
+    assertSame(firstBytes, secondBytes);
+
+    BufferedImage rendered = ImageIO.read(new ByteArrayInputStream(secondBytes));
+    assertEquals(Color.RED.getRGB(),
+        rendered.getRGB(otherRedRect.getLeft(), otherRedRect.getTop()));
+
+    // Different contents are not confused with the cached ones.
+    ImageBundleBuilder third = new ImageBundleBuilder();
+    third.assimilate(TreeLogger.NULL, "red", red);
+    third.assimilate(TreeLogger.NULL, "green", writePng(Color.GREEN, 30, 5));
+    assertFalse(Arrays.equals(firstBytes, third.render(TreeLogger.NULL, new MaxRectsArranger())));
+  }
+}
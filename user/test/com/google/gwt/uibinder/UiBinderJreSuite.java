@@ -58,6 +58,7 @@ import com.google.gwt.uibinder.rebind.UiBinderParserUiImportTest;
 import com.google.gwt.uibinder.rebind.UiBinderParserUiWithTest;
 import com.google.gwt.uibinder.rebind.UiRendererEventValidationTest;
 import com.google.gwt.uibinder.rebind.UiRendererValidationTest;
+import com.google.gwt.uibinder.rebind.W3cDomHelperTest;
 import com.google.gwt.uibinder.rebind.XMLElementTest;
 import com.google.gwt.uibinder.rebind.model.HtmlTemplatesTest;
 import com.google.gwt.uibinder.rebind.model.OwnerClassTest;
@@ -81,6 +82,7 @@ public class UiBinderJreSuite {
     suite.addTestSuite(GwtResourceEntityResolverTest.class);
     suite.addTestSuite(HandlerEvaluatorTest.class);
     suite.addTestSuite(TokenatorTest.class);
+    suite.addTestSuite(W3cDomHelperTest.class);
     suite.addTestSuite(XMLElementTest.class);
     suite.addTestSuite(DesignTimeUtilsTest.class);
     suite.addTestSuite(TypeOracleUtilsTest.class);
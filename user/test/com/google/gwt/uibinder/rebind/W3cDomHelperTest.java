@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.uibinder.rebind;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.javac.testing.impl.MockResource;
+import com.google.gwt.dev.javac.testing.impl.MockResourceOracle;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Tests W3cDomHelper.
+ */
+public class W3cDomHelperTest extends TestCase {
+  private static final String PATH = "com/example/W3cDomHelperTest.ui.xml";
+  private static final String TEMPLATE = "<ui:UiBinder xmlns:ui='urn:ui:com.google.gwt.uibinder'>\n"
+      + "  <div ui:field='greeting'>\n"
+      + "    <span>Hello</span>\n"
+      + "  </div>\n"
+      + "</ui:UiBinder>";
+
+  private final W3cDomHelper docHelper = new W3cDomHelper(TreeLogger.NULL,
+      new MockResourceOracle());
+
+  private static MockResource entities(final String word) {
+    return new MockResource("com/example/words.ent") {
+      @Override
+      public CharSequence getContent() {
+        return "<!ENTITY word '" + word + "'>";
+      }
+    };
+  }
+
+  private static Element firstChildElement(Element elem) {
+    return (Element) elem.getElementsByTagName("*").item(0);
+  }
+
+  private static XMLElement.Location location(Element elem) {
+    return (XMLElement.Location) elem.getUserData(XMLElement.LOCATION_KEY);
+  }
+
+  public void testCachedDocumentsAreIndependentCopies() throws SAXParseException {
+    Document first = docHelper.cachedDocumentFor(TEMPLATE, PATH);
+    Document second = docHelper.cachedDocumentFor(TEMPLATE, PATH);
+    assertNotSame(first, second);
+
+    Element div = firstChildElement(second.getDocumentElement());
+    assertEquals("greeting", div.getAttributeNS("urn:ui:com.google.gwt.uibinder", "field"));
+    assertEquals("urn:ui:com.google.gwt.uibinder",
+        second.getDocumentElement().getNamespaceURI());
+    assertEquals("UiBinder", second.getDocumentElement().getLocalName());
+
+    // Copies keep the location of their elements
+    assertEquals(2, location(div).getLineNumber());
+    assertEquals(3, location(firstChildElement(div)).getLineNumber());
+
+    // Changing a copy does not change the others
+    div.removeAttributeNS("urn:ui:com.google.gwt.uibinder", "field");
+    Document third = docHelper.cachedDocumentFor(TEMPLATE, PATH);
+    assertEquals("greeting", firstChildElement(third.getDocumentElement()).getAttributeNS(
+        "urn:ui:com.google.gwt.uibinder", "field"));
+    assertEquals("greeting", firstChildElement(first.getDocumentElement()).getAttributeNS(
+        "urn:ui:com.google.gwt.uibinder", "field"));
+  }
+
+  public void testChangedContentsAreParsedAgain() throws SAXParseException {
+    docHelper.cachedDocumentFor(TEMPLATE, PATH);
+    Document changed = docHelper.cachedDocumentFor(TEMPLATE.replace("greeting", "farewell"),
+        PATH);
+    assertEquals("farewell", firstChildElement(changed.getDocumentElement()).getAttributeNS(
+        "urn:ui:com.google.gwt.uibinder", "field"));
+  }
+
+  public void testChangedEntitiesAreParsedAgain() throws SAXParseException {
+    MockResourceOracle resourceOracle = new MockResourceOracle(entities("Hello"));
+    W3cDomHelper helper = new W3cDomHelper(TreeLogger.NULL, resourceOracle);
+    String template = "<!DOCTYPE ui:UiBinder SYSTEM 'words.ent'>\n"
+        + "<ui:UiBinder xmlns:ui='urn:ui:com.google.gwt.uibinder'>&word;</ui:UiBinder>";
+    assertEquals("Hello",
+        helper.cachedDocumentFor(template, PATH).getDocumentElement().getTextContent());
+    assertEquals("Hello",
+        helper.cachedDocumentFor(template, PATH).getDocumentElement().getTextContent());
+
+    resourceOracle.addOrReplace(entities("Goodbye"));
+    assertEquals("Goodbye",
+        helper.cachedDocumentFor(template, PATH).getDocumentElement().getTextContent());
+  }
+
+  public void testCopiesKeepLocations() throws ParserConfigurationException {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    Document document = factory.newDocumentBuilder().newDocument();
+    Element div = document.createElement("div");
+    Element span = document.createElement("span");
+    document.appendChild(div).appendChild(span);
+    XMLElement.Location divLocation = new XMLElement.Location(PATH, 2);
+    XMLElement.Location spanLocation = new XMLElement.Location(PATH, 3);
+    div.setUserData(XMLElement.LOCATION_KEY, divLocation, W3cDocumentBuilder.COPY_USER_DATA);
+    span.setUserData(XMLElement.LOCATION_KEY, spanLocation, W3cDocumentBuilder.COPY_USER_DATA);
+
+    Document copy = (Document) document.cloneNode(true);
+    assertSame(divLocation, location(copy.getDocumentElement()));
+    assertSame(spanLocation, location(firstChildElement(copy.getDocumentElement())));
+
+    Element clonedSpan = (Element) span.cloneNode(false);
+    assertSame(spanLocation, location(clonedSpan));
+
+    Document other = factory.newDocumentBuilder().newDocument();
+    Element importedDiv = (Element) other.importNode(div, true);
+    assertSame(divLocation, location(importedDiv));
+    assertSame(spanLocation, location(firstChildElement(importedDiv)));
+
+    // Copies of the copies keep the locations too
+    assertSame(spanLocation, location((Element) clonedSpan.cloneNode(false)));
+  }
+}
@@ -26,13 +26,17 @@ import com.google.gwt.junit.client.GWTTestCase;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.cellview.client.AbstractHasDataTestBase.IndexCell;
 import com.google.gwt.user.client.ui.RootPanel;
+import com.google.gwt.view.client.AsyncDataProvider;
+import com.google.gwt.view.client.HasData;
 import com.google.gwt.view.client.ListDataProvider;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.ProvidesKey;
 import com.google.gwt.view.client.TreeViewModel;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base tests for subclasses of {@link AbstractCellTree}.
@@ -137,6 +141,47 @@ public abstract class AbstractCellTreeTestBase extends GWTTestCase {
     }
   }
 
+  /**
+   * A {@link TreeViewModel} with two levels below the root, whose nodes are
+   * loaded by {@link AsyncDataProvider}s which only push rows when told to.
+   */
+  private static class AsyncTreeViewModel implements TreeViewModel {
+
+    private final Map<Object, AsyncDataProvider<String>> providers =
+        new HashMap<Object, AsyncDataProvider<String>>();
+
+    @Override
+    public <T> NodeInfo<?> getNodeInfo(T value) {
+      AsyncDataProvider<String> provider = new AsyncDataProvider<String>() {
+        @Override
+        protected void onRangeChanged(HasData<String> display) {
+        }
+      };
+      providers.put(value, provider);
+      return new DefaultNodeInfo<String>(provider, new TextCell());
+    }
+
+    @Override
+    public boolean isLeaf(Object value) {
+      return value instanceof String && ((String) value).length() == 2;
+    }
+
+    /**
+     * Push three rows to the last node opened for the value.
+     *
+     * @param value the value of the node
+     * @param prefix the prefix of the rows
+     */
+    public void load(Object value, String prefix) {
+      List<String> rows = new ArrayList<String>();
+      for (int i = 0; i < 3; i++) {
+        rows.add(prefix + ((char) ('a' + i)));
+      }
+      providers.get(value).updateRowCount(rows.size(), true);
+      providers.get(value).updateRowData(0, rows);
+    }
+  }
+
   /**
    * A mock {@link CloseHandler} used for testing.
    */
@@ -206,6 +251,46 @@ public abstract class AbstractCellTreeTestBase extends GWTTestCase {
     return "com.google.gwt.user.cellview.CellView";
   }
 
+  public void testClosedNodeCache() {
+    AsyncTreeViewModel asyncModel = new AsyncTreeViewModel();
+    RootPanel.get().remove(tree);
+    tree = createAbstractCellTree(asyncModel, ROOT_VALUE);
+    RootPanel.get().add(tree);
+    assertEquals(0, tree.getClosedNodeCacheSize());
+    tree.setClosedNodeCacheSize(1);
+    asyncModel.load(ROOT_VALUE, "");
+    TreeNode root = tree.getRootTreeNode();
+    assertEquals(3, root.getChildCount());
+
+    // A node is empty until its provider pushes rows.
+    TreeNode a = root.setChildOpen(0, true);
+    assertEquals(0, a.getChildCount());
+    asyncModel.load("a", "a");
+    assertEquals(3, a.getChildCount());
+
+    // The rows are displayed right away when the node opens again.
+    root.setChildOpen(0, false);
+    a = root.setChildOpen(0, true);
+    assertEquals(3, a.getChildCount());
+    assertEquals("ab", a.getChildValue(1));
+
+    // Only the rows of the last closed node are kept.
+    root.setChildOpen(0, false);
+    root.setChildOpen(1, true);
+    asyncModel.load("b", "b");
+    root.setChildOpen(1, false);
+    a = root.setChildOpen(0, true);
+    assertEquals(0, a.getChildCount());
+    TreeNode b = root.setChildOpen(1, true);
+    assertEquals(3, b.getChildCount());
+
+    // No rows are kept without a cache.
+    tree.setClosedNodeCacheSize(0);
+    root.setChildOpen(1, false);
+    b = root.setChildOpen(1, true);
+    assertEquals(0, b.getChildCount());
+  }
+
   /**
    * Issue 6677: Deleting the last element on a CellTree causes NPE in IE.
    */
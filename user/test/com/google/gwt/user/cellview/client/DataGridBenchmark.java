@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.cellview.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.dom.client.TableElement;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.ui.RootPanel;
+import com.google.gwt.view.client.ListDataProvider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the time {@link DataGrid} takes to render and re-sort a large page
+ * with and without virtual scrolling, and checks that virtual scrolling only
+ * renders part of the page. It is not part of a suite; run it directly, in
+ * HtmlUnit or a browser, and read the timings it prints.
+ */
+public class DataGridBenchmark extends GWTTestCase {
+
+  private static final int COLUMNS = 5;
+  private static final int ROUNDS = 3;
+  private static final int ROWS = 5000;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.user.cellview.CellView";
+  }
+
+  public void testRenderLargePage() {
+    for (int round = 1; round <= ROUNDS; round++) {
+      double full = time(false);
+      double virtual = time(true);
+      System.out.println("Round " + round + ": " + ROWS + " rows, full " + (int) full
+          + " ms, virtual " + (int) virtual + " ms");
+    }
+  }
+
+  /**
+   * Returns the time taken to render the grid and to render it again after the
+   * data is reversed, as a sort would.
+   */
+  private double time(boolean virtualScrolling) {
+    List<String> data = new ArrayList<String>();
+    for (int i = 0; i < ROWS; i++) {
+      data.add("row " + i);
+    }
+    DataGrid<String> grid = new DataGrid<String>(ROWS);
+    grid.setHeight("400px");
+    for (int i = 0; i < COLUMNS; i++) {
+      final String suffix = " col " + i;
+      grid.addColumn(new TextColumn<String>() {
+        @Override
+        public String getValue(String object) {
+          return object + suffix;
+        }
+      });
+    }
+    ListDataProvider<String> provider = new ListDataProvider<String>(data);
+    RootPanel.get().add(grid);
+    grid.setVirtualScrolling(virtualScrolling);
+
+    Duration duration = new Duration();
+    provider.addDataDisplay(grid);
+    grid.getPresenter().flush();
+    Collections.reverse(provider.getList());
+    provider.flush();
+    grid.getPresenter().flush();
+    double elapsed = duration.elapsedMillis();
+
+    assertEquals(ROWS, grid.getRowCount());
+    TableElement table = grid.tableData.getElement().cast();
+    int renderedRows = table.getTBodies().getItem(0).getRows().getLength();
+    if (virtualScrolling) {
+      assertTrue(renderedRows < ROWS);
+    } else {
+      assertEquals(ROWS, renderedRows);
+    }
+    RootPanel.get().remove(grid);
+    return elapsed;
+  }
+}
@@ -16,12 +16,17 @@
 package com.google.gwt.user.cellview.client;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style;
 import com.google.gwt.dom.client.TableCellElement;
 import com.google.gwt.dom.client.TableElement;
 import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.dom.client.TableSectionElement;
 import com.google.gwt.user.cellview.client.DataGrid.Resources;
 import com.google.gwt.user.client.ui.RootPanel;
+import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.Range;
 
 /**
  * Tests for {@link DataGrid}.
@@ -89,6 +94,58 @@ public class DataGridTest extends AbstractCellTableTestBase<DataGrid<String>> {
     RootPanel.get().remove(table);
   }
 
+  /**
+   * Test that virtual scrolling renders a window of rows and pads it to the
+   * height of all rows.
+   */
+  public void testVirtualScrolling() {
+    DataGrid<String> table = createVirtualScrollingTable();
+    assertTrue(table.isVirtualScrolling());
+    assertEquals(5000, table.getRowCount());
+
+    // Moving the visible range moves the rendered rows.
+    table.setVisibleRange(2000, 50);
+    table.getPresenter().flush();
+    assertEquals("test 2000", getBodyElement(table, 0, 0).getInnerText());
+    int rowHeight = table.getVirtualRowHeight();
+    Style containerStyle = table.tableData.getElement().getParentElement().getStyle();
+    assertEquals(2000 * rowHeight + "px", containerStyle.getPaddingTop());
+    assertEquals(2950 * rowHeight + "px", containerStyle.getPaddingBottom());
+
+    // Disabling virtual scrolling restores the page size.
+    table.setVirtualScrolling(false);
+    assertEquals("", containerStyle.getPaddingTop());
+    assertEquals("", containerStyle.getPaddingBottom());
+    assertEquals(5000, table.getPageSize());
+    RootPanel.get().remove(table);
+  }
+
+  /**
+   * Test that scrolling past the rendered rows moves the visible range to the
+   * viewport.
+   */
+  public void testVirtualScrollingFollowsScrollPosition() {
+    DataGrid<String> table = createVirtualScrollingTable();
+    int rowHeight = table.getVirtualRowHeight();
+    Range range = table.getVisibleRange();
+    assertEquals(0, range.getStart());
+    assertTrue(range.getLength() < 5000);
+
+    // Scrolling within the rendered rows keeps the visible range.
+    scrollTo(table, 5 * rowHeight);
+    assertEquals(range, table.getVisibleRange());
+
+    // Scrolling past them moves the visible range around the viewport.
+    scrollTo(table, 1000 * rowHeight);
+    range = table.getVisibleRange();
+    assertTrue(range.getStart() > 0);
+    assertTrue(range.getStart() <= 1000);
+    assertTrue(range.getStart() + range.getLength() > 1000);
+    table.getPresenter().flush();
+    assertEquals("test " + range.getStart(), getBodyElement(table, 0, 0).getInnerText());
+    RootPanel.get().remove(table);
+  }
+
   @Override
   protected DataGrid<String> createAbstractHasData() {
     return new DataGrid<String>();
@@ -120,4 +177,35 @@ public class DataGridTest extends AbstractCellTableTestBase<DataGrid<String>> {
     TableRowElement tr = thead.getRows().getItem(0);
     return tr.getCells().getItem(column);
   }
+
+  /**
+   * Creates an attached table of 5000 rows with virtual scrolling enabled.
+   */
+  private DataGrid<String> createVirtualScrollingTable() {
+    DataGrid<String> table = createAbstractHasData();
+    table.setHeight("200px");
+    table.addColumn(new TextColumn<String>() {
+      @Override
+      public String getValue(String object) {
+        return object;
+      }
+    });
+    table.setPageSize(5000);
+    ListDataProvider<String> provider = new ListDataProvider<String>(createData(0, 5000));
+    provider.addDataDisplay(table);
+    RootPanel.get().add(table);
+    table.setVirtualScrolling(true);
+    table.getPresenter().flush();
+    return table;
+  }
+
+  /**
+   * Scrolls the data section of a table and fires the scroll event.
+   */
+  private void scrollTo(DataGrid<String> table, int position) {
+    // The data table is in the container of the scrollable element.
+    Element scrollable = table.tableData.getElement().getParentElement().getParentElement();
+    scrollable.setScrollTop(position);
+    scrollable.dispatchEvent(Document.get().createScrollEvent());
+  }
 }
@@ -129,6 +129,83 @@ public class RemoteServiceServletTest extends RpcTestBase {
     });
   }
 
+  /**
+   * Verify that calls made in the same event loop turn through a proxy with
+   * batching enabled each get their own result, whether or not the others
+   * fail.
+   */
+  public void testBatching() {
+    RemoteServiceServletTestServiceAsync service = getAsyncService();
+    ((HasRpcBatching) service).setRpcBatchingEnabled(true);
+
+    delayTestFinishForRpc();
+
+    final int[] pending = {3};
+    service.testExpectPermutationStrongName(GWT.getPermutationStrongName(),
+        new AsyncCallback<Void>() {
+
+          @Override
+          public void onFailure(Throwable caught) {
+            TestSetValidator.rethrowException(caught);
+          }
+
+          @Override
+          public void onSuccess(Void result) {
+            if (--pending[0] == 0) {
+              finishTest();
+            }
+          }
+        });
+
+    service.throwDeclaredRuntimeException(new AsyncCallback<Void>() {
+
+      @Override
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof NullPointerException);
+        if (--pending[0] == 0) {
+          finishTest();
+        }
+      }
+
+      @Override
+      public void onSuccess(Void result) {
+        fail();
+      }
+    });
+
+    Request canceled = service.test(new AsyncCallback<Void>() {
+
+      @Override
+      public void onFailure(Throwable caught) {
+        fail("Canceled call should not complete");
+      }
+
+      @Override
+      public void onSuccess(Void result) {
+        fail("Canceled call should not complete");
+      }
+    });
+    assertTrue(canceled.isPending());
+    canceled.cancel();
+    assertFalse(canceled.isPending());
+
+    service.throwUnknownRuntimeException(new AsyncCallback<Void>() {
+
+      @Override
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof InvocationException);
+        if (--pending[0] == 0) {
+          finishTest();
+        }
+      }
+
+      @Override
+      public void onSuccess(Void result) {
+        fail();
+      }
+    });
+  }
+
   /**
    * Verify behavior when the RPC method throws a RuntimeException declared on
    * the RemoteService interface.
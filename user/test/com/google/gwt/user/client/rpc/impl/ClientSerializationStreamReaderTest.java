@@ -17,6 +17,7 @@
 package com.google.gwt.user.client.rpc.impl;
 
 import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.impl.ServerSerializationStreamWriter;
 
 import junit.framework.TestCase;
 
@@ -73,6 +74,26 @@ public class ClientSerializationStreamReaderTest extends TestCase {
     assertEquals("one", reader.readString());
   }
 
+  public void testRead_largeJsonArray() throws SerializationException {
+    int length = ServerSerializationStreamWriter.LengthConstrainedArray.MAXIMUM_ARRAY_LENGTH * 2;
+    ServerSerializationStreamWriter writer = new ServerSerializationStreamWriter(null,
+        AbstractSerializationStream.SERIALIZATION_STREAM_JSON_VERSION);
+    for (int i = 0; i < length; i++) {
+      writer.writeInt(i);
+    }
+    writer.writeString("end");
+
+    ClientSerializationStreamReader reader = new ClientSerializationStreamReader(null);
+    reader.prepareToRead(writer.toString());
+
+    assertEquals(AbstractSerializationStream.SERIALIZATION_STREAM_JSON_VERSION,
+        reader.getVersion());
+    for (int i = 0; i < length; i++) {
+      assertEquals(i, reader.readInt());
+    }
+    assertEquals("end", reader.readString());
+  }
+
   /*
    * Note: this test verifies a issue with the Rhino parser that limits the size of a single string
    * node to 64KB. If this test starts failing, then the Rhino parser may have been fixed to support
@@ -36,6 +36,9 @@ import com.google.gwt.dev.cfg.BindingProperty;
 import com.google.gwt.dev.cfg.ConfigurationProperties;
 import com.google.gwt.dev.cfg.ModuleDef;
 import com.google.gwt.dev.cfg.ModuleDefLoader;
+import com.google.gwt.dev.javac.CompilationState;
+import com.google.gwt.dev.javac.CompilationStateTestBase;
+import com.google.gwt.dev.javac.GeneratedUnit;
 import com.google.gwt.dev.javac.TypeOracleTestingUtils;
 import com.google.gwt.dev.javac.testing.impl.JavaResourceBase;
 import com.google.gwt.dev.javac.testing.impl.MockJavaResource;
@@ -1837,6 +1840,132 @@ public class SerializableTypeOracleBuilderTest extends TestCase {
     assertSerializableTypes(so, rawA);
   }
 
+  /**
+   * Tests that builders sharing the analyses of their root types find the same
+   * serializable types as a builder that analyzes its roots itself.
+   */
+  public void testSharedRootAnalyses() throws NotFoundException, UnableToCompleteException {
+    Set<Resource> resources = new HashSet<Resource>();
+    addStandardClasses(resources);
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("import java.io.Serializable;\n");
+      code.append("public class Dto implements Serializable {\n");
+      code.append("  Item[] items;\n");
+      code.append("}\n");
+      resources.add(new StaticJavaResource("Dto", code));
+    }
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("import java.io.Serializable;\n");
+      code.append("public class Item implements Serializable {\n");
+      code.append("  Dto parent;\n");
+      code.append("}\n");
+      resources.add(new StaticJavaResource("Item", code));
+    }
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("public class SpecialItem extends Item {\n");
+      code.append("}\n");
+      resources.add(new StaticJavaResource("SpecialItem", code));
+    }
+
+    TreeLogger logger = createLogger();
+    TypeOracle to = TypeOracleTestingUtils.buildTypeOracle(logger, resources);
+
+    JClassType dto = to.getType("Dto");
+    JClassType item = to.getType("Item");
+    JClassType specialItem = to.getType("SpecialItem");
+    JArrayType itemArray = to.getArrayType(item);
+    JArrayType specialItemArray = to.getArrayType(specialItem);
+
+    SerializableTypeOracleBuilder first = createSerializableTypeOracleBuilder(logger, to);
+    first.setSharedAnalysisKey("test");
+    first.addRootType(logger, dto);
+    SerializableTypeOracle firstSto = first.build(logger);
+
+    // Reuses the analysis of Dto and adds Item in the other order.
+    SerializableTypeOracleBuilder second = createSerializableTypeOracleBuilder(logger, to);
+    second.setSharedAnalysisKey("test");
+    second.addRootType(logger, item);
+    second.addRootType(logger, dto);
+    SerializableTypeOracle secondSto = second.build(logger);
+
+    SerializableTypeOracleBuilder unshared = createSerializableTypeOracleBuilder(logger, to);
+    unshared.addRootType(logger, dto);
+    unshared.addRootType(logger, item);
+    SerializableTypeOracle unsharedSto = unshared.build(logger);
+
+    for (SerializableTypeOracle sto : Arrays.asList(firstSto, secondSto, unsharedSto)) {
+      assertSerializableTypes(sto, dto, item, specialItem, itemArray, specialItemArray);
+      assertInstantiable(sto, dto);
+      assertInstantiable(sto, item);
+      assertInstantiable(sto, specialItem);
+      assertInstantiable(sto, itemArray);
+      assertInstantiable(sto, specialItemArray);
+    }
+  }
+
+  /**
+   * Tests that a shared analysis is not reused once a generator has added a
+   * subtype of a type reachable from the root.
+   */
+  public void testSharedRootAnalysesSeeGeneratedSubtypes() throws NotFoundException,
+      UnableToCompleteException {
+    Set<Resource> resources = new HashSet<Resource>();
+    addStandardClasses(resources);
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("import java.io.Serializable;\n");
+      code.append("public class Dto implements Serializable {\n");
+      code.append("  Item item;\n");
+      code.append("}\n");
+      resources.add(new StaticJavaResource("Dto", code));
+    }
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("import java.io.Serializable;\n");
+      code.append("public class Item implements Serializable {\n");
+      code.append("}\n");
+      resources.add(new StaticJavaResource("Item", code));
+    }
+
+    TreeLogger logger = createLogger();
+    CompilationState state = TypeOracleTestingUtils.buildCompilationState(logger, resources,
+        Collections.<GeneratedUnit> emptySet());
+    TypeOracle to = state.getTypeOracle();
+
+    JClassType dto = to.getType("Dto");
+    JClassType item = to.getType("Item");
+
+    SerializableTypeOracleBuilder first = createSerializableTypeOracleBuilder(logger, to);
+    first.setSharedAnalysisKey("test");
+    first.addRootType(logger, dto);
+    SerializableTypeOracle firstSto = first.build(logger);
+    assertSerializableTypes(firstSto, dto, item);
+
+    {
+      StringBuilder code = new StringBuilder();
+      code.append("public class GeneratedItem extends Item {\n");
+      code.append("}\n");
+      state.addGeneratedCompilationUnits(logger, CompilationStateTestBase.getGeneratedUnits(
+          new StaticJavaResource("GeneratedItem", code)));
+    }
+    JClassType generatedItem = to.getType("GeneratedItem");
+
+    SerializableTypeOracleBuilder second = createSerializableTypeOracleBuilder(logger, to);
+    second.setSharedAnalysisKey("test");
+    second.addRootType(logger, dto);
+    SerializableTypeOracle secondSto = second.build(logger);
+    assertSerializableTypes(secondSto, dto, item, generatedItem);
+    assertInstantiable(secondSto, generatedItem);
+  }
+
   /**
    * Tests that type String[][] also pulls in String[].
    */
@@ -17,6 +17,7 @@ package com.google.gwt.user.server.rpc;
 
 import com.google.gwt.user.client.rpc.IsSerializable;
 import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.impl.RpcBatch;
 
 import junit.framework.TestCase;
 
@@ -26,8 +27,11 @@ import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.EventListener;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -61,6 +65,31 @@ public class RemoteServiceServletTest extends TestCase {
   private static class Foo implements IsSerializable {
   }
 
+  /**
+   * A servlet whose calls return their payload, or throw if it is "throw".
+   */
+  private static class MockBatchingServlet extends RemoteServiceServlet {
+    private final List<String> log = new ArrayList<String>();
+
+    @Override
+    public String processCall(String payload) {
+      if ("throw".equals(payload)) {
+        throw new IllegalStateException("Call failed");
+      }
+      return "//OK" + payload;
+    }
+
+    @Override
+    protected void onAfterResponseSerialized(String serializedResponse) {
+      log.add("response " + serializedResponse);
+    }
+
+    @Override
+    protected void onBeforeRequestDeserialized(String serializedRequest) {
+      log.add("request " + serializedRequest);
+    }
+  }
+
   private static class MockHttpServletRequestContextPath extends
       MockHttpServletRequest {
     private String contextPath;
@@ -407,6 +436,40 @@ public class RemoteServiceServletTest extends TestCase {
     assertNotValidDeserialize(serializationPolicy, Baz.class);
   }
 
+  public void testProcessBatch() throws ServletException,
+      SerializationException {
+    MockServletContext mockContext = new MockServletContext();
+    MockBatchingServlet servlet = new MockBatchingServlet();
+    servlet.init(new MockServletConfig(mockContext));
+
+    StringBuilder payload = new StringBuilder();
+    RpcBatch.appendPart(payload, "12:ab");
+    RpcBatch.appendPart(payload, "throw");
+    RpcBatch.appendPart(payload, "");
+    List<String> responses = RpcBatch.split(servlet.processBatch(payload.toString()));
+
+    // The failure of the second call does not affect the others
+    assertEquals(Arrays.asList("200", "//OK12:ab", "500",
+        RPCServletUtils.GENERIC_FAILURE_MSG, "200", "//OK"), responses);
+    assertNotNull(mockContext.messageLogged);
+    assertEquals(Arrays.asList("request 12:ab", "response //OK12:ab", "request throw",
+        "request ", "response //OK"), servlet.log);
+  }
+
+  public void testProcessBatch_Malformed() throws ServletException {
+    MockBatchingServlet servlet = new MockBatchingServlet();
+    servlet.init(new MockServletConfig(new MockServletContext()));
+
+    for (String payload : new String[] {"3:ab", "x:ab", "ab", "-1:ab", "2:ab1"}) {
+      try {
+        servlet.processBatch(payload);
+        fail("Expected SerializationException for " + payload);
+      } catch (SerializationException expected) {
+      }
+    }
+    assertTrue(servlet.log.isEmpty());
+  }
+
   private void assertDeserializeFields(SerializationPolicy policy,
       Class<?> clazz) {
     assertTrue(policy.shouldDeserializeFields(clazz));
@@ -133,17 +133,28 @@ public class ServerSerializationStreamWriterTest extends TestCase {
     writer.writeString(longString.toString());
     String encoded = writer.toString();
     assertEquals("7", encoded.substring(encoded.lastIndexOf(",") + 1, encoded.lastIndexOf("]")));
+  }
 
-    // Fallbacks to 7 if array size reached maximum
-    int maxArrayLength =
+  public void testVersion8LargeArrays() {
+    int arrayLength =
         ServerSerializationStreamWriter.LengthConstrainedArray.MAXIMUM_ARRAY_LENGTH + 100;
-    writer = new ServerSerializationStreamWriter(null, 8);
-    for (int i = 0; i < maxArrayLength; i++) {
+
+    // Version 8 arrays stay JSON whatever their size
+    ServerSerializationStreamWriter writer = new ServerSerializationStreamWriter(null, 8);
+    for (int i = 0; i < arrayLength; i++) {
       writer.writeInt(i);
     }
+    String encoded = writer.toString();
+    assertEquals("8", encoded.substring(encoded.lastIndexOf(",") + 1, encoded.lastIndexOf("]")));
+    assertFalse(encoded.contains("concat"));
 
+    // Version 7 arrays are still split
+    writer = new ServerSerializationStreamWriter(null, 7);
+    for (int i = 0; i < arrayLength; i++) {
+      writer.writeInt(i);
+    }
     encoded = writer.toString();
-    assertEquals("7", encoded.substring(encoded.lastIndexOf(",") + 1, encoded.lastIndexOf("]")));
+    assertTrue(encoded.contains("].concat(["));
   }
 
 }
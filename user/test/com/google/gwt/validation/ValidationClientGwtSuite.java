@@ -17,6 +17,7 @@ package com.google.gwt.validation;
 
 import com.google.gwt.junit.tools.GWTTestSuite;
 import com.google.gwt.validation.client.BaseMessageInterpolatorTest;
+import com.google.gwt.validation.client.SharedConstraintDescriptorsTest;
 import com.google.gwt.validation.client.SimpleSampleTest;
 import com.google.gwt.validation.client.impl.GwtValidatorContextTest;
 
@@ -32,6 +33,7 @@ public class ValidationClientGwtSuite {
         "Test suite for all validation code.");
     suite.addTestSuite(BaseMessageInterpolatorTest.class);
     suite.addTestSuite(GwtValidatorContextTest.class);
+    suite.addTestSuite(SharedConstraintDescriptorsTest.class);
     suite.addTestSuite(SimpleSampleTest.class);
     return suite;
   }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.validation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.metadata.ConstraintDescriptor;
+
+/**
+ * Tests the validators generated with the
+ * {@code validation.shareConstraintDescriptors} configuration property set.
+ */
+public class SharedConstraintDescriptorsTest extends GWTTestCase {
+
+  /**
+   * A bean which repeats a constraint of {@link Customer}.
+   */
+  public static class Account {
+    @NotNull
+    @Size(max = 5)
+    public String owner;
+  }
+
+  /**
+   * A bean which repeats its own constraints.
+   */
+  public static class Customer {
+    @NotNull
+    @Size(max = 5)
+    public String firstName;
+
+    @NotNull
+    @Size(max = 5)
+    public String lastName;
+
+    @Size(min = 2)
+    public String nickname;
+  }
+
+  private Validator validator;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.validation.SharedConstraintDescriptorsTest";
+  }
+
+  public void testDescriptorsAreShared() {
+    ConstraintDescriptor<?> firstNameSize = getConstraint(Customer.class, "firstName", Size.class);
+    ConstraintDescriptor<?> lastNameSize = getConstraint(Customer.class, "lastName", Size.class);
+    ConstraintDescriptor<?> ownerSize = getConstraint(Account.class, "owner", Size.class);
+    assertSame(firstNameSize.getAnnotation(), lastNameSize.getAnnotation());
+    assertSame(firstNameSize.getAnnotation(), ownerSize.getAnnotation());
+    assertSame(getConstraint(Customer.class, "firstName", NotNull.class).getAnnotation(),
+        getConstraint(Account.class, "owner", NotNull.class).getAnnotation());
+
+    ConstraintDescriptor<?> nicknameSize = getConstraint(Customer.class, "nickname", Size.class);
+    assertNotSame(firstNameSize.getAnnotation(), nicknameSize.getAnnotation());
+    assertEquals(5, ((Size) firstNameSize.getAnnotation()).max());
+    assertEquals(2, ((Size) nicknameSize.getAnnotation()).min());
+    assertEquals(5, firstNameSize.getAttributes().get("max"));
+    assertEquals(2, nicknameSize.getAttributes().get("min"));
+  }
+
+  public void testValidate() {
+    Customer customer = new Customer();
+    customer.firstName = "Al";
+    customer.lastName = "Smithson";
+    customer.nickname = "A";
+    assertEquals(asSet("lastName", "nickname"), getPropertyPaths(validator.validate(customer)));
+
+    customer.lastName = null;
+    customer.nickname = "Ace";
+    Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+    assertEquals(asSet("lastName"), getPropertyPaths(violations));
+    assertEquals(NotNull.class,
+        violations.iterator().next().getConstraintDescriptor().getAnnotation().annotationType());
+
+    Account account = new Account();
+    assertEquals(asSet("owner"), getPropertyPaths(validator.validate(account)));
+    account.owner = "Al";
+    assertTrue(validator.validate(account).isEmpty());
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    super.gwtSetUp();
+    validator = Validation.buildDefaultValidatorFactory().getValidator();
+  }
+
+  private Set<String> asSet(String... values) {
+    Set<String> set = new HashSet<String>();
+    for (String value : values) {
+      set.add(value);
+    }
+    return set;
+  }
+
+  private ConstraintDescriptor<?> getConstraint(Class<?> beanType, String property,
+      Class<? extends Annotation> annotationType) {
+    for (ConstraintDescriptor<?> constraint : validator.getConstraintsForClass(beanType)
+        .getConstraintsForProperty(property).getConstraintDescriptors()) {
+      if (constraint.getAnnotation().annotationType() == annotationType) {
+        return constraint;
+      }
+    }
+    fail("No @" + annotationType.getName() + " on " + property);
+    return null;
+  }
+
+  private <T> Set<String> getPropertyPaths(Set<ConstraintViolation<T>> violations) {
+    Set<String> paths = new HashSet<String>();
+    for (ConstraintViolation<T> violation : violations) {
+      paths.add(violation.getPropertyPath().toString());
+    }
+    return paths;
+  }
+}
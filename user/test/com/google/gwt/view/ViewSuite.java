@@ -22,6 +22,7 @@ import com.google.gwt.view.client.AsyncDataProviderTest;
 import com.google.gwt.view.client.DefaultNodeInfoTest;
 import com.google.gwt.view.client.DefaultSelectionEventManagerTest;
 import com.google.gwt.view.client.DefaultSelectionModelTest;
+import com.google.gwt.view.client.IndexedListDataProviderTest;
 import com.google.gwt.view.client.ListDataProviderTest;
 import com.google.gwt.view.client.MultiSelectionModelTest;
 import com.google.gwt.view.client.NoSelectionModelTest;
@@ -44,6 +45,7 @@ public class ViewSuite {
     suite.addTestSuite(DefaultNodeInfoTest.class);
     suite.addTestSuite(DefaultSelectionEventManagerTest.class);
     suite.addTestSuite(DefaultSelectionModelTest.class);
+    suite.addTestSuite(IndexedListDataProviderTest.class);
     suite.addTestSuite(ListDataProviderTest.class);
     suite.addTestSuite(MultiSelectionModelTest.class);
     suite.addTestSuite(NoSelectionModelTest.class);
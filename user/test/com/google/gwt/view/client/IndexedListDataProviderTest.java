@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.view.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.view.client.IndexedListDataProvider.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Test cases for {@link IndexedListDataProvider}.
+ */
+public class IndexedListDataProviderTest extends GWTTestCase {
+
+  /**
+   * Records the ranges of all rows pushed to it.
+   */
+  private static class RecordingHasData<T> extends MockHasData<T> {
+    private final List<Range> pushedRanges = new ArrayList<Range>();
+
+    @Override
+    public void setRowData(int start, List<? extends T> values) {
+      super.setRowData(start, values);
+      pushedRanges.add(new Range(start, values.size()));
+    }
+  }
+
+  /**
+   * Accepts the even numbers.
+   */
+  private static final Filter<Integer> EVEN = new Filter<Integer>() {
+    @Override
+    public boolean accept(Integer item) {
+      return item % 2 == 0;
+    }
+  };
+
+  private static final Comparator<Integer> REVERSE = Collections.reverseOrder();
+
+  /**
+   * Keys strings by their first character.
+   */
+  private static IndexedListDataProvider<String> createKeyedProvider() {
+    return new IndexedListDataProvider<String>(new ProvidesKey<String>() {
+      @Override
+      public Object getKey(String item) {
+        return item.charAt(0);
+      }
+    });
+  }
+
+  private IndexedListDataProvider<Integer> provider;
+  private MockHasData<Integer> display;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.view.View";
+  }
+
+  public void testAddAndRemove() {
+    provider.addAll(Arrays.asList(5, 1, 3));
+    provider.flush();
+    assertEquals(Arrays.asList(5, 1, 3), display.getLastRowData());
+    assertEquals(3, display.getRowCount());
+
+    provider.setComparator(REVERSE);
+    provider.flush();
+    assertEquals(Arrays.asList(5, 3, 1), provider.getView());
+    assertEquals(new Range(1, 2), display.getLastRowDataRange());
+
+    // Inserting pushes the rows from the insertion point.
+    provider.add(4);
+    provider.flush();
+    assertEquals(Arrays.asList(5, 4, 3, 1), provider.getView());
+    assertEquals(new Range(1, 3), display.getLastRowDataRange());
+    assertEquals(4, display.getRowCount());
+
+    // Removing pushes the rows from the removal point.
+    assertTrue(provider.remove(5));
+    assertFalse(provider.remove(5));
+    provider.flush();
+    assertEquals(Arrays.asList(4, 3, 1), display.getLastRowData());
+    assertEquals(3, display.getRowCount());
+  }
+
+  public void testAddAll() {
+    provider.setComparator(REVERSE);
+    provider.addAll(Arrays.asList(1, 3, 2));
+    provider.addAll(Arrays.asList(5, 2, 4));
+    provider.flush();
+    assertEquals(Arrays.asList(5, 4, 3, 2, 1), provider.getView());
+    assertEquals(5, provider.getItemCount());
+
+    IndexedListDataProvider<String> keyed = createKeyedProvider();
+    keyed.addAll(Arrays.asList("a1", "b1", "c1"));
+    // Replaced items keep their positions, and the last of several wins.
+    keyed.addAll(Arrays.asList("d1", "b2", "a2", "b3"));
+    assertEquals(Arrays.asList("a2", "b3", "c1", "d1"), keyed.getView());
+  }
+
+  public void testFilter() {
+    provider.addAll(Arrays.asList(0, 1, 2, 3, 4, 5));
+    provider.flush();
+
+    provider.setFilter(EVEN);
+    provider.flush();
+    assertEquals(Arrays.asList(0, 2, 4), provider.getView());
+    assertEquals(new Range(1, 2), display.getLastRowDataRange());
+    assertEquals(3, display.getRowCount());
+    assertEquals(6, provider.getItemCount());
+
+    // Items which do not pass the filter do not change the view.
+    display.clearLastRowDataAndRange();
+    provider.add(7);
+    provider.flush();
+    assertNull(display.getLastRowDataRange());
+
+    provider.setFilter(null);
+    provider.flush();
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 7), provider.getView());
+    assertEquals(7, display.getRowCount());
+  }
+
+  public void testOnlyChangedVisibleRowsArePushed() {
+    IndexedListDataProvider<String> keyed = createKeyedProvider();
+    RecordingHasData<String> recording = new RecordingHasData<String>();
+    recording.setVisibleRange(0, 3);
+    keyed.addDataDisplay(recording);
+    keyed.addAll(Arrays.asList("a1", "b1", "c1", "d1", "e1"));
+    keyed.flush();
+    assertEquals(Arrays.asList(new Range(0, 3)), recording.pushedRanges);
+
+    // Each update pushes its own row, not the rows between them.
+    recording.pushedRanges.clear();
+    keyed.add("a2");
+    keyed.add("c2");
+    keyed.flush();
+    assertEquals(Arrays.asList(new Range(0, 1), new Range(2, 1)), recording.pushedRanges);
+
+    // Rows past the visible range are not pushed.
+    recording.pushedRanges.clear();
+    keyed.add("e2");
+    keyed.remove("d1");
+    keyed.flush();
+    assertEquals(Collections.<Range> emptyList(), recording.pushedRanges);
+    assertEquals(4, recording.getRowCount());
+
+    // Inserting shifts the visible rows after the new one, so they are pushed.
+    keyed.setComparator(new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return a.compareTo(b);
+      }
+    });
+    keyed.flush();
+    recording.pushedRanges.clear();
+    keyed.add("B1");
+    keyed.flush();
+    assertEquals(Arrays.asList(new Range(0, 3)), recording.pushedRanges);
+    assertEquals(Arrays.asList("B1", "a2", "b1"), recording.getLastRowData());
+  }
+
+  public void testUpdateOnlyPushesChangedRows() {
+    IndexedListDataProvider<String> keyed = createKeyedProvider();
+    MockHasData<String> keyedDisplay = new MockHasData<String>();
+    keyedDisplay.setVisibleRange(0, 10);
+    keyed.addDataDisplay(keyedDisplay);
+    keyed.addAll(Arrays.asList("a1", "b1", "c1", "d1"));
+    keyed.flush();
+
+    // Without a comparator the item keeps its position.
+    keyed.add("b2");
+    keyed.flush();
+    assertEquals(Arrays.asList("a1", "b2", "c1", "d1"), keyed.getView());
+    assertEquals(new Range(1, 1), keyedDisplay.getLastRowDataRange());
+
+    // With a comparator the rows between the old and new positions move.
+    keyed.setComparator(new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return a.charAt(1) - b.charAt(1);
+      }
+    });
+    keyed.flush();
+    assertEquals(Arrays.asList("a1", "c1", "d1", "b2"), keyed.getView());
+    keyed.add("c2");
+    keyed.flush();
+    assertEquals(Arrays.asList("a1", "d1", "b2", "c2"), keyed.getView());
+    assertEquals(new Range(1, 3), keyedDisplay.getLastRowDataRange());
+    assertEquals(4, keyedDisplay.getRowCount());
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    provider = new IndexedListDataProvider<Integer>();
+    display = new MockHasData<Integer>();
+    display.setVisibleRange(0, 10);
+    provider.addDataDisplay(display);
+  }
+}
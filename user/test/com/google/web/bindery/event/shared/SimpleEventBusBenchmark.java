@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.web.bindery.event.shared;
+
+/**
+ * Times firing events through a {@link ResettableEventBus} wrapping a
+ * {@link SimpleEventBus}, with and without a source, while a handler adds and
+ * removes another handler during every hundredth event. Run it as an
+ * application; the optional arguments are the number of events and the number
+ * of rounds.
+ */
+public class SimpleEventBusBenchmark {
+
+  private static final int HANDLERS = 10;
+
+  private static int sink;
+
+  public static void main(String[] args) {
+    int events = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+    final ResettableEventBus eventBus = new ResettableEventBus(new SimpleEventBus());
+    FooEvent.Handler handler = new FooEvent.Handler() {
+      @Override
+      public void onFoo(FooEvent e) {
+        sink++;
+      }
+    };
+    final FooEvent.Handler transientHandler = new FooEvent.Handler() {
+      @Override
+      public void onFoo(FooEvent e) {
+        sink--;
+      }
+    };
+    for (int i = 0; i < HANDLERS; ++i) {
+      FooEvent.register(eventBus, handler);
+      FooEvent.register(eventBus, "source", handler);
+    }
+    FooEvent.register(eventBus, new FooEvent.Handler() {
+      @Override
+      public void onFoo(FooEvent e) {
+        if (sink % 100 == 0) {
+          FooEvent.register(eventBus, transientHandler).removeHandler();
+        }
+      }
+    });
+
+    FooEvent event = new FooEvent();
+    for (int round = 1; round <= rounds; ++round) {
+      long globalNanos = System.nanoTime();
+      for (int i = 0; i < events; ++i) {
+        eventBus.fireEvent(event);
+      }
+      globalNanos = System.nanoTime() - globalNanos;
+
+      long sourcedNanos = System.nanoTime();
+      for (int i = 0; i < events; ++i) {
+        eventBus.fireEventFromSource(event, "source");
+      }
+      sourcedNanos = System.nanoTime() - sourcedNanos;
+
+      System.out.println("Round " + round + ": " + events + " events, global "
+          + globalNanos / 1000000 + " ms, from source " + sourcedNanos / 1000000 + " ms");
+    }
+  }
+}
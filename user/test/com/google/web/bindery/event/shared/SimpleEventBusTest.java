@@ -234,6 +234,31 @@ public class SimpleEventBusTest extends EventBusTestBase {
     assertNotFired(two);
   }
 
+  public void testConcurrentChangesDuringNestedFire() {
+    final SimpleEventBus eventBus = new SimpleEventBus();
+    final HandlerRegistration reg = FooEvent.register(eventBus, fooHandler1);
+    BarEvent.Handler nested = new BarEvent.Handler() {
+      @Override
+      public void onBar(BarEvent event) {
+        // The changes wait for the outermost event, not the nested one.
+        FooEvent.register(eventBus, fooHandler2);
+        reg.removeHandler();
+        eventBus.fireEvent(new FooEvent());
+        add(this);
+      }
+    };
+    eventBus.addHandler(BarEvent.TYPE, nested);
+
+    eventBus.fireEvent(new BarEvent());
+    assertFired(nested, fooHandler1);
+    assertNotFired(fooHandler2);
+
+    reset();
+    eventBus.fireEvent(new FooEvent());
+    assertFired(fooHandler2);
+    assertNotFired(fooHandler1);
+  }
+
   public void testConcurrentRemove() {
     final SimpleEventBus eventBus = new SimpleEventBus();
 
@@ -268,6 +293,19 @@ public class SimpleEventBusTest extends EventBusTestBase {
     assertNotFired(baker);
   }
 
+  @SuppressWarnings("deprecation")
+  public void testGetHandler() {
+    SimpleEventBus eventBus = new SimpleEventBus();
+    assertGetHandlerOutOfBounds(eventBus, 0);
+
+    FooEvent.register(eventBus, fooHandler1);
+    FooEvent.register(eventBus, "source", fooHandler2);
+    assertSame(fooHandler1, eventBus.getHandler(FooEvent.TYPE, 0));
+    // The handler arrays have spare room past the last handler
+    assertGetHandlerOutOfBounds(eventBus, 1);
+    assertGetHandlerOutOfBounds(eventBus, -1);
+  }
+
   public void testHandlersThrow() {
     RuntimeException exception1 = new RuntimeException("first exception");
     RuntimeException exception2 = new RuntimeException("second exception");
@@ -456,4 +494,14 @@ public class SimpleEventBusTest extends EventBusTestBase {
       /* pass */
     }
   }
+
+  @SuppressWarnings("deprecation")
+  private void assertGetHandlerOutOfBounds(SimpleEventBus eventBus, int index) {
+    try {
+      eventBus.getHandler(FooEvent.TYPE, index);
+      fail("Expected IndexOutOfBoundsException for index " + index);
+    } catch (IndexOutOfBoundsException e) {
+      /* pass */
+    }
+  }
 }